@@ -0,0 +1,49 @@
+package com.benchmark.dispatch;
+
+import com.benchmark.mock.MockHttpServletRequest;
+import com.nf.mvc.argument.BeanMethodArgumentResolver;
+import com.nf.mvc.argument.MethodParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BeanMethodArgumentResolver}绑定{@link OrderForm}的开销，它有6个属性，
+ * 其中customer是嵌套对象，customer又嵌套了address，一共12个setter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanBindingBenchmark {
+  private final BeanMethodArgumentResolver resolver = new BeanMethodArgumentResolver();
+  private MethodParameter parameter;
+  private MockHttpServletRequest request;
+
+  @Setup
+  public void setup() throws Exception {
+    MvcFixture.dispatcherServlet();
+    parameter = new MethodParameter(BenchmarkController.class.getMethod("order", OrderForm.class), 0, "order");
+    request = OrderForms.request("/bench/order");
+    OrderForm order = (OrderForm) resolver.resolveArgument(parameter, request);
+    if (!"广州".equals(order.getCustomer().getAddress().getCity())) {
+      throw new IllegalStateException("嵌套属性没有绑定");
+    }
+  }
+
+  @Benchmark
+  public Object bind() throws Exception {
+    return resolver.resolveArgument(parameter, request);
+  }
+}
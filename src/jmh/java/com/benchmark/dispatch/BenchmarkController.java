@@ -0,0 +1,59 @@
+package com.benchmark.dispatch;
+
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.argument.PathVariable;
+import com.nf.mvc.mapping.RequestMapping;
+import com.nf.mvc.view.JsonViewResult;
+import com.nf.mvc.view.PlainViewResult;
+
+import java.util.List;
+
+/**
+ * 基准测试使用的handler，除了被测量的地址，还有{@link CatalogController}等其它控制器提供的一些地址，
+ * 让查找handler时的地址表接近一个普通的项目
+ */
+@RequestMapping("/bench")
+public class BenchmarkController {
+  static final List<Item> SMALL = Item.list(1);
+  static final List<Item> LARGE = Item.list(1000);
+
+  @RequestMapping("/literal")
+  public ViewResult literal() {
+    return new PlainViewResult("ok");
+  }
+
+  @RequestMapping("/items/{id}")
+  public ViewResult item(@PathVariable("id") long id) {
+    return new PlainViewResult(String.valueOf(id));
+  }
+
+  @RequestMapping("/json/small")
+  public ViewResult smallJson() {
+    return new JsonViewResult(SMALL);
+  }
+
+  @RequestMapping("/json/large")
+  public ViewResult largeJson() {
+    return new JsonViewResult(LARGE);
+  }
+
+  @RequestMapping("/order")
+  public ViewResult order(OrderForm order) {
+    return new PlainViewResult(order.getCustomer().getAddress().getCity());
+  }
+
+  @RequestMapping("/args/0")
+  public String zero() {
+    return "0";
+  }
+
+  @RequestMapping("/args/3")
+  public String three(int a, String b, long c) {
+    return b;
+  }
+
+  @RequestMapping("/args/10")
+  public String ten(int a, String b, long c, double d, boolean e, Integer f, String g, long h, int i, String j) {
+    return j;
+  }
+}
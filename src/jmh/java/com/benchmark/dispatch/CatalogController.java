@@ -0,0 +1,80 @@
+package com.benchmark.dispatch;
+
+import com.nf.mvc.argument.PathVariable;
+import com.nf.mvc.mapping.RequestMapping;
+
+/**
+ * 只是用来填充地址表的handler，基准测试不会请求这些地址
+ */
+@RequestMapping("/api")
+public class CatalogController {
+  @RequestMapping("/products")
+  public String products() {
+    return "";
+  }
+
+  @RequestMapping("/products/{id}")
+  public String product(@PathVariable("id") long id) {
+    return "";
+  }
+
+  @RequestMapping("/products/{id}/reviews")
+  public String reviews(@PathVariable("id") long id) {
+    return "";
+  }
+
+  @RequestMapping("/products/{id}/reviews/{reviewId}")
+  public String review(@PathVariable("id") long id, @PathVariable("reviewId") long reviewId) {
+    return "";
+  }
+
+  @RequestMapping("/categories")
+  public String categories() {
+    return "";
+  }
+
+  @RequestMapping("/categories/{name}/products")
+  public String categoryProducts(@PathVariable("name") String name) {
+    return "";
+  }
+
+  @RequestMapping("/users")
+  public String users() {
+    return "";
+  }
+
+  @RequestMapping("/users/{id}")
+  public String user(@PathVariable("id") long id) {
+    return "";
+  }
+
+  @RequestMapping("/users/{id}/orders")
+  public String userOrders(@PathVariable("id") long id) {
+    return "";
+  }
+
+  @RequestMapping("/orders/{id}")
+  public String order(@PathVariable("id") long id) {
+    return "";
+  }
+
+  @RequestMapping("/orders/{id}/items")
+  public String orderItems(@PathVariable("id") long id) {
+    return "";
+  }
+
+  @RequestMapping("/search")
+  public String search(String q) {
+    return "";
+  }
+
+  @RequestMapping("/files/**")
+  public String files() {
+    return "";
+  }
+
+  @RequestMapping("/admin/*/settings")
+  public String settings() {
+    return "";
+  }
+}
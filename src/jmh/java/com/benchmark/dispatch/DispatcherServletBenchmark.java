@@ -0,0 +1,81 @@
+package com.benchmark.dispatch;
+
+import com.benchmark.mock.MockHttpServletRequest;
+import com.benchmark.mock.MockHttpServletResponse;
+import com.nf.mvc.DispatcherServlet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整的请求处理路径：DispatcherServlet.service -> 查找handler -> 解析参数 -> 调用handler -> 渲染视图，
+ * 请求与响应是可以反复使用的模拟对象，响应体只计算字节数
+ * <ul>
+ *     <li>literalRoute：没有参数的固定地址，返回纯文本，是框架自身开销的下限</li>
+ *     <li>parameterizedRoute：带路径变量的地址</li>
+ *     <li>beanBinding：绑定两层嵌套的表单对象</li>
+ *     <li>smallJson：序列化一个元素的列表</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatcherServletBenchmark {
+  private DispatcherServlet servlet;
+  private MockHttpServletRequest literal;
+  private MockHttpServletRequest parameterized;
+  private MockHttpServletRequest order;
+  private MockHttpServletRequest smallJson;
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @Setup
+  public void setup() {
+    servlet = MvcFixture.dispatcherServlet();
+    literal = MvcFixture.request("GET", "/bench/literal");
+    parameterized = MvcFixture.request("GET", "/bench/items/42");
+    order = OrderForms.request("/bench/order");
+    smallJson = MvcFixture.request("GET", "/bench/json/small");
+    for (MockHttpServletRequest request : new MockHttpServletRequest[]{literal, parameterized, order, smallJson}) {
+      MvcFixture.verify(request, response);
+    }
+  }
+
+  @Benchmark
+  public long literalRoute() throws Exception {
+    return service(literal);
+  }
+
+  @Benchmark
+  public long parameterizedRoute() throws Exception {
+    return service(parameterized);
+  }
+
+  @Benchmark
+  public long beanBinding() throws Exception {
+    return service(order);
+  }
+
+  @Benchmark
+  public long smallJson() throws Exception {
+    return service(smallJson);
+  }
+
+  private long service(MockHttpServletRequest request) throws Exception {
+    request.clearAttributes();
+    response.recycle();
+    servlet.service(request, response);
+    return response.getBytesWritten();
+  }
+}
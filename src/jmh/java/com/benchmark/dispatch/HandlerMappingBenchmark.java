@@ -0,0 +1,73 @@
+package com.benchmark.dispatch;
+
+import com.benchmark.mock.MockHttpServletRequest;
+import com.nf.mvc.HandlerExecutionChain;
+import com.nf.mvc.mapping.RequestMappingHandlerMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RequestMappingHandlerMapping#getHandler(javax.servlet.http.HttpServletRequest)}查找handler的开销，
+ * 它按照请求地址缓存查找结果(最多100个地址)
+ * <ul>
+ *     <li>literal：固定地址，总是命中缓存</li>
+ *     <li>parameterizedCached：带路径变量的地址，但总是同一个值，也总是命中缓存</li>
+ *     <li>parameterizedUncached：路径变量在1024个值之间轮换，超出了缓存的容量，
+ *     大部分请求要对所有地址模式排序并逐个匹配，这是真实项目中按id访问资源时的情况</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlerMappingBenchmark {
+  private static final int DISTINCT_IDS = 1024;
+
+  private RequestMappingHandlerMapping mapping;
+  private MockHttpServletRequest literal;
+  private MockHttpServletRequest parameterized;
+  private MockHttpServletRequest[] rotating;
+  private int index;
+
+  @Setup
+  public void setup() throws Exception {
+    mapping = MvcFixture.handlerMapping();
+    literal = MvcFixture.request("GET", "/bench/literal");
+    parameterized = MvcFixture.request("GET", "/bench/items/42");
+    rotating = new MockHttpServletRequest[DISTINCT_IDS];
+    for (int i = 0; i < DISTINCT_IDS; i++) {
+      rotating[i] = MvcFixture.request("GET", "/bench/items/" + i);
+      if (mapping.getHandler(rotating[i]) == null) {
+        throw new IllegalStateException("找不到handler:" + rotating[i].getRequestURI());
+      }
+    }
+  }
+
+  @Benchmark
+  public HandlerExecutionChain literal() throws Exception {
+    return mapping.getHandler(literal);
+  }
+
+  @Benchmark
+  public HandlerExecutionChain parameterizedCached() throws Exception {
+    return mapping.getHandler(parameterized);
+  }
+
+  @Benchmark
+  public HandlerExecutionChain parameterizedUncached() throws Exception {
+    index = (index + 1) & (DISTINCT_IDS - 1);
+    return mapping.getHandler(rotating[index]);
+  }
+}
@@ -0,0 +1,60 @@
+package com.benchmark.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 序列化为json的数据，{@link #list(int)}生成指定数量的元素，用来对比小的与大的响应体
+ */
+public class Item {
+  private final long id;
+  private final String name;
+  private final String description;
+  private final double price;
+  private final boolean available;
+  private final List<String> tags;
+
+  public Item(long id, String name, String description, double price, boolean available, List<String> tags) {
+    this.id = id;
+    this.name = name;
+    this.description = description;
+    this.price = price;
+    this.available = available;
+    this.tags = tags;
+  }
+
+  public static List<Item> list(int count) {
+    List<Item> items = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      List<String> tags = new ArrayList<>();
+      tags.add("tag" + (i % 7));
+      tags.add("分类" + (i % 3));
+      items.add(new Item(i, "商品" + i, "这是第" + i + "个商品的描述,包含一些中文与English混合的内容", i * 1.5, i % 2 == 0, tags));
+    }
+    return items;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public double getPrice() {
+    return price;
+  }
+
+  public boolean isAvailable() {
+    return available;
+  }
+
+  public List<String> getTags() {
+    return tags;
+  }
+}
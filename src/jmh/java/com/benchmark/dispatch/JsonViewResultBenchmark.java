@@ -0,0 +1,59 @@
+package com.benchmark.dispatch;
+
+import com.benchmark.mock.MockHttpServletRequest;
+import com.benchmark.mock.MockHttpServletResponse;
+import com.nf.mvc.view.JsonViewResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonViewResult}渲染的开销，small是1个元素的列表(约150字节)，large是1000个元素的列表(约150K字节)，
+ * 同时测量启用弱ETag时边序列化边计算摘要的额外成本
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonViewResultBenchmark {
+  @Param({"small", "large"})
+  public String payload;
+
+  private List<Item> items;
+  private MockHttpServletRequest request;
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  @Setup
+  public void setup() {
+    MvcFixture.dispatcherServlet();
+    items = "small".equals(payload) ? BenchmarkController.SMALL : BenchmarkController.LARGE;
+    request = MvcFixture.request("GET", "/bench/json/" + payload);
+  }
+
+  @Benchmark
+  public long render() throws Exception {
+    response.recycle();
+    new JsonViewResult(items).render(request, response);
+    return response.getBytesWritten();
+  }
+
+  @Benchmark
+  public long renderWithETag() throws Exception {
+    response.recycle();
+    new JsonViewResult(items, true).render(request, response);
+    return response.getBytesWritten();
+  }
+}
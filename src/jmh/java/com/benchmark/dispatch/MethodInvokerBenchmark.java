@@ -0,0 +1,70 @@
+package com.benchmark.dispatch;
+
+import com.benchmark.mock.MockHttpServletRequest;
+import com.benchmark.mock.MockHttpServletResponse;
+import com.nf.mvc.ServletExchange;
+import com.nf.mvc.support.MethodInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MethodInvoker}解析参数并反射调用handler方法的开销，参数都是从请求参数转换而来的简单类型，
+ * 对比0个、3个与10个参数，可以看出每个参数的解析成本
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MethodInvokerBenchmark {
+  @Param({"0", "3", "10"})
+  public int parameterCount;
+
+  private final BenchmarkController controller = new BenchmarkController();
+  private MethodInvoker invoker;
+  private Method method;
+  private ServletExchange exchange;
+
+  @Setup
+  public void setup() throws Exception {
+    invoker = new MethodInvoker(MvcFixture.argumentResolvers());
+    switch (parameterCount) {
+      case 0:
+        method = BenchmarkController.class.getMethod("zero");
+        break;
+      case 3:
+        method = BenchmarkController.class.getMethod("three", int.class, String.class, long.class);
+        break;
+      case 10:
+        method = BenchmarkController.class.getMethod("ten", int.class, String.class, long.class, double.class,
+                boolean.class, Integer.class, String.class, long.class, int.class, String.class);
+        break;
+      default:
+        throw new IllegalArgumentException(String.valueOf(parameterCount));
+    }
+    MockHttpServletRequest request = MvcFixture.request("GET", "/bench/args/" + parameterCount)
+            .setParameter("a", "1").setParameter("b", "text").setParameter("c", "3")
+            .setParameter("d", "4.5").setParameter("e", "true").setParameter("f", "6")
+            .setParameter("g", "seven").setParameter("h", "8").setParameter("i", "9")
+            .setParameter("j", "ten");
+    exchange = ServletExchange.create(request, new MockHttpServletResponse());
+  }
+
+  @Benchmark
+  public Object invoke() throws Exception {
+    return invoker.invoke(controller, method, exchange);
+  }
+}
@@ -0,0 +1,73 @@
+package com.benchmark.dispatch;
+
+import com.benchmark.mock.MockHttpServletRequest;
+import com.benchmark.mock.MockHttpServletResponse;
+import com.benchmark.mock.MockServletConfig;
+import com.benchmark.mock.MockServletContext;
+import com.nf.mvc.DispatcherServlet;
+import com.nf.mvc.HandlerMapping;
+import com.nf.mvc.MvcContext;
+import com.nf.mvc.argument.MethodArgumentResolverComposite;
+import com.nf.mvc.mapping.RequestMappingHandlerMapping;
+
+import javax.servlet.ServletException;
+
+/**
+ * 所有基准测试共用的mvc环境，{@link MvcContext}是单例，所以一个jvm中只初始化一次DispatcherServlet，
+ * 扫描的是本包中的handler
+ */
+public final class MvcFixture {
+  private static final MockServletContext SERVLET_CONTEXT = new MockServletContext();
+  private static DispatcherServlet dispatcherServlet;
+
+  private MvcFixture() {
+  }
+
+  public static synchronized DispatcherServlet dispatcherServlet() {
+    if (dispatcherServlet == null) {
+      DispatcherServlet servlet = new DispatcherServlet();
+      try {
+        servlet.init(new MockServletConfig(SERVLET_CONTEXT).addInitParameter("base-package", MvcFixture.class.getPackage().getName()));
+      } catch (ServletException e) {
+        throw new IllegalStateException(e);
+      }
+      dispatcherServlet = servlet;
+    }
+    return dispatcherServlet;
+  }
+
+  public static RequestMappingHandlerMapping handlerMapping() {
+    dispatcherServlet();
+    for (HandlerMapping mapping : MvcContext.getMvcContext().getHandlerMappings()) {
+      if (mapping instanceof RequestMappingHandlerMapping) {
+        return (RequestMappingHandlerMapping) mapping;
+      }
+    }
+    throw new IllegalStateException("没有RequestMappingHandlerMapping");
+  }
+
+  public static MethodArgumentResolverComposite argumentResolvers() {
+    dispatcherServlet();
+    return new MethodArgumentResolverComposite().addResolvers(MvcContext.getMvcContext().getArgumentResolvers());
+  }
+
+  public static MockHttpServletRequest request(String method, String uri) {
+    return new MockHttpServletRequest(SERVLET_CONTEXT, method, uri);
+  }
+
+  /**
+   * 在setup中调用一次，确认请求确实被handler处理了，而不是因为配置错误测量了一个404
+   */
+  public static void verify(MockHttpServletRequest request, MockHttpServletResponse response) {
+    request.clearAttributes();
+    response.recycle();
+    try {
+      dispatcherServlet().service(request, response);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+    if (response.getStatus() != 200 || response.getBytesWritten() == 0) {
+      throw new IllegalStateException(request.getRequestURI() + "的响应不正确,状态码:" + response.getStatus());
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.benchmark.dispatch;
+
+/**
+ * 嵌套了两层的表单对象，绑定时请求参数的名字是customer.address.city这样的形式
+ */
+public class OrderForm {
+  private long id;
+  private String product;
+  private int quantity;
+  private double price;
+  private boolean express;
+  private Customer customer;
+
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+
+  public String getProduct() {
+    return product;
+  }
+
+  public void setProduct(String product) {
+    this.product = product;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public void setQuantity(int quantity) {
+    this.quantity = quantity;
+  }
+
+  public double getPrice() {
+    return price;
+  }
+
+  public void setPrice(double price) {
+    this.price = price;
+  }
+
+  public boolean isExpress() {
+    return express;
+  }
+
+  public void setExpress(boolean express) {
+    this.express = express;
+  }
+
+  public Customer getCustomer() {
+    return customer;
+  }
+
+  public void setCustomer(Customer customer) {
+    this.customer = customer;
+  }
+}
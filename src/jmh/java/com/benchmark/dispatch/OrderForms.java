@@ -0,0 +1,26 @@
+package com.benchmark.dispatch;
+
+import com.benchmark.mock.MockHttpServletRequest;
+
+final class OrderForms {
+  private OrderForms() {
+  }
+
+  /**
+   * @return 带有{@link OrderForm}所有属性的请求
+   */
+  static MockHttpServletRequest request(String uri) {
+    return MvcFixture.request("POST", uri)
+            .setParameter("id", "1001")
+            .setParameter("product", "键盘")
+            .setParameter("quantity", "2")
+            .setParameter("price", "199.5")
+            .setParameter("express", "true")
+            .setParameter("customer.name", "张三")
+            .setParameter("customer.email", "zhangsan@example.com")
+            .setParameter("customer.level", "3")
+            .setParameter("customer.address.city", "广州")
+            .setParameter("customer.address.street", "天河路1号")
+            .setParameter("customer.address.zip", "510000");
+  }
+}
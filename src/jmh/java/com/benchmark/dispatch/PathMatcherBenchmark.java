@@ -0,0 +1,78 @@
+package com.benchmark.dispatch;
+
+import com.nf.mvc.support.PathMatcher;
+import com.nf.mvc.support.path.AntPathMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AntPathMatcher#isMatch(String, String)}在几种常见地址模式上的开销，每种模式分别测量匹配与不匹配的情况，
+ * 不匹配的情况在查找handler时更常见，因为大部分模式都不匹配
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathMatcherBenchmark {
+  @Param({"literal", "variable", "wildcard", "doubleWildcard"})
+  public String kind;
+
+  private final PathMatcher matcher = new AntPathMatcher.Builder().build();
+  private String pattern;
+  private String matchingPath;
+  private String mismatchingPath;
+
+  @Setup
+  public void setup() {
+    switch (kind) {
+      case "literal":
+        pattern = "/api/products/list";
+        matchingPath = "/api/products/list";
+        mismatchingPath = "/api/products/lists";
+        break;
+      case "variable":
+        pattern = "/api/products/{id}/reviews/{reviewId}";
+        matchingPath = "/api/products/42/reviews/7";
+        mismatchingPath = "/api/products/42/ratings/7";
+        break;
+      case "wildcard":
+        pattern = "/static/*/app-*.js";
+        matchingPath = "/static/js/app-1.2.3.js";
+        mismatchingPath = "/static/js/app-1.2.3.css";
+        break;
+      case "doubleWildcard":
+        pattern = "/files/**/detail";
+        matchingPath = "/files/a/b/c/d/detail";
+        mismatchingPath = "/files/a/b/c/d/summary";
+        break;
+      default:
+        throw new IllegalArgumentException(kind);
+    }
+    if (!matcher.isMatch(pattern, matchingPath) || matcher.isMatch(pattern, mismatchingPath)) {
+      throw new IllegalStateException("模式" + pattern + "的测试数据不正确");
+    }
+  }
+
+  @Benchmark
+  public boolean match() {
+    return matcher.isMatch(pattern, matchingPath);
+  }
+
+  @Benchmark
+  public boolean mismatch() {
+    return matcher.isMatch(pattern, mismatchingPath);
+  }
+}
@@ -0,0 +1,295 @@
+package com.benchmark.mock;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基准测试用的响应对象，响应体只计算字节数而不保存，避免测量到的是复制内容的开销，
+ * 同一个对象可以反复使用，每次使用之前调用{@link #recycle()}
+ */
+public class MockHttpServletResponse implements HttpServletResponse {
+  private int status = SC_OK;
+  private String contentType;
+  private String characterEncoding = StandardCharsets.ISO_8859_1.name();
+  private long contentLength = -1;
+  private boolean committed;
+  private long bytesWritten;
+  private PrintWriter writer;
+  private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  private final ServletOutputStream outputStream = new ServletOutputStream() {
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write(int b) {
+      committed = true;
+      bytesWritten++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      committed = true;
+      bytesWritten += len;
+    }
+  };
+
+  public long getBytesWritten() {
+    if (writer != null) {
+      writer.flush();
+    }
+    return bytesWritten;
+  }
+
+  @Override
+  public void addCookie(Cookie cookie) {
+  }
+
+  @Override
+  public boolean containsHeader(String name) {
+    return headers.containsKey(name);
+  }
+
+  @Override
+  public String encodeURL(String url) {
+    return url;
+  }
+
+  @Override
+  public String encodeRedirectURL(String url) {
+    return url;
+  }
+
+  @Override
+  @Deprecated
+  public String encodeUrl(String url) {
+    return url;
+  }
+
+  @Override
+  @Deprecated
+  public String encodeRedirectUrl(String url) {
+    return url;
+  }
+
+  @Override
+  public void sendError(int sc, String msg) {
+    sendError(sc);
+  }
+
+  @Override
+  public void sendError(int sc) {
+    if (committed) {
+      throw new IllegalStateException("响应已经提交");
+    }
+    status = sc;
+    committed = true;
+  }
+
+  @Override
+  public void sendRedirect(String location) {
+    setHeader("Location", location);
+    sendError(SC_FOUND);
+  }
+
+  @Override
+  public void setDateHeader(String name, long date) {
+    setHeader(name, String.valueOf(date));
+  }
+
+  @Override
+  public void addDateHeader(String name, long date) {
+    addHeader(name, String.valueOf(date));
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    List<String> values = new ArrayList<>(1);
+    values.add(value);
+    headers.put(name, values);
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    headers.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
+  }
+
+  @Override
+  public void setIntHeader(String name, int value) {
+    setHeader(name, String.valueOf(value));
+  }
+
+  @Override
+  public void addIntHeader(String name, int value) {
+    addHeader(name, String.valueOf(value));
+  }
+
+  @Override
+  public void setStatus(int sc) {
+    status = sc;
+  }
+
+  @Override
+  @Deprecated
+  public void setStatus(int sc, String sm) {
+    status = sc;
+  }
+
+  @Override
+  public int getStatus() {
+    return status;
+  }
+
+  @Override
+  public String getHeader(String name) {
+    List<String> values = headers.get(name);
+    return values == null ? null : values.get(0);
+  }
+
+  @Override
+  public Collection<String> getHeaders(String name) {
+    List<String> values = headers.get(name);
+    return values == null ? Collections.emptyList() : values;
+  }
+
+  @Override
+  public Collection<String> getHeaderNames() {
+    return headers.keySet();
+  }
+
+  @Override
+  public String getCharacterEncoding() {
+    return characterEncoding;
+  }
+
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() {
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(outputStream, Charset.forName(characterEncoding)));
+    }
+    return writer;
+  }
+
+  @Override
+  public void setCharacterEncoding(String charset) {
+    if (charset != null) {
+      this.characterEncoding = charset;
+    }
+  }
+
+  @Override
+  public void setContentLength(int len) {
+    contentLength = len;
+  }
+
+  @Override
+  public void setContentLengthLong(long len) {
+    contentLength = len;
+  }
+
+  public long getContentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void setContentType(String type) {
+    this.contentType = type;
+    int index = type == null ? -1 : type.toLowerCase(Locale.ENGLISH).indexOf("charset=");
+    if (index >= 0) {
+      setCharacterEncoding(type.substring(index + "charset=".length()).trim());
+    }
+  }
+
+  @Override
+  public void setBufferSize(int size) {
+  }
+
+  @Override
+  public int getBufferSize() {
+    return 8192;
+  }
+
+  @Override
+  public void flushBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+    committed = true;
+  }
+
+  @Override
+  public void resetBuffer() {
+    if (committed) {
+      throw new IllegalStateException("响应已经提交");
+    }
+  }
+
+  @Override
+  public boolean isCommitted() {
+    return committed;
+  }
+
+  @Override
+  public void reset() {
+    if (committed) {
+      throw new IllegalStateException("响应已经提交");
+    }
+    status = SC_OK;
+    contentType = null;
+    contentLength = -1;
+    writer = null;
+    headers.clear();
+  }
+
+  /**
+   * 与{@link #reset()}不同，已经提交的响应也可以重置，这样同一个对象可以在下一次调用中继续使用
+   */
+  public void recycle() {
+    status = SC_OK;
+    contentType = null;
+    characterEncoding = StandardCharsets.ISO_8859_1.name();
+    contentLength = -1;
+    committed = false;
+    bytesWritten = 0;
+    writer = null;
+    headers.clear();
+  }
+
+  @Override
+  public void setLocale(Locale loc) {
+  }
+
+  @Override
+  public Locale getLocale() {
+    return Locale.getDefault();
+  }
+}
@@ -0,0 +1,42 @@
+package com.benchmark.mock;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MockServletConfig implements ServletConfig {
+  private final ServletContext servletContext;
+  private final Map<String, String> initParameters = new HashMap<>();
+
+  public MockServletConfig(ServletContext servletContext) {
+    this.servletContext = servletContext;
+  }
+
+  public MockServletConfig addInitParameter(String name, String value) {
+    initParameters.put(name, value);
+    return this;
+  }
+
+  @Override
+  public String getServletName() {
+    return "dispatcherServlet";
+  }
+
+  @Override
+  public ServletContext getServletContext() {
+    return servletContext;
+  }
+
+  @Override
+  public String getInitParameter(String name) {
+    return initParameters.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getInitParameterNames() {
+    return Collections.enumeration(initParameters.keySet());
+  }
+}
@@ -0,0 +1,287 @@
+package com.benchmark.mock;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterRegistration;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.Servlet;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+import javax.servlet.SessionCookieConfig;
+import javax.servlet.SessionTrackingMode;
+import javax.servlet.descriptor.JspConfigDescriptor;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.EventListener;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基准测试用的ServletContext，只有属性是有效的，DispatcherServlet初始化时用它保存各种处理者
+ */
+public class MockServletContext implements ServletContext {
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private final Map<String, String> initParameters = new ConcurrentHashMap<>();
+
+  @Override
+  public String getContextPath() {
+    return "";
+  }
+
+  @Override
+  public ServletContext getContext(String uripath) {
+    return this;
+  }
+
+  @Override
+  public int getMajorVersion() {
+    return 3;
+  }
+
+  @Override
+  public int getMinorVersion() {
+    return 1;
+  }
+
+  @Override
+  public int getEffectiveMajorVersion() {
+    return 3;
+  }
+
+  @Override
+  public int getEffectiveMinorVersion() {
+    return 1;
+  }
+
+  @Override
+  public String getMimeType(String file) {
+    return null;
+  }
+
+  @Override
+  public Set<String> getResourcePaths(String path) {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public URL getResource(String path) {
+    return null;
+  }
+
+  @Override
+  public InputStream getResourceAsStream(String path) {
+    return null;
+  }
+
+  @Override
+  public RequestDispatcher getRequestDispatcher(String path) {
+    return null;
+  }
+
+  @Override
+  public RequestDispatcher getNamedDispatcher(String name) {
+    return null;
+  }
+
+  @Override
+  @Deprecated
+  public Servlet getServlet(String name) {
+    return null;
+  }
+
+  @Override
+  @Deprecated
+  public Enumeration<Servlet> getServlets() {
+    return Collections.emptyEnumeration();
+  }
+
+  @Override
+  @Deprecated
+  public Enumeration<String> getServletNames() {
+    return Collections.emptyEnumeration();
+  }
+
+  @Override
+  public void log(String msg) {
+  }
+
+  @Override
+  @Deprecated
+  public void log(Exception exception, String msg) {
+  }
+
+  @Override
+  public void log(String message, Throwable throwable) {
+  }
+
+  @Override
+  public String getRealPath(String path) {
+    return null;
+  }
+
+  @Override
+  public String getServerInfo() {
+    return "mock";
+  }
+
+  @Override
+  public String getInitParameter(String name) {
+    return initParameters.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getInitParameterNames() {
+    return Collections.enumeration(initParameters.keySet());
+  }
+
+  @Override
+  public boolean setInitParameter(String name, String value) {
+    return initParameters.putIfAbsent(name, value) == null;
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getAttributeNames() {
+    return Collections.enumeration(attributes.keySet());
+  }
+
+  @Override
+  public void setAttribute(String name, Object object) {
+    if (object == null) {
+      attributes.remove(name);
+    } else {
+      attributes.put(name, object);
+    }
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+  }
+
+  @Override
+  public String getServletContextName() {
+    return "mock";
+  }
+
+  @Override
+  public ServletRegistration.Dynamic addServlet(String servletName, String className) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ServletRegistration.Dynamic addServlet(String servletName, Servlet servlet) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ServletRegistration.Dynamic addServlet(String servletName, Class<? extends Servlet> servletClass) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public <T extends Servlet> T createServlet(Class<T> clazz) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ServletRegistration getServletRegistration(String servletName) {
+    return null;
+  }
+
+  @Override
+  public Map<String, ? extends ServletRegistration> getServletRegistrations() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public FilterRegistration.Dynamic addFilter(String filterName, String className) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public FilterRegistration.Dynamic addFilter(String filterName, Filter filter) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public FilterRegistration.Dynamic addFilter(String filterName, Class<? extends Filter> filterClass) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public <T extends Filter> T createFilter(Class<T> clazz) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public FilterRegistration getFilterRegistration(String filterName) {
+    return null;
+  }
+
+  @Override
+  public Map<String, ? extends FilterRegistration> getFilterRegistrations() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public SessionCookieConfig getSessionCookieConfig() {
+    return null;
+  }
+
+  @Override
+  public void setSessionTrackingModes(Set<SessionTrackingMode> sessionTrackingModes) {
+  }
+
+  @Override
+  public Set<SessionTrackingMode> getDefaultSessionTrackingModes() {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public Set<SessionTrackingMode> getEffectiveSessionTrackingModes() {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public void addListener(String className) {
+  }
+
+  @Override
+  public <T extends EventListener> void addListener(T t) {
+  }
+
+  @Override
+  public void addListener(Class<? extends EventListener> listenerClass) {
+  }
+
+  @Override
+  public <T extends EventListener> T createListener(Class<T> clazz) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public JspConfigDescriptor getJspConfigDescriptor() {
+    return null;
+  }
+
+  @Override
+  public ClassLoader getClassLoader() {
+    return Thread.currentThread().getContextClassLoader();
+  }
+
+  @Override
+  public void declareRoles(String... roleNames) {
+  }
+
+  @Override
+  public String getVirtualServerName() {
+    return "mock";
+  }
+}
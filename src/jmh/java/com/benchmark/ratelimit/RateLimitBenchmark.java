@@ -0,0 +1,98 @@
+package com.benchmark.ratelimit;
+
+import com.benchmark.mock.MockHttpServletRequest;
+import com.benchmark.mock.MockHttpServletResponse;
+import com.benchmark.mock.MockServletContext;
+import com.nf.mvc.HandlerInterceptor;
+import com.nf.mvc.ratelimit.RateLimitInterceptor;
+import com.nf.mvc.ratelimit.RateLimitKeyResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RateLimitInterceptor#preHandle(HttpServletRequest, HttpServletResponse, Object)}在多线程竞争下每个请求的开销，
+ * 用一个什么都不做的拦截器作为基准，两者的差值就是限流的开销。线程数默认等于cpu核数，可以用jmh的-t参数修改，
+ * 单核机器上测不出竞争，结果只能说明单线程的开销
+ * <ul>
+ *     <li>sameKey：所有线程使用同一个键，所有的cas都落在同一个令牌桶上，是竞争最激烈的情况</li>
+ *     <li>keyPerThread：每个线程一个键，模拟大量不同的客户端</li>
+ *     <li>rejected：令牌很快用完，测量拒绝的路径，拒绝时只设置响应头不发送错误</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class RateLimitBenchmark {
+  private static final String KEY_HEADER = "X-Api-Key";
+  private static final MockServletContext SERVLET_CONTEXT = new MockServletContext();
+
+  private final HandlerInterceptor baseline = new HandlerInterceptor() {
+  };
+  /**
+   * 容量足够大，测试期间不会被拒绝
+   */
+  private final HandlerInterceptor allowed = new RateLimitInterceptor(Integer.MAX_VALUE, Integer.MAX_VALUE, 1,
+          RateLimitKeyResolver.header(KEY_HEADER));
+  private final HandlerInterceptor rejected = new RateLimitInterceptor(1, 1, 3_600_000,
+          RateLimitKeyResolver.header(KEY_HEADER)) {
+    @Override
+    protected void onRejected(HttpServletRequest request, HttpServletResponse response, String key) {
+    }
+  };
+
+  @State(Scope.Thread)
+  public static class Client {
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private MockHttpServletRequest sameKey;
+    private MockHttpServletRequest ownKey;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() {
+      int thread = THREADS.getAndIncrement();
+      sameKey = new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/products")
+              .addHeader(KEY_HEADER, "shared");
+      ownKey = new MockHttpServletRequest(SERVLET_CONTEXT, "GET", "/api/products")
+              .addHeader(KEY_HEADER, "client-" + thread);
+    }
+  }
+
+  @Benchmark
+  public boolean baseline(Client client) throws Exception {
+    return baseline.preHandle(client.sameKey, client.response, null);
+  }
+
+  @Benchmark
+  public boolean sameKey(Client client) throws Exception {
+    return allowed.preHandle(client.sameKey, client.response, null);
+  }
+
+  @Benchmark
+  public boolean keyPerThread(Client client) throws Exception {
+    return allowed.preHandle(client.ownKey, client.response, null);
+  }
+
+  @Benchmark
+  public boolean rejected(Client client) throws Exception {
+    return rejected.preHandle(client.sameKey, client.response, null);
+  }
+}
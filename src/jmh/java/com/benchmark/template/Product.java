@@ -0,0 +1,31 @@
+package com.benchmark.template;
+
+public class Product {
+  private final int id;
+  private final String name;
+  private final double price;
+  private final boolean onSale;
+
+  public Product(int id, String name, double price, boolean onSale) {
+    this.id = id;
+    this.name = name;
+    this.price = price;
+    this.onSale = onSale;
+  }
+
+  public int getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public double getPrice() {
+    return price;
+  }
+
+  public boolean isOnSale() {
+    return onSale;
+  }
+}
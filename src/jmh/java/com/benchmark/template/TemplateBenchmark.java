@@ -0,0 +1,122 @@
+package com.benchmark.template;
+
+import com.nf.mvc.DispatcherServlet;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.jasper.servlet.JasperInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比模板视图({@link com.nf.mvc.view.TemplateViewResult})与转发到jsp({@link com.nf.mvc.view.ForwardViewResult})的渲染性能,
+ * 两者渲染的是同样的商品列表页面。jsp的转发离不开真正的容器，所以这里在随机端口启动嵌入式tomcat，
+ * 用HttpURLConnection(keep-alive)顺序请求，两个基准的差值就是两种视图渲染的差异
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateBenchmark {
+  static final String PAGE_TITLE = "商品列表";
+  static Path webRoot;
+
+  private Tomcat tomcat;
+  private URL templateUrl;
+  private URL jspUrl;
+
+  @Setup
+  public void setup() throws Exception {
+    webRoot = Files.createTempDirectory("mvc-template-bench");
+    writeFiles(webRoot);
+
+    tomcat = new Tomcat();
+    tomcat.setBaseDir(webRoot.toString());
+    tomcat.setPort(0);
+    Context ctx = tomcat.addContext("", webRoot.toString());
+    Tomcat.initWebappDefaults(ctx);
+    // 嵌入式tomcat需要手动添加jasper的初始化器，否则jsp无法编译
+    ctx.addServletContainerInitializer(new JasperInitializer(), null);
+    Wrapper wrapper = Tomcat.addServlet(ctx, "dispatcherServlet", new DispatcherServlet());
+    wrapper.addInitParameter("base-package", TemplateBenchmark.class.getPackage().getName());
+    wrapper.setLoadOnStartup(1);
+    ctx.addServletMappingDecoded("/", "dispatcherServlet");
+    tomcat.start();
+
+    String base = "http://localhost:" + tomcat.getConnector().getLocalPort();
+    templateUrl = new URL(base + "/bench/template");
+    jspUrl = new URL(base + "/bench/jsp");
+    // 先各请求一次，让jsp在预热之前完成编译
+    if (get(templateUrl).isEmpty() || get(jspUrl).isEmpty()) {
+      throw new IllegalStateException("页面渲染失败");
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws LifecycleException {
+    tomcat.stop();
+    tomcat.destroy();
+  }
+
+  @Benchmark
+  public String template() throws IOException {
+    return get(templateUrl);
+  }
+
+  @Benchmark
+  public String jsp() throws IOException {
+    return get(jspUrl);
+  }
+
+  private static String get(URL url) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    try (InputStream input = connection.getInputStream()) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+      return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static void writeFiles(Path root) throws IOException {
+    String template = "<html><head><title>{{title}}</title></head><body><h1>{{title}}</h1><table>\n"
+            + "{{#products}}<tr><td>{{id}}</td><td>{{name}}</td><td>{{price}}</td><td>{{#onSale}}促销{{/onSale}}</td></tr>\n{{/products}}"
+            + "</table></body></html>";
+    String jsp = "<%@ page contentType=\"text/html;charset=UTF-8\" pageEncoding=\"UTF-8\" %>"
+            + "<%@ page import=\"java.util.List,com.benchmark.template.Product\" %>"
+            + "<html><head><title>${title}</title></head><body><h1>${title}</h1><table>\n"
+            + "<% for (Product p : (List<Product>) request.getAttribute(\"products\")) { %>"
+            + "<tr><td><%= p.getId() %></td><td><%= p.getName() %></td><td><%= p.getPrice() %></td><td><%= p.isOnSale() ? \"促销\" : \"\" %></td></tr>\n<% } %>"
+            + "</table></body></html>";
+    File templateDir = root.resolve("templates").toFile();
+    templateDir.mkdirs();
+    Files.write(templateDir.toPath().resolve("products.html"), template.getBytes(StandardCharsets.UTF_8));
+    Files.write(root.resolve("products.jsp"), jsp.getBytes(StandardCharsets.UTF_8));
+  }
+}
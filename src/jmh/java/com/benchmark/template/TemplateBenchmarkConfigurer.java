@@ -0,0 +1,12 @@
+package com.benchmark.template;
+
+import com.nf.mvc.MvcConfigurer;
+import com.nf.mvc.view.template.SimpleTemplateEngine;
+import com.nf.mvc.view.template.TemplateEngine;
+
+public class TemplateBenchmarkConfigurer implements MvcConfigurer {
+  @Override
+  public void configureTemplateEngine(TemplateEngine templateEngine) {
+    ((SimpleTemplateEngine) templateEngine).setTemplateDirectory(TemplateBenchmark.webRoot.resolve("templates").toString());
+  }
+}
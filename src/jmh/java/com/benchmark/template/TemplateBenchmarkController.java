@@ -0,0 +1,40 @@
+package com.benchmark.template;
+
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.mapping.RequestMapping;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.nf.mvc.handler.HandlerHelper.forward;
+import static com.nf.mvc.handler.HandlerHelper.view;
+
+@RequestMapping("/bench")
+public class TemplateBenchmarkController {
+  private static final List<Product> PRODUCTS = new ArrayList<>();
+
+  static {
+    for (int i = 0; i < 50; i++) {
+      PRODUCTS.add(new Product(i, "商品<" + i + ">", 10.5 * i, i % 3 == 0));
+    }
+  }
+
+  @RequestMapping("/template")
+  public ViewResult template() {
+    return view("products", model());
+  }
+
+  @RequestMapping("/jsp")
+  public ViewResult jsp() {
+    return forward("/products.jsp", model());
+  }
+
+  private Map<String, Object> model() {
+    Map<String, Object> model = new HashMap<>();
+    model.put("title", TemplateBenchmark.PAGE_TITLE);
+    model.put("products", PRODUCTS);
+    return model;
+  }
+}
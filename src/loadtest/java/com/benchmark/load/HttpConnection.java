@@ -0,0 +1,196 @@
+package com.benchmark.load;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * 一个keep-alive的http/1.1连接，请求是预先编码好的字节，响应只解析状态码与确定响应体长度需要的头，响应体被丢弃
+ * <p>没有使用HttpURLConnection是因为它每个请求都会创建不少对象，并且连接池的行为不好控制，
+ * 压测客户端自己的开销越小，测到的越接近服务端的真实情况</p>
+ * <p>服务端响应Connection: close或者读写出错时关闭连接，下一个请求会重新建立连接</p>
+ */
+final class HttpConnection implements Closeable {
+  private static final int MAX_LINE_LENGTH = 8192;
+  private static final byte[] CONTENT_LENGTH = "content-length:".getBytes();
+  private static final byte[] TRANSFER_ENCODING = "transfer-encoding:".getBytes();
+  private static final byte[] CONNECTION = "connection:".getBytes();
+
+  private final InetSocketAddress address;
+  private final byte[] line = new byte[MAX_LINE_LENGTH];
+  private final byte[] discard = new byte[64 * 1024];
+  private Socket socket;
+  private InputStream input;
+  private OutputStream output;
+  private long bodyBytes;
+
+  HttpConnection(String host, int port) {
+    this.address = new InetSocketAddress(host, port);
+  }
+
+  /**
+   * @param request 完整的请求，包括请求行、请求头与请求体
+   * @return 响应的状态码
+   * @throws IOException 读写出错时抛出，连接已经被关闭
+   */
+  int execute(byte[] request) throws IOException {
+    try {
+      if (socket == null) {
+        connect();
+      }
+      output.write(request);
+      output.flush();
+      return readResponse();
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return 上一个响应的响应体字节数
+   */
+  long getBodyBytes() {
+    return bodyBytes;
+  }
+
+  private void connect() throws IOException {
+    socket = new Socket();
+    socket.setTcpNoDelay(true);
+    socket.connect(address, 5000);
+    socket.setSoTimeout(30_000);
+    input = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+    output = socket.getOutputStream();
+  }
+
+  private int readResponse() throws IOException {
+    int length = readLine();
+    // HTTP/1.1 200 OK
+    if (length < 12 || line[8] != ' ') {
+      throw new IOException("响应的状态行不正确:" + new String(line, 0, length));
+    }
+    int status = (line[9] - '0') * 100 + (line[10] - '0') * 10 + (line[11] - '0');
+    long contentLength = -1;
+    boolean chunked = false;
+    boolean close = false;
+    while ((length = readLine()) > 0) {
+      if (startsWithIgnoreCase(CONTENT_LENGTH, length)) {
+        contentLength = Long.parseLong(value(CONTENT_LENGTH, length));
+      } else if (startsWithIgnoreCase(TRANSFER_ENCODING, length)) {
+        chunked = value(TRANSFER_ENCODING, length).equalsIgnoreCase("chunked");
+      } else if (startsWithIgnoreCase(CONNECTION, length)) {
+        close = value(CONNECTION, length).equalsIgnoreCase("close");
+      }
+    }
+    if (status == 204 || status == 304 || (status >= 100 && status < 200)) {
+      bodyBytes = 0;
+    } else if (chunked) {
+      bodyBytes = skipChunked();
+    } else if (contentLength >= 0) {
+      skip(contentLength);
+      bodyBytes = contentLength;
+    } else {
+      // 既没有长度也不是分块，响应体到连接关闭为止
+      bodyBytes = skipToEnd();
+      close = true;
+    }
+    if (close) {
+      close();
+    }
+    return status;
+  }
+
+  private long skipChunked() throws IOException {
+    long total = 0;
+    for (; ; ) {
+      int length = readLine();
+      long size = 0;
+      for (int i = 0; i < length && line[i] != ';'; i++) {
+        size = size * 16 + Character.digit(line[i], 16);
+      }
+      if (size == 0) {
+        // 最后一个分块之后可以有trailer，到空行为止
+        while (readLine() > 0) {
+          // 丢弃trailer
+        }
+        return total;
+      }
+      skip(size);
+      total += size;
+      readLine();
+    }
+  }
+
+  private void skip(long count) throws IOException {
+    while (count > 0) {
+      int read = input.read(discard, 0, (int) Math.min(discard.length, count));
+      if (read == -1) {
+        throw new EOFException("响应体不完整，还差" + count + "字节");
+      }
+      count -= read;
+    }
+  }
+
+  private long skipToEnd() throws IOException {
+    long total = 0;
+    int read;
+    while ((read = input.read(discard)) != -1) {
+      total += read;
+    }
+    return total;
+  }
+
+  /**
+   * @return 一行的长度，不包括结尾的\r\n
+   */
+  private int readLine() throws IOException {
+    int length = 0;
+    for (; ; ) {
+      int b = input.read();
+      if (b == -1) {
+        throw new EOFException("连接被服务端关闭");
+      }
+      if (b == '\n') {
+        return length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+      }
+      if (length == MAX_LINE_LENGTH) {
+        throw new IOException("响应头的一行超过了" + MAX_LINE_LENGTH + "字节");
+      }
+      line[length++] = (byte) b;
+    }
+  }
+
+  private boolean startsWithIgnoreCase(byte[] prefix, int length) {
+    if (length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (Character.toLowerCase(line[i]) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String value(byte[] name, int length) {
+    return new String(line, name.length, length - name.length).trim();
+  }
+
+  @Override
+  public void close() {
+    if (socket != null) {
+      try {
+        socket.close();
+      } catch (IOException ignored) {
+      }
+      socket = null;
+      input = null;
+      output = null;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测的负载生成器，每个并发是一个线程加一个keep-alive连接，延迟以微秒记录在每个线程自己的{@link Histogram}中，结束后合并
+ * <h3>两种模式</h3>
+ * <ul>
+ *     <li>rate=0(默认)：闭环模式，每个连接收到响应后立即发送下一个请求，测的是最大吞吐量，
+ *     此时的延迟会偏低，因为服务端变慢时客户端也跟着少发请求，也就是所谓的coordinated omission</li>
+ *     <li>rate&gt;0：固定速率模式，所有连接一共每秒发送rate个请求，每个请求都有一个计划的发送时间，
+ *     延迟从计划时间开始计算，服务端的停顿会体现在之后所有请求的延迟中，更接近真实用户看到的延迟</li>
+ * </ul>
+ */
+final class LoadGenerator {
+  /**
+   * 能记录的最大延迟，1分钟，超出的按最大值记录
+   */
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+  private final String host;
+  private final int port;
+  private final int concurrency;
+  private final int rate;
+
+  /**
+   * @param concurrency 并发的连接数
+   * @param rate        所有连接每秒一共发送的请求数，0表示不限制
+   */
+  LoadGenerator(String host, int port, int concurrency, int rate) {
+    this.host = host;
+    this.port = port;
+    this.concurrency = concurrency;
+    this.rate = rate;
+  }
+
+  /**
+   * 发送一个请求，确认场景的配置是正确的，免得压测了半天测的是一个错误响应
+   *
+   * @throws IllegalStateException 状态码不是期望的值时抛出
+   */
+  void verify(Scenario scenario) throws IOException {
+    try (HttpConnection connection = new HttpConnection(host, port)) {
+      int status = connection.execute(scenario.getRequest());
+      if (status != scenario.getExpectedStatus()) {
+        throw new IllegalStateException(scenario.getName() + "场景" + scenario.getPath() + "的响应状态码是" + status
+                + "，期望的是" + scenario.getExpectedStatus());
+      }
+    }
+  }
+
+  /**
+   * @param warmup   预热的时长，期间的请求不记录
+   * @param duration 测试的时长
+   */
+  LoadResult run(Scenario scenario, long warmup, long duration, TimeUnit unit) throws InterruptedException {
+    long measureStart = System.nanoTime() + unit.toNanos(warmup);
+    long end = measureStart + unit.toNanos(duration);
+    // 每个连接的发送间隔，固定速率模式下使用
+    long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * concurrency / rate : 0;
+    CountDownLatch done = new CountDownLatch(concurrency);
+    List<Worker> workers = new ArrayList<>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      // 错开各个连接的第一个请求，避免固定速率模式下所有连接同时发送
+      Worker worker = new Worker(scenario, measureStart, end, interval, interval * i / concurrency, done);
+      workers.add(worker);
+      Thread thread = new Thread(worker, "load-" + scenario.getName() + "-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    done.await();
+
+    Histogram histogram = newHistogram();
+    long errors = 0;
+    long bytes = 0;
+    for (Worker worker : workers) {
+      histogram.add(worker.histogram);
+      errors += worker.errors;
+      bytes += worker.bytes;
+    }
+    return new LoadResult(scenario.getName(), histogram, errors, bytes, end - measureStart);
+  }
+
+  private static Histogram newHistogram() {
+    return new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+  }
+
+  private class Worker implements Runnable {
+    private final Scenario scenario;
+    private final long measureStart;
+    private final long end;
+    private final long interval;
+    private final long offset;
+    private final CountDownLatch done;
+    private final Histogram histogram = newHistogram();
+    private long errors;
+    private long bytes;
+
+    Worker(Scenario scenario, long measureStart, long end, long interval, long offset, CountDownLatch done) {
+      this.scenario = scenario;
+      this.measureStart = measureStart;
+      this.end = end;
+      this.interval = interval;
+      this.offset = offset;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+      byte[] request = scenario.getRequest();
+      int expectedStatus = scenario.getExpectedStatus();
+      try (HttpConnection connection = new HttpConnection(host, port)) {
+        long intended = System.nanoTime() + offset;
+        for (; ; ) {
+          long start;
+          if (interval > 0) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+              LockSupport.parkNanos(intended - now);
+            }
+            start = intended;
+            intended += interval;
+          } else {
+            start = System.nanoTime();
+          }
+          if (start >= end) {
+            return;
+          }
+          boolean ok;
+          try {
+            ok = connection.execute(request) == expectedStatus;
+          } catch (IOException e) {
+            ok = false;
+          }
+          long elapsed = System.nanoTime() - start;
+          if (start >= measureStart) {
+            histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsed), HIGHEST_TRACKABLE_MICROS));
+            if (ok) {
+              bytes += connection.getBodyBytes();
+            } else {
+              errors++;
+            }
+          }
+        }
+      } finally {
+        done.countDown();
+      }
+    }
+  }
+}
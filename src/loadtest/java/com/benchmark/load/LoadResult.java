@@ -0,0 +1,56 @@
+package com.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+
+/**
+ * 一个场景的压测结果，延迟的单位是微秒，输出时换算成毫秒
+ */
+final class LoadResult {
+  private static final String FORMAT = "%-12s %10s %12s %10s %10s %10s %10s %10s %8s %10s%n";
+
+  private final String scenario;
+  private final Histogram histogram;
+  private final long errors;
+  private final long bytes;
+  private final long elapsedNanos;
+
+  LoadResult(String scenario, Histogram histogram, long errors, long bytes, long elapsedNanos) {
+    this.scenario = scenario;
+    this.histogram = histogram;
+    this.errors = errors;
+    this.bytes = bytes;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  static void printHeader(PrintStream out) {
+    out.printf(FORMAT, "scenario", "requests", "requests/s", "MB/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)",
+            "errors", "mean(ms)");
+  }
+
+  void print(PrintStream out) {
+    double seconds = elapsedNanos / 1_000_000_000.0;
+    long requests = histogram.getTotalCount();
+    out.printf(FORMAT, scenario, requests, String.format("%.0f", requests / seconds),
+            String.format("%.1f", bytes / seconds / (1024 * 1024)),
+            millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+            millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+            errors, String.format("%.3f", histogram.getMean() / 1000));
+  }
+
+  /**
+   * 输出HdrHistogram的百分位分布，可以用HdrHistogram提供的页面画图对比
+   */
+  void printDistribution(PrintStream out) {
+    histogram.outputPercentileDistribution(out, 1000.0);
+  }
+
+  String getScenario() {
+    return scenario;
+  }
+
+  private static String millis(long micros) {
+    return String.format("%.3f", micros / 1000.0);
+  }
+}
@@ -0,0 +1,129 @@
+package com.benchmark.load;
+
+import com.benchmark.load.app.LoadTestData;
+import com.nf.mvc.MvcApplication;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 端到端的压测，用{@link MvcApplication#start(String...)}在随机端口启动com.benchmark.load.app包中的示例应用，
+ * 再用{@link LoadGenerator}在同一个进程中发送请求，不需要任何外部服务
+ * <h3>场景</h3>
+ * <ul>
+ *     <li>json：20个订单的列表，约3K字节</li>
+ *     <li>download：FileViewResult下载一个256K的文件</li>
+ *     <li>upload：multipart上传一个64K的文件</li>
+ *     <li>static：静态资源，内容在内存缓存中</li>
+ *     <li>notfound：没有handler的地址，由默认servlet响应404</li>
+ * </ul>
+ * <h3>参数</h3>
+ * 参数的写法与MvcApplication一样是key=value，可以用mvn -P load-test test-compile exec:java -Dexec.args="..."传递
+ * <ul>
+ *     <li>concurrency：并发的连接数，默认32</li>
+ *     <li>warmup：每个场景预热的秒数，默认3</li>
+ *     <li>duration：每个场景测试的秒数，默认10</li>
+ *     <li>rate：每秒发送的请求数，默认0表示尽可能快，见{@link LoadGenerator}</li>
+ *     <li>scenarios：逗号分隔的场景名，默认是全部场景</li>
+ *     <li>virtualThreads：传给MvcApplication，默认false</li>
+ *     <li>output：保存每个场景百分位分布(.hgrm)的目录，默认不保存</li>
+ * </ul>
+ * 客户端与服务端在同一台机器上会争抢cpu，所以结果只适合做前后对比，对比时其它参数要保持一致
+ */
+public class LoadTest {
+  private static final int DOWNLOAD_SIZE = 256 * 1024;
+  private static final int UPLOAD_SIZE = 64 * 1024;
+  private static final int STATIC_SIZE = 16 * 1024;
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parseArgs(args);
+    int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+    long warmup = Long.parseLong(options.getOrDefault("warmup", "3"));
+    long duration = Long.parseLong(options.getOrDefault("duration", "10"));
+    int rate = Integer.parseInt(options.getOrDefault("rate", "0"));
+    String virtualThreads = options.getOrDefault("virtualThreads", "false");
+    String output = options.get("output");
+
+    Map<String, Scenario> all = new LinkedHashMap<>();
+    all.put("json", Scenario.get("json", "/load/json", 200));
+    all.put("download", Scenario.get("download", "/load/download", 200));
+    all.put("upload", Scenario.upload("upload", "/load/upload", "file", UPLOAD_SIZE));
+    all.put("static", Scenario.get("static", "/static/" + LoadTestData.STATIC_FILE, 200));
+    all.put("notfound", Scenario.get("notfound", "/load/missing", 404));
+    List<Scenario> scenarios = new ArrayList<>();
+    for (String name : options.getOrDefault("scenarios", String.join(",", all.keySet())).split(",")) {
+      Scenario scenario = all.get(name.trim());
+      if (scenario == null) {
+        throw new IllegalArgumentException("没有场景" + name + "，可用的场景有" + all.keySet());
+      }
+      scenarios.add(scenario);
+    }
+
+    Path root = LoadTestData.prepare(DOWNLOAD_SIZE, STATIC_SIZE);
+    MvcApplication application = MvcApplication.start("port=0", "basePackage=" + LoadTestData.class.getPackage().getName(),
+            "virtualThreads=" + virtualThreads);
+    try {
+      LoadGenerator generator = new LoadGenerator("localhost", application.getPort(), concurrency, rate);
+      for (Scenario scenario : scenarios) {
+        generator.verify(scenario);
+      }
+      System.out.printf("concurrency:%d, rate:%s, warmup:%ds, duration:%ds, virtualThreads:%s, cpus:%d%n", concurrency,
+              rate > 0 ? rate + "/s" : "unlimited", warmup, duration, virtualThreads, Runtime.getRuntime().availableProcessors());
+      LoadResult.printHeader(System.out);
+      List<LoadResult> results = new ArrayList<>();
+      for (Scenario scenario : scenarios) {
+        LoadResult result = generator.run(scenario, warmup, duration, TimeUnit.SECONDS);
+        results.add(result);
+        result.print(System.out);
+      }
+      if (output != null) {
+        writeDistributions(Paths.get(output), results);
+      }
+    } finally {
+      application.stop();
+      delete(root);
+    }
+  }
+
+  private static Map<String, String> parseArgs(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>();
+    for (String arg : args) {
+      String[] argument = arg.split("=", 2);
+      if (argument.length != 2) {
+        throw new IllegalArgumentException("参数" + arg + "的格式不正确，应该是key=value，参数有:" +
+                Arrays.asList("concurrency", "warmup", "duration", "rate", "scenarios", "virtualThreads", "output"));
+      }
+      options.put(argument[0].trim(), argument[1].trim());
+    }
+    return options;
+  }
+
+  private static void writeDistributions(Path directory, List<LoadResult> results) throws IOException {
+    Files.createDirectories(directory);
+    for (LoadResult result : results) {
+      Path file = directory.resolve(result.getScenario() + ".hgrm");
+      try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8.name())) {
+        result.printDistribution(out);
+      }
+      System.out.println("百分位分布已保存到" + file.toAbsolutePath());
+    }
+  }
+
+  private static void delete(Path root) throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
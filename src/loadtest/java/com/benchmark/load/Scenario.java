@@ -0,0 +1,77 @@
+package com.benchmark.load;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 一个压测场景，请求在创建时就编码好，压测时每次发送同样的字节
+ */
+final class Scenario {
+  private final String name;
+  private final String path;
+  private final byte[] request;
+  private final int expectedStatus;
+
+  private Scenario(String name, String path, byte[] request, int expectedStatus) {
+    this.name = name;
+    this.path = path;
+    this.request = request;
+    this.expectedStatus = expectedStatus;
+  }
+
+  static Scenario get(String name, String path, int expectedStatus) {
+    String request = "GET " + path + " HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Accept: */*\r\n" +
+            "\r\n";
+    return new Scenario(name, path, request.getBytes(StandardCharsets.ISO_8859_1), expectedStatus);
+  }
+
+  /**
+   * @param field    文件字段的名字
+   * @param fileSize 上传文件的字节数，内容是随机的
+   */
+  static Scenario upload(String name, String path, String field, int fileSize) {
+    String boundary = "----LoadTestBoundary7MA4YWxkTrZu0gW";
+    byte[] content = new byte[fileSize];
+    new Random(7).nextBytes(content);
+    ByteArrayOutputStream body = new ByteArrayOutputStream(fileSize + 256);
+    write(body, "--" + boundary + "\r\n" +
+            "Content-Disposition: form-data; name=\"" + field + "\"; filename=\"upload.bin\"\r\n" +
+            "Content-Type: application/octet-stream\r\n" +
+            "\r\n");
+    body.write(content, 0, content.length);
+    write(body, "\r\n--" + boundary + "--\r\n");
+
+    ByteArrayOutputStream request = new ByteArrayOutputStream(body.size() + 256);
+    write(request, "POST " + path + " HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Content-Type: multipart/form-data; boundary=" + boundary + "\r\n" +
+            "Content-Length: " + body.size() + "\r\n" +
+            "\r\n");
+    request.write(body.toByteArray(), 0, body.size());
+    return new Scenario(name, path, request.toByteArray(), 200);
+  }
+
+  private static void write(ByteArrayOutputStream output, String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+    output.write(bytes, 0, bytes.length);
+  }
+
+  String getName() {
+    return name;
+  }
+
+  String getPath() {
+    return path;
+  }
+
+  byte[] getRequest() {
+    return request;
+  }
+
+  int getExpectedStatus() {
+    return expectedStatus;
+  }
+}
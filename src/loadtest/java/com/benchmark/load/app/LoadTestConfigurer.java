@@ -0,0 +1,12 @@
+package com.benchmark.load.app;
+
+import com.nf.mvc.MvcConfigurer;
+import com.nf.mvc.resource.StaticResourceConfiguration;
+
+public class LoadTestConfigurer implements MvcConfigurer {
+  @Override
+  public void configureStaticResources(StaticResourceConfiguration configuration) {
+    configuration.addResourceLocations("/static/", LoadTestData.getRoot().resolve("static").toString())
+            .checkInterval(-1);
+  }
+}
@@ -0,0 +1,46 @@
+package com.benchmark.load.app;
+
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.file.MultipartFile;
+import com.nf.mvc.mapping.RequestMapping;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.nf.mvc.handler.HandlerHelper.file;
+import static com.nf.mvc.handler.HandlerHelper.json;
+import static com.nf.mvc.handler.HandlerHelper.plain;
+
+/**
+ * 压测场景对应的handler，404与静态资源场景不经过handler
+ */
+@RequestMapping("/load")
+public class LoadTestController {
+  private static final List<Order> ORDERS = new ArrayList<>();
+
+  static {
+    LocalDateTime now = LocalDateTime.of(2024, 1, 1, 8, 0);
+    for (int i = 0; i < 20; i++) {
+      ORDERS.add(new Order(i, "客户" + i, "商品-" + (i * 7 % 13), i % 5 + 1, 19.9 * (i + 1), i % 2 == 0, now.plusMinutes(i)));
+    }
+  }
+
+  @RequestMapping("/json")
+  public ViewResult orders() {
+    return json(ORDERS);
+  }
+
+  @RequestMapping("/download")
+  public ViewResult download() {
+    return file(LoadTestData.getRoot().resolve(LoadTestData.DOWNLOAD_FILE).toString());
+  }
+
+  /**
+   * 只读取上传的内容，不写到磁盘，测量的是解析multipart请求体的开销
+   */
+  @RequestMapping("/upload")
+  public ViewResult upload(MultipartFile file) {
+    return plain(String.valueOf(file.getSize()));
+  }
+}
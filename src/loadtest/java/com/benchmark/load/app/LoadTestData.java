@@ -0,0 +1,52 @@
+package com.benchmark.load.app;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 压测用到的文件，在启动应用之前生成到一个临时目录中
+ * <ul>
+ *     <li>download.bin：下载场景的文件</li>
+ *     <li>static/app.js：静态资源场景的文件，大小在静态资源的内存缓存范围之内</li>
+ * </ul>
+ */
+public final class LoadTestData {
+  public static final String DOWNLOAD_FILE = "download.bin";
+  public static final String STATIC_FILE = "app.js";
+
+  private static Path root;
+
+  private LoadTestData() {
+  }
+
+  /**
+   * @param downloadSize 下载文件的字节数
+   * @param staticSize   静态资源文件的字节数
+   * @return 生成文件的目录
+   * @throws IOException 写文件出错时抛出
+   */
+  public static synchronized Path prepare(int downloadSize, int staticSize) throws IOException {
+    root = Files.createTempDirectory("mvc-load-test");
+    byte[] download = new byte[downloadSize];
+    new Random(42).nextBytes(download);
+    Files.write(root.resolve(DOWNLOAD_FILE), download);
+
+    Path staticDir = Files.createDirectories(root.resolve("static"));
+    StringBuilder script = new StringBuilder(staticSize + 64);
+    for (int i = 0; script.length() < staticSize; i++) {
+      script.append("function handler").append(i).append("(event) { return event.target.value + ").append(i).append("; }\n");
+    }
+    Files.write(staticDir.resolve(STATIC_FILE), script.substring(0, staticSize).getBytes(StandardCharsets.UTF_8));
+    return root;
+  }
+
+  public static synchronized Path getRoot() {
+    if (root == null) {
+      throw new IllegalStateException("还没有调用prepare生成压测文件");
+    }
+    return root;
+  }
+}
@@ -0,0 +1,82 @@
+package com.benchmark.load.app;
+
+import java.time.LocalDateTime;
+
+public class Order {
+  private long id;
+  private String customer;
+  private String product;
+  private int quantity;
+  private double amount;
+  private boolean paid;
+  private LocalDateTime createdAt;
+
+  public Order() {
+  }
+
+  public Order(long id, String customer, String product, int quantity, double amount, boolean paid, LocalDateTime createdAt) {
+    this.id = id;
+    this.customer = customer;
+    this.product = product;
+    this.quantity = quantity;
+    this.amount = amount;
+    this.paid = paid;
+    this.createdAt = createdAt;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public void setId(long id) {
+    this.id = id;
+  }
+
+  public String getCustomer() {
+    return customer;
+  }
+
+  public void setCustomer(String customer) {
+    this.customer = customer;
+  }
+
+  public String getProduct() {
+    return product;
+  }
+
+  public void setProduct(String product) {
+    this.product = product;
+  }
+
+  public int getQuantity() {
+    return quantity;
+  }
+
+  public void setQuantity(int quantity) {
+    this.quantity = quantity;
+  }
+
+  public double getAmount() {
+    return amount;
+  }
+
+  public void setAmount(double amount) {
+    this.amount = amount;
+  }
+
+  public boolean isPaid() {
+    return paid;
+  }
+
+  public void setPaid(boolean paid) {
+    this.paid = paid;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+}
@@ -7,24 +7,89 @@ import com.nf.mvc.argument.MethodArgumentResolverComposite;
 import com.nf.mvc.argument.MethodParameter;
 import com.nf.mvc.argument.MultipartFileMethodArgumentResolver;
 import com.nf.mvc.argument.PathVariableMethodArgumentResolver;
+import com.nf.mvc.argument.ResumableUploadMethodArgumentResolver;
 import com.nf.mvc.argument.RequestBodyMethodArgumentResolver;
 import com.nf.mvc.argument.ServletApiMethodArgumentResolver;
+import com.nf.mvc.argument.StreamingMultipartMethodArgumentResolver;
 import com.nf.mvc.argument.SimpleTypeMethodArgumentResolver;
+import com.nf.mvc.async.AsyncConfiguration;
+import com.nf.mvc.async.AsyncRequestTimeoutException;
+import com.nf.mvc.async.AsyncViewResult;
+import com.nf.mvc.batch.BatchConfiguration;
+import com.nf.mvc.batch.BatchProcessor;
+import com.nf.mvc.body.AggregatedBody;
+import com.nf.mvc.body.AggregatedBodyRequestWrapper;
+import com.nf.mvc.body.BodyAggregationConfiguration;
+import com.nf.mvc.body.BodyAggregator;
+import com.nf.mvc.body.PayloadTooLargeException;
+import com.nf.mvc.batch.BatchResponseWrapper;
+import com.nf.mvc.bulkhead.BulkheadConfiguration;
+import com.nf.mvc.cache.ResponseCacheConfiguration;
+import com.nf.mvc.cache.ResponseCacheManager;
+import com.nf.mvc.cache.ResponseCachePolicy;
+import com.nf.mvc.bulkhead.BulkheadRegistry;
+import com.nf.mvc.bulkhead.ConcurrencyLimiter;
+import com.nf.mvc.coalesce.BufferedResponse;
+import com.nf.mvc.coalesce.CoalescePolicy;
+import com.nf.mvc.coalesce.RequestCoalescer;
+import com.nf.mvc.compression.CompressionConfiguration;
+import com.nf.mvc.compression.CompressionResponseWrapper;
+import com.nf.mvc.compression.ContentEncoding;
+import com.nf.mvc.compression.DeflaterPool;
 import com.nf.mvc.cors.CorsConfiguration;
 import com.nf.mvc.exception.ExceptionHandlerExceptionResolver;
 import com.nf.mvc.exception.LogHandlerExceptionResolver;
 import com.nf.mvc.exception.ParameterizedExceptionHandlersExceptionResolver;
+import com.nf.mvc.exception.PayloadTooLargeHandlerExceptionResolver;
 import com.nf.mvc.exception.PrintStackTraceHandlerExceptionResolver;
+import com.nf.mvc.exception.TimeoutHandlerExceptionResolver;
+import com.nf.mvc.file.MultipartLimitResolver;
+import com.nf.mvc.file.MultipartLimits;
+import com.nf.mvc.handler.HandlerClass;
+import com.nf.mvc.handler.HandlerMethod;
 import com.nf.mvc.mapping.NameConventionHandlerMapping;
 import com.nf.mvc.mapping.RequestMappingHandlerMapping;
+import com.nf.mvc.metrics.DefaultMetricsRegistry;
+import com.nf.mvc.metrics.MetricsConfiguration;
+import com.nf.mvc.metrics.MetricsRegistry;
+import com.nf.mvc.metrics.PrometheusMetricsHandler;
+import com.nf.mvc.metrics.RequestPhase;
+import com.nf.mvc.metrics.RequestTimer;
+import com.nf.mvc.resource.StaticResourceConfiguration;
+import com.nf.mvc.resource.StaticResourceHandler;
+import com.nf.mvc.returnvalue.AsyncReturnValueHandler;
+import com.nf.mvc.returnvalue.BytesReturnValueHandler;
+import com.nf.mvc.returnvalue.PlainTextReturnValueHandler;
+import com.nf.mvc.returnvalue.SerializingReturnValueHandler;
+import com.nf.mvc.returnvalue.StreamingReturnValueHandler;
+import com.nf.mvc.returnvalue.ViewResultReturnValueHandler;
+import com.nf.mvc.support.ByteBufferPool;
 import com.nf.mvc.support.Delimiters;
 import com.nf.mvc.support.HttpHeaders;
 import com.nf.mvc.support.HttpMethod;
+import com.nf.mvc.timeout.Deadline;
+import com.nf.mvc.timeout.RequestTimeoutException;
+import com.nf.mvc.timeout.TimeoutConfiguration;
+import com.nf.mvc.timeout.TimeoutResolver;
+import com.nf.mvc.upload.ResumableUploadConfiguration;
+import com.nf.mvc.upload.ResumableUploadHandler;
 import com.nf.mvc.util.CorsUtils;
+import com.nf.mvc.util.LogUtils;
+import com.nf.mvc.util.RequestUtils;
 import com.nf.mvc.util.ScanUtils;
 import com.nf.mvc.util.StringUtils;
+import com.nf.mvc.util.VirtualThreadUtils;
+import com.nf.mvc.write.ChunkSource;
+import com.nf.mvc.write.NonBlockingViewResult;
+import com.nf.mvc.write.NonBlockingWriteConfiguration;
+import com.nf.mvc.write.NonBlockingWriter;
+import com.nf.mvc.view.template.SimpleTemplateEngine;
+import com.nf.mvc.view.template.TemplateEngine;
 import io.github.classgraph.ScanResult;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -33,7 +98,12 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
@@ -106,9 +176,11 @@ import java.util.function.Consumer;
  *     <li>初始化Mvc框架
  *          <ol>
  *              <li>初始化所有的参数解析器</li>
+ *              <li>初始化所有的返回值处理器</li>
  *              <li>初始化所有的HandlerMapping</li>
  *              <li>初始化所有的HandlerAdapters</li>
  *              <li>初始化所有的异常解析器</li>
+ *              <li>初始化模板引擎</li>
  *          </ol>
  *     </li>
  *     <li>配置Mvc框架：利用{@link MvcConfigurer}的实现类对Mvc框架内部组件进行配置</li>
@@ -124,7 +196,7 @@ import java.util.function.Consumer;
  *              <li>遍历方法的每一个参数，解析出此参数的值，解析的时候是遍历每一个参数解析器，找到能支持的解析器就结束遍历，并利用解析器解析出值，
  *              如果找不到能解析的解析就抛出异常，具体见{@link MethodArgumentResolverComposite#resolveArgument(MethodParameter, HttpServletRequest)} </li>
  *              <li>执行Handler的方法</li>
- *              <li>适配Handler执行结果为ViewResult类型</li>
+ *              <li>利用返回值处理器把Handler执行结果转换为ViewResult类型，见{@link ReturnValueHandler}</li>
  *          </ol>
  *     </li>
  *     <li>对Handler的执行结果ViewResult进行渲染（render）</li>
@@ -132,7 +204,10 @@ import java.util.function.Consumer;
  * </ol>
  * <h3>静态资源处理</h3>
  * <p>
- *     静态资源的地址如果没有对应HandlerMapping能处理，就进入到了默认Servlet的处理逻辑，
+ *     通过{@link MvcConfigurer#configureStaticResources(StaticResourceConfiguration)}配置了资源位置之后，
+ *     以配置的前缀开头的请求在service方法中就交给{@link StaticResourceHandler}处理，不再查找handler，
+ *     详见{@link #serveStaticResource(String, HttpServletRequest, HttpServletResponse)}。
+ *     没有配置时，静态资源的地址如果没有对应HandlerMapping能处理，就进入到了默认Servlet的处理逻辑，
  *     而默认Servlet是可以处理静态资源的
  * </p>
  *
@@ -143,6 +218,85 @@ import java.util.function.Consumer;
  *  方法里面的设置
  *  </p>
  *
+ *  <h3>响应压缩</h3>
+ *  <p>
+ *  通过实现{@link MvcConfigurer#configureCompression(CompressionConfiguration)}方法可以开启响应压缩，
+ *  开启之后会在请求端支持gzip或deflate时用{@link CompressionResponseWrapper}包装响应对象，对所有的ViewResult都有效，
+ *  详见{@link #service(HttpServletRequest, HttpServletResponse)}
+ *  </p>
+ *
+ *  <h3>异步处理</h3>
+ *  <p>
+ *  handler方法返回CompletionStage、Callable或{@link com.nf.mvc.async.DeferredResult}时，会被适配为{@link AsyncViewResult},
+ *  此时会开启servlet的异步处理，处理请求的容器线程直接返回，结果出来之后在异步执行器的线程中执行拦截器的后置逻辑并渲染视图，
+ *  执行器与超时时间可以通过{@link MvcConfigurer#configureAsync(AsyncConfiguration)}配置，
+ *  详见{@link #startAsync(ServletExchange, HandlerExecutionChain, AsyncViewResult)}
+ *  </p>
+ *
+ *  <h3>虚拟线程模式</h3>
+ *  <p>
+ *  通过init-param {@code execution-mode}设置为{@code virtual}(用MvcApplication启动时传递参数virtualThreads=true)，
+ *  找到handler之后会开启servlet的异步处理，把{@link #doDispatch(ServletExchange, HandlerExecutionChain)}
+ *  交给每个任务一个虚拟线程的执行器执行，handler中阻塞的jdbc、http调用不再占用容器的平台线程。
+ *  虚拟线程需要jdk21，低版本jdk或者DispatcherServlet没有开启异步支持时会退回到普通的处理方式。
+ *  容器线程本身已经是虚拟线程时(比如连接器的执行器是虚拟线程的执行器)直接在当前线程处理，不会再切换一次线程。
+ *  虚拟线程中遇到异步返回值时不会再次开启异步处理，而是直接在虚拟线程中等待结果，
+ *  详见{@link #dispatchOnVirtualThread(ServletExchange, HandlerExecutionChain)}
+ *  </p>
+ *
+ *  <h3>并发限制</h3>
+ *  <p>
+ *  handler方法可以用{@link com.nf.mvc.bulkhead.Bulkhead}注解或者{@link MvcConfigurer#configureBulkhead(BulkheadConfiguration)}
+ *  限制并发执行的数量，超出限制的请求直接响应503，避免一个慢的功能占满容器的所有线程，
+ *  详见{@link #doDispatch(ServletExchange, HandlerExecutionChain)}
+ *  </p>
+ *
+ *  <h3>超时</h3>
+ *  <p>
+ *  handler方法可以用{@link com.nf.mvc.timeout.Timeout}注解或者{@link MvcConfigurer#configureTimeout(TimeoutConfiguration)}
+ *  设置处理超时时间，请求会有一个截止时间{@link Deadline}，异步handler在截止时间到达时被取消，
+ *  超时异常交给异常解析器处理，默认响应504
+ *  </p>
+ *
+ *  <h3>请求合并与响应缓存</h3>
+ *  <p>
+ *  GET请求的handler方法可以用{@link com.nf.mvc.coalesce.Coalesce}注解合并并发的相同请求，只有一个请求执行handler，
+ *  其它请求回放它渲染好的响应；也可以用{@link com.nf.mvc.cache.CacheResponse}注解在服务端缓存渲染好的响应，
+ *  两者可以同时使用，详见{@link #dispatchBuffered(ServletExchange, HandlerExecutionChain, CoalescePolicy, ResponseCachePolicy)}
+ *  </p>
+ *
+ *  <h3>文件上传的大小限制</h3>
+ *  <p>
+ *  全局的限制通过init-param {@link #MAX_FILE_SIZE}与{@link #MAX_REQUEST_SIZE}设置，
+ *  handler可以用{@link com.nf.mvc.mapping.RequestMapping#maxFileSize()}与{@link com.nf.mvc.mapping.RequestMapping#maxRequestSize()}覆盖，
+ *  Content-Length超过限制的请求在读取请求体之前就响应413
+ *  </p>
+ *
+ *  <h3>可续传上传</h3>
+ *  <p>
+ *  通过{@link MvcConfigurer#configureResumableUpload(ResumableUploadConfiguration)}设置地址前缀之后，
+ *  这个前缀下的请求由{@link ResumableUploadHandler}处理，大文件可以分段、并行、断点续传，
+ *  完成之后handler用{@link com.nf.mvc.upload.ResumableUploadFile}类型的参数接收。
+ *  上传地址不查找handler，但仍然经过按地址匹配的拦截器，见{@link #serveBuiltIn(Object, HttpServletRequest, HttpServletResponse, BuiltInAction)}
+ *  </p>
+ *
+ *  <h3>请求指标</h3>
+ *  <p>
+ *  通过{@link MvcConfigurer#configureMetrics(MetricsConfiguration)}开启之后，每个请求按照匹配的路由(地址模式)记录请求数、错误数、
+ *  在处理中的请求数与各阶段的延迟，注册表保存在ServletContext的{@link MetricsRegistry#METRICS_REGISTRY_ATTRIBUTE}属性中，
+ *  静态资源、可续传上传与批量请求不经过handler映射，不记录指标。
+ *  设置了{@link MetricsConfiguration#endpoint(String)}时，这个地址以Prometheus文本格式输出路由、tomcat连接器与jvm的指标，
+ *  见{@link PrometheusMetricsHandler}，这个地址同样经过按地址匹配的拦截器，可以用拦截器限制访问
+ *  </p>
+ *
+ *  <h3>非阻塞读写</h3>
+ *  <p>
+ *  通过{@link MvcConfigurer#configureBodyAggregation(BodyAggregationConfiguration)}开启之后，请求体在交给handler之前用ReadListener非阻塞的读取，
+ *  通过{@link MvcConfigurer#configureNonBlockingWrite(NonBlockingWriteConfiguration)}开启之后，
+ *  实现了{@link NonBlockingViewResult}的视图结果用WriteListener非阻塞的写出响应体，
+ *  慢客户端上传或下载期间都不占用线程，详见{@link #aggregateBody(ServletExchange, HandlerExecutionChain)}与{@link #render(ServletExchange, ViewResult)}
+ *  </p>
+ *
  * @see MvcContext
  * @see MethodArgumentResolver
  * @see HandlerMapping
@@ -157,10 +311,22 @@ public class DispatcherServlet extends HttpServlet {
    * 此选项是用来配置要扫描的类所在的基础包的，在DispatcherServlet的init-param里面进行配置
    */
   private static final String BASE_PACKAGE = "base-package";
+  /**
+   * 此选项用来配置请求的执行方式，在DispatcherServlet的init-param里面进行配置，目前只支持{@link #VIRTUAL_EXECUTION_MODE}
+   */
+  public static final String EXECUTION_MODE = "execution-mode";
+  public static final String VIRTUAL_EXECUTION_MODE = "virtual";
+  /**
+   * 这两个选项是文件上传的全局大小限制，在DispatcherServlet的init-param里面进行配置，
+   * 值应该与servlet的multipart-config中的设置一样，框架用它们在读取请求体之前检查Content-Length，见{@link MultipartLimitResolver}
+   */
+  public static final String MAX_FILE_SIZE = "max-file-size";
+  public static final String MAX_REQUEST_SIZE = "max-request-size";
   private final List<HandlerMapping> handlerMappings = new ArrayList<>();
   private final List<HandlerAdapter> handlerAdapters = new ArrayList<>();
   private final List<MethodArgumentResolver> argumentResolvers = new ArrayList<>();
   private final List<HandlerExceptionResolver> exceptionResolvers = new ArrayList<>();
+  private final List<ReturnValueHandler> returnValueHandlers = new ArrayList<>();
 
   /**
    * 用这种方式实例化是因为其调用了applyDefaultConfiguration方法，创建出来的对象是有了一些默认设置的
@@ -168,6 +334,87 @@ public class DispatcherServlet extends HttpServlet {
    */
   private final CorsConfiguration corsConfiguration = CorsConfiguration.defaultInstance();
 
+  /**
+   * 与跨域配置一样，用有默认值的实例，默认是不开启压缩的
+   */
+  private final CompressionConfiguration compressionConfiguration = CompressionConfiguration.defaultInstance();
+
+  /**
+   * 在configMvc之后才依据配置的池大小实例化
+   */
+  private DeflaterPool deflaterPool;
+
+  private final AsyncConfiguration asyncConfiguration = AsyncConfiguration.defaultInstance();
+
+  /**
+   * 异步请求使用的执行器，用户没有配置时由框架创建，此时ownedAsyncExecutor不为null，在destroy时关闭
+   */
+  private Executor asyncExecutor;
+  private ExecutorService ownedAsyncExecutor;
+
+  /**
+   * 虚拟线程模式下执行doDispatch的执行器，为null表示在容器线程中执行
+   */
+  private ExecutorService virtualThreadExecutor;
+
+  private final BatchConfiguration batchConfiguration = BatchConfiguration.defaultInstance();
+
+  /**
+   * 批量请求的处理者，没有开启批量请求时为null
+   */
+  private BatchProcessor batchProcessor;
+
+  private final BulkheadConfiguration bulkheadConfiguration = BulkheadConfiguration.defaultInstance();
+
+  private BulkheadRegistry bulkheadRegistry;
+
+  private final TimeoutConfiguration timeoutConfiguration = TimeoutConfiguration.defaultInstance();
+
+  private TimeoutResolver timeoutResolver;
+
+  private final BodyAggregationConfiguration bodyAggregationConfiguration = BodyAggregationConfiguration.defaultInstance();
+
+  /**
+   * 非阻塞读取请求体时使用的直接内存池，没有开启时为null
+   */
+  private ByteBufferPool bodyBufferPool;
+
+  private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+  private final ResponseCacheConfiguration responseCacheConfiguration = ResponseCacheConfiguration.defaultInstance();
+
+  private ResponseCacheManager responseCacheManager;
+
+  private final NonBlockingWriteConfiguration nonBlockingWriteConfiguration = NonBlockingWriteConfiguration.defaultInstance();
+
+  private final StaticResourceConfiguration staticResourceConfiguration = StaticResourceConfiguration.defaultInstance();
+
+  /**
+   * 静态资源的处理者，没有配置资源位置时为null
+   */
+  private StaticResourceHandler staticResourceHandler;
+
+  private MultipartLimitResolver multipartLimitResolver;
+
+  private final ResumableUploadConfiguration resumableUploadConfiguration = ResumableUploadConfiguration.defaultInstance();
+
+  /**
+   * 可续传上传的处理者，没有配置上传地址前缀时为null
+   */
+  private ResumableUploadHandler resumableUploadHandler;
+
+  private final MetricsConfiguration metricsConfiguration = MetricsConfiguration.defaultInstance();
+
+  /**
+   * 请求指标的注册表，没有开启请求指标时为null
+   */
+  private MetricsRegistry metricsRegistry;
+
+  /**
+   * 以Prometheus文本格式输出指标的处理者，没有设置指标地址时为null
+   */
+  private PrometheusMetricsHandler metricsHandler;
+
   // region 初始化逻辑
 
   /**
@@ -230,6 +477,114 @@ public class DispatcherServlet extends HttpServlet {
     initMvcContext(scanResult);
     initMvc();
     configMvc();
+    deflaterPool = new DeflaterPool(compressionConfiguration.getDeflaterPoolSize());
+    initAsyncExecutor();
+    initExecutionMode(config);
+    initBatchProcessor();
+    initBulkheadRegistry(config);
+    initResponseCacheManager(config);
+    initStaticResourceHandler(config);
+    initResumableUploadHandler(config);
+    initMetricsRegistry(config);
+    timeoutResolver = new TimeoutResolver(timeoutConfiguration);
+    initMultipartLimitResolver(config);
+    if (bodyAggregationConfiguration.isEnabled()) {
+      bodyBufferPool = new ByteBufferPool(bodyAggregationConfiguration.getBufferSize(),
+              bodyAggregationConfiguration.getMaxPooledBuffers(), true);
+    }
+  }
+
+  private void initBulkheadRegistry(ServletConfig config) {
+    bulkheadRegistry = new BulkheadRegistry(bulkheadConfiguration);
+    config.getServletContext().setAttribute(BulkheadRegistry.BULKHEAD_REGISTRY_ATTRIBUTE, bulkheadRegistry);
+  }
+
+  private void initResponseCacheManager(ServletConfig config) {
+    responseCacheManager = new ResponseCacheManager(responseCacheConfiguration);
+    config.getServletContext().setAttribute(ResponseCacheManager.RESPONSE_CACHE_MANAGER_ATTRIBUTE, responseCacheManager);
+  }
+
+  private void initStaticResourceHandler(ServletConfig config) {
+    if (staticResourceConfiguration.isEnabled()) {
+      staticResourceHandler = new StaticResourceHandler(staticResourceConfiguration, compressionConfiguration, config.getServletContext());
+      config.getServletContext().setAttribute(StaticResourceHandler.STATIC_RESOURCE_HANDLER_ATTRIBUTE, staticResourceHandler);
+    }
+  }
+
+  private void initMultipartLimitResolver(ServletConfig config) {
+    long maxFileSize = getSizeInitParameter(config, MAX_FILE_SIZE);
+    long maxRequestSize = getSizeInitParameter(config, MAX_REQUEST_SIZE);
+    multipartLimitResolver = new MultipartLimitResolver(new MultipartLimits(maxFileSize, maxRequestSize));
+  }
+
+  private long getSizeInitParameter(ServletConfig config, String name) {
+    String value = config.getInitParameter(name);
+    return value == null || value.trim().isEmpty() ? -1 : Long.parseLong(value.trim());
+  }
+
+  private void initMetricsRegistry(ServletConfig config) {
+    if (metricsConfiguration.isEnabled()) {
+      metricsRegistry = metricsConfiguration.getRegistry() != null ? metricsConfiguration.getRegistry() :
+              new DefaultMetricsRegistry(metricsConfiguration.getMaxRoutes(), metricsConfiguration.getSignificantDigits());
+      config.getServletContext().setAttribute(MetricsRegistry.METRICS_REGISTRY_ATTRIBUTE, metricsRegistry);
+      if (metricsConfiguration.getEndpoint() != null) {
+        metricsHandler = new PrometheusMetricsHandler(metricsConfiguration, metricsRegistry, bulkheadRegistry, responseCacheManager);
+      }
+    }
+  }
+
+  private void initResumableUploadHandler(ServletConfig config) {
+    if (resumableUploadConfiguration.isEnabled()) {
+      resumableUploadHandler = new ResumableUploadHandler(resumableUploadConfiguration);
+      config.getServletContext().setAttribute(ResumableUploadHandler.RESUMABLE_UPLOAD_HANDLER_ATTRIBUTE, resumableUploadHandler);
+    }
+  }
+
+  private void initBatchProcessor() {
+    if (batchConfiguration.isEnabled()) {
+      batchProcessor = new BatchProcessor(batchConfiguration, this::dispatchSubRequest);
+    }
+  }
+
+  private void initExecutionMode(ServletConfig config) {
+    String mode = config.getInitParameter(EXECUTION_MODE);
+    if (mode == null || mode.isEmpty()) {
+      return;
+    }
+    if (!VIRTUAL_EXECUTION_MODE.equalsIgnoreCase(mode.trim())) {
+      throw new IllegalStateException("不支持的执行模式:" + mode);
+    }
+    virtualThreadExecutor = VirtualThreadUtils.newVirtualThreadPerTaskExecutor();
+    if (virtualThreadExecutor == null) {
+      LogUtils.info("当前jvm不支持虚拟线程，请求仍在容器线程中处理");
+    }
+  }
+
+  private void initAsyncExecutor() {
+    asyncExecutor = asyncConfiguration.getExecutor();
+    if (asyncExecutor == null) {
+      ownedAsyncExecutor = asyncConfiguration.createDefaultExecutor();
+      asyncExecutor = ownedAsyncExecutor;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (ownedAsyncExecutor != null) {
+      ownedAsyncExecutor.shutdown();
+    }
+    if (virtualThreadExecutor != null) {
+      virtualThreadExecutor.shutdown();
+    }
+    if (batchProcessor != null) {
+      batchProcessor.shutdown();
+    }
+    if (responseCacheManager != null) {
+      responseCacheManager.close();
+    }
+    if (resumableUploadHandler != null) {
+      resumableUploadHandler.close();
+    }
   }
 
   private void initMvcContext(ScanResult scanResult) {
@@ -238,11 +593,13 @@ public class DispatcherServlet extends HttpServlet {
   }
 
   private void initMvc() {
-    /* 参数解析器因为被Adapter使用，所以其初始化要在adapter初始化之前进行 */
+    /* 参数解析器与返回值处理器因为被Adapter使用，所以其初始化要在adapter初始化之前进行 */
     initArgumentResolvers();
+    initReturnValueHandlers();
     initHandlerMappings();
     initHandlerAdapters();
     initExceptionResolvers();
+    initTemplateEngine();
   }
 
   private void configMvc() {
@@ -262,8 +619,23 @@ public class DispatcherServlet extends HttpServlet {
             .getHandlerAdapters(), mvcConfigurer);
     configExceptionResolvers(MvcContext.getMvcContext()
             .getExceptionResolvers(), mvcConfigurer);
+    configReturnValueHandlers(MvcContext.getMvcContext()
+            .getReturnValueHandlers(), mvcConfigurer);
     // 由于corsConfiguration对象是有了默认值设置的实例，没有配置器的时候不配置cors也能用默认设置处理跨域
     configGlobalCors(this.corsConfiguration, mvcConfigurer);
+    configCompression(this.compressionConfiguration, mvcConfigurer);
+    configAsync(this.asyncConfiguration, mvcConfigurer);
+    configBatch(this.batchConfiguration, mvcConfigurer);
+    configBulkhead(this.bulkheadConfiguration, mvcConfigurer);
+    configTimeout(this.timeoutConfiguration, mvcConfigurer);
+    configBodyAggregation(this.bodyAggregationConfiguration, mvcConfigurer);
+    configNonBlockingWrite(this.nonBlockingWriteConfiguration, mvcConfigurer);
+    configResponseCache(this.responseCacheConfiguration, mvcConfigurer);
+    configStaticResources(this.staticResourceConfiguration, mvcConfigurer);
+    configResumableUpload(this.resumableUploadConfiguration, mvcConfigurer);
+    configMetrics(this.metricsConfiguration, mvcConfigurer);
+    configTemplateEngine(MvcContext.getMvcContext()
+            .getTemplateEngine(), mvcConfigurer);
   }
 
   protected void configArgumentResolvers(List<MethodArgumentResolver> argumentResolvers, MvcConfigurer mvcConfigurer) {
@@ -282,6 +654,10 @@ public class DispatcherServlet extends HttpServlet {
     executeMvcComponentsConfig(exceptionResolvers, mvcConfigurer::configureExceptionResolver);
   }
 
+  protected void configReturnValueHandlers(List<ReturnValueHandler> returnValueHandlers, MvcConfigurer mvcConfigurer) {
+    executeMvcComponentsConfig(returnValueHandlers, mvcConfigurer::configureReturnValueHandler);
+  }
+
   protected void configGlobalCors(CorsConfiguration configuration, MvcConfigurer mvcConfigurer) {
     // 不需要再调用默认设置，全局实例化时已经设置过了，如果用户不需要这些默认设置，可以调用clearDefaultConfiguration方法进行清除
     // configuration.applyDefaultConfiguration();
@@ -290,6 +666,54 @@ public class DispatcherServlet extends HttpServlet {
     // executeMvcComponentsConfig(Arrays.asList(configuration),mvcConfigurer::configureCors);
   }
 
+  protected void configCompression(CompressionConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureCompression(configuration);
+  }
+
+  protected void configAsync(AsyncConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureAsync(configuration);
+  }
+
+  protected void configBatch(BatchConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureBatch(configuration);
+  }
+
+  protected void configBulkhead(BulkheadConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureBulkhead(configuration);
+  }
+
+  protected void configTimeout(TimeoutConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureTimeout(configuration);
+  }
+
+  protected void configBodyAggregation(BodyAggregationConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureBodyAggregation(configuration);
+  }
+
+  protected void configNonBlockingWrite(NonBlockingWriteConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureNonBlockingWrite(configuration);
+  }
+
+  protected void configResponseCache(ResponseCacheConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureResponseCache(configuration);
+  }
+
+  protected void configStaticResources(StaticResourceConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureStaticResources(configuration);
+  }
+
+  protected void configResumableUpload(ResumableUploadConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureResumableUpload(configuration);
+  }
+
+  protected void configMetrics(MetricsConfiguration configuration, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureMetrics(configuration);
+  }
+
+  protected void configTemplateEngine(TemplateEngine templateEngine, MvcConfigurer mvcConfigurer) {
+    mvcConfigurer.configureTemplateEngine(templateEngine);
+  }
+
   private <T> void executeMvcComponentsConfig(List<T> mvcComponents, Consumer<T> consumer) {
     mvcComponents.forEach(consumer);
   }
@@ -311,6 +735,8 @@ public class DispatcherServlet extends HttpServlet {
     List<MethodArgumentResolver> argumentResolvers = new ArrayList<>();
     argumentResolvers.add(new ServletApiMethodArgumentResolver());
     argumentResolvers.add(new MultipartFileMethodArgumentResolver());
+    argumentResolvers.add(new StreamingMultipartMethodArgumentResolver());
+    argumentResolvers.add(new ResumableUploadMethodArgumentResolver());
     // RequestBody解析器要放在复杂类型解析器之前，基本上简单与复杂类型解析器应该放在最后
     argumentResolvers.add(new RequestBodyMethodArgumentResolver());
     argumentResolvers.add(new PathVariableMethodArgumentResolver());
@@ -325,6 +751,37 @@ public class DispatcherServlet extends HttpServlet {
             .getCustomArgumentResolvers();
   }
 
+  private void initReturnValueHandlers() {
+    List<ReturnValueHandler> customReturnValueHandlers = getCustomReturnValueHandlers();
+    List<ReturnValueHandler> defaultReturnValueHandlers = getDefaultReturnValueHandlers();
+
+    returnValueHandlers.addAll(customReturnValueHandlers);
+    returnValueHandlers.addAll(defaultReturnValueHandlers);
+    MvcContext.getMvcContext()
+            .setReturnValueHandlers(returnValueHandlers);
+  }
+
+  protected List<ReturnValueHandler> getCustomReturnValueHandlers() {
+    return MvcContext.getMvcContext()
+            .getCustomReturnValueHandlers();
+  }
+
+  /**
+   * 序列化的处理器能处理除void以外的所有类型，所以必须放在最后
+   *
+   * @return 框架提供的返回值处理器
+   */
+  protected List<ReturnValueHandler> getDefaultReturnValueHandlers() {
+    List<ReturnValueHandler> handlers = new ArrayList<>();
+    handlers.add(new ViewResultReturnValueHandler());
+    handlers.add(new AsyncReturnValueHandler());
+    handlers.add(new PlainTextReturnValueHandler());
+    handlers.add(new BytesReturnValueHandler());
+    handlers.add(new StreamingReturnValueHandler());
+    handlers.add(new SerializingReturnValueHandler());
+    return handlers;
+  }
+
   private void initHandlerMappings() {
     // 优先添加用户自定义的HandlerMapping
     List<HandlerMapping> customHandlerMappings = getCustomHandlerMappings();
@@ -394,9 +851,33 @@ public class DispatcherServlet extends HttpServlet {
     resolvers.add(new PrintStackTraceHandlerExceptionResolver());
     resolvers.add(new ExceptionHandlerExceptionResolver());
     resolvers.add(new ParameterizedExceptionHandlersExceptionResolver());
+    // 放在最后，用户用@ExceptionHandler处理了超时与请求体太大的异常时以用户的为准
+    resolvers.add(new TimeoutHandlerExceptionResolver());
+    resolvers.add(new PayloadTooLargeHandlerExceptionResolver());
     return resolvers;
   }
 
+  /**
+   * 模板引擎只需要一个，用户提供了定制的模板引擎就用定制的，否则用框架默认的{@link SimpleTemplateEngine}
+   */
+  private void initTemplateEngine() {
+    TemplateEngine templateEngine = getCustomTemplateEngine();
+    if (templateEngine == null) {
+      templateEngine = getDefaultTemplateEngine();
+    }
+    MvcContext.getMvcContext()
+            .setTemplateEngine(templateEngine);
+  }
+
+  protected TemplateEngine getCustomTemplateEngine() {
+    return MvcContext.getMvcContext()
+            .getCustomTemplateEngine();
+  }
+
+  protected TemplateEngine getDefaultTemplateEngine() {
+    return new SimpleTemplateEngine();
+  }
+
   private String[] getBasePackages(ServletConfig config) {
     String pkg = config.getInitParameter(BASE_PACKAGE);
     if (pkg == null || pkg.isEmpty()) {
@@ -434,14 +915,108 @@ public class DispatcherServlet extends HttpServlet {
         return;
       }
     }
-    doService(req, resp);
+    /* 静态资源、可续传上传与指标地址在这里就处理完毕，不需要查找handler，也不需要动态压缩 */
+    if (staticResourceHandler != null || resumableUploadHandler != null || metricsHandler != null) {
+      String path = RequestUtils.getRequestUrl(req);
+      if (staticResourceHandler != null && staticResourceHandler.matches(path)) {
+        serveStaticResource(path, req, resp);
+        return;
+      }
+      if (resumableUploadHandler != null && resumableUploadHandler.matches(path)) {
+        serveBuiltIn(resumableUploadHandler, req, resp, () -> resumableUploadHandler.handle(path, req, resp));
+        return;
+      }
+      if (metricsHandler != null && metricsHandler.matches(path)) {
+        serveBuiltIn(metricsHandler, req, resp, () -> metricsHandler.handle(req, resp));
+        return;
+      }
+    }
+    ContentEncoding encoding = ContentEncoding.negotiate(req.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    if (encoding == ContentEncoding.GZIP && compressionConfiguration.isServePrecompressed()) {
+      req.setAttribute(CompressionConfiguration.PRECOMPRESSED_ENCODING_ATTRIBUTE, encoding.getValue());
+    }
+    if (encoding == null || !compressionConfiguration.isEnabled()) {
+      doService(req, resp);
+      return;
+    }
+    CompressionResponseWrapper compressionResponse = new CompressionResponseWrapper(resp, compressionConfiguration, encoding, deflaterPool);
+    try {
+      doService(req, compressionResponse);
+    } finally {
+      /* 把缓冲区中还没有写出的内容写出，并归还Deflater，异步请求在异步处理结束时才执行，见completeAsync方法 */
+      if (!req.isAsyncStarted()) {
+        compressionResponse.finish();
+      }
+    }
+  }
+
+  /**
+   * 内置的处理者(比如可续传上传)没有对应的HandlerMapping，但仍然要经过应用的拦截器，否则认证之类的拦截器就保护不了这些地址。
+   * 拦截器由第一个HandlerMapping按请求地址选出，与普通请求的规则一样，拦截器收到的handler参数就是内置的处理者对象
+   *
+   * @param handler 内置的处理者
+   * @param req     请求对象
+   * @param resp    响应对象
+   * @param action  拦截器的前置逻辑都返回true之后执行的处理
+   * @throws ServletException 拦截器抛出的非IO异常包装在此异常中
+   * @throws IOException      处理或者拦截器抛出的IO异常
+   */
+  protected void serveBuiltIn(Object handler, HttpServletRequest req, HttpServletResponse resp, BuiltInAction action)
+          throws ServletException, IOException {
+    List<HandlerInterceptor> interceptors = handlerMappings.isEmpty() ? Collections.emptyList() : handlerMappings.get(0).getInterceptors(req);
+    HandlerExecutionChain chain = new HandlerExecutionChain(handler, interceptors);
+    try {
+      try {
+        if (chain.applyPreHandle(req, resp)) {
+          action.run();
+        }
+      } finally {
+        chain.applyPostHandle(req, resp);
+      }
+    } catch (IOException | ServletException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServletException(e);
+    }
+  }
+
+  /**
+   * 内置处理者的处理逻辑，见{@link #serveBuiltIn(Object, HttpServletRequest, HttpServletResponse, BuiltInAction)}
+   */
+  @FunctionalInterface
+  protected interface BuiltInAction {
+    void run() throws IOException;
+  }
+
+  /**
+   * 处理静态资源请求，不经过HandlerMapping查找handler，也不经过响应压缩的包装，压缩的版本由{@link StaticResourceHandler}事先准备好，
+   * 开启了非阻塞写出时响应体通过{@link #writeBody(ServletExchange, ChunkSource)}写出
+   *
+   * @param path 不包含上下文路径的请求地址
+   * @param req  请求对象
+   * @param resp 响应对象
+   * @throws IOException 读取文件或者写出时的异常
+   */
+  protected void serveStaticResource(String path, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    ChunkSource body = staticResourceHandler.handle(path, req, resp);
+    if (body == null) {
+      return;
+    }
+    if (nonBlockingWriteConfiguration.isEnabled() && req.isAsyncSupported()) {
+      writeBody(new ServletExchange(req, resp), body);
+    } else {
+      body.copyTo(resp.getOutputStream(), nonBlockingWriteConfiguration.getChunkSize());
+    }
   }
 
   /**
    * 此方法是真正的请求处理方法，核心的任务有：
    * <ol>
-   *     <li>处理HandlerContext</li>
-   *     <li>利用HandlerMapping找到HandlerExecutionChain</li>
+   *     <li>创建请求的交互对象{@link ServletExchange}，并关联到HandlerContext</li>
+   *     <li>开启了批量请求时，批量请求交给{@link BatchProcessor}处理</li>
+   *     <li>开启了非阻塞读取请求体时，先读取请求体再处理，见{@link #aggregateBody(ServletExchange, HandlerExecutionChain)}</li>
+   *     <li>利用HandlerMapping找到HandlerExecutionChain，开启了请求指标时同时确定请求的路由，见{@link #getRoute(HandlerExecutionChain)}</li>
+   *     <li>文件上传请求检查大小限制，见{@link #checkMultipartLimits(HttpServletRequest, HttpServletResponse, HandlerExecutionChain)}</li>
    *     <li>由doDispatch去处理链的执行</li>
    *     <li>由noHandlerFound去处理找不到Handler（也就没有链）的情况</li>
    * </ol>
@@ -454,34 +1029,391 @@ public class DispatcherServlet extends HttpServlet {
    */
   protected void doService(HttpServletRequest req, HttpServletResponse resp) {
     HandlerExecutionChain chain;
-    HandlerContext context = HandlerContext.getContext();
-    context.setRequest(req)
-            .setResponse(resp);
+    ServletExchange exchange = ServletExchange.create(req, resp);
+    HandlerContext.bind(exchange);
+    RequestTimer timer = null;
     try {
+      if (batchProcessor != null && batchProcessor.matches(exchange)) {
+        batchProcessor.process(req, resp);
+        return;
+      }
+      if (metricsRegistry != null) {
+        timer = new RequestTimer(metricsRegistry);
+        exchange.setRequestTimer(timer);
+      }
       chain = getHandler(req);
-      if (chain != null) {
-        doDispatch(req, resp, chain);
+      if (timer != null) {
+        timer.mapped(getRoute(chain));
+      }
+      if (chain != null && !checkMultipartLimits(req, resp, chain)) {
+        return;
+      }
+      if (chain != null && bodyBufferPool != null && shouldAggregateBody(req)) {
+        aggregateBody(exchange, chain);
+      } else if (chain != null && virtualThreadExecutor != null && req.isAsyncSupported()
+              && !VirtualThreadUtils.isCurrentThreadVirtual()) {
+        dispatchOnVirtualThread(exchange, chain);
+      } else if (chain != null) {
+        doDispatch(exchange, chain);
       } else {
         noHandlerFound(req, resp);
       }
     } catch (Throwable ex) {
+      if (timer != null) {
+        timer.failed(ex);
+      }
       /* spring mvc在这个地方是做了额外的异常处理的 */
       System.out.println("可以在这里再做一层异常处理，比如处理视图渲染方面的异常等，但现在什么都没做,异常消息是:" + ex.getMessage());
     } finally {
+      if (timer != null) {
+        completeTimer(req, timer);
+      }
       /* 保存到ThreadLocal的内容一定要清掉，所以放在finally是合理的 */
-      context.clear();
+      HandlerContext.unbind();
     }
   }
 
   /**
-   * 此方法完成了链的执行和视图结果的渲染
+   * @param chain 执行链，找不到handler时为null
+   * @return 请求指标使用的路由，HandlerMapping没有设置地址模式时使用handler的类名(与方法名)，这样路由的数量仍然是有限的
+   */
+  protected String getRoute(HandlerExecutionChain chain) {
+    if (chain == null) {
+      return MetricsRegistry.UNMATCHED_ROUTE;
+    }
+    if (chain.getRoute() != null) {
+      return chain.getRoute();
+    }
+    Object handler = chain.getHandler();
+    if (handler instanceof HandlerMethod) {
+      HandlerMethod handlerMethod = (HandlerMethod) handler;
+      return handlerMethod.getHandlerClass().getName() + "#" + handlerMethod.getMethodName();
+    }
+    if (handler instanceof HandlerClass) {
+      return ((HandlerClass) handler).getHandlerClass().getName();
+    }
+    return handler.getClass().getName();
+  }
+
+  /**
+   * 同步处理的请求现在就结束计时，异步处理(包括虚拟线程模式、非阻塞读写)的请求在异步处理结束时结束计时
+   */
+  private void completeTimer(HttpServletRequest req, RequestTimer timer) {
+    if (!req.isAsyncStarted()) {
+      timer.complete();
+      return;
+    }
+    req.getAsyncContext().addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        timer.complete();
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        if (event.getThrowable() != null) {
+          timer.failed(event.getThrowable());
+        }
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+  }
+
+  /**
+   * 处理批量请求中的一个子请求，与doService的流程一样，只是在批量请求的线程池中执行，
+   * 子请求不支持servlet异步处理，handler返回异步类型时在当前线程中等待结果
+   * <p>当子请求因为线程池已满而在处理批量请求的线程中执行时，执行完毕之后要恢复批量请求自己的交互对象</p>
+   *
+   * @param req  子请求对象
+   * @param resp 子请求的响应对象
+   */
+  protected void dispatchSubRequest(HttpServletRequest req, HttpServletResponse resp) {
+    ServletExchange previous = HandlerContext.getContext().getExchange();
+    ServletExchange exchange = ServletExchange.create(req, resp);
+    HandlerContext.bind(exchange);
+    try {
+      HandlerExecutionChain chain = getHandler(req);
+      if (chain != null) {
+        doDispatch(exchange, chain);
+      } else {
+        resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+      }
+    } catch (Throwable ex) {
+      sendErrorIfPossible(resp, ex instanceof AsyncRequestTimeoutException ?
+              HttpServletResponse.SC_SERVICE_UNAVAILABLE : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    } finally {
+      if (previous != null) {
+        HandlerContext.bind(previous);
+      } else {
+        HandlerContext.unbind();
+      }
+    }
+  }
+
+  /**
+   * 开启servlet的异步处理并把doDispatch交给虚拟线程执行，容器线程随即返回。
+   * <p>查找handler与找不到handler时交给默认servlet处理仍然在容器线程中进行，它们不会阻塞，
+   * 而且默认servlet的forward不适合在容器线程之外执行</p>
+   * <p>异步请求的超时设置为0(不超时)，与在容器线程中处理时的行为保持一致，
+   * handler执行过程中遇到的异步返回值会在虚拟线程中直接等待结果，见{@link #startAsync(ServletExchange, HandlerExecutionChain, AsyncViewResult)}</p>
+   *
+   * @param exchange 当前请求的交互对象
+   * @param chain    执行链
+   */
+  protected void dispatchOnVirtualThread(ServletExchange exchange, HandlerExecutionChain chain) {
+    HttpServletRequest req = exchange.getRequest();
+    AsyncContext asyncContext = req.startAsync(req, exchange.getResponse());
+    asyncContext.setTimeout(0);
+    dispatchInAsyncContext(virtualThreadExecutor, exchange, chain, asyncContext, null);
+  }
+
+  /**
+   * 在已经开启的异步请求中执行doDispatch，执行完毕之后结束异步请求
+   *
+   * @param executor     执行doDispatch的执行器，为null时在当前线程执行
+   * @param exchange     当前请求的交互对象
+   * @param chain        执行链
+   * @param asyncContext 已经开启的异步上下文
+   * @param onFinish     结束异步请求之前执行的清理逻辑，可以为null
+   */
+  private void dispatchInAsyncContext(ExecutorService executor, ServletExchange exchange, HandlerExecutionChain chain,
+                                      AsyncContext asyncContext, Runnable onFinish) {
+    HttpServletResponse resp = exchange.getResponse();
+    Runnable task = () -> {
+      HandlerContext.bind(exchange);
+      try {
+        doDispatch(exchange, chain);
+      } catch (Throwable ex) {
+        LogUtils.warn("异步上下文中处理请求失败", ex);
+        sendErrorIfPossible(resp, ex instanceof AsyncRequestTimeoutException ?
+                HttpServletResponse.SC_SERVICE_UNAVAILABLE : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+      } finally {
+        if (onFinish != null) {
+          onFinish.run();
+        }
+        if (!exchange.isCompletionDeferred()) {
+          completeAsync(resp, asyncContext);
+        }
+        HandlerContext.unbind();
+      }
+    };
+    if (executor == null) {
+      task.run();
+      return;
+    }
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      // 只有执行器已经关闭(应用正在停止)时才会拒绝
+      sendErrorIfPossible(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      if (onFinish != null) {
+        onFinish.run();
+      }
+      completeAsync(resp, asyncContext);
+    }
+  }
+
+  /**
+   * 确定文件上传请求的handler的大小限制并保存到请求的属性中，供文件上传相关的参数解析器使用。
+   * Content-Length已经超过了请求体的限制时直接响应413，这时还没有读取请求体，
+   * 没有Content-Length的请求(分块传输)在读取时检查
    *
    * @param req   请求对象
    * @param resp  响应对象
    * @param chain 执行链
+   * @return 已经响应413时返回false
+   * @throws IOException 响应出错时抛出
+   */
+  protected boolean checkMultipartLimits(HttpServletRequest req, HttpServletResponse resp, HandlerExecutionChain chain) throws IOException {
+    String contentType = req.getContentType();
+    if (contentType == null || !contentType.toLowerCase().startsWith("multipart/")) {
+      return true;
+    }
+    MultipartLimits limits = multipartLimitResolver.resolveLimits(chain.getHandler());
+    if (limits.isRequestTooLarge(req.getContentLengthLong())) {
+      resp.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+      return false;
+    }
+    req.setAttribute(MultipartLimits.MULTIPART_LIMITS_ATTRIBUTE, limits);
+    return true;
+  }
+
+  /**
+   * 有请求体并且请求体不需要容器自己解析(表单与文件上传)时才需要预先读取请求体
+   */
+  private boolean shouldAggregateBody(HttpServletRequest req) {
+    if (!req.isAsyncSupported() || req.isAsyncStarted()) {
+      return false;
+    }
+    if (req.getContentLengthLong() <= 0 && req.getHeader("Transfer-Encoding") == null) {
+      return false;
+    }
+    String contentType = req.getContentType();
+    if (contentType == null) {
+      return true;
+    }
+    String type = contentType.toLowerCase();
+    return !type.startsWith("multipart/") && !type.startsWith("application/x-www-form-urlencoded");
+  }
+
+  /**
+   * 开启异步处理，用{@link BodyAggregator}非阻塞的把请求体读取到池化的直接内存中，容器线程随即返回，
+   * 读取期间不占用任何线程。读取完毕之后，请求对象换成从内存读取请求体的{@link AggregatedBodyRequestWrapper}，
+   * 在通知读取完毕的容器线程中(虚拟线程模式下交给虚拟线程)执行doDispatch，处理完毕之后把内存还给池
+   * <ul>
+   *     <li>请求体超过{@link BodyAggregationConfiguration#getMaxBodySize()}时响应413，Content-Length已经超出时不会开始读取</li>
+   *     <li>读取超时响应408</li>
+   *     <li>客户端断开等读取错误直接结束请求</li>
+   * </ul>
+   *
+   * @param exchange 当前请求的交互对象
+   * @param chain    执行链
+   * @throws IOException 响应413时的异常
+   */
+  protected void aggregateBody(ServletExchange exchange, HandlerExecutionChain chain) throws IOException {
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    long maxBodySize = bodyAggregationConfiguration.getMaxBodySize();
+    if (req.getContentLengthLong() > maxBodySize) {
+      resp.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+      return;
+    }
+    AsyncContext asyncContext = req.startAsync(req, resp);
+    asyncContext.setTimeout(bodyAggregationConfiguration.getTimeout());
+    // 读取完毕、读取出错与超时只处理最先到达的那一个
+    AtomicBoolean settled = new AtomicBoolean();
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+        if (settled.compareAndSet(false, true)) {
+          sendErrorIfPossible(resp, HttpServletResponse.SC_REQUEST_TIMEOUT);
+          completeAsync(resp, asyncContext);
+        }
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        if (settled.compareAndSet(false, true)) {
+          completeAsync(resp, asyncContext);
+        }
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+    new BodyAggregator(req.getInputStream(), bodyBufferPool, maxBodySize, new BodyAggregator.Callback() {
+      @Override
+      public void onBodyRead(AggregatedBody body) {
+        if (!settled.compareAndSet(false, true)) {
+          body.release();
+          return;
+        }
+        // 请求体已经读完，之后handler的处理不再受读取超时的限制
+        asyncContext.setTimeout(0);
+        ServletExchange bodyExchange = ServletExchange.create(new AggregatedBodyRequestWrapper(req, body), resp);
+        dispatchInAsyncContext(virtualThreadExecutor, bodyExchange, chain, asyncContext, body::release);
+      }
+
+      @Override
+      public void onError(Throwable error) {
+        if (settled.compareAndSet(false, true)) {
+          if (error instanceof PayloadTooLargeException) {
+            sendErrorIfPossible(resp, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+          }
+          completeAsync(resp, asyncContext);
+        }
+      }
+    }).start();
+  }
+
+  /**
+   * 此方法先设置请求的截止时间并获取handler的并发执行许可，然后完成链的执行和视图结果的渲染
+   * <p>handler有超时设置({@link com.nf.mvc.timeout.Timeout}或者{@link TimeoutConfiguration})时，
+   * 截止时间从这里开始计算，等待并发许可的时间也计算在内，handler通过{@link Deadline}获取剩余的时间</p>
+   * <p>handler有并发限制({@link com.nf.mvc.bulkhead.Bulkhead}或者{@link BulkheadConfiguration})并且没有获取到许可时，
+   * 直接响应503并设置Retry-After响应头，拦截器与handler都不会执行。
+   * 许可在同步处理结束时释放，开启了异步处理时在异步请求结束时释放</p>
+   *
+   * @param exchange 当前请求的交互对象
+   * @param chain    执行链
+   * @throws Throwable 整个请求处理过程中可能出现的异常
+   */
+  protected void doDispatch(ServletExchange exchange, HandlerExecutionChain chain) throws Throwable {
+    long timeout = timeoutResolver.resolveTimeout(chain.getHandler(), exchange.getPath());
+    if (timeout > 0) {
+      exchange.setDeadline(Deadline.after(timeout));
+    }
+    ConcurrencyLimiter limiter = bulkheadRegistry.getLimiter(chain.getHandler(), exchange.getPath());
+    if (limiter == null) {
+      dispatchChain(exchange, chain);
+      return;
+    }
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    if (!limiter.tryAcquire()) {
+      resp.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfter()));
+      resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return;
+    }
+    boolean releaseOnComplete = false;
+    try {
+      dispatchChain(exchange, chain);
+      releaseOnComplete = req.isAsyncStarted();
+      if (releaseOnComplete) {
+        req.getAsyncContext().addListener(new AsyncListener() {
+          @Override
+          public void onComplete(AsyncEvent event) {
+            limiter.release();
+          }
+
+          @Override
+          public void onTimeout(AsyncEvent event) {
+          }
+
+          @Override
+          public void onError(AsyncEvent event) {
+          }
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {
+          }
+        });
+      }
+    } finally {
+      if (!releaseOnComplete) {
+        limiter.release();
+      }
+    }
+  }
+
+  /**
+   * 此方法完成了链的执行和视图结果的渲染
+   *
+   * @param exchange 当前请求的交互对象
+   * @param chain    执行链
    * @throws Throwable 整个请求处理过程中可能出现的异常
    */
-  protected void doDispatch(HttpServletRequest req, HttpServletResponse resp, HandlerExecutionChain chain) throws Throwable {
+  protected void dispatchChain(ServletExchange exchange, HandlerExecutionChain chain) throws Throwable {
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    CoalescePolicy coalescePolicy = requestCoalescer.getPolicy(chain.getHandler(), req);
+    ResponseCachePolicy cachePolicy = responseCacheManager.getPolicy(chain.getHandler(), req);
+    if (coalescePolicy != null || cachePolicy != null) {
+      dispatchBuffered(exchange, chain, coalescePolicy, cachePolicy);
+      return;
+    }
     ViewResult viewResult;
     try {
       // 这里返回false，执行完拦截器的后置逻辑后直接return，结束后续流程
@@ -489,7 +1421,20 @@ public class DispatcherServlet extends HttpServlet {
         chain.applyPostHandle(req, resp);
         return;
       }
-      viewResult = applyHandle(req, resp, chain.getHandler());
+      viewResult = applyHandle(exchange, chain.getHandler());
+      Deadline deadline = exchange.getDeadline();
+      // 同步的handler无法被中断，执行完毕时已经超时的话，结果已经没有意义了，交给异常解析器响应超时
+      if (deadline != null && !(viewResult instanceof AsyncViewResult) && deadline.isExpired()) {
+        throw new RequestTimeoutException(deadline.getTimeoutMillis());
+      }
+      if (viewResult instanceof AsyncViewResult) {
+        AsyncViewResult asyncViewResult = (AsyncViewResult) viewResult;
+        if (startAsync(exchange, chain, asyncViewResult)) {
+          // 拦截器的后置逻辑与视图渲染在异步结果出来之后执行
+          return;
+        }
+        viewResult = asyncViewResult.await(req, asyncConfiguration.getTimeout(), deadline, asyncExecutor);
+      }
       chain.applyPostHandle(req, resp);
     } catch (Exception ex) {
       // 拦截器的前置代码或者handler的执行出了异常，已正确执行过前置逻辑的拦截器的后置逻辑即便出了异常也需要执行
@@ -502,15 +1447,223 @@ public class DispatcherServlet extends HttpServlet {
      * 如果执行链执行异常，但异常解析器能正确的解析，那么viewResult也不会为null
      * 如果执行链异常，异常解析器也 不能 处理异常，那么resolveException方法会抛出此异常，render不会得到执行
      */
-    render(req, resp, viewResult);
+    render(exchange, viewResult);
+  }
+
+  /**
+   * 合并相同请求或者缓存响应时的处理，拦截器的前置与后置逻辑每个请求都会执行，最终的响应都是回放一个渲染好的{@link BufferedResponse}
+   * <ol>
+   *     <li>有缓存策略时先查找缓存，命中就直接回放，不再解析参数与执行handler</li>
+   *     <li>有合并策略时加入相同请求的执行，等待者等待执行者的结果并回放，等待超时或者执行者失败时自己执行handler，但结果不再交给别人</li>
+   *     <li>执行handler，把视图结果渲染到内存中的{@link BatchResponseWrapper}，生成响应的快照，
+   *     放入缓存并交给所有等待者，再回放到自己的响应中</li>
+   * </ol>
+   * <p>因为要把完整的响应交给别人，handler返回异步结果时在当前线程等待结果，不开启servlet的异步处理</p>
+   *
+   * @param exchange       当前请求的交互对象
+   * @param chain          执行链
+   * @param coalescePolicy handler的合并策略，可以为null
+   * @param cachePolicy    handler的缓存策略，可以为null
+   * @throws Throwable 整个请求处理过程中可能出现的异常
+   */
+  protected void dispatchBuffered(ServletExchange exchange, HandlerExecutionChain chain,
+                                  CoalescePolicy coalescePolicy, ResponseCachePolicy cachePolicy) throws Throwable {
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    BatchResponseWrapper buffer = new BatchResponseWrapper(resp);
+    ServletExchange bufferExchange = new ServletExchange(req, buffer);
+    bufferExchange.setDeadline(exchange.getDeadline());
+    String cacheKey = cachePolicy == null ? null : cachePolicy.resolveKey(exchange);
+    RequestCoalescer.Flight flight = null;
+    BufferedResponse response = null;
+    try {
+      ViewResult viewResult = null;
+      try {
+        if (!chain.applyPreHandle(req, resp)) {
+          chain.applyPostHandle(req, resp);
+          return;
+        }
+        if (cacheKey != null) {
+          response = responseCacheManager.get(cacheKey, req);
+        }
+        if (response == null && coalescePolicy != null) {
+          flight = requestCoalescer.join(coalescePolicy.resolveKey(exchange));
+          if (!flight.isLeader()) {
+            response = flight.await(coalescePolicy.getMaxWaitTime(), req);
+          }
+        }
+        if (response == null) {
+          viewResult = applyHandle(bufferExchange, chain.getHandler());
+          Deadline deadline = exchange.getDeadline();
+          if (viewResult instanceof AsyncViewResult) {
+            viewResult = ((AsyncViewResult) viewResult).await(req, asyncConfiguration.getTimeout(), deadline, asyncExecutor);
+          } else if (deadline != null && deadline.isExpired()) {
+            throw new RequestTimeoutException(deadline.getTimeoutMillis());
+          }
+        }
+        chain.applyPostHandle(req, resp);
+      } catch (Exception ex) {
+        chain.applyPostHandle(req, resp);
+        viewResult = resolveException(req, buffer, chain.getHandler(), ex);
+      }
+      if (response == null) {
+        long renderStart = System.nanoTime();
+        viewResult.render(bufferExchange);
+        if (exchange.getRequestTimer() != null) {
+          exchange.getRequestTimer().record(RequestPhase.RENDER, System.nanoTime() - renderStart);
+        }
+        if (cachePolicy != null && cachePolicy.getVaryHeader() != null) {
+          buffer.addHeader(HttpHeaders.VARY, cachePolicy.getVaryHeader());
+        }
+        response = BufferedResponse.of(buffer, req);
+        if (coalescePolicy != null) {
+          coalescePolicy.learnVary(response);
+        }
+        if (cacheKey != null) {
+          // 响应按Vary的请求头(比如Accept)协商过时，把这些请求头加入key，不同格式的响应分别缓存
+          if (cachePolicy.learnVary(response)) {
+            cacheKey = cachePolicy.resolveKey(exchange);
+          }
+          responseCacheManager.put(cacheKey, exchange.getPath(), response, cachePolicy);
+        }
+      }
+    } finally {
+      if (flight != null && flight.isLeader()) {
+        flight.finish(response);
+      }
+    }
+    try {
+      response.replay(resp);
+    } finally {
+      // 缓存命中的堆外响应在get时已经retain过了
+      response.release();
+    }
+  }
+
+  /**
+   * 开启servlet的异步处理，异步结果出来之后在执行器线程中调用{@link #processAsyncResult(ServletExchange, HandlerExecutionChain, AsyncViewResult, AsyncContext, Object, boolean)}
+   * <p>超时与出错是在容器线程中通知的，此时直接在通知的线程中处理，因为容器要求在通知方法返回之前结束异步请求</p>
+   *
+   * @param exchange        当前请求的交互对象
+   * @param chain           执行链
+   * @param asyncViewResult 异步视图结果
+   * @return false表示当前请求不支持异步处理或者已经在虚拟线程模式下开启了异步处理，此时在当前线程等待结果
+   */
+  protected boolean startAsync(ServletExchange exchange, HandlerExecutionChain chain, AsyncViewResult asyncViewResult) {
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    if (!req.isAsyncSupported() || req.isAsyncStarted()) {
+      return false;
+    }
+    AsyncContext asyncContext = req.startAsync(req, resp);
+    asyncContext.setTimeout(asyncViewResult.getTimeout(asyncConfiguration.getTimeout(), exchange.getDeadline()));
+    // 结果、超时与出错可能同时发生，只处理最先到达的那一个
+    AtomicBoolean processed = new AtomicBoolean();
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        asyncViewResult.complete();
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+        if (asyncViewResult.expire(exchange.getDeadline()) && processed.compareAndSet(false, true)) {
+          processAsyncResult(exchange, chain, asyncViewResult, asyncContext, asyncViewResult.getResult(), asyncViewResult.isErrorResult());
+        }
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        asyncViewResult.cancel();
+        if (processed.compareAndSet(false, true)) {
+          completeAsync(resp, asyncContext);
+        }
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+    asyncViewResult.start(asyncExecutor, (result, error) -> {
+      if (processed.compareAndSet(false, true)) {
+        processAsyncResult(exchange, chain, asyncViewResult, asyncContext, result, error);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * 异步结果出来之后的处理，与{@link #dispatchChain(ServletExchange, HandlerExecutionChain)}中同步处理的后半部分是一样的,
+   * 先把结果转换为视图结果，然后执行拦截器的后置逻辑，出了异常就交给异常解析器，最后渲染视图并结束异步请求
+   */
+  protected void processAsyncResult(ServletExchange exchange, HandlerExecutionChain chain,
+                                    AsyncViewResult asyncViewResult, AsyncContext asyncContext, Object result, boolean error) {
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    HandlerContext.bind(exchange);
+    try {
+      ViewResult viewResult;
+      try {
+        if (error) {
+          throw result instanceof Exception ? (Exception) result : new ServletException((Throwable) result);
+        }
+        viewResult = asyncViewResult.adaptResult(result, req);
+        chain.applyPostHandle(req, resp);
+      } catch (Exception ex) {
+        chain.applyPostHandle(req, resp);
+        viewResult = resolveException(req, resp, chain.getHandler(), ex);
+      }
+      render(exchange, viewResult);
+    } catch (Throwable ex) {
+      LogUtils.warn("异步请求处理失败", ex);
+      sendErrorIfPossible(resp, ex instanceof AsyncRequestTimeoutException ?
+              HttpServletResponse.SC_SERVICE_UNAVAILABLE : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    } finally {
+      if (!exchange.isCompletionDeferred()) {
+        completeAsync(resp, asyncContext);
+      }
+      HandlerContext.unbind();
+    }
+  }
+
+  /**
+   * 结束异步请求，压缩的响应要在结束之前把剩余的内容写出
+   */
+  protected void completeAsync(HttpServletResponse resp, AsyncContext asyncContext) {
+    try {
+      if (resp instanceof CompressionResponseWrapper) {
+        ((CompressionResponseWrapper) resp).finish();
+      }
+    } catch (IOException e) {
+      LogUtils.warn("异步请求结束时写出响应失败", e);
+    } finally {
+      asyncContext.complete();
+    }
+  }
+
+  private void sendErrorIfPossible(HttpServletResponse resp, int status) {
+    if (resp.isCommitted()) {
+      return;
+    }
+    try {
+      resp.sendError(status);
+    } catch (IOException ignored) {
+      // 响应已经无法写出，只能放弃
+    }
   }
 
-  protected ViewResult applyHandle(HttpServletRequest req, HttpServletResponse resp, Object handler) throws Exception {
+  protected ViewResult applyHandle(ServletExchange exchange, Object handler) throws Exception {
     HandlerAdapter adapter = getHandlerAdapter(handler);
-    return adapter.handle(req, resp, handler);
+    return adapter.handle(exchange, handler);
   }
 
   protected ViewResult resolveException(HttpServletRequest req, HttpServletResponse resp, Object handler, Exception ex) throws Exception {
+    if (metricsRegistry != null) {
+      RequestTimer timer = ServletExchange.from(req).getRequestTimer();
+      if (timer != null) {
+        timer.failed(ex);
+      }
+    }
     for (HandlerExceptionResolver exceptionResolver : exceptionResolvers) {
       ViewResult result = exceptionResolver.resolveException(req, resp, handler, ex);
       if (result != null) {
@@ -524,16 +1677,117 @@ public class DispatcherServlet extends HttpServlet {
   /**
    * 这里是对视图结果进行渲染处理，主要是通过调用ViewResult的render方法实现的，具体逻辑见各个ViewResult的子类
    * <p>
-   * 这里不需要对viewResult进行null的判断，具体原因见{@link #doDispatch(HttpServletRequest, HttpServletResponse, HandlerExecutionChain)}方法内的注释
+   * 这里不需要对viewResult进行null的判断，具体原因见{@link #dispatchChain(ServletExchange, HandlerExecutionChain)}方法内的注释
    * </p>
+   * <p>开启了非阻塞写出并且视图结果实现了{@link NonBlockingViewResult}时，不调用render方法，
+   * 而是由视图结果准备好响应头与响应体的来源，然后交给{@link #writeBody(ServletExchange, ChunkSource)}写出</p>
    *
-   * @param req        请求对象
-   * @param resp       响应对象
+   * @param exchange   当前请求的交互对象
    * @param viewResult 视图结果
    * @throws Exception 渲染时可能抛出的异常
    */
-  protected void render(HttpServletRequest req, HttpServletResponse resp, ViewResult viewResult) throws Exception {
-    viewResult.render(req, resp);
+  protected void render(ServletExchange exchange, ViewResult viewResult) throws Exception {
+    RequestTimer timer = exchange.getRequestTimer();
+    if (timer == null) {
+      renderViewResult(exchange, viewResult);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      renderViewResult(exchange, viewResult);
+    } finally {
+      timer.record(RequestPhase.RENDER, System.nanoTime() - start);
+    }
+  }
+
+  private void renderViewResult(ServletExchange exchange, ViewResult viewResult) throws Exception {
+    if (nonBlockingWriteConfiguration.isEnabled() && viewResult instanceof NonBlockingViewResult && canWriteNonBlocking(exchange)) {
+      ChunkSource source = ((NonBlockingViewResult) viewResult).prepareBody(exchange);
+      if (source != null) {
+        writeBody(exchange, source);
+      }
+      return;
+    }
+    viewResult.render(exchange);
+  }
+
+  /**
+   * 批量请求的子请求不支持异步处理，压缩输出流不支持非阻塞写出，这两种情况只能阻塞的写出
+   */
+  private boolean canWriteNonBlocking(ServletExchange exchange) {
+    return exchange.getRequest().isAsyncSupported() && !(exchange.getResponse() instanceof CompressionResponseWrapper);
+  }
+
+  /**
+   * 写出响应体，长度已知并且小于{@link NonBlockingWriteConfiguration#getMinContentLength()}时直接写出，
+   * 否则用{@link NonBlockingWriter}非阻塞的写出：还没有开启异步处理时开启它(容器线程随即返回)，
+   * 并且把异步请求的结束推迟到写出完毕时，见{@link ServletExchange#deferCompletion()}
+   * <ul>
+   *     <li>写出超时：关闭来源并结束异步请求，客户端收到的响应是不完整的</li>
+   *     <li>写出出错(通常是客户端断开)：关闭来源并结束异步请求</li>
+   * </ul>
+   *
+   * @param exchange 当前请求的交互对象
+   * @param source   响应体的来源
+   * @throws IOException 获取输出流或者直接写出时的异常
+   */
+  protected void writeBody(ServletExchange exchange, ChunkSource source) throws IOException {
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    long contentLength = source.getContentLength();
+    if (contentLength >= 0 && contentLength < nonBlockingWriteConfiguration.getMinContentLength()) {
+      source.copyTo(resp.getOutputStream(), nonBlockingWriteConfiguration.getChunkSize());
+      return;
+    }
+    AsyncContext asyncContext = req.isAsyncStarted() ? req.getAsyncContext() : req.startAsync(req, resp);
+    asyncContext.setTimeout(nonBlockingWriteConfiguration.getTimeout());
+    exchange.deferCompletion();
+    // 写完、出错与超时只处理最先到达的那一个
+    AtomicBoolean settled = new AtomicBoolean();
+    NonBlockingWriter writer = new NonBlockingWriter(resp.getOutputStream(), source,
+            nonBlockingWriteConfiguration.getChunkSize(), new NonBlockingWriter.Callback() {
+      @Override
+      public void onComplete() {
+        if (settled.compareAndSet(false, true)) {
+          completeAsync(resp, asyncContext);
+        }
+      }
+
+      @Override
+      public void onError(Throwable error) {
+        LogUtils.warn("非阻塞写出响应失败", error);
+        if (settled.compareAndSet(false, true)) {
+          completeAsync(resp, asyncContext);
+        }
+      }
+    });
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        writer.close();
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+        if (settled.compareAndSet(false, true)) {
+          writer.close();
+          completeAsync(resp, asyncContext);
+        }
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        if (settled.compareAndSet(false, true)) {
+          writer.close();
+          completeAsync(resp, asyncContext);
+        }
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+    writer.start();
   }
 
   protected HandlerExecutionChain getHandler(HttpServletRequest request) throws Exception {
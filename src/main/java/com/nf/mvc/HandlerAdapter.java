@@ -22,7 +22,8 @@ import javax.servlet.http.HttpServletResponse;
  * <ul>
  *     <li>可以返回void，这种情况一般是handler方法直接利用response对象响应请求</li>
  *     <li>返回{@link ViewResult}</li>
- *     <li>返回其它类型，这种情况比较少见(不建议)，框架直接把其适配为返回{@link com.nf.mvc.view.PlainViewResult}</li>
+ *     <li>返回其它类型，框架利用{@link ReturnValueHandler}把返回值转换为ViewResult，比如pojo会被序列化为json，
+ *     没有处理器能处理时把其适配为返回{@link com.nf.mvc.view.PlainViewResult}</li>
  * </ul>
  * 注意：通过反射调用一个返回类型为void的方法时，其返回值是null的。所以，一个Handler方法反射调用返回null，可能是void返回类型或者本身return null，
  * 具体的Handler执行结果适配逻辑见{@link ViewResult#adaptHandlerResult(Object)}
@@ -37,4 +38,17 @@ public interface HandlerAdapter {
     boolean supports(Object handler);
 
     ViewResult handle(HttpServletRequest req, HttpServletResponse resp,Object handler) throws Exception;
+
+    /**
+     * DispatcherServlet调用的是此方法，默认实现是调用{@link #handle(HttpServletRequest, HttpServletResponse, Object)}，
+     * 需要请求地址、路径变量等信息的实现类应该重写此方法，直接从交互对象中获取，而不是再去查找
+     *
+     * @param exchange 当前请求的交互对象
+     * @param handler  要执行的handler
+     * @return 视图结果
+     * @throws Exception handler执行时的异常
+     */
+    default ViewResult handle(ServletExchange exchange, Object handler) throws Exception {
+        return handle(exchange.getRequest(), exchange.getResponse(), handler);
+    }
 }
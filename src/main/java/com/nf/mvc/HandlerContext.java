@@ -1,11 +1,10 @@
 package com.nf.mvc;
 
-import com.nf.mvc.argument.MethodParameter;
-
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.util.concurrent.Callable;
 
 /**
  * 此类是一个线程安全的上下文性质的类，用来保存每次处理请求时的request与response对象，
@@ -13,19 +12,21 @@ import javax.servlet.http.HttpSession;
  *
  * <p>
  *     设计这个类出来主要是演示在多线程执行情况下，不同请求有不同request与response怎么保存的问题。
- *     此类主要是通过ThreadLocal来实现，让每一个请求线程都保存一份线程独有的HandlerContext，进而也就保存了request，response等对象
+ *     此类主要是通过ThreadLocal来实现，让每一个请求线程都保存一份线程独有的{@link ServletExchange}，进而也就保存了request，response等对象
  *     存储在ThreadLocal中的对象一定要记得删除，以防止内存泄漏的问题，这点见{@link DispatcherServlet#doService(HttpServletRequest, HttpServletResponse)}
  *     finally代码块
  * </p>
  *
- * <p>此类除了演示多线程情况下，怎么保存独属于当前线程的对象这种技术外，此类还是有必要存在的，比如在Servlet API
- * 参数解析器中获取response对象，见{@link com.nf.mvc.argument.ServletApiMethodArgumentResolver#resolveArgument(MethodParameter, HttpServletRequest)}</p>
+ * <h3>兼容性</h3>
+ * <p>框架内部现在是把{@link ServletExchange}显式的传递给HandlerAdapter、参数解析器与视图结果的，请求处理的热点路径上不再访问ThreadLocal，
+ * 此类只是为了兼容用户代码而保留的，ThreadLocal中保存的也只是ServletExchange的引用，绑定时不需要创建任何对象，
+ * 只有用户调用{@link #getContext()}时才会创建一个很轻的HandlerContext对象</p>
  * <p>
  *     框架内使用方式如下：
  *     <pre class="code">
- *          HandlerContext().getContext().setRequest(req).setResponse(resp);
+ *          HandlerContext.bind(exchange);
  *     </pre>
- *     这些set方法修饰符是默认的，基本是给框架内部使用，用户不应该调用这些方法
+ *     bind方法修饰符是默认的，是给框架内部使用的，用户不应该调用这些方法
  * </p>
  *
  * <p>
@@ -33,51 +34,114 @@ import javax.servlet.http.HttpSession;
  *     <pre class="code">
  *          HandlerContext().getContext().getXxx()
  *     </pre>
+ *     能拿到请求对象的地方应该优先使用{@link ServletExchange#from(HttpServletRequest)}
  * </p>
+ * <h3>跨线程传递</h3>
+ * <p>ThreadLocal中的对象在别的线程中是获取不到的，异步处理请求时(比如handler返回Callable)，
+ * 框架会用{@link #wrap(Callable)}包装任务，把提交任务时线程中的request与response带到执行任务的线程中，
+ * 用户自己把任务提交给别的线程执行时也可以这样包装</p>
  * @see DispatcherServlet
+ * @see ServletExchange
  */
 public class HandlerContext {
 
-    private static final ThreadLocal<HandlerContext> local = new ThreadLocal<>();
-    private HttpServletRequest request;
-    private HttpServletResponse response;
+    private static final ThreadLocal<ServletExchange> local = new ThreadLocal<>();
+    private final ServletExchange exchange;
+
+    private HandlerContext(ServletExchange exchange) {
+        this.exchange = exchange;
+    }
 
+    /**
+     * @return 当前线程的上下文，当前线程没有在处理请求时，其getXxx方法都返回null
+     */
     public static HandlerContext getContext(){
-        //等于null表示当前线程没有一个本地的HandlerContext对象
-        if (local.get() == null) {
-            HandlerContext context = new HandlerContext();
-            local.set(context);
-        }
-        return local.get();
+        return new HandlerContext(local.get());
     }
 
-    HandlerContext setRequest(HttpServletRequest request) {
-        this.request = request;
-        return  this;
+    /**
+     * 把交互对象关联到当前线程，请求在别的线程继续处理时(比如异步结果出来之后)也是调用此方法
+     *
+     * @param exchange 交互对象
+     */
+    static void bind(ServletExchange exchange) {
+        local.set(exchange);
     }
 
-    HandlerContext setResponse(HttpServletResponse response) {
-        this.response = response;
-        return  this;
+    /**
+     * @return 关联的交互对象，没有时返回null
+     */
+    public ServletExchange getExchange() {
+        return exchange;
     }
 
     public HttpServletRequest getRequest(){
-        return request;
+        return exchange == null ? null : exchange.getRequest();
     }
 
     public HttpServletResponse getResponse(){
-        return response;
+        return exchange == null ? null : exchange.getResponse();
     }
 
     public HttpSession getSession(){
-        return request.getSession();
+        return exchange == null ? null : exchange.getSession();
     }
 
     public ServletContext getApplication(){
-        return request.getServletContext();
+        return exchange == null ? null : exchange.getServletContext();
+    }
+
+    /**
+     * @param task 要在别的线程执行的任务
+     * @return 执行时会先在执行线程中设置好当前线程的request与response，执行完毕后恢复执行线程原来的上下文
+     */
+    public static Runnable wrap(Runnable task) {
+        ServletExchange current = local.get();
+        return () -> {
+            ServletExchange previous = local.get();
+            local.set(current);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @param task 要在别的线程执行的任务
+     * @param <V>  任务结果的类型
+     * @return 执行时会先在执行线程中设置好当前线程的request与response，执行完毕后恢复执行线程原来的上下文
+     */
+    public static <V> Callable<V> wrap(Callable<V> task) {
+        ServletExchange current = local.get();
+        return () -> {
+            ServletExchange previous = local.get();
+            local.set(current);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(ServletExchange previous) {
+        if (previous != null) {
+            local.set(previous);
+        } else {
+            local.remove();
+        }
     }
 
     public void clear(){
         local.remove();
     }
+
+    /**
+     * 请求处理结束时清除当前线程关联的交互对象
+     */
+    static void unbind() {
+        local.remove();
+    }
 }
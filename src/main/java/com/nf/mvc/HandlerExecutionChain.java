@@ -13,6 +13,10 @@ public class HandlerExecutionChain {
     private final Object handler;
     private final List<HandlerInterceptor> interceptorList = new ArrayList<>();
     private int interceptorIndex = -1;
+    /**
+     * 匹配的地址模式，用作请求指标的路由，见{@link com.nf.mvc.metrics.MetricsRegistry}
+     */
+    private String route;
 
     public HandlerExecutionChain(Object handler) {
         this(handler, (HandlerInterceptor[]) null);
@@ -31,6 +35,17 @@ public class HandlerExecutionChain {
         return this.handler;
     }
 
+    /**
+     * @return 匹配的地址模式，HandlerMapping没有设置时返回null
+     */
+    public String getRoute() {
+        return route;
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
     public void addInterceptor(HandlerInterceptor interceptor) {
         this.interceptorList.add(interceptor);
     }
@@ -52,4 +52,16 @@ public interface MethodArgumentResolver {
      * @throws Exception 通常是请求端有数据，但无法解析成兼容类型的参数值时就抛出异常，建议抛一个RuntimeException
      */
     Object resolveArgument(MethodParameter parameter, HttpServletRequest request) throws Exception;
+
+    /**
+     * 框架调用的是此方法，默认实现是调用{@link #resolveArgument(MethodParameter, HttpServletRequest)}，
+     * 需要response、请求地址或路径变量的解析器应该重写此方法，直接从交互对象中获取
+     * @param parameter 方法参数
+     * @param exchange 当前请求的交互对象
+     * @return 解析出来的值
+     * @throws Exception 解析失败时的异常
+     */
+    default Object resolveArgument(MethodParameter parameter, ServletExchange exchange) throws Exception {
+        return resolveArgument(parameter, exchange.getRequest());
+    }
 }
@@ -1,14 +1,20 @@
 package com.nf.mvc;
 
 
+import com.nf.mvc.util.LogUtils;
+import com.nf.mvc.util.VirtualThreadUtils;
 import org.apache.catalina.Context;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.servlets.DefaultServlet;
 import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
 
 import javax.servlet.MultipartConfigElement;
 import java.time.LocalTime;
+import java.util.concurrent.ExecutorService;
 
 /**
  * 嵌入式Tomcat启动类，这点是模仿spring boot的行为来实现的,可以让mvc框架直接通过入口函数的方式来启动
@@ -26,8 +32,31 @@ import java.time.LocalTime;
  *     <li>port=8080</li>
  *     <li>basePackage=mvc</li>
  *     <li>urlPattern=/</li>
+ *     <li>virtualThreads=false</li>
  *     <li>文件上传时使用的临时目录=System.getProperty("java.io.tmpdir")</li>
+ *     <li>maxFileSize=-1</li>
+ *     <li>maxRequestSize=-1</li>
+ *     <li>fileSizeThreshold=256KB</li>
  * </ul>
+ * <h3>文件上传</h3>
+ * maxFileSize是每个上传文件的最大字节数，maxRequestSize是整个上传请求的最大字节数，-1表示不限制，
+ * 不超过fileSizeThreshold的文件保存在内存中，更大的文件直接写到临时目录，这三个参数可以带KB、MB、GB单位，比如maxFileSize=10MB。
+ * 限制同时会传给DispatcherServlet，Content-Length超过限制的请求在读取请求体之前就响应413，
+ * handler可以用{@link com.nf.mvc.mapping.RequestMapping}的maxFileSize与maxRequestSize属性设置自己的限制
+ * <h3>虚拟线程</h3>
+ * 传递参数virtualThreads=true时，tomcat连接器的执行器会换成每个任务一个虚拟线程的执行器，
+ * 同时DispatcherServlet以虚拟线程模式运行(见{@link DispatcherServlet#EXECUTION_MODE})，
+ * 请求已经在连接器的虚拟线程中时DispatcherServlet直接处理，只有连接器的执行器没有换成功时才会切换到自己的虚拟线程，
+ * 需要jdk21及以上版本，低版本jdk会忽略此参数并输出提示
+ * <h3>在同一个进程中启动</h3>
+ * {@link #run(String...)}启动之后会一直阻塞到tomcat停止，测试或压测需要在同一个进程中发送请求时可以用{@link #start(String...)}，
+ * 它启动之后立即返回，port=0表示使用随机的空闲端口，实际的端口用{@link #getPort()}获取，用完之后调用{@link #stop()}
+ * <pre class="code">
+ *     MvcApplication application = MvcApplication.start("port=0", "basePackage=com.example");
+ *     String base = "http://localhost:" + application.getPort();
+ *     ...
+ *     application.stop();
+ * </pre>
  * <h3>参考资料</h3>
  * <a href="https://devcenter.heroku.com/articles/create-a-java-web-application-using-embedded-tomcat">嵌入式tomcat</a>
  * <a href="https://www.cnblogs.com/develon/p/11602969.html">嵌入式tomcat以及集成spring</a>
@@ -42,6 +71,10 @@ public class MvcApplication {
     public static final String PORT = "port";
     public static final String BASE_PACKAGE = "basePackage";
     public static final String URL_PATTERN = "urlPattern";
+    public static final String VIRTUAL_THREADS = "virtualThreads";
+    public static final String MAX_FILE_SIZE = "maxFileSize";
+    public static final String MAX_REQUEST_SIZE = "maxRequestSize";
+    public static final String FILE_SIZE_THRESHOLD = "fileSizeThreshold";
 
     /**
      * 上下文路径必须是空字符串或者以字符"/"开头但不以字符"/"结尾
@@ -51,22 +84,73 @@ public class MvcApplication {
     private static final String BASE_PACKAGE_DEFAULT = "mvc";
     private static final String URL_PATTERN_DEFAULT = "/";
     private static final String TEMP_DIR_DEFAULT = System.getProperty("java.io.tmpdir");
+    private static final long MAX_FILE_SIZE_DEFAULT = -1;
+    private static final long MAX_REQUEST_SIZE_DEFAULT = -1;
+    private static final int FILE_SIZE_THRESHOLD_DEFAULT = 256 * 1024;
 
 
     private  String contextPath ;
     private int port;
     private  String basePackage;
     private  String urlPattern;
+    private boolean virtualThreads;
+    private long maxFileSize;
+    private long maxRequestSize;
+    private int fileSizeThreshold;
+    /**
+     * 连接器使用的虚拟线程执行器，tomcat不负责关闭外部设置的执行器，所以在tomcat停止之后关闭
+     */
+    private ExecutorService connectorExecutor;
+    private Tomcat tomcat;
+    private Thread shutdownHook;
 
 
     public static void run(String... args) {
-        new MvcApplication().start(args);
+        MvcApplication application = new MvcApplication();
+        if (application.launch(args)) {
+            application.tomcat.getServer().await();
+        }
+    }
+
+    /**
+     * 启动之后立即返回，不等待tomcat停止
+     *
+     * @param args 与{@link #run(String...)}的参数一样
+     * @return 已经启动的应用
+     * @throws IllegalStateException tomcat启动失败时抛出
+     */
+    public static MvcApplication start(String... args) {
+        MvcApplication application = new MvcApplication();
+        if (!application.launch(args)) {
+            application.stop();
+            throw new IllegalStateException("tomcat启动失败");
+        }
+        return application;
     }
 
-    private void start(String... args) {
+    /**
+     * @return 实际监听的端口，参数port=0时是tomcat选择的随机端口
+     */
+    public int getPort() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    /**
+     * 停止并销毁tomcat，由{@link #start(String...)}启动的应用用完之后调用
+     */
+    public void stop() {
+        if (shutdownHook != null && Runtime.getRuntime().removeShutdownHook(shutdownHook)) {
+            shutdownHook.run();
+        }
+    }
+
+    /**
+     * @return tomcat是否启动成功
+     */
+    private boolean launch(String... args) {
         parseArgs(args);
 
-        Tomcat tomcat = new Tomcat();
+        tomcat = new Tomcat();
         tomcat.setPort(port);
         //等价于new File(".").getAbsolutePath();
         String docBase = System.getProperty("user.dir");
@@ -75,10 +159,12 @@ public class MvcApplication {
         Tomcat.initWebappDefaults(ctx);
         //registerDefaultServlet(ctx);
         registerDispatcherServlet(ctx);
+        if (virtualThreads) {
+            configureVirtualThreads(tomcat);
+        }
         registerShutdownHook(tomcat);
 
-        startEmbeddedTomcat(tomcat);
-
+        return startEmbeddedTomcat(tomcat);
     }
 
     private void parseArgs(String... args) {
@@ -102,7 +188,39 @@ public class MvcApplication {
             if (URL_PATTERN.equalsIgnoreCase(key)) {
                 urlPattern = value;
             }
+            if (VIRTUAL_THREADS.equalsIgnoreCase(key)) {
+                virtualThreads = Boolean.parseBoolean(value);
+            }
+            if (MAX_FILE_SIZE.equalsIgnoreCase(key)) {
+                maxFileSize = parseSize(value);
+            }
+            if (MAX_REQUEST_SIZE.equalsIgnoreCase(key)) {
+                maxRequestSize = parseSize(value);
+            }
+            if (FILE_SIZE_THRESHOLD.equalsIgnoreCase(key)) {
+                fileSizeThreshold = (int) Math.min(Integer.MAX_VALUE, Math.max(0, parseSize(value)));
+            }
+        }
+    }
+
+    /**
+     * @param value 字节数，可以带KB、MB、GB单位(不区分大小写)
+     * @return 字节数
+     */
+    private static long parseSize(String value) {
+        String size = value.trim().toUpperCase();
+        long unit = 1;
+        if (size.endsWith("KB")) {
+            unit = 1024;
+        } else if (size.endsWith("MB")) {
+            unit = 1024 * 1024;
+        } else if (size.endsWith("GB")) {
+            unit = 1024 * 1024 * 1024;
+        }
+        if (unit > 1) {
+            size = size.substring(0, size.length() - 2).trim();
         }
+        return Long.parseLong(size) * unit;
     }
 
     private void setDefaultValues() {
@@ -110,15 +228,20 @@ public class MvcApplication {
         port = PORT_DEFAULT;
         basePackage = BASE_PACKAGE_DEFAULT;
         urlPattern = URL_PATTERN_DEFAULT;
+        virtualThreads = false;
+        maxFileSize = MAX_FILE_SIZE_DEFAULT;
+        maxRequestSize = MAX_REQUEST_SIZE_DEFAULT;
+        fileSizeThreshold = FILE_SIZE_THRESHOLD_DEFAULT;
     }
 
-    private void startEmbeddedTomcat(Tomcat tomcat) {
+    private boolean startEmbeddedTomcat(Tomcat tomcat) {
         try {
             tomcat.start();
             printBanner();
-            tomcat.getServer().await();
+            return true;
         } catch (LifecycleException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
@@ -144,20 +267,51 @@ public class MvcApplication {
 
         wrapper.addInitParameter("base-package", basePackage);
         //这行代码是让DispatcherServlet能支持servlet 3.0标准的文件上传能力
-        wrapper.setMultipartConfigElement(new MultipartConfigElement(TEMP_DIR_DEFAULT));
+        wrapper.setMultipartConfigElement(new MultipartConfigElement(TEMP_DIR_DEFAULT, maxFileSize, maxRequestSize, fileSizeThreshold));
+        //容器只在解析请求体时检查限制，DispatcherServlet用同样的限制在读取请求体之前检查Content-Length
+        wrapper.addInitParameter(DispatcherServlet.MAX_FILE_SIZE, String.valueOf(maxFileSize));
+        wrapper.addInitParameter(DispatcherServlet.MAX_REQUEST_SIZE, String.valueOf(maxRequestSize));
+        //handler返回CompletableFuture等异步类型时需要servlet支持异步处理
+        wrapper.setAsyncSupported(true);
         wrapper.setLoadOnStartup(1);
+        if (virtualThreads) {
+            wrapper.addInitParameter(DispatcherServlet.EXECUTION_MODE, DispatcherServlet.VIRTUAL_EXECUTION_MODE);
+        }
+    }
+
+    /**
+     * 把连接器的执行器换成虚拟线程的执行器，这样servlet的service方法本身就运行在虚拟线程上
+     */
+    private void configureVirtualThreads(Tomcat tomcat) {
+        ExecutorService executor = VirtualThreadUtils.newVirtualThreadPerTaskExecutor();
+        if (executor == null) {
+            LogUtils.info("当前jvm不支持虚拟线程，参数" + VIRTUAL_THREADS + "被忽略");
+            return;
+        }
+        Connector connector = tomcat.getConnector();
+        ProtocolHandler protocolHandler = connector.getProtocolHandler();
+        if (protocolHandler instanceof AbstractProtocol) {
+            ((AbstractProtocol<?>) protocolHandler).setExecutor(executor);
+            connectorExecutor = executor;
+        } else {
+            executor.shutdown();
+        }
     }
 
     private void registerShutdownHook(Tomcat tomcat) {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        shutdownHook = new Thread(() -> {
                     try {
                         tomcat.stop();
                         tomcat.destroy();
                     } catch (LifecycleException e) {
                         e.printStackTrace();
+                    } finally {
+                        if (connectorExecutor != null) {
+                            connectorExecutor.shutdown();
+                        }
                     }
-                })
-        );
+                });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
 
     private void printBanner() {
@@ -172,12 +326,15 @@ public class MvcApplication {
         System.out.println(bannerText);
         System.out.println("=======================================================================");
         System.out.println("Mvc项目启动成功了:" + LocalTime.now());
-        System.out.println(PORT + ":" + this.port);
+        System.out.println(PORT + ":" + getPort());
         System.out.println(CONTEXT_PATH + ":" + this.contextPath);
         System.out.println(URL_PATTERN + ":" + this.urlPattern);
         System.out.println(BASE_PACKAGE + ":" + this.basePackage);
         System.out.println("web资源路径:"+ System.getProperty("user.dir"));
         System.out.println("文件上传用的临时目录:" + ":" + TEMP_DIR_DEFAULT);
+        System.out.println(MAX_FILE_SIZE + ":" + this.maxFileSize);
+        System.out.println(MAX_REQUEST_SIZE + ":" + this.maxRequestSize);
+        System.out.println(FILE_SIZE_THRESHOLD + ":" + this.fileSizeThreshold);
         System.out.println("=======================================================================");
     }
 }
@@ -1,6 +1,18 @@
 package com.nf.mvc;
 
+import com.nf.mvc.async.AsyncConfiguration;
+import com.nf.mvc.batch.BatchConfiguration;
+import com.nf.mvc.body.BodyAggregationConfiguration;
+import com.nf.mvc.bulkhead.BulkheadConfiguration;
+import com.nf.mvc.cache.ResponseCacheConfiguration;
+import com.nf.mvc.compression.CompressionConfiguration;
 import com.nf.mvc.cors.CorsConfiguration;
+import com.nf.mvc.metrics.MetricsConfiguration;
+import com.nf.mvc.resource.StaticResourceConfiguration;
+import com.nf.mvc.timeout.TimeoutConfiguration;
+import com.nf.mvc.upload.ResumableUploadConfiguration;
+import com.nf.mvc.write.NonBlockingWriteConfiguration;
+import com.nf.mvc.view.template.TemplateEngine;
 
 /**
  * 此接口是用来给mvc框架内部的一些核心组件提供配置使用的,在整个mvc框架中，对mvc框架内部的组件有2种方式进行定制配置的
@@ -33,7 +45,20 @@ import com.nf.mvc.cors.CorsConfiguration;
  *     <li>configureHandlerAdapter：对HandlerAdapter进行配置</li>
  *     <li>configureArgumentResolver：对MethodArgumentResolver进行配置</li>
  *     <li>configureExceptionResolver：对HandlerExceptionResolver进行配置</li>
+ *     <li>configureReturnValueHandler：对ReturnValueHandler进行配置</li>
  *     <li>configureCors：对CorsConfiguration进行配置</li>
+ *     <li>configureCompression：对CompressionConfiguration进行配置，默认是不开启响应压缩的</li>
+ *     <li>configureTemplateEngine：对模板引擎进行配置</li>
+ *     <li>configureAsync：对异步请求处理的超时时间与执行器进行配置</li>
+ *     <li>configureBatch：对BatchConfiguration进行配置，默认是不开启批量请求的</li>
+ *     <li>configureBulkhead：按地址配置handler的并发限制，也可以用{@link com.nf.mvc.bulkhead.Bulkhead}注解配置</li>
+ *     <li>configureTimeout：配置全局与按地址的请求处理超时时间，也可以用{@link com.nf.mvc.timeout.Timeout}注解配置</li>
+ *     <li>configureBodyAggregation：对BodyAggregationConfiguration进行配置，默认是不开启非阻塞读取请求体的</li>
+ *     <li>configureNonBlockingWrite：对NonBlockingWriteConfiguration进行配置，默认是不开启非阻塞写出响应体的</li>
+ *     <li>configureResponseCache：配置响应缓存的总大小，缓存只对有{@link com.nf.mvc.cache.CacheResponse}注解的handler生效</li>
+ *     <li>configureStaticResources：配置静态资源的地址前缀与所在目录，没有配置时静态资源仍由默认servlet处理</li>
+ *     <li>configureResumableUpload：配置可续传上传的地址前缀与保存目录，默认是不开启可续传上传的</li>
+ *     <li>configureMetrics：开启按路由记录的请求指标与以Prometheus格式输出指标的地址，默认是不记录指标的</li>
  * </ul>
  * </p>
  *
@@ -41,7 +66,17 @@ import com.nf.mvc.cors.CorsConfiguration;
  * @see HandlerAdapter
  * @see MethodArgumentResolver
  * @see HandlerExceptionResolver
+ * @see ReturnValueHandler
  * @see CorsConfiguration
+ * @see CompressionConfiguration
+ * @see TemplateEngine
+ * @see AsyncConfiguration
+ * @see BatchConfiguration
+ * @see BulkheadConfiguration
+ * @see TimeoutConfiguration
+ * @see BodyAggregationConfiguration
+ * @see NonBlockingWriteConfiguration
+ * @see ResponseCacheConfiguration
  */
 public interface MvcConfigurer {
     default void configureHandlerMapping(HandlerMapping handlerMapping) {
@@ -60,8 +95,60 @@ public interface MvcConfigurer {
 
     }
 
+    default void configureReturnValueHandler(ReturnValueHandler returnValueHandler) {
+
+    }
+
     default void configureCors(CorsConfiguration configuration) {
         configuration.applyDefaultConfiguration();
     }
 
+    default void configureCompression(CompressionConfiguration configuration) {
+
+    }
+
+    default void configureTemplateEngine(TemplateEngine templateEngine) {
+
+    }
+
+    default void configureAsync(AsyncConfiguration configuration) {
+
+    }
+
+    default void configureBatch(BatchConfiguration configuration) {
+
+    }
+
+    default void configureBulkhead(BulkheadConfiguration configuration) {
+
+    }
+
+    default void configureTimeout(TimeoutConfiguration configuration) {
+
+    }
+
+    default void configureBodyAggregation(BodyAggregationConfiguration configuration) {
+
+    }
+
+    default void configureNonBlockingWrite(NonBlockingWriteConfiguration configuration) {
+
+    }
+
+    default void configureResponseCache(ResponseCacheConfiguration configuration) {
+
+    }
+
+    default void configureStaticResources(StaticResourceConfiguration configuration) {
+
+    }
+
+    default void configureResumableUpload(ResumableUploadConfiguration configuration) {
+
+    }
+
+    default void configureMetrics(MetricsConfiguration configuration) {
+
+    }
+
 }
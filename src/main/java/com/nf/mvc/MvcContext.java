@@ -4,6 +4,7 @@ import com.nf.mvc.configuration.ConfigurationProperties;
 import com.nf.mvc.configuration.YmlParser;
 import com.nf.mvc.support.OrderComparator;
 import com.nf.mvc.util.ReflectionUtils;
+import com.nf.mvc.view.template.TemplateEngine;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ClassInfoList;
 import io.github.classgraph.ScanResult;
@@ -27,10 +28,12 @@ import java.util.*;
  *                  <li>{@link HandlerAdapter}</li>
  *                  <li>{@link MethodArgumentResolver}</li>
  *                  <li>{@link HandlerExceptionResolver}</li>
+ *                  <li>{@link ReturnValueHandler}</li>
  *              </ul>
  *         </li>
  *         <li>获取配置器，通过{@link #getCustomWebMvcConfigurer()}</li>
  *         <li>获取拦截器，通过{@link #getCustomHandlerInterceptors()} }</li>
+ *         <li>获取模板引擎，通过{@link #getTemplateEngine()}</li>
  *     </ol>
  * </p>
  * @see DispatcherServlet
@@ -45,14 +48,18 @@ public class MvcContext {
     private List<HandlerAdapter> handlerAdapters = new ArrayList<>();
     private List<MethodArgumentResolver> argumentResolvers = new ArrayList<>();
     private List<HandlerExceptionResolver> exceptionResolvers = new ArrayList<>();
+    private List<ReturnValueHandler> returnValueHandlers = new ArrayList<>();
+    private TemplateEngine templateEngine;
 
     private final List<Class<?>> allScannedClasses = new ArrayList<>();
     private final List<HandlerMapping> customHandlerMappings = new ArrayList<>();
     private final List<HandlerAdapter> customHandlerAdapters = new ArrayList<>();
     private final List<MethodArgumentResolver> customArgumentResolvers = new ArrayList<>();
     private final List<HandlerExceptionResolver> customExceptionResolvers = new ArrayList<>();
+    private final List<ReturnValueHandler> customReturnValueHandlers = new ArrayList<>();
     private final List<HandlerInterceptor> customInterceptors = new ArrayList<>();
     private final List<MvcConfigurer> customConfigurers = new ArrayList<>();
+    private final List<TemplateEngine> customTemplateEngines = new ArrayList<>();
     private final Map<Class<?>,Object> configurationProperties = new HashMap<>(16);
 
     private MvcContext() {
@@ -88,17 +95,19 @@ public class MvcContext {
 
     /**
      * 解析扫描到的类是否是mvc框架核心功能类
-     * <p>解析参数解析器要放在解析HandlerAdapter之前,因为一些HandlerAdapter的构造函数用到了参数解析器,
+     * <p>解析参数解析器与返回值处理器要放在解析HandlerAdapter之前,因为一些HandlerAdapter的构造函数用到了它们,
      * Mvc框架并不是一个容器管理框架,并没有对bean的依赖顺序进行管理</p>
      * @param scannedClass 所有扫描到的类
      */
     private void resolveMvcClasses(Class<?> scannedClass) {
         resolveMvcClass(scannedClass, MethodArgumentResolver.class, customArgumentResolvers);
+        resolveMvcClass(scannedClass, ReturnValueHandler.class, customReturnValueHandlers);
         resolveMvcClass(scannedClass, HandlerMapping.class, customHandlerMappings);
         resolveMvcClass(scannedClass, HandlerAdapter.class, customHandlerAdapters);
         resolveMvcClass(scannedClass, HandlerExceptionResolver.class, customExceptionResolvers);
         resolveMvcClass(scannedClass, HandlerInterceptor.class, customInterceptors);
         resolveMvcClass(scannedClass, MvcConfigurer.class, customConfigurers);
+        resolveMvcClass(scannedClass, TemplateEngine.class, customTemplateEngines);
     }
 
     private <T> void resolveMvcClass(Class<?> scannedClass, Class<? extends T> mvcInf, List<T> list) {
@@ -131,6 +140,11 @@ public class MvcContext {
         return Collections.unmodifiableList(customArgumentResolvers);
     }
 
+    public List<ReturnValueHandler> getCustomReturnValueHandlers() {
+        customReturnValueHandlers.sort(new OrderComparator<>());
+        return Collections.unmodifiableList(customReturnValueHandlers);
+    }
+
     public List<HandlerExceptionResolver> getCustomExceptionResolvers() {
         customExceptionResolvers.sort(new OrderComparator<>());
         return Collections.unmodifiableList(customExceptionResolvers);
@@ -148,6 +162,13 @@ public class MvcContext {
         return customConfigurers.size()==0?null:customConfigurers.get(0);
     }
 
+    public TemplateEngine getCustomTemplateEngine() {
+        if (customTemplateEngines.size() > 1) {
+            throw new IllegalStateException("模板引擎应该只写一个");
+        }
+        return customTemplateEngines.size() == 0 ? null : customTemplateEngines.get(0);
+    }
+
     public Map<Class<?>, Object> getConfigurationProperties() {
         return Collections.unmodifiableMap(configurationProperties);
     }
@@ -174,6 +195,14 @@ public class MvcContext {
         return Collections.unmodifiableList(exceptionResolvers);
     }
 
+    public List<ReturnValueHandler> getReturnValueHandlers() {
+        return Collections.unmodifiableList(returnValueHandlers);
+    }
+
+    public TemplateEngine getTemplateEngine() {
+        return templateEngine;
+    }
+
     public List<Class<?>> getAllScannedClasses() {
         return Collections.unmodifiableList(allScannedClasses);
     }
@@ -202,4 +231,12 @@ public class MvcContext {
         this.exceptionResolvers = exceptionResolvers;
     }
 
+    void setReturnValueHandlers(List<ReturnValueHandler> returnValueHandlers) {
+        this.returnValueHandlers = returnValueHandlers;
+    }
+
+    void setTemplateEngine(TemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.nf.mvc;
+
+import com.nf.mvc.returnvalue.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+
+/**
+ * 请求处理者方法返回值的处理器，负责把handler方法的返回值转换为{@link ViewResult}，其用法与{@link MethodArgumentResolver}是类似的:
+ * <pre class="code">
+ *   for(ReturnValueHandler handler:handlers){
+ *     if(handler.supports(returnType){
+ *       ViewResult viewResult = handler.handleReturnValue(returnValue,method,request);
+ *     }
+ *   }
+ * </pre>
+ * <h3>选择处理器的时机</h3>
+ * <p>处理器是依据方法声明的返回类型选择的，并且每个handler方法只选择一次，之后就缓存起来，
+ * 请求处理时不再需要遍历所有的处理器，具体见{@link ReturnValueHandlerComposite}。
+ * 只有方法声明的返回类型是Object时，才会依据返回值的实际类型去选择处理器(同样会按类型缓存)</p>
+ * <h3>框架提供的处理器</h3>
+ * <ul>
+ *     <li>{@link ViewResultReturnValueHandler}：ViewResult与void</li>
+ *     <li>{@link PlainTextReturnValueHandler}：CharSequence与简单类型，响应纯文本</li>
+ *     <li>{@link BytesReturnValueHandler}：byte[]与ByteBuffer</li>
+ *     <li>{@link StreamingReturnValueHandler}：InputStream、Path与File，以流的方式响应</li>
+ *     <li>{@link SerializingReturnValueHandler}：其它类型(pojo、集合、Map等)，依据Accept请求头序列化为json、cbor或smile</li>
+ * </ul>
+ * 用户提供的处理器总是优先于框架提供的处理器，用户可以通过编写此接口的实现类并放置在扫描的包下来扩展返回值的处理能力
+ *
+ * @see ReturnValueHandlerComposite
+ * @see ViewResult#adaptHandlerResult(Object)
+ * @see com.nf.mvc.adapter.RequestMappingHandlerAdapter
+ */
+public interface ReturnValueHandler {
+    /**
+     * @param returnType 方法声明的返回类型，声明类型为Object时是返回值的实际类型
+     * @return true表示此处理器可以处理此类型的返回值
+     */
+    boolean supports(Class<?> returnType);
+
+    /**
+     * @param returnValue handler方法的返回值，可能为null
+     * @param method      handler方法，处理器可以据此对每个方法缓存一些处理逻辑，比如内容协商的结果
+     * @param request     servlet请求对象
+     * @return 视图结果，不能返回null
+     * @throws Exception 处理返回值时的异常
+     */
+    ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) throws Exception;
+}
@@ -0,0 +1,183 @@
+package com.nf.mvc;
+
+import com.nf.mvc.metrics.RequestTimer;
+import com.nf.mvc.timeout.Deadline;
+import com.nf.mvc.util.RequestUtils;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 代表一次请求与响应的交互，在{@link DispatcherServlet#doService(HttpServletRequest, HttpServletResponse)}中为每个请求创建一次，
+ * 然后显式的传递给{@link HandlerAdapter}、{@link MethodArgumentResolver}与{@link ViewResult}，
+ * 这样请求处理的热点路径上就不再需要通过ThreadLocal获取request与response了
+ * <h3>保存的内容</h3>
+ * <ul>
+ *     <li>request与response：开启响应压缩时response是压缩的包装对象</li>
+ *     <li>请求地址：第一次获取时计算，之后直接返回，见{@link #getPath()}</li>
+ *     <li>路径变量：由路径变量解析器第一次解析时提取，同一个请求的其它路径变量参数直接使用，见{@link #getPathVariables()}</li>
+ *     <li>属性：只在框架与handler之间共享的数据，不像request的属性那样会被forward到jsp等地方</li>
+ *     <li>截止时间：handler有超时设置时才有，见{@link #getDeadline()}</li>
+ *     <li>是否推迟结束：响应体交给非阻塞写出之后，异步请求由写出完毕的回调结束，见{@link #isCompletionDeferred()}</li>
+ *     <li>计时器：开启了请求指标时才有，见{@link #getRequestTimer()}</li>
+ * </ul>
+ * <h3>线程</h3>
+ * <p>此对象不是线程安全的，但同一时刻只会有一个线程处理它：异步处理或者虚拟线程模式下请求会在别的线程继续处理，
+ * 交给执行器执行本身保证了之前线程的修改对后续线程是可见的</p>
+ * <h3>与HandlerContext的关系</h3>
+ * <p>此对象创建之后会保存到请求的属性中，并且通过{@link HandlerContext}关联到当前处理线程，
+ * HandlerContext现在只是为了兼容而保留的，框架内部都是使用显式传递的此对象，
+ * 只有请求对象的地方可以通过{@link #from(HttpServletRequest)}获取</p>
+ *
+ * @see HandlerContext
+ * @see DispatcherServlet
+ */
+public class ServletExchange {
+    /**
+     * 此对象保存在请求对象中时使用的属性名
+     */
+    public static final String EXCHANGE_ATTRIBUTE = ServletExchange.class.getName();
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private String path;
+    private Map<String, String> pathVariables;
+    private Map<String, Object> attributes;
+    private volatile Deadline deadline;
+    private volatile boolean completionDeferred;
+    private RequestTimer requestTimer;
+
+    public ServletExchange(HttpServletRequest request, HttpServletResponse response) {
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * 创建交互对象并保存到请求的属性中，框架在每个请求开始时调用一次
+     *
+     * @param request  请求对象
+     * @param response 响应对象
+     * @return 新建的交互对象
+     */
+    public static ServletExchange create(HttpServletRequest request, HttpServletResponse response) {
+        ServletExchange exchange = new ServletExchange(request, response);
+        request.setAttribute(EXCHANGE_ATTRIBUTE, exchange);
+        return exchange;
+    }
+
+    /**
+     * 只有请求对象时获取交互对象，依次从请求属性与当前线程中查找，都找不到时创建一个没有响应对象的交互对象，
+     * 主要给还在使用只有请求对象参数的那些方法的代码使用
+     *
+     * @param request 请求对象
+     * @return 与此请求对应的交互对象
+     */
+    public static ServletExchange from(HttpServletRequest request) {
+        Object exchange = request.getAttribute(EXCHANGE_ATTRIBUTE);
+        if (exchange instanceof ServletExchange) {
+            return (ServletExchange) exchange;
+        }
+        ServletExchange current = HandlerContext.getContext().getExchange();
+        if (current != null && current.request == request) {
+            return current;
+        }
+        return new ServletExchange(request, current == null ? null : current.response);
+    }
+
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    public HttpServletResponse getResponse() {
+        return response;
+    }
+
+    public HttpSession getSession() {
+        return request.getSession();
+    }
+
+    public ServletContext getServletContext() {
+        return request.getServletContext();
+    }
+
+    /**
+     * @return 去掉上下文路径之后的请求地址，见{@link RequestUtils#getRequestUrl(HttpServletRequest)}
+     */
+    public String getPath() {
+        if (path == null) {
+            path = RequestUtils.getRequestUrl(request);
+        }
+        return path;
+    }
+
+    /**
+     * @return 已经提取的路径变量，还没有提取过时返回null
+     */
+    public Map<String, String> getPathVariables() {
+        return pathVariables;
+    }
+
+    public void setPathVariables(Map<String, String> pathVariables) {
+        this.pathVariables = pathVariables;
+    }
+
+    /**
+     * @return 请求处理的截止时间，handler没有超时设置时返回null
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * 标记异步请求由别处结束，本来在渲染之后结束异步请求的地方不再结束它
+     */
+    public void deferCompletion() {
+        this.completionDeferred = true;
+    }
+
+    /**
+     * @return true表示响应体正在非阻塞写出，异步请求会在写出完毕时结束
+     */
+    public boolean isCompletionDeferred() {
+        return completionDeferred;
+    }
+
+    /**
+     * @return 请求的计时器，没有开启请求指标时返回null
+     */
+    public RequestTimer getRequestTimer() {
+        return requestTimer;
+    }
+
+    public void setRequestTimer(RequestTimer requestTimer) {
+        this.requestTimer = requestTimer;
+    }
+
+    public Object getAttribute(String name) {
+        return attributes == null ? null : attributes.get(name);
+    }
+
+    public void setAttribute(String name, Object value) {
+        if (attributes == null) {
+            attributes = new HashMap<>(8);
+        }
+        attributes.put(name, value);
+    }
+
+    public Object removeAttribute(String name) {
+        return attributes == null ? null : attributes.remove(name);
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes == null ? Collections.emptyMap() : Collections.unmodifiableMap(attributes);
+    }
+}
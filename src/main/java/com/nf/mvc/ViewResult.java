@@ -1,10 +1,13 @@
 package com.nf.mvc;
 
+import com.nf.mvc.util.StreamUtils;
+import com.nf.mvc.view.BytesViewResult;
 import com.nf.mvc.view.PlainViewResult;
 import com.nf.mvc.view.VoidViewResult;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.nio.ByteBuffer;
 
 /**
  * 此类用来封装Handler执行的结果，通常用户的控制器方法会返回此类型，不同的实现通常代表不同的响应情况，
@@ -29,12 +32,26 @@ import javax.servlet.http.HttpServletResponse;
 public abstract class ViewResult {
     public abstract void render(HttpServletRequest req, HttpServletResponse resp) throws Exception;
 
+    /**
+     * DispatcherServlet调用的是此方法，默认实现是调用{@link #render(HttpServletRequest, HttpServletResponse)}，
+     * 子类需要请求地址等信息时可以重写此方法
+     *
+     * @param exchange 当前请求的交互对象
+     * @throws Exception 渲染时的异常
+     */
+    public void render(ServletExchange exchange) throws Exception {
+        render(exchange.getRequest(), exchange.getResponse());
+    }
+
     /**
      * 此方法是用来把控制器方法的执行结果统一适配为ViewResult类型用的，适配逻辑是
      * <ul>
      *     <li>控制器方法返回null：比如方法签名为void或就是return null,那么就适配为VoidViewResult</li>
      *     <li>控制器方法返回ViewResult类型：原样返回，无需适配</li>
-     *     <li>控制器方法返回非ViewResult类型：那么就把返回对象的toString()值适配为PlainViewResult</li>
+     *     <li>控制器方法返回byte[]或ByteBuffer：适配为内容类型是application/octet-stream的{@link BytesViewResult}</li>
+     *     <li>控制器方法返回CharSequence(比如String)：直接编码为UTF-8字节，适配为内容类型是text/plain的{@link BytesViewResult}，
+     *     这样可以设置Content-Length并一次写出，不需要经过Writer</li>
+     *     <li>控制器方法返回其它类型：那么就把返回对象的toString()值适配为PlainViewResult</li>
      * </ul>
      * <p>这段代码在Adapter与ExceptionResolver里面都有使用，因为Adapter与ExceptionResolver本质上不相关
      * 所以这段代码放在两个里面的任意一个都不合适</p>
@@ -52,6 +69,12 @@ public abstract class ViewResult {
             viewResult = new VoidViewResult();
         } else if (handlerResult instanceof ViewResult) {
             viewResult = (ViewResult) handlerResult;
+        } else if (handlerResult instanceof CharSequence) {
+            viewResult = BytesViewResult.plain((CharSequence) handlerResult);
+        } else if (handlerResult instanceof byte[]) {
+            viewResult = new BytesViewResult((byte[]) handlerResult);
+        } else if (handlerResult instanceof ByteBuffer) {
+            viewResult = new BytesViewResult((ByteBuffer) handlerResult, StreamUtils.APPLICATION_OCTET_STREAM_VALUE);
         } else {
             viewResult = new PlainViewResult(handlerResult.toString());
         }
@@ -2,8 +2,11 @@ package com.nf.mvc.adapter;
 
 import com.nf.mvc.HandlerAdapter;
 import com.nf.mvc.HttpRequestHandler;
+import com.nf.mvc.ServletExchange;
 import com.nf.mvc.ViewResult;
 import com.nf.mvc.handler.HandlerClass;
+import com.nf.mvc.metrics.RequestPhase;
+import com.nf.mvc.metrics.RequestTimer;
 import com.nf.mvc.view.VoidViewResult;
 
 import javax.servlet.http.HttpServletRequest;
@@ -37,4 +40,18 @@ public class HttpRequestHandlerAdapter implements HandlerAdapter {
         return new VoidViewResult();
 
     }
+
+    @Override
+    public ViewResult handle(ServletExchange exchange, Object handler) throws Exception {
+        RequestTimer timer = exchange.getRequestTimer();
+        if (timer == null) {
+            return handle(exchange.getRequest(), exchange.getResponse(), handler);
+        }
+        long start = System.nanoTime();
+        try {
+            return handle(exchange.getRequest(), exchange.getResponse(), handler);
+        } finally {
+            timer.record(RequestPhase.INVOCATION, System.nanoTime() - start);
+        }
+    }
 }
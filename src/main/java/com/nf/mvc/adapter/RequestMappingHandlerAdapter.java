@@ -1,24 +1,28 @@
 package com.nf.mvc.adapter;
 
 import com.nf.mvc.HandlerAdapter;
+import com.nf.mvc.ServletExchange;
 import com.nf.mvc.ViewResult;
 import com.nf.mvc.argument.MethodArgumentResolverComposite;
 import com.nf.mvc.handler.HandlerMethod;
+import com.nf.mvc.metrics.RequestPhase;
+import com.nf.mvc.metrics.RequestTimer;
+import com.nf.mvc.returnvalue.ReturnValueHandlerComposite;
 import com.nf.mvc.support.MethodInvoker;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
 
-import static com.nf.mvc.ViewResult.adaptHandlerResult;
-
 /**
  * 此类是Mvc框架的核心HandlerAdapter,此适配器主要是利用Mvc框架注册的所有解析器对{@link HandlerMethod}封装的请求处理方法
  * 的参数进行解析，解析之后再调用方法以处理请求
- * <p>此HandlerAdapter对Handler的返回类型会进行适配，适配的逻辑见{@link ViewResult#adaptHandlerResult(Object)},
+ * <p>此HandlerAdapter利用返回值处理器把Handler的返回值转换为ViewResult,处理器是依据方法声明的返回类型选择的，
+ * 每个方法只选择一次，见{@link ReturnValueHandlerComposite}，没有处理器能处理时的适配逻辑见{@link ViewResult#adaptHandlerResult(Object)},
  * 详细解释见{@link HandlerAdapter}的注释说明</p>
  * @see HandlerAdapter
  * @see MethodArgumentResolverComposite
+ * @see ReturnValueHandlerComposite
  * @see MethodInvoker
  * @see HandlerMethod
  */
@@ -26,13 +30,19 @@ public class RequestMappingHandlerAdapter implements HandlerAdapter {
 
     private static final MethodArgumentResolverComposite DEFAULT_RESOLVERS = MethodArgumentResolverComposite.defaultInstance();
     private final MethodInvoker methodInvoker;
+    private final ReturnValueHandlerComposite returnValueHandlers;
 
     public RequestMappingHandlerAdapter() {
         this(DEFAULT_RESOLVERS);
     }
 
     public RequestMappingHandlerAdapter(MethodArgumentResolverComposite resolvers) {
-        methodInvoker = new MethodInvoker(resolvers);
+        this(resolvers, ReturnValueHandlerComposite.defaultInstance());
+    }
+
+    public RequestMappingHandlerAdapter(MethodArgumentResolverComposite resolvers, ReturnValueHandlerComposite returnValueHandlers) {
+        this.methodInvoker = new MethodInvoker(resolvers);
+        this.returnValueHandlers = returnValueHandlers;
     }
 
     @Override
@@ -43,12 +53,34 @@ public class RequestMappingHandlerAdapter implements HandlerAdapter {
 
     @Override
     public ViewResult handle(HttpServletRequest req, HttpServletResponse resp, Object handler) throws Exception {
+        return handle(ServletExchange.from(req), handler);
+    }
+
+    @Override
+    public ViewResult handle(ServletExchange exchange, Object handler) throws Exception {
         HandlerMethod handlerMethod = (HandlerMethod) handler;
         Object instance = handlerMethod.getHandlerObject();
         Method method = handlerMethod.getMethod();
 
-        Object handlerResult = methodInvoker.invoke(instance, method, req);
-        return adaptHandlerResult(handlerResult);
-
+        RequestTimer timer = exchange.getRequestTimer();
+        if (timer == null) {
+            Object handlerResult = methodInvoker.invoke(instance, method, exchange);
+            return returnValueHandlers.handleReturnValue(handlerResult, method, exchange.getRequest());
+        }
+        // 开启了请求指标时分别统计参数解析与handler执行的耗时
+        long start = System.nanoTime();
+        Object[] args;
+        try {
+            args = methodInvoker.resolveArguments(method, exchange);
+        } finally {
+            timer.record(RequestPhase.ARGUMENT_RESOLUTION, System.nanoTime() - start);
+        }
+        start = System.nanoTime();
+        try {
+            Object handlerResult = method.invoke(instance, args);
+            return returnValueHandlers.handleReturnValue(handlerResult, method, exchange.getRequest());
+        } finally {
+            timer.record(RequestPhase.INVOCATION, System.nanoTime() - start);
+        }
     }
 }
@@ -2,6 +2,7 @@ package com.nf.mvc.argument;
 
 import com.nf.mvc.MethodArgumentResolver;
 import com.nf.mvc.MvcContext;
+import com.nf.mvc.ServletExchange;
 import com.nf.mvc.support.WebTypeConverters;
 
 import javax.servlet.http.HttpServletRequest;
@@ -71,13 +72,18 @@ public class MethodArgumentResolverComposite implements MethodArgumentResolver {
 
     @Override
     public Object resolveArgument(MethodParameter parameter, HttpServletRequest request) throws Exception {
+        return resolveArgument(parameter, ServletExchange.from(request));
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ServletExchange exchange) throws Exception {
         MethodArgumentResolver resolver = getArgumentResolver(parameter);
         if (resolver == null) {
             throw new IllegalArgumentException("不支持的参数类型 [" +
                     parameter.getParameterType() + "]. 当前解析的参数名是:[" + parameter.getParameterName()
                     + "],所在的方法是:[" + parameter.getMethod().getName() + "]，所在的类是:[" + parameter.getContainingClass().getName() + "]");
         }
-        return resolver.resolveArgument(parameter, request);
+        return resolver.resolveArgument(parameter, exchange);
     }
 
     private MethodArgumentResolver getArgumentResolver(MethodParameter parameter) {
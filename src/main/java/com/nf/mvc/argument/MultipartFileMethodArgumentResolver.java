@@ -1,6 +1,8 @@
 package com.nf.mvc.argument;
 
+import com.nf.mvc.body.PayloadTooLargeException;
 import com.nf.mvc.file.MultipartFile;
+import com.nf.mvc.file.MultipartLimits;
 import com.nf.mvc.file.StandardMultipartFile;
 import com.nf.mvc.util.FileUtils;
 
@@ -8,6 +10,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.Part;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -15,6 +18,10 @@ import java.util.List;
 /**
  * 此类是用来处理文件上传的参数解析器，如果方法的参数是{@link MultipartFile} 或者{@link Part}类型以及它们的数组类型或List类型，此参数解析器就支持解析。
  * <p>在实际项目开发中，建议使用{@link MultipartFile}这个Mvc自己提供的类型，因为他提供了很多便利的方法，不推荐使用Part类型作为方法参数使用</p>
+ * <p>request.getParts()会让容器先读完整个请求体，把每个part缓存到内存或临时文件中，上传很大的文件时可以改用
+ * {@link com.nf.mvc.file.MultipartIterator}类型的参数以流的方式读取，见{@link StreamingMultipartMethodArgumentResolver}</p>
+ * <p>part超过了handler的{@link MultipartLimits#getMaxFileSize()}或者容器因为超过大小限制而无法解析请求体时，
+ * 抛出包装了{@link PayloadTooLargeException}的UncheckedIOException，没有处理时框架响应413</p>
  *
  * @see FileUtils
  * @see MultipartFile
@@ -39,16 +46,23 @@ public class MultipartFileMethodArgumentResolver extends AbstractCommonTypeMetho
     @Override
     protected Object[] getSource(MethodParameter methodParameter, HttpServletRequest request) {
         Object[] source = null;
+        MultipartLimits limits = MultipartLimits.of(request);
         try {
             List<Part> matchedParts = new ArrayList<>();
             Collection<Part> parts = request.getParts();
             for (Part part : parts) {
                 if (part.getName()
                         .equals(methodParameter.getParameterName())) {
+                    if (limits.isFileTooLarge(part.getSize())) {
+                        throw new UncheckedIOException(limits.fileTooLarge(part.getName()));
+                    }
                     matchedParts.add(part);
                 }
             }
             source = matchedParts.toArray();
+        } catch (IllegalStateException e) {
+            // servlet规范规定请求体或者某个part超过了multipart-config中的大小限制时getParts抛出此异常
+            throw new UncheckedIOException(new PayloadTooLargeException("上传的内容超过了容器允许的大小:" + e.getMessage(), -1));
         } catch (IOException | ServletException e) {
             /* 没有上传文件时，调用request.getParts()方法是会抛异常的. 这里不抛出异常，什么也不干，相当于返回null,
              * 针对的一种场景是：比如修改商品记录不牵涉到图片的修改，那么文件类型的参数属性直接赋值为null即可 ，抛异常的话会中断控制器方法的执行
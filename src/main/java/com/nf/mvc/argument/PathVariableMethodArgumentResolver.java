@@ -1,10 +1,10 @@
 package com.nf.mvc.argument;
 
 import com.nf.mvc.MethodArgumentResolver;
+import com.nf.mvc.ServletExchange;
 import com.nf.mvc.support.PathMatcher;
 import com.nf.mvc.support.WebTypeConverters;
 import com.nf.mvc.support.path.AntPathMatcher;
-import com.nf.mvc.util.RequestUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.Map;
@@ -14,6 +14,8 @@ import static com.nf.mvc.mapping.RequestMappingUtils.getUrlPattern;
 /**
  * 路径变量参数解析器,基本只对简单类型数据做解析,因为数据来源是路径上的某一个片段的值
  * <p>此参数解析器最好放置在{@link SimpleTypeMethodArgumentResolver}之前使用</p>
+ * <p>一个请求只会对应一个handler方法，所以路径变量在第一次解析时提取一次并保存到{@link ServletExchange}中，
+ * 同一个方法的其它路径变量参数直接使用</p>
  */
 public class PathVariableMethodArgumentResolver implements MethodArgumentResolver {
   private PathMatcher pathMatcher = PathMatcher.DEFAULT_PATH_MATCHER;
@@ -25,13 +27,19 @@ public class PathVariableMethodArgumentResolver implements MethodArgumentResolve
 
   @Override
   public Object resolveArgument(MethodParameter parameter, HttpServletRequest request) throws Exception {
-    String patternInClass = getUrlPattern(parameter.getContainingClass());
-    String patternInMethod = getUrlPattern(parameter.getMethod());
-    String pattern = patternInClass + patternInMethod;
-
-    String path = RequestUtils.getRequestUrl(request);
+    return resolveArgument(parameter, ServletExchange.from(request));
+  }
 
-    Map<String, String> variables = pathMatcher.extractPathVariables(pattern, path);
+  @Override
+  public Object resolveArgument(MethodParameter parameter, ServletExchange exchange) throws Exception {
+    Map<String, String> variables = exchange.getPathVariables();
+    if (variables == null) {
+      String patternInClass = getUrlPattern(parameter.getContainingClass());
+      String patternInMethod = getUrlPattern(parameter.getMethod());
+      String pattern = patternInClass + patternInMethod;
+      variables = pathMatcher.extractPathVariables(pattern, exchange.getPath());
+      exchange.setPathVariables(variables);
+    }
     String varName = parameter.getParameter()
             .getDeclaredAnnotation(PathVariable.class)
             .value();
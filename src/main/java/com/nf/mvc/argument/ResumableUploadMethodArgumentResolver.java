@@ -0,0 +1,47 @@
+package com.nf.mvc.argument;
+
+import com.nf.mvc.MethodArgumentResolver;
+import com.nf.mvc.upload.ResumableUpload;
+import com.nf.mvc.upload.ResumableUploadFile;
+import com.nf.mvc.upload.ResumableUploadHandler;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 解析{@link ResumableUploadFile}类型参数的解析器，请求参数的名字与方法参数的名字一样，
+ * 值是创建上传时响应的Location地址或者地址最后的上传标识
+ * <ul>
+ *     <li>没有这个请求参数或者找不到对应的上传时参数值为null</li>
+ *     <li>上传还没有完成时抛出IllegalStateException</li>
+ * </ul>
+ *
+ * @see ResumableUploadHandler
+ */
+public class ResumableUploadMethodArgumentResolver implements MethodArgumentResolver {
+    @Override
+    public boolean supports(MethodParameter parameter) {
+        return ResumableUploadFile.class == parameter.getParameterType();
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, HttpServletRequest request) throws Exception {
+        String value = request.getParameter(parameter.getParameterName());
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        ResumableUploadHandler handler = ResumableUploadHandler.get(request.getServletContext());
+        if (handler == null) {
+            throw new IllegalStateException("没有开启可续传上传，请通过MvcConfigurer的configureResumableUpload方法设置上传地址的前缀");
+        }
+        String id = value.trim();
+        id = id.substring(id.lastIndexOf('/') + 1);
+        ResumableUpload upload = handler.get(id);
+        if (upload == null) {
+            return null;
+        }
+        if (!upload.isCompleted()) {
+            throw new IllegalStateException("上传[" + id + "]还没有完成，已经收到" + upload.getRanges().getTotal() + "/" + upload.getLength() + "字节");
+        }
+        return new ResumableUploadFile(parameter.getParameterName(), upload, handler);
+    }
+}
@@ -1,32 +1,31 @@
 package com.nf.mvc.argument;
 
-import com.nf.mvc.HandlerContext;
 import com.nf.mvc.MethodArgumentResolver;
+import com.nf.mvc.ServletExchange;
+import com.nf.mvc.timeout.Deadline;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
-import java.util.Arrays;
-import java.util.function.Supplier;
-
-import static com.nf.mvc.HandlerContext.getContext;
+import java.util.function.Function;
 
 /**
- * 此解析器主要是用来解析常见的Servlet相关的类型，比如HttpServletRequest，HttpSession等
- * @see HandlerContext
+ * 此解析器主要是用来解析常见的Servlet相关的类型，比如HttpServletRequest，HttpSession等，
+ * handler方法也可以直接声明{@link ServletExchange}类型的参数，以及{@link Deadline}类型的参数(没有超时设置时为null)
+ * @see ServletExchange
  */
 public class ServletApiMethodArgumentResolver implements MethodArgumentResolver {
     @Override
     public boolean supports(MethodParameter parameter) {
         Class<?> paramType = parameter.getParameterType();
-        return Arrays.stream(ServletApiEnum.values()).anyMatch(api->api.getSupportedClass().isAssignableFrom(paramType));
+        return ServletApiEnum.of(paramType) != null;
     }
 
     /**
      * 参数解析，是从请求中获取数据的，所以方法设计没有response对象是合理的
-     * 但这样给我们带来一个解析的问题，无法获取到response对象
-     * request与response对象必须来自于DispatcherServlet的service
+     * 但这样给我们带来一个解析的问题，无法获取到response对象，
+     * 所以真正的解析是在{@link #resolveArgument(MethodParameter, ServletExchange)}中从交互对象获取的
      * @param parameter MethodParameter
      * @param request 请求对象
      * @return 解析之后的值
@@ -34,28 +33,40 @@ public class ServletApiMethodArgumentResolver implements MethodArgumentResolver
      */
     @Override
     public Object resolveArgument(MethodParameter parameter, HttpServletRequest request) throws Exception {
+        return resolveArgument(parameter, ServletExchange.from(request));
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ServletExchange exchange) throws Exception {
         Class<?> paramType = parameter.getParameterType();
         // supports方法返回true才会调用resolveArgument方法，所以ServletApiEnum.of(paramType)不会返回null
-        return ServletApiEnum.of(paramType).getValue();
+        return ServletApiEnum.of(paramType).getValue(exchange);
     }
 
     /**
-     * 枚举项的名字必须是支持类型的简单名字，这样才能使用ServletApiEnum.valueOf(paramType.getSimpleName())
+     * 枚举项的名字最好是支持类型的简单名字(Exchange与RequestDeadline例外，与类名相同会被当成枚举项)，这样才能使用ServletApiEnum.valueOf(paramType.getSimpleName())
      * 来获取枚举实例，否则你就只能用{@link #of(Class)}来获取枚举，这样就不要求枚举项是支持类型的简单名
      *
      * <p>枚举作为内部类加static关键字是多余的</p>
      * <p><b>注意：这个类设计出来主要是为了演示通过enum来优化if过多的技巧</b></p>
      */
     private enum ServletApiEnum{
-        HttpServletRequest(HttpServletRequest.class,()->getContext().getRequest()),
-        HttpServletResponse(HttpServletResponse.class,()-> getContext().getResponse()),
-        HttpSession(HttpSession.class,()-> getContext().getSession()),
-        ServletContext(ServletContext.class,()-> getContext().getApplication());
+        HttpServletRequest(HttpServletRequest.class,ServletExchange::getRequest),
+        HttpServletResponse(HttpServletResponse.class,ServletExchange::getResponse),
+        HttpSession(HttpSession.class,ServletExchange::getSession),
+        ServletContext(ServletContext.class,ServletExchange::getServletContext),
+        Exchange(ServletExchange.class,exchange -> exchange),
+        RequestDeadline(Deadline.class,ServletExchange::getDeadline);
+
+        /**
+         * values()方法每次调用都会复制一个新数组，所以缓存起来
+         */
+        private static final ServletApiEnum[] VALUES = values();
 
         private final Class<?> supportedClass;
-        private final Supplier<Object> valueSupplier;
+        private final Function<ServletExchange, Object> valueSupplier;
 
-        ServletApiEnum(Class<?> supportedClass, Supplier<Object> valueSupplier) {
+        ServletApiEnum(Class<?> supportedClass, Function<ServletExchange, Object> valueSupplier) {
             this.supportedClass = supportedClass;
             this.valueSupplier = valueSupplier;
         }
@@ -64,8 +75,8 @@ public class ServletApiMethodArgumentResolver implements MethodArgumentResolver
             return supportedClass;
         }
 
-        public Object getValue(){
-            return this.valueSupplier.get();
+        public Object getValue(ServletExchange exchange){
+            return this.valueSupplier.apply(exchange);
         }
 
         /**
@@ -75,8 +86,7 @@ public class ServletApiMethodArgumentResolver implements MethodArgumentResolver
          * @return 返回对应的枚举实例
          */
         public static ServletApiEnum of(Class<?> apiClass) {
-            ServletApiEnum[] values = ServletApiEnum.values();
-            for (ServletApiEnum value : values) {
+            for (ServletApiEnum value : VALUES) {
                 if (value.getSupportedClass().isAssignableFrom(apiClass)) {
                     return value;
                 }
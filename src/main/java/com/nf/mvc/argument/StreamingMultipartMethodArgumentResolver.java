@@ -0,0 +1,35 @@
+package com.nf.mvc.argument;
+
+import com.nf.mvc.MethodArgumentResolver;
+import com.nf.mvc.file.MultipartIterator;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 解析{@link MultipartIterator}类型参数的解析器，handler用它以流的方式逐个读取上传的part，
+ * 与{@link MultipartFileMethodArgumentResolver}不同，请求体不会被容器事先解析与缓存
+ * <p>同一个请求只会创建一个迭代器，不是multipart请求时参数值为null</p>
+ *
+ * @see MultipartIterator
+ */
+public class StreamingMultipartMethodArgumentResolver implements MethodArgumentResolver {
+    private static final String ITERATOR_ATTRIBUTE = MultipartIterator.class.getName();
+
+    @Override
+    public boolean supports(MethodParameter parameter) {
+        return MultipartIterator.class == parameter.getParameterType();
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, HttpServletRequest request) throws Exception {
+        Object existing = request.getAttribute(ITERATOR_ATTRIBUTE);
+        if (existing != null) {
+            return existing;
+        }
+        MultipartIterator iterator = MultipartIterator.of(request);
+        if (iterator != null) {
+            request.setAttribute(ITERATOR_ATTRIBUTE, iterator);
+        }
+        return iterator;
+    }
+}
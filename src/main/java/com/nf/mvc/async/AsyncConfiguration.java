@@ -0,0 +1,117 @@
+package com.nf.mvc.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步请求处理的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureAsync(AsyncConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureAsync(AsyncConfiguration configuration) {
+ *         configuration.timeout(10000)
+ *                 .corePoolSize(16)
+ *                 .maxPoolSize(128);
+ *     }
+ * </pre>
+ * <p>执行器用来执行handler返回的Callable，以及在异步结果完成之后执行拦截器的后置逻辑与视图渲染。
+ * 没有通过{@link #executor(Executor)}指定执行器时，框架会依据池的设置创建一个线程池，并在DispatcherServlet销毁时关闭它，
+ * 用户指定的执行器由用户自己负责关闭</p>
+ * <p>注意：异步处理需要DispatcherServlet开启async-supported，{@link com.nf.mvc.MvcApplication}已经开启了，
+ * 用web.xml配置时需要添加&lt;async-supported&gt;true&lt;/async-supported&gt;，没有开启时会在当前线程等待异步结果</p>
+ *
+ * @see DeferredResult
+ * @see AsyncViewResult
+ */
+public class AsyncConfiguration {
+    private long timeout = 30000;
+
+    private Executor executor;
+
+    private int corePoolSize = 8;
+
+    private int maxPoolSize = 64;
+
+    private int queueCapacity = 1024;
+
+    /**
+     * @param timeout 异步请求的超时毫秒数，{@link DeferredResult}可以单独指定自己的超时时间
+     * @return 配置对象本身
+     */
+    public AsyncConfiguration timeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public AsyncConfiguration executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @return 用户指定的执行器，没有指定时为null
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public AsyncConfiguration corePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+        return this;
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public AsyncConfiguration maxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+        return this;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * @param queueCapacity 线程池等待队列的容量，线程数达到核心线程数之后任务先进入队列，队列满了才会继续创建线程直到最大线程数
+     * @return 配置对象本身
+     */
+    public AsyncConfiguration queueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 依据池的设置创建线程池，线程是守护线程，所以不会阻止jvm退出
+     *
+     * @return 新创建的线程池
+     */
+    public ExecutorService createDefaultExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "mvc-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(corePoolSize, Math.max(corePoolSize, maxPoolSize),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static AsyncConfiguration defaultInstance() {
+        return new AsyncConfiguration();
+    }
+}
@@ -0,0 +1,12 @@
+package com.nf.mvc.async;
+
+/**
+ * 异步请求在超时之前没有得到结果时使用的异常，会交给异常解析器处理，没有异常解析器能处理时响应503
+ *
+ * @see DeferredResult
+ */
+public class AsyncRequestTimeoutException extends RuntimeException {
+    public AsyncRequestTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,297 @@
+package com.nf.mvc.async;
+
+import com.nf.mvc.HandlerContext;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.timeout.Deadline;
+import com.nf.mvc.timeout.RequestTimeoutException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * handler方法返回CompletionStage、Callable或{@link DeferredResult}时，返回值处理器把它们统一适配为此类型，
+ * 三种返回值在内部都转换成了DeferredResult，区别只是结果由谁来设置:
+ * <ul>
+ *     <li>Callable：在{@link #start(Executor, BiConsumer)}时提交给执行器执行，执行完毕设置结果</li>
+ *     <li>CompletionStage：完成时设置结果</li>
+ *     <li>DeferredResult：由应用代码设置结果</li>
+ * </ul>
+ * <h3>处理流程</h3>
+ * <p>{@link com.nf.mvc.DispatcherServlet}遇到此类型的视图结果时会开启servlet的异步处理，释放容器线程，
+ * 结果设置之后在执行器的线程中把结果再次交给返回值处理器转换为真正的视图结果，然后执行拦截器的后置逻辑并渲染视图。</p>
+ * <p>如果DispatcherServlet没有开启异步支持或者请求已经在虚拟线程中执行，就会调用{@link #await(HttpServletRequest, long, Deadline, Executor)}方法，
+ * 此时Callable仍交给异步执行器执行，当前线程限时等待结果再渲染，功能上是一样的，只是不能释放当前线程</p>
+ *
+ * @see AsyncConfiguration
+ * @see com.nf.mvc.returnvalue.AsyncReturnValueHandler
+ */
+public class AsyncViewResult extends ViewResult {
+    private final DeferredResult<Object> deferredResult;
+    private final Callable<?> callable;
+    private final CompletionStage<?> completionStage;
+    private final Method method;
+    private final ResultAdapter resultAdapter;
+    private volatile FutureTask<?> future;
+
+    @SuppressWarnings("unchecked")
+    public AsyncViewResult(Object asyncValue, Method method, ResultAdapter resultAdapter) {
+        this.method = method;
+        this.resultAdapter = resultAdapter;
+        if (asyncValue instanceof DeferredResult) {
+            this.deferredResult = (DeferredResult<Object>) asyncValue;
+            this.callable = null;
+            this.completionStage = null;
+        } else if (asyncValue instanceof Callable) {
+            this.deferredResult = new DeferredResult<>();
+            this.callable = (Callable<?>) asyncValue;
+            this.completionStage = null;
+        } else if (asyncValue instanceof CompletionStage) {
+            this.deferredResult = new DeferredResult<>();
+            this.callable = null;
+            this.completionStage = (CompletionStage<?>) asyncValue;
+        } else {
+            throw new IllegalArgumentException("不支持的异步返回值类型:" + asyncValue.getClass().getName());
+        }
+    }
+
+    /**
+     * @param defaultTimeout 全局的超时毫秒数
+     * @return DeferredResult指定了超时时间就用它的，否则用全局的
+     */
+    public long getTimeout(long defaultTimeout) {
+        Long timeout = deferredResult.getTimeout();
+        return timeout != null ? timeout : defaultTimeout;
+    }
+
+    /**
+     * @param defaultTimeout 全局的超时毫秒数
+     * @param deadline       请求的截止时间，可以为null
+     * @return 截止时间比异步超时时间早时，返回截止时间剩余的毫秒数
+     */
+    public long getTimeout(long defaultTimeout, Deadline deadline) {
+        long timeout = getTimeout(defaultTimeout);
+        if (deadline == null) {
+            return timeout;
+        }
+        // 0表示servlet异步请求不超时，所以剩余时间至少是1毫秒
+        long remaining = Math.max(1, deadline.getRemainingMillis());
+        return timeout <= 0 ? remaining : Math.min(timeout, remaining);
+    }
+
+    /**
+     * 开始异步处理，结果设置之后会提交给执行器调用resultHandler，执行器拒绝时在设置结果的线程中调用
+     *
+     * @param executor      执行Callable以及处理结果的执行器
+     * @param resultHandler 结果的处理者，第二个参数表示结果是否是异常
+     */
+    public void start(Executor executor, BiConsumer<Object, Boolean> resultHandler) {
+        start(executor, executor, resultHandler);
+    }
+
+    /**
+     * @param taskExecutor   执行Callable的执行器
+     * @param resultExecutor 处理结果的执行器
+     * @param resultHandler  结果的处理者，第二个参数表示结果是否是异常
+     */
+    private void start(Executor taskExecutor, Executor resultExecutor, BiConsumer<Object, Boolean> resultHandler) {
+        deferredResult.setResultHandler((result, error) -> {
+            try {
+                resultExecutor.execute(() -> resultHandler.accept(result, error));
+            } catch (RejectedExecutionException e) {
+                resultHandler.accept(result, error);
+            }
+        });
+        if (callable != null) {
+            Callable<?> task = HandlerContext.wrap(callable);
+            FutureTask<Object> futureTask = new FutureTask<Object>(() -> {
+                try {
+                    deferredResult.setResult(task.call());
+                } catch (Exception e) {
+                    deferredResult.setErrorResult(e);
+                }
+                return null;
+            });
+            this.future = futureTask;
+            try {
+                taskExecutor.execute(futureTask);
+            } catch (RejectedExecutionException e) {
+                deferredResult.setErrorResult(e);
+            }
+        } else if (completionStage != null) {
+            completionStage.whenComplete((value, ex) -> {
+                if (ex != null) {
+                    deferredResult.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                } else {
+                    deferredResult.setResult(value);
+                }
+            });
+        }
+    }
+
+    /**
+     * 超时时调用，会先执行DeferredResult的超时回调，然后设置超时结果
+     *
+     * @return true表示设置了超时结果，调用方需要在当前线程通过{@link #getResult()}处理超时结果
+     */
+    public boolean expire() {
+        return deferredResult.expire(null);
+    }
+
+    /**
+     * 超时时调用，先取消还在执行的任务再设置超时结果。请求的截止时间已过时，
+     * CompletableFuture以{@link RequestTimeoutException}异常完成，超时结果也是这个异常，而不是普通的异步超时
+     *
+     * @param deadline 请求的截止时间，可以为null
+     * @return true表示设置了超时结果，调用方需要在当前线程通过{@link #getResult()}处理超时结果
+     */
+    public boolean expire(Deadline deadline) {
+        if (deadline != null && deadline.isExpired()) {
+            RequestTimeoutException error = new RequestTimeoutException(deadline.getTimeoutMillis());
+            cancel(error);
+            return deferredResult.expire(error);
+        }
+        cancel();
+        return expire();
+    }
+
+    public Object getResult() {
+        return deferredResult.getResult();
+    }
+
+    public boolean isErrorResult() {
+        return deferredResult.isError();
+    }
+
+    /**
+     * 超时或者客户端断开时取消还在执行的任务
+     */
+    public void cancel() {
+        cancel(null);
+    }
+
+    /**
+     * @param reason 不为null时CompletableFuture以此异常完成，这样handler中依赖它的后续阶段能知道取消的原因
+     */
+    public void cancel(Throwable reason) {
+        FutureTask<?> task = this.future;
+        if (task != null) {
+            task.cancel(true);
+        }
+        if (completionStage != null) {
+            try {
+                CompletableFuture<?> future = completionStage.toCompletableFuture();
+                if (reason != null) {
+                    future.completeExceptionally(reason);
+                } else {
+                    future.cancel(true);
+                }
+            } catch (UnsupportedOperationException ignored) {
+                // 有些CompletionStage的实现不支持转换为CompletableFuture，无法取消
+            }
+        }
+    }
+
+    /**
+     * 异步请求结束时调用，执行DeferredResult的完成回调
+     */
+    public void complete() {
+        deferredResult.complete();
+    }
+
+    /**
+     * @param result  异步的结果
+     * @param request 请求对象
+     * @return 结果转换后的视图结果
+     * @throws Exception 转换时的异常
+     */
+    public ViewResult adaptResult(Object result, HttpServletRequest request) throws Exception {
+        return resultAdapter.adapt(result, method, request);
+    }
+
+    /**
+     * 在当前线程等待异步结果并把结果转换为视图结果，不能开启servlet异步处理时使用，
+     * 比如请求已经在虚拟线程中执行，此时阻塞等待的代价很低，没有必要再开启一次异步处理
+     *
+     * @param req            请求对象
+     * @param defaultTimeout 全局的超时毫秒数
+     * @return 结果转换后的视图结果
+     * @throws Exception 异步任务的异常或者超时异常
+     */
+    public ViewResult await(HttpServletRequest req, long defaultTimeout) throws Exception {
+        return await(req, defaultTimeout, null);
+    }
+
+    /**
+     * 与{@link #await(HttpServletRequest, long)}一样，只是最多等待到请求的截止时间
+     *
+     * @param req            请求对象
+     * @param defaultTimeout 全局的超时毫秒数
+     * @param deadline       请求的截止时间，可以为null
+     * @return 结果转换后的视图结果
+     * @throws Exception 异步任务的异常或者超时异常
+     */
+    public ViewResult await(HttpServletRequest req, long defaultTimeout, Deadline deadline) throws Exception {
+        return await(req, defaultTimeout, deadline, Runnable::run);
+    }
+
+    /**
+     * Callable提交给executor执行，当前线程只负责限时等待，这样超时或者截止时间到了可以中断还在执行的Callable。
+     * executor为{@code Runnable::run}时Callable在当前线程同步执行完才开始等待，超时设置对它是不起作用的，
+     * 所以DispatcherServlet总是传入异步执行器
+     *
+     * @param req            请求对象
+     * @param defaultTimeout 全局的超时毫秒数
+     * @param deadline       请求的截止时间，可以为null
+     * @param executor       执行Callable的执行器，拒绝执行时以RejectedExecutionException作为异常结果
+     * @return 结果转换后的视图结果
+     * @throws Exception 异步任务的异常或者超时异常
+     */
+    public ViewResult await(HttpServletRequest req, long defaultTimeout, Deadline deadline, Executor executor) throws Exception {
+        CompletableFuture<Boolean> done = new CompletableFuture<>();
+        start(executor, Runnable::run, (result, error) -> done.complete(error));
+        boolean error;
+        long timeout = getTimeout(defaultTimeout, deadline);
+        try {
+            error = timeout > 0 ? done.get(timeout, TimeUnit.MILLISECONDS) : done.get();
+        } catch (TimeoutException e) {
+            expire(deadline);
+            error = isErrorResult();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            complete();
+        }
+        Object result = getResult();
+        if (error) {
+            throw result instanceof Exception ? (Exception) result : new IllegalStateException((Throwable) result);
+        }
+        return adaptResult(result, req);
+    }
+
+    /**
+     * 没有执行器可用，Callable会在当前线程执行，超时设置对它不起作用，见{@link #await(HttpServletRequest, long, Deadline, Executor)}
+     */
+    @Override
+    public void render(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        await(req, AsyncConfiguration.defaultInstance().getTimeout()).render(req, resp);
+    }
+
+    /**
+     * 把异步结果转换为视图结果，通常就是交给返回值处理器处理
+     */
+    public interface ResultAdapter {
+        ViewResult adapt(Object result, Method method, HttpServletRequest request) throws Exception;
+    }
+}
@@ -0,0 +1,171 @@
+package com.nf.mvc.async;
+
+/**
+ * 由应用在任意线程设置结果的异步返回值，handler方法返回此类型时，请求会进入异步模式，
+ * 处理请求的容器线程会被释放，直到调用了{@link #setResult(Object)}或{@link #setErrorResult(Throwable)}才继续后续的处理，
+ * 典型用法如下:
+ * <pre class="code">
+ *     &#064;RequestMapping("/poll")
+ *     public DeferredResult&lt;Message&gt; poll() {
+ *         DeferredResult&lt;Message&gt; result = new DeferredResult&lt;&gt;(10000L);
+ *         messageQueue.subscribe(result::setResult);
+ *         return result;
+ *     }
+ * </pre>
+ * <p>结果只能设置一次，超时之后或者已经设置过结果时再设置是无效的，此时设置方法返回false</p>
+ * <p>超时时如果指定了超时结果就用超时结果作为handler的返回值，否则当作抛出了{@link AsyncRequestTimeoutException}异常，
+ * 交给异常解析器处理</p>
+ *
+ * @param <T> 结果的类型
+ * @see AsyncViewResult
+ * @see AsyncConfiguration
+ */
+public class DeferredResult<T> {
+    private static final Object NO_RESULT = new Object();
+
+    private final Long timeout;
+    private final Object timeoutResult;
+
+    private Object result = NO_RESULT;
+    private boolean error;
+    private ResultHandler resultHandler;
+    private Runnable timeoutCallback;
+    private Runnable completionCallback;
+
+    public DeferredResult() {
+        this(null);
+    }
+
+    /**
+     * @param timeout 超时的毫秒数，null表示使用{@link AsyncConfiguration#getTimeout()}
+     */
+    public DeferredResult(Long timeout) {
+        this(timeout, NO_RESULT);
+    }
+
+    /**
+     * @param timeout       超时的毫秒数，null表示使用{@link AsyncConfiguration#getTimeout()}
+     * @param timeoutResult 超时时使用的结果
+     */
+    public DeferredResult(Long timeout, Object timeoutResult) {
+        this.timeout = timeout;
+        this.timeoutResult = timeoutResult;
+    }
+
+    public Long getTimeout() {
+        return timeout;
+    }
+
+    public boolean setResult(T result) {
+        return setResultInternal(result, false);
+    }
+
+    public boolean setErrorResult(Throwable error) {
+        return setResultInternal(error, true);
+    }
+
+    public synchronized boolean isSetOrExpired() {
+        return result != NO_RESULT;
+    }
+
+    /**
+     * @param callback 超时时执行的回调，在超时结果设置之前执行，回调中仍然可以调用setResult设置结果
+     */
+    public synchronized void onTimeout(Runnable callback) {
+        this.timeoutCallback = callback;
+    }
+
+    /**
+     * @param callback 异步请求结束(正常完成、超时或出错)时执行的回调
+     */
+    public synchronized void onCompletion(Runnable callback) {
+        this.completionCallback = callback;
+    }
+
+    private boolean setResultInternal(Object result, boolean error) {
+        ResultHandler handler;
+        synchronized (this) {
+            if (this.result != NO_RESULT) {
+                return false;
+            }
+            this.result = result;
+            this.error = error;
+            handler = this.resultHandler;
+        }
+        // 在锁外通知，以免处理结果时持有锁
+        if (handler != null) {
+            handler.handleResult(result, error);
+        }
+        return true;
+    }
+
+    /**
+     * 框架在开始异步处理时设置结果的处理者，如果此时已经有结果了(比如CompletableFuture已经完成)就立即处理
+     */
+    void setResultHandler(ResultHandler resultHandler) {
+        Object existing;
+        boolean existingError;
+        synchronized (this) {
+            this.resultHandler = resultHandler;
+            existing = this.result;
+            existingError = this.error;
+        }
+        if (existing != NO_RESULT) {
+            resultHandler.handleResult(existing, existingError);
+        }
+    }
+
+    /**
+     * 超时时由框架调用，不会通知结果处理者，由调用方在当前线程通过{@link #getResult()}处理超时结果
+     *
+     * @param error 不为null时用它作为超时的结果，忽略指定的超时结果，请求的截止时间已过时使用
+     * @return true表示设置了超时结果，false表示在超时之前已经有结果了，不需要再处理
+     */
+    boolean expire(Throwable error) {
+        Runnable callback;
+        synchronized (this) {
+            callback = this.timeoutCallback;
+        }
+        if (callback != null) {
+            callback.run();
+        }
+        synchronized (this) {
+            if (this.result != NO_RESULT) {
+                return false;
+            }
+            if (error != null) {
+                this.result = error;
+                this.error = true;
+            } else if (timeoutResult != NO_RESULT) {
+                this.result = timeoutResult;
+                this.error = false;
+            } else {
+                this.result = new AsyncRequestTimeoutException("异步请求处理超时");
+                this.error = true;
+            }
+            return true;
+        }
+    }
+
+    synchronized Object getResult() {
+        return result;
+    }
+
+    synchronized boolean isError() {
+        return error;
+    }
+
+    void complete() {
+        Runnable callback;
+        synchronized (this) {
+            callback = this.completionCallback;
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    interface ResultHandler {
+        void handleResult(Object result, boolean error);
+    }
+}
@@ -0,0 +1,127 @@
+package com.nf.mvc.batch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量请求的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureBatch(BatchConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureBatch(BatchConfiguration configuration) {
+ *         configuration.enabled(true)
+ *                 .path("/_batch")
+ *                 .maxRequests(20)
+ *                 .poolSize(16);
+ *     }
+ * </pre>
+ * <p>默认是关闭的，开启之后客户端可以把多个请求合并为一个POST请求发送到{@link #getPath()}，
+ * 请求体格式见{@link BatchProcessor}</p>
+ * <p>子请求是在一个有界的线程池中并行执行的，线程池满了之后由处理批量请求的线程自己执行，
+ * 所以一个批量请求最多占用{@link #getPoolSize()}+1个线程</p>
+ *
+ * @see BatchProcessor
+ */
+public class BatchConfiguration {
+    private boolean enabled = false;
+
+    private String path = "/_batch";
+
+    private int maxRequests = 32;
+
+    private long timeout = 10000;
+
+    private int poolSize = 8;
+
+    private int queueCapacity = 256;
+
+    public BatchConfiguration enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param path 批量请求的地址，不包含上下文路径
+     * @return 配置对象本身
+     */
+    public BatchConfiguration path(String path) {
+        this.path = path;
+        return this;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @param maxRequests 一个批量请求最多包含的子请求数量，超出时响应413
+     * @return 配置对象本身
+     */
+    public BatchConfiguration maxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * @param timeout 整个批量请求的超时毫秒数，超时还没有完成的子请求其结果的状态码为504
+     * @return 配置对象本身
+     */
+    public BatchConfiguration timeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public BatchConfiguration poolSize(int poolSize) {
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public BatchConfiguration queueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 依据池的设置创建线程池，队列满了之后由提交任务的线程执行，线程是守护线程
+     *
+     * @return 新创建的线程池
+     */
+    public ExecutorService createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "mvc-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static BatchConfiguration defaultInstance() {
+        return new BatchConfiguration();
+    }
+}
@@ -0,0 +1,234 @@
+package com.nf.mvc.batch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nf.mvc.ServletExchange;
+import com.nf.mvc.support.HttpMethod;
+import com.nf.mvc.util.JacksonUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 批量请求的处理者，把一个POST请求中的多个子请求并行的交给DispatcherServlet的正常流程(HandlerMapping→HandlerAdapter→ViewResult)处理，
+ * 然后把所有子请求的响应按照顺序合并为一个json数组响应，移动端启动时的十几个小请求合并之后可以省掉很多次往返与tls开销
+ * <h3>请求格式</h3>
+ * <pre class="code">
+ * [
+ *   {"method":"GET","path":"/product/list?page=1"},
+ *   {"method":"POST","path":"/cart/add","body":{"productId":1,"count":2}}
+ * ]
+ * </pre>
+ * 每个子请求的字段见{@link BatchRequest}
+ * <h3>响应格式</h3>
+ * <pre class="code">
+ * [
+ *   {"status":200,"headers":{"Content-Type":"application/json;charset=UTF-8"},"body":[...]},
+ *   {"status":404,"headers":{}}
+ * ]
+ * </pre>
+ * <ul>
+ *     <li>json类型的响应体直接嵌入，不会再转义为字符串，内容不是合法的json时作为字符串输出</li>
+ *     <li>文本类型的响应体是字符串</li>
+ *     <li>其它类型的响应体是base64编码的字符串，并且有"bodyEncoding":"base64"字段</li>
+ *     <li>超时没有完成的子请求状态码是504，执行出错的是500</li>
+ * </ul>
+ * <h3>限制</h3>
+ * <p>子请求不支持文件上传与servlet异步处理，不能再嵌套批量请求，子请求的请求与响应都是内存中的包装对象，
+ * 见{@link BatchRequestWrapper}与{@link BatchResponseWrapper}</p>
+ *
+ * @see BatchConfiguration
+ */
+public class BatchProcessor {
+    private static final TypeReference<List<BatchRequest>> REQUESTS_TYPE = new TypeReference<List<BatchRequest>>() {
+    };
+    private static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final String TEXT_CONTENT_TYPE = "text/plain;charset=UTF-8";
+
+    private final BatchConfiguration configuration;
+    private final SubRequestDispatcher dispatcher;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = JacksonUtils.getObjectMapper();
+
+    public BatchProcessor(BatchConfiguration configuration, SubRequestDispatcher dispatcher) {
+        this.configuration = configuration;
+        this.dispatcher = dispatcher;
+        this.executor = configuration.createExecutor();
+    }
+
+    /**
+     * @param exchange 当前请求的交互对象
+     * @return true表示当前请求是批量请求
+     */
+    public boolean matches(ServletExchange exchange) {
+        return HttpMethod.POST.matches(exchange.getRequest().getMethod())
+                && configuration.getPath().equals(exchange.getPath());
+    }
+
+    public void process(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        List<BatchRequest> requests;
+        try {
+            requests = objectMapper.readValue(req.getInputStream(), REQUESTS_TYPE);
+        } catch (JsonProcessingException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "批量请求的格式不正确:" + e.getOriginalMessage());
+            return;
+        }
+        if (requests == null || requests.isEmpty()) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "批量请求至少要包含一个子请求");
+            return;
+        }
+        if (requests.size() > configuration.getMaxRequests()) {
+            resp.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "子请求数量不能超过" + configuration.getMaxRequests());
+            return;
+        }
+        for (BatchRequest request : requests) {
+            String path = request.getPath();
+            if (path == null || !path.startsWith("/") || path.startsWith(configuration.getPath())) {
+                resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "子请求的地址不正确:" + path);
+                return;
+            }
+        }
+
+        List<Future<BatchResponseWrapper>> futures = new ArrayList<>(requests.size());
+        for (BatchRequest request : requests) {
+            BatchRequestWrapper subRequest = createRequest(req, request);
+            BatchResponseWrapper subResponse = new BatchResponseWrapper(resp);
+            futures.add(executor.submit(() -> {
+                dispatcher.dispatch(subRequest, subResponse);
+                return subResponse;
+            }));
+        }
+        writeResponses(resp, futures);
+    }
+
+    private BatchRequestWrapper createRequest(HttpServletRequest req, BatchRequest request) throws IOException {
+        JsonNode body = request.getBody();
+        if (body == null || body.isNull() || body.isMissingNode()) {
+            return new BatchRequestWrapper(req, request, null, null);
+        }
+        if (body.isTextual()) {
+            return new BatchRequestWrapper(req, request, body.textValue().getBytes(StandardCharsets.UTF_8), TEXT_CONTENT_TYPE);
+        }
+        return new BatchRequestWrapper(req, request, objectMapper.writeValueAsBytes(body), JSON_CONTENT_TYPE);
+    }
+
+    private void writeResponses(HttpServletResponse resp, List<Future<BatchResponseWrapper>> futures) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.getTimeout());
+        resp.setContentType(JSON_CONTENT_TYPE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(resp.getOutputStream())) {
+            generator.writeStartArray();
+            for (Future<BatchResponseWrapper> future : futures) {
+                try {
+                    writeResponse(generator, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    writeStatus(generator, HttpServletResponse.SC_GATEWAY_TIMEOUT);
+                } catch (ExecutionException e) {
+                    writeStatus(generator, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.cancel(true);
+                    writeStatus(generator, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeStatus(JsonGenerator generator, int status) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("status", status);
+        generator.writeEndObject();
+    }
+
+    private void writeResponse(JsonGenerator generator, BatchResponseWrapper response) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("status", response.getStatus());
+        generator.writeObjectFieldStart("headers");
+        String contentType = response.getContentType();
+        if (contentType != null) {
+            generator.writeStringField("Content-Type", contentType);
+        }
+        for (Map.Entry<String, List<String>> entry : response.getHeaderMap().entrySet()) {
+            List<String> values = entry.getValue();
+            if (values.size() == 1) {
+                generator.writeStringField(entry.getKey(), values.get(0));
+            } else {
+                generator.writeArrayFieldStart(entry.getKey());
+                for (String value : values) {
+                    generator.writeString(value);
+                }
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndObject();
+        byte[] body = response.getBody();
+        if (body.length > 0) {
+            String type = contentType == null ? "" : contentType.toLowerCase(Locale.ENGLISH);
+            if (type.contains("json")) {
+                String json = new String(body, response.getCharset());
+                // 原样嵌入之前先检查是否是一个完整的json值，否则handler输出的错误内容会破坏整个批量响应的格式
+                if (isJsonValue(json)) {
+                    generator.writeFieldName("body");
+                    generator.writeRawValue(json);
+                } else {
+                    generator.writeStringField("body", json);
+                }
+            } else if (type.startsWith("text/") || type.contains("xml") || type.contains("javascript")) {
+                generator.writeStringField("body", new String(body, response.getCharset()));
+            } else {
+                generator.writeFieldName("body");
+                generator.writeBinary(body);
+                generator.writeStringField("bodyEncoding", "base64");
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * 只扫描一遍token，不创建树节点
+     *
+     * @return 内容是否正好是一个完整的json值，后面除了空白没有其它内容
+     */
+    private boolean isJsonValue(String json) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 关闭执行子请求的线程池，DispatcherServlet销毁时调用
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 子请求的分发者，由DispatcherServlet实现，子请求走与普通请求一样的处理流程
+     */
+    @FunctionalInterface
+    public interface SubRequestDispatcher {
+        void dispatch(HttpServletRequest request, HttpServletResponse response) throws Exception;
+    }
+}
@@ -0,0 +1,67 @@
+package com.nf.mvc.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 批量请求中的一个子请求，由请求体的json反序列化而来，比如:
+ * <pre class="code">
+ *     {"method":"GET","path":"/product/list?page=1","params":{"size":"10"},"headers":{"Accept":"application/json"}}
+ * </pre>
+ * <ul>
+ *     <li>method：请求方法，默认是GET</li>
+ *     <li>path：请求地址，不包含上下文路径，可以带查询字符串</li>
+ *     <li>params：额外的请求参数，与查询字符串中的参数合并</li>
+ *     <li>headers：子请求自己的请求头，没有设置的请求头使用批量请求的，这样认证相关的请求头不需要每个子请求都写一遍</li>
+ *     <li>body：请求体，字符串原样作为请求体，其它json值序列化之后作为请求体，内容类型默认为application/json</li>
+ * </ul>
+ */
+public class BatchRequest {
+    private String method = "GET";
+    private String path;
+    private Map<String, String> params = Collections.emptyMap();
+    private Map<String, String> headers = Collections.emptyMap();
+    private JsonNode body;
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params == null ? Collections.emptyMap() : params;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers == null ? Collections.emptyMap() : headers;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+}
@@ -0,0 +1,319 @@
+package com.nf.mvc.batch;
+
+import com.nf.mvc.util.HttpCacheUtils;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.Part;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 批量请求中子请求的请求对象，请求方法、地址、参数、请求体都来自于{@link BatchRequest}，完全在内存中
+ * <ul>
+ *     <li>请求头：子请求设置的优先，没有设置的使用批量请求的，但内容类型与长度总是子请求自己的</li>
+ *     <li>属性：每个子请求有自己的属性，不会读写批量请求的属性，因为子请求是并行执行的</li>
+ *     <li>不支持异步处理与文件上传，handler返回异步类型时在执行子请求的线程中等待结果</li>
+ * </ul>
+ *
+ * @see BatchResponseWrapper
+ */
+public class BatchRequestWrapper extends HttpServletRequestWrapper {
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final String method;
+    private final String path;
+    private final String queryString;
+    private final Map<String, String[]> parameters;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final byte[] body;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    public BatchRequestWrapper(HttpServletRequest request, BatchRequest batchRequest, byte[] body, String defaultContentType) {
+        super(request);
+        this.method = batchRequest.getMethod() == null ? "GET" : batchRequest.getMethod().toUpperCase();
+        String fullPath = batchRequest.getPath();
+        int index = fullPath.indexOf('?');
+        this.path = index < 0 ? fullPath : fullPath.substring(0, index);
+        this.queryString = index < 0 ? null : fullPath.substring(index + 1);
+        this.parameters = parseParameters(queryString, batchRequest.getParams());
+        this.headers.putAll(batchRequest.getHeaders());
+        this.body = body;
+        if (body != null && !headers.containsKey(CONTENT_TYPE)) {
+            headers.put(CONTENT_TYPE, defaultContentType);
+        }
+    }
+
+    private static Map<String, String[]> parseParameters(String queryString, Map<String, String> params) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        if (queryString != null && !queryString.isEmpty()) {
+            for (String pair : queryString.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int index = pair.indexOf('=');
+                String name = decode(index < 0 ? pair : pair.substring(0, index));
+                String value = index < 0 ? "" : decode(pair.substring(index + 1));
+                values.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
+            }
+        }
+        params.forEach((name, value) -> values.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value));
+        Map<String, String[]> result = new LinkedHashMap<>(values.size());
+        values.forEach((name, list) -> result.put(name, list.toArray(new String[0])));
+        return result;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return getContextPath() + path;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort()).append(getRequestURI());
+        return url;
+    }
+
+    @Override
+    public String getServletPath() {
+        return path;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        String value = headers.get(name);
+        if (value != null || isBodyHeader(name)) {
+            return value;
+        }
+        return super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        String value = headers.get(name);
+        if (value != null) {
+            return Collections.enumeration(Collections.singletonList(value));
+        }
+        return isBodyHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        Set<String> names = new LinkedHashSet<>(headers.keySet());
+        Enumeration<String> parentNames = super.getHeaderNames();
+        while (parentNames != null && parentNames.hasMoreElements()) {
+            String name = parentNames.nextElement();
+            if (!isBodyHeader(name)) {
+                names.add(name);
+            }
+        }
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    /**
+     * 子请求自己的日期请求头(比如If-Modified-Since)按http日期解析，格式不对时与容器一样抛出IllegalArgumentException
+     */
+    @Override
+    public long getDateHeader(String name) {
+        String value = headers.get(name);
+        if (value != null) {
+            return HttpCacheUtils.parseHttpDate(value);
+        }
+        return isBodyHeader(name) ? -1 : super.getDateHeader(name);
+    }
+
+    /**
+     * 与请求体有关的请求头只能来自子请求，批量请求自己的内容类型是json数组
+     */
+    private static boolean isBodyHeader(String name) {
+        return CONTENT_TYPE.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+
+    @Override
+    public String getContentType() {
+        return headers.get(CONTENT_TYPE);
+    }
+
+    @Override
+    public int getContentLength() {
+        return body == null ? -1 : body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return getContentLength();
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return StandardCharsets.UTF_8.name();
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) {
+        // 子请求的请求体总是UTF-8编码的
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(body == null ? new byte[0] : body);
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException("批量请求的子请求不支持非阻塞读取");
+            }
+
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if (o == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, o);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("批量请求的子请求不支持异步处理");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        throw new IllegalStateException("批量请求的子请求不支持异步处理");
+    }
+
+    @Override
+    public Collection<Part> getParts() throws ServletException {
+        throw new ServletException("批量请求的子请求不支持文件上传");
+    }
+
+    @Override
+    public Part getPart(String name) throws ServletException {
+        throw new ServletException("批量请求的子请求不支持文件上传");
+    }
+}
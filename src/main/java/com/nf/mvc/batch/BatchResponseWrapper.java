@@ -0,0 +1,300 @@
+package com.nf.mvc.batch;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 批量请求中子请求的响应对象，状态码、响应头与响应体全部保存在内存中，不会写到真正的响应里，
+ * 所有子请求执行完毕之后由{@link BatchProcessor}合并为一个json响应
+ * <p>与DispatcherServlet设置编码的逻辑一样，字符编码默认为UTF-8</p>
+ * <p>合并相同请求时执行者的响应也先渲染到此对象中，见{@link com.nf.mvc.coalesce.BufferedResponse}</p>
+ *
+ * @see BatchRequestWrapper
+ */
+public class BatchResponseWrapper extends HttpServletResponseWrapper {
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String CHARSET = "charset=";
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private int status = SC_OK;
+    private String contentType;
+    private Charset charset = StandardCharsets.UTF_8;
+    private boolean charsetSet;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public BatchResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * @return 响应体的字节，会先把writer中缓冲的内容写出
+     */
+    public byte[] getBody() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return buffer.toByteArray();
+    }
+
+    public Map<String, List<String>> getHeaderMap() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        this.status = sc;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        this.status = sc;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        resetBuffer();
+        this.status = sc;
+        if (msg != null) {
+            setContentType("text/plain");
+            byte[] bytes = msg.getBytes(charset);
+            buffer.write(bytes, 0, bytes.length);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        resetBuffer();
+        this.status = SC_FOUND;
+        setHeader("Location", location);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+            return;
+        }
+        List<String> values = new ArrayList<>(1);
+        values.add(value);
+        headers.put(name, values);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+            return;
+        }
+        headers.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, Long.toString(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, Long.toString(date));
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name) || (CONTENT_TYPE.equalsIgnoreCase(name) && contentType != null);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (CONTENT_TYPE.equalsIgnoreCase(name)) {
+            return getContentType();
+        }
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? Collections.emptyList() : Collections.unmodifiableList(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return Collections.unmodifiableSet(headers.keySet());
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        addHeader("Set-Cookie", cookie.getName() + "=" + cookie.getValue());
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (type == null) {
+            this.contentType = null;
+            return;
+        }
+        int index = type.toLowerCase(Locale.ENGLISH).indexOf(CHARSET);
+        if (index >= 0) {
+            String name = type.substring(index + CHARSET.length()).trim();
+            int end = name.indexOf(';');
+            setCharacterEncoding(end < 0 ? name : name.substring(0, end));
+            this.contentType = type.substring(0, type.lastIndexOf(';', index)).trim();
+        } else {
+            this.contentType = type;
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        if (contentType == null) {
+            return null;
+        }
+        if (!charsetSet && !contentType.startsWith("text/") && !contentType.contains("json")) {
+            return contentType;
+        }
+        return contentType + ";charset=" + charset.name();
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if (charset != null && writer == null) {
+            this.charset = Charset.forName(charset.replace("\"", ""));
+            this.charsetSet = true;
+        }
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return charset.name();
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // 合并响应时会按照实际内容重新计算长度
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        // 合并响应时会按照实际内容重新计算长度
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException("批量请求的子请求不支持非阻塞写出");
+                }
+
+                @Override
+                public void write(int b) {
+                    buffer.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    buffer.write(b, off, len);
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(buffer, charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        headers.clear();
+        status = SC_OK;
+        contentType = null;
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+        buffer.reset();
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public int getBufferSize() {
+        return buffer.size();
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.nf.mvc.body;
+
+import com.nf.mvc.support.ByteBufferPool;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 已经完整读取的请求体，内容保存在从池中借来的一块或多块ByteBuffer中，
+ * 请求处理完毕之后必须调用{@link #release()}把内存块还给池
+ *
+ * @see BodyAggregator
+ */
+public class AggregatedBody {
+    private final List<ByteBuffer> buffers;
+    private final long size;
+    private final ByteBufferPool pool;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * @param buffers 已经flip过的内存块
+     * @param size    总字节数
+     * @param pool    内存块所属的池
+     */
+    AggregatedBody(List<ByteBuffer> buffers, long size, ByteBufferPool pool) {
+        this.buffers = buffers;
+        this.size = size;
+        this.pool = pool;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return 从头读取请求体的输入流，每次调用都是一个新的流，多个流之间互不影响
+     */
+    public InputStream newInputStream() {
+        return new InputStream() {
+            private int index;
+            private ByteBuffer current = next();
+
+            private ByteBuffer next() {
+                return index < buffers.size() ? buffers.get(index++).duplicate() : null;
+            }
+
+            /**
+             * 跳过已经读完的内存块
+             */
+            private ByteBuffer advance() {
+                while (current != null && !current.hasRemaining()) {
+                    current = next();
+                }
+                return current;
+            }
+
+            @Override
+            public int read() {
+                ByteBuffer buffer = advance();
+                return buffer == null ? -1 : buffer.get() & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                ByteBuffer buffer = advance();
+                if (buffer == null) {
+                    return -1;
+                }
+                int count = Math.min(len, buffer.remaining());
+                buffer.get(b, off, count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                ByteBuffer buffer = advance();
+                return buffer == null ? 0 : buffer.remaining();
+            }
+        };
+    }
+
+    /**
+     * 把内存块还给池，只有第一次调用有效
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            for (ByteBuffer buffer : buffers) {
+                pool.release(buffer);
+            }
+            buffers.clear();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.nf.mvc.body;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 请求体已经被{@link BodyAggregator}读取到内存之后交给handler的请求对象，
+ * 输入流从内存中读取，所以{@link com.nf.mvc.argument.RequestBodyMethodArgumentResolver}等读取请求体的地方不需要任何修改
+ *
+ * @see AggregatedBody
+ */
+public class AggregatedBodyRequestWrapper extends HttpServletRequestWrapper {
+    private final AggregatedBody body;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    public AggregatedBodyRequestWrapper(HttpServletRequest request, AggregatedBody body) {
+        super(request);
+        this.body = body;
+    }
+
+    public AggregatedBody getBody() {
+        return body;
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.getSize() > Integer.MAX_VALUE ? -1 : (int) body.getSize();
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return body.getSize();
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        if (inputStream == null) {
+            InputStream in = body.newInputStream();
+            inputStream = new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    try {
+                        return in.available() == 0;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // 内容已经全部在内存中了，直接通知
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() throws IOException {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        if (reader == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+}
@@ -0,0 +1,94 @@
+package com.nf.mvc.body;
+
+/**
+ * 非阻塞读取请求体的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureBodyAggregation(BodyAggregationConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureBodyAggregation(BodyAggregationConfiguration configuration) {
+ *         configuration.enabled(true)
+ *                 .maxBodySize(2 * 1024 * 1024)
+ *                 .timeout(10000);
+ *     }
+ * </pre>
+ * <p>默认是关闭的，开启之后有请求体的请求在交给handler之前，先用servlet3.1的ReadListener非阻塞的把请求体读取到池化的直接内存中，
+ * 读取期间不占用容器线程，客户端上传得再慢也只是占用一些内存，详见{@link BodyAggregator}</p>
+ * <p>表单(application/x-www-form-urlencoded)与文件上传(multipart/form-data)的请求体需要容器自己解析，不会被预先读取</p>
+ *
+ * @see BodyAggregator
+ * @see AggregatedBodyRequestWrapper
+ */
+public class BodyAggregationConfiguration {
+    private boolean enabled = false;
+
+    private long maxBodySize = 10 * 1024 * 1024;
+
+    private int bufferSize = 16 * 1024;
+
+    private int maxPooledBuffers = 256;
+
+    private long timeout = 30000;
+
+    public BodyAggregationConfiguration enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param maxBodySize 请求体的最大字节数，超出时响应413
+     * @return 配置对象本身
+     */
+    public BodyAggregationConfiguration maxBodySize(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+        return this;
+    }
+
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @param bufferSize 每块直接内存的字节数，请求体由一块或多块组成
+     * @return 配置对象本身
+     */
+    public BodyAggregationConfiguration bufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @param maxPooledBuffers 池中最多保存的空闲内存块数量
+     * @return 配置对象本身
+     */
+    public BodyAggregationConfiguration maxPooledBuffers(int maxPooledBuffers) {
+        this.maxPooledBuffers = maxPooledBuffers;
+        return this;
+    }
+
+    public int getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    /**
+     * @param timeout 读取整个请求体的超时毫秒数，超时响应408
+     * @return 配置对象本身
+     */
+    public BodyAggregationConfiguration timeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public static BodyAggregationConfiguration defaultInstance() {
+        return new BodyAggregationConfiguration();
+    }
+}
@@ -0,0 +1,121 @@
+package com.nf.mvc.body;
+
+import com.nf.mvc.support.ByteBufferPool;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用servlet3.1的ReadListener非阻塞的读取请求体，只有在有数据可读时容器才会调用{@link #onDataAvailable()}，
+ * 此时把isReady为true期间能读到的数据全部读出，复制到池化的直接内存块中，然后返回，不会等待后续的数据，
+ * 所以读取一个慢速上传的请求体不会一直占用容器线程
+ * <p>ServletInputStream只能读取到byte数组中，所以每个读取者有一个与内存块大小一样的中转数组，读取完毕之后就可以被回收了</p>
+ *
+ * @see AggregatedBody
+ * @see BodyAggregationConfiguration
+ */
+public class BodyAggregator implements ReadListener {
+    private final ServletInputStream input;
+    private final ByteBufferPool pool;
+    private final long maxBodySize;
+    private final Callback callback;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private byte[] scratch;
+    private ByteBuffer current;
+    private long size;
+    private boolean failed;
+
+    public BodyAggregator(ServletInputStream input, ByteBufferPool pool, long maxBodySize, Callback callback) {
+        this.input = input;
+        this.pool = pool;
+        this.maxBodySize = maxBodySize;
+        this.callback = callback;
+        this.scratch = new byte[pool.getBufferSize()];
+    }
+
+    /**
+     * 注册到输入流上开始读取，容器随后会在有数据时回调
+     */
+    public void start() {
+        input.setReadListener(this);
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        // isReady返回false时容器会在有新数据时再次调用此方法
+        while (!failed && input.isReady()) {
+            int read = input.read(scratch);
+            if (read == -1) {
+                return;
+            }
+            size += read;
+            if (size > maxBodySize) {
+                fail(new PayloadTooLargeException(maxBodySize));
+                return;
+            }
+            append(read);
+        }
+    }
+
+    private void append(int length) {
+        int offset = 0;
+        while (offset < length) {
+            if (current == null || !current.hasRemaining()) {
+                current = pool.acquire();
+                buffers.add(current);
+            }
+            int count = Math.min(length - offset, current.remaining());
+            current.put(scratch, offset, count);
+            offset += count;
+        }
+    }
+
+    @Override
+    public void onAllDataRead() {
+        if (failed) {
+            return;
+        }
+        scratch = null;
+        for (ByteBuffer buffer : buffers) {
+            ((Buffer) buffer).flip();
+        }
+        callback.onBodyRead(new AggregatedBody(buffers, size, pool));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (!failed) {
+            fail(t);
+        }
+    }
+
+    private void fail(Throwable t) {
+        failed = true;
+        scratch = null;
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+        buffers.clear();
+        callback.onError(t);
+    }
+
+    /**
+     * 读取结果的回调，都是在容器线程中调用的
+     */
+    public interface Callback {
+        /**
+         * @param body 完整的请求体
+         */
+        void onBodyRead(AggregatedBody body);
+
+        /**
+         * @param error 读取出错，请求体太大时是{@link PayloadTooLargeException}
+         */
+        void onError(Throwable error);
+    }
+}
@@ -0,0 +1,23 @@
+package com.nf.mvc.body;
+
+import java.io.IOException;
+
+/**
+ * 请求体超过了允许的最大字节数时使用的异常，框架会响应413
+ */
+public class PayloadTooLargeException extends IOException {
+    private final long maxSize;
+
+    public PayloadTooLargeException(long maxSize) {
+        this("请求体超过了允许的最大字节数:" + maxSize, maxSize);
+    }
+
+    public PayloadTooLargeException(String message, long maxSize) {
+        super(message);
+        this.maxSize = maxSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,45 @@
+package com.nf.mvc.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 限制handler的并发执行数量，修饰在handler方法上只对这个方法有效，修饰在类上对类中所有没有此注解的handler方法有效，
+ * 每个handler方法有自己独立的限制，比如:
+ * <pre class="code">
+ *     &#064;RequestMapping("/export")
+ *     &#064;Bulkhead(value = 2, maxWaiting = 10, maxWaitTime = 500)
+ *     public FileViewResult export() {...}
+ * </pre>
+ * <p>超出并发数量的请求先进入等待，等待的请求数量超出{@link #maxWaiting()}或者等待超过{@link #maxWaitTime()}时，
+ * 直接响应503并设置Retry-After响应头，这样一个慢的导出功能就不能占满容器的所有线程，影响登录等其它功能</p>
+ * <p>注解的优先级高于{@link BulkheadConfiguration}中按地址配置的限制</p>
+ *
+ * @see ConcurrencyLimiter
+ * @see BulkheadConfiguration
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+    /**
+     * @return 最大并发执行数量
+     */
+    int value();
+
+    /**
+     * @return 最多等待的请求数量，默认为0，表示不等待，超出并发数量立即拒绝
+     */
+    int maxWaiting() default 0;
+
+    /**
+     * @return 最长的等待毫秒数
+     */
+    long maxWaitTime() default 0;
+
+    /**
+     * @return 拒绝时Retry-After响应头的秒数
+     */
+    long retryAfter() default 1;
+}
@@ -0,0 +1,70 @@
+package com.nf.mvc.bulkhead;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按地址配置并发限制的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureBulkhead(BulkheadConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureBulkhead(BulkheadConfiguration configuration) {
+ *         configuration.route("/export/**", 2)
+ *                 .route("/report/*", 4, 20, 1000);
+ *     }
+ * </pre>
+ * <p>地址模式是ant风格的，与{@link com.nf.mvc.Intercepts}一样，一个请求匹配多个模式时使用先配置的那一个，
+ * 匹配同一个模式的所有请求共享一个限制，handler方法上有{@link Bulkhead}注解时以注解为准</p>
+ *
+ * @see Bulkhead
+ * @see BulkheadRegistry
+ */
+public class BulkheadConfiguration {
+    private final Map<String, ConcurrencyLimiter> routes = new LinkedHashMap<>();
+
+    private long retryAfter = 1;
+
+    /**
+     * @param pattern       地址模式，不包含上下文路径
+     * @param maxConcurrent 最大并发执行数量，超出时立即拒绝
+     * @return 配置对象本身
+     */
+    public BulkheadConfiguration route(String pattern, int maxConcurrent) {
+        return route(pattern, maxConcurrent, 0, 0);
+    }
+
+    /**
+     * @param pattern       地址模式，不包含上下文路径
+     * @param maxConcurrent 最大并发执行数量
+     * @param maxWaiting    最多等待的请求数量
+     * @param maxWaitTime   最长等待的毫秒数
+     * @return 配置对象本身
+     */
+    public BulkheadConfiguration route(String pattern, int maxConcurrent, int maxWaiting, long maxWaitTime) {
+        routes.put(pattern, new ConcurrencyLimiter(pattern, maxConcurrent, maxWaiting, maxWaitTime, retryAfter));
+        return this;
+    }
+
+    /**
+     * @param retryAfter 拒绝时Retry-After响应头的秒数，只对之后配置的地址有效
+     * @return 配置对象本身
+     */
+    public BulkheadConfiguration retryAfter(long retryAfter) {
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return 键是地址模式，值是这个模式的限制器
+     */
+    public Map<String, ConcurrencyLimiter> getRoutes() {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    public static BulkheadConfiguration defaultInstance() {
+        return new BulkheadConfiguration();
+    }
+}
@@ -0,0 +1,93 @@
+package com.nf.mvc.bulkhead;
+
+import com.nf.mvc.handler.HandlerMethod;
+import com.nf.mvc.support.PathMatcher;
+
+import javax.servlet.ServletContext;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理所有的并发限制器，依据handler与请求地址找到对应的{@link ConcurrencyLimiter}
+ * <p>注解的限制器在handler方法第一次被请求时创建并缓存，没有注解的方法也会缓存一个空标记，
+ * 之后的查找只是一次map读取；按地址配置的限制器在没有配置时不会有任何匹配开销</p>
+ * <p>DispatcherServlet初始化时会把注册表保存到ServletContext中，通过{@link #get(ServletContext)}获取，
+ * 用来输出每个路由执行中、等待中与被拒绝的请求数量等指标</p>
+ *
+ * @see Bulkhead
+ * @see BulkheadConfiguration
+ */
+public class BulkheadRegistry {
+    public static final String BULKHEAD_REGISTRY_ATTRIBUTE = BulkheadRegistry.class.getName();
+
+    private static final ConcurrencyLimiter NONE = new ConcurrencyLimiter("none", 1, 0, 0, 0);
+
+    private final Map<String, ConcurrencyLimiter> routes;
+    private final Map<Method, ConcurrencyLimiter> methodLimiters = new ConcurrentHashMap<>();
+    private final PathMatcher pathMatcher = PathMatcher.DEFAULT_PATH_MATCHER;
+
+    public BulkheadRegistry(BulkheadConfiguration configuration) {
+        this.routes = configuration.getRoutes();
+    }
+
+    /**
+     * @param handler 请求对应的handler
+     * @param path    不包含上下文路径的请求地址
+     * @return 没有限制时返回null
+     */
+    public ConcurrencyLimiter getLimiter(Object handler, String path) {
+        if (handler instanceof HandlerMethod) {
+            Method method = ((HandlerMethod) handler).getMethod();
+            // 先get是因为jdk8的computeIfAbsent在键已存在时也会加锁
+            ConcurrencyLimiter limiter = methodLimiters.get(method);
+            if (limiter == null) {
+                limiter = methodLimiters.computeIfAbsent(method, this::createLimiter);
+            }
+            if (limiter != NONE) {
+                return limiter;
+            }
+        }
+        if (routes.isEmpty()) {
+            return null;
+        }
+        for (Map.Entry<String, ConcurrencyLimiter> entry : routes.entrySet()) {
+            if (pathMatcher.isMatch(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private ConcurrencyLimiter createLimiter(Method method) {
+        Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = method.getDeclaringClass().getAnnotation(Bulkhead.class);
+        }
+        if (bulkhead == null) {
+            return NONE;
+        }
+        String name = method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+        return new ConcurrencyLimiter(name, bulkhead.value(), bulkhead.maxWaiting(), bulkhead.maxWaitTime(), bulkhead.retryAfter());
+    }
+
+    /**
+     * @return 所有已经创建的限制器，注解的限制器只有在对应的handler被请求过之后才有
+     */
+    public List<ConcurrencyLimiter> getLimiters() {
+        List<ConcurrencyLimiter> limiters = new ArrayList<>(routes.values());
+        for (ConcurrencyLimiter limiter : methodLimiters.values()) {
+            if (limiter != NONE) {
+                limiters.add(limiter);
+            }
+        }
+        return Collections.unmodifiableList(limiters);
+    }
+
+    public static BulkheadRegistry get(ServletContext servletContext) {
+        return (BulkheadRegistry) servletContext.getAttribute(BULKHEAD_REGISTRY_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,141 @@
+package com.nf.mvc.bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个路由的并发限制器，限制同时执行的请求数量，并记录执行中、等待中与被拒绝的请求数量
+ * <p>许可用非公平的Semaphore实现，没有竞争时获取与释放许可都只是一次cas操作，不会加锁；
+ * 只有许可用完并且允许等待时，请求才会进入Semaphore的等待队列，等待的数量也是用cas控制的，
+ * 超出{@link #getMaxWaiting()}的请求不会进入等待，直接被拒绝</p>
+ *
+ * @see Bulkhead
+ * @see BulkheadRegistry
+ */
+public class ConcurrencyLimiter {
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitTime;
+    private final long retryAfter;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name          限制器的名字，是方法名或者配置的地址模式
+     * @param maxConcurrent 最大并发执行数量
+     * @param maxWaiting    最多等待的请求数量
+     * @param maxWaitTime   最长等待的毫秒数
+     * @param retryAfter    拒绝时Retry-After响应头的秒数
+     */
+    public ConcurrencyLimiter(String name, int maxConcurrent, int maxWaiting, long maxWaitTime, long retryAfter) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("最大并发数量必须大于0:" + name);
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = Math.max(0, maxWaiting);
+        this.maxWaitTime = Math.max(0, maxWaitTime);
+        this.retryAfter = retryAfter;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 获取执行许可，获取成功之后必须调用{@link #release()}
+     *
+     * @return false表示请求被拒绝
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            accepted.increment();
+            return true;
+        }
+        if (maxWaiting > 0 && maxWaitTime > 0 && enterWaiting()) {
+            try {
+                if (permits.tryAcquire(maxWaitTime, TimeUnit.MILLISECONDS)) {
+                    accepted.increment();
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private boolean enterWaiting() {
+        int current;
+        do {
+            current = waiting.get();
+            if (current >= maxWaiting) {
+                return false;
+            }
+        } while (!waiting.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return 正在执行的请求数量
+     */
+    public int getInFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return 正在等待许可的请求数量
+     */
+    public int getQueued() {
+        return waiting.get();
+    }
+
+    /**
+     * @return 累计获得许可的请求数量
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * @return 累计被拒绝的请求数量
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return name + "{inFlight=" + getInFlight() + ", queued=" + getQueued() + ", rejected=" + getRejected() + "}";
+    }
+}
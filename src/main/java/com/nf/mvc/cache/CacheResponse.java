@@ -0,0 +1,48 @@
+package com.nf.mvc.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 在服务端缓存GET请求渲染好的响应，修饰在handler方法上只对这个方法有效，修饰在类上对类中所有没有此注解的handler方法有效，比如:
+ * <pre class="code">
+ *     &#064;RequestMapping("/product/{id}")
+ *     &#064;CacheResponse(ttl = 120000, params = {"lang"}, vary = {"Accept-Language"})
+ *     public Product detail(&#064;PathVariable("id") int id, String lang) {...}
+ * </pre>
+ * <p>缓存命中时拦截器的前置逻辑之后直接回放缓存的状态码、响应头与响应体字节，不再解析参数、执行handler与序列化json</p>
+ * <h3>缓存的key</h3>
+ * <p>由请求地址(包含路径变量)、{@link #params()}选定的请求参数与{@link #vary()}选定的请求头组成，
+ * vary的请求头同时会设置到Vary响应头中，告诉浏览器与代理服务器响应随这些请求头变化。
+ * 框架自己渲染出的Vary响应头(比如按Accept协商json、cbor格式，按Accept-Encoding选择预压缩的文件)会自动加入key，
+ * 不需要在vary中重复声明，Vary为*的响应不缓存</p>
+ * <h3>注意</h3>
+ * <ul>
+ *     <li>只缓存状态码为200的响应，Set-Cookie响应头不会被缓存</li>
+ *     <li>handler的结果不能依赖于当前用户，拦截器对每个请求都会执行，所以认证等逻辑不受影响</li>
+ *     <li>数据变化时可以通过{@link ResponseCacheManager}的evict方法主动清除</li>
+ * </ul>
+ *
+ * @see ResponseCacheManager
+ * @see ResponseCacheConfiguration
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheResponse {
+    /**
+     * @return 缓存的存活毫秒数
+     */
+    long ttl() default 60000;
+
+    /**
+     * @return 参与缓存key的请求参数名，为空时整个查询字符串都参与
+     */
+    String[] params() default {};
+
+    /**
+     * @return 参与缓存key并且设置到Vary响应头中的请求头名
+     */
+    String[] vary() default {};
+}
@@ -0,0 +1,46 @@
+package com.nf.mvc.cache;
+
+import com.nf.mvc.coalesce.BufferedResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存中的一项，除了响应本身还记录了请求地址与存活时间，用来按地址清除与设置每一项自己的过期时间
+ *
+ * @see ResponseCacheManager
+ */
+public class CachedResponse {
+    /**
+     * 响应头等额外内容估算的字节数，计算权重时与响应体的长度相加
+     */
+    private static final int OVERHEAD = 256;
+
+    private final String path;
+    private final BufferedResponse response;
+    private final long ttlNanos;
+
+    public CachedResponse(String path, BufferedResponse response, long ttlMillis) {
+        this.path = path;
+        this.response = response;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public BufferedResponse getResponse() {
+        return response;
+    }
+
+    public long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    /**
+     * @return 占用的堆内存估算值，堆外的响应体不计算在内
+     */
+    public int getWeight() {
+        return response.getHeapSize() + OVERHEAD;
+    }
+}
@@ -0,0 +1,70 @@
+package com.nf.mvc.cache;
+
+import com.nf.mvc.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 保存在{@link OffHeapStore}中的响应体，由一个或多个chunk组成
+ * <h3>引用计数</h3>
+ * <p>缓存持有一个引用，每次回放之前{@link #retain()}，回放之后{@link #release()}，
+ * 缓存淘汰时释放自己的引用，引用计数为0时chunk才放回存储中，这样正在回放的内容不会被别的响应体覆盖</p>
+ *
+ * @see OffHeapResponse
+ */
+public class OffHeapBody {
+    private final OffHeapStore store;
+    private final List<ByteBuffer> chunks;
+    private final int directCount;
+    private final int length;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    OffHeapBody(OffHeapStore store, List<ByteBuffer> chunks, int directCount, int length) {
+        this.store = store;
+        this.chunks = chunks;
+        this.directCount = directCount;
+        this.length = length;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return false表示已经被释放了，内容不能再使用
+     */
+    public boolean retain() {
+        for (; ; ) {
+            int count = refCount.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        if (refCount.decrementAndGet() == 0) {
+            store.free(chunks, directCount);
+        }
+    }
+
+    /**
+     * 把内容写到输出流中，每次写出的都是chunk的副本，多个请求可以同时写出同一个响应体，
+     * 写出的方式见{@link StreamUtils#copy(ByteBuffer, OutputStream)}
+     *
+     * @param output 输出流
+     * @throws IOException 写出时的异常
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        for (ByteBuffer chunk : chunks) {
+            StreamUtils.copy(chunk, output);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.nf.mvc.cache;
+
+import com.nf.mvc.coalesce.BufferedResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 响应体保存在堆外的缓存响应，状态码与响应头仍然在堆内
+ *
+ * @see OffHeapStore
+ */
+public class OffHeapResponse extends BufferedResponse {
+    private final OffHeapBody body;
+
+    public OffHeapResponse(BufferedResponse head, OffHeapBody body) {
+        super(head);
+        this.body = body;
+    }
+
+    @Override
+    protected void writeBody(HttpServletResponse resp) throws IOException {
+        body.writeTo(resp.getOutputStream());
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.getLength();
+    }
+
+    @Override
+    public int getHeapSize() {
+        return 0;
+    }
+
+    @Override
+    public boolean retain() {
+        return body.retain();
+    }
+
+    @Override
+    public void release() {
+        body.release();
+    }
+}
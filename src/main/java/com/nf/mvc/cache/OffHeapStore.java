@@ -0,0 +1,216 @@
+package com.nf.mvc.cache;
+
+import com.nf.mvc.util.LogUtils;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 堆外的响应体存储，大的响应体保存在这里不会增加gc的负担
+ * <h3>内存的组织</h3>
+ * <p>内存按slab(默认4M)为单位申请，每个slab切分为固定大小的chunk(默认64K)，一个响应体由一个或多个chunk组成，
+ * 释放时chunk放回空闲队列给后面的响应体复用，所以slab申请之后就不再归还，也就不会有直接内存反复申请与回收的代价</p>
+ * <ol>
+ *     <li>先使用直接内存(direct ByteBuffer)，总量不超过{@link ResponseCacheConfiguration#getMaxDirectMemory()}</li>
+ *     <li>直接内存用完之后使用溢出文件的内存映射，溢出文件在{@link ResponseCacheConfiguration#getSpillDirectory()}中，
+ *     总量不超过{@link ResponseCacheConfiguration#getMaxSpillSize()}，映射的内容由操作系统决定是在page cache中还是在磁盘上</li>
+ *     <li>两者都用完时存储失败，响应不会被缓存，等已有的缓存过期或被淘汰之后才有空间</li>
+ * </ol>
+ * <p>直接内存受jvm参数-XX:MaxDirectMemorySize的限制，配置的直接内存总量不能超过它</p>
+ *
+ * @see OffHeapBody
+ */
+public class OffHeapStore {
+    private final int chunkSize;
+    private final int slabSize;
+    private final long maxDirectMemory;
+    private final long maxSpillSize;
+    private final Path spillDirectory;
+
+    private final Queue<ByteBuffer> directChunks = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> mappedChunks = new ConcurrentLinkedQueue<>();
+    private final LongAdder directChunksInUse = new LongAdder();
+    private final LongAdder mappedChunksInUse = new LongAdder();
+
+    /**
+     * 以下字段只在持有this锁时修改
+     */
+    private long directAllocated;
+    private long mappedAllocated;
+    private Path spillFile;
+    private FileChannel spillChannel;
+
+    public OffHeapStore(ResponseCacheConfiguration configuration) {
+        this.chunkSize = configuration.getChunkSize();
+        this.slabSize = Math.max(chunkSize, configuration.getSlabSize() / chunkSize * chunkSize);
+        this.maxDirectMemory = configuration.getMaxDirectMemory();
+        this.maxSpillSize = configuration.getMaxSpillSize();
+        this.spillDirectory = Paths.get(configuration.getSpillDirectory());
+    }
+
+    /**
+     * 把内容复制到堆外的chunk中
+     *
+     * @param bytes  内容所在的数组
+     * @param offset 内容的起始位置
+     * @param length 内容的字节数
+     * @return 堆外的响应体，空间不足时返回null
+     */
+    public OffHeapBody store(byte[] bytes, int offset, int length) {
+        int count = (length + chunkSize - 1) / chunkSize;
+        List<ByteBuffer> chunks = new ArrayList<>(count);
+        int directCount = 0;
+        // 直接内存的chunk在前，映射的chunk在后，释放时依据directCount放回各自的队列
+        while (chunks.size() < count) {
+            ByteBuffer chunk = directCount == chunks.size() ? pollDirect() : null;
+            if (chunk != null) {
+                directCount++;
+            } else {
+                chunk = pollMapped();
+                if (chunk == null) {
+                    free(chunks, directCount);
+                    return null;
+                }
+            }
+            chunks.add(chunk);
+        }
+        int position = offset;
+        int remaining = length;
+        for (ByteBuffer chunk : chunks) {
+            int size = Math.min(remaining, chunkSize);
+            ((Buffer) chunk).clear();
+            chunk.put(bytes, position, size);
+            ((Buffer) chunk).flip();
+            position += size;
+            remaining -= size;
+        }
+        return new OffHeapBody(this, chunks, directCount, length);
+    }
+
+    private ByteBuffer pollDirect() {
+        ByteBuffer chunk = directChunks.poll();
+        while (chunk == null && growDirect()) {
+            chunk = directChunks.poll();
+        }
+        if (chunk != null) {
+            directChunksInUse.increment();
+        }
+        return chunk;
+    }
+
+    private ByteBuffer pollMapped() {
+        ByteBuffer chunk = mappedChunks.poll();
+        while (chunk == null && growMapped()) {
+            chunk = mappedChunks.poll();
+        }
+        if (chunk != null) {
+            mappedChunksInUse.increment();
+        }
+        return chunk;
+    }
+
+    private synchronized boolean growDirect() {
+        if (directAllocated + slabSize > maxDirectMemory) {
+            return false;
+        }
+        split(ByteBuffer.allocateDirect(slabSize), directChunks);
+        directAllocated += slabSize;
+        return true;
+    }
+
+    private synchronized boolean growMapped() {
+        if (mappedAllocated + slabSize > maxSpillSize) {
+            return false;
+        }
+        try {
+            if (spillChannel == null) {
+                Files.createDirectories(spillDirectory);
+                spillFile = Files.createTempFile(spillDirectory, "mvc-response-cache-", ".spill");
+                spillFile.toFile().deleteOnExit();
+                spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            // 映射超出文件末尾的区域时文件会自动变大
+            split(spillChannel.map(FileChannel.MapMode.READ_WRITE, mappedAllocated, slabSize), mappedChunks);
+            mappedAllocated += slabSize;
+            return true;
+        } catch (IOException e) {
+            LogUtils.warn("创建响应缓存的溢出文件失败", e);
+            return false;
+        }
+    }
+
+    private void split(ByteBuffer slab, Queue<ByteBuffer> chunks) {
+        for (int position = 0; position + chunkSize <= slab.capacity(); position += chunkSize) {
+            ((Buffer) slab).limit(position + chunkSize).position(position);
+            chunks.offer(slab.slice());
+        }
+    }
+
+    /**
+     * @param chunks      要释放的chunk
+     * @param directCount 前面多少个是直接内存的chunk
+     */
+    void free(List<ByteBuffer> chunks, int directCount) {
+        for (int i = 0; i < chunks.size(); i++) {
+            ByteBuffer chunk = chunks.get(i);
+            ((Buffer) chunk).clear();
+            if (i < directCount) {
+                directChunksInUse.decrement();
+                directChunks.offer(chunk);
+            } else {
+                mappedChunksInUse.decrement();
+                mappedChunks.offer(chunk);
+            }
+        }
+    }
+
+    /**
+     * @return 正在被缓存使用的直接内存字节数
+     */
+    public long getDirectMemoryUsed() {
+        return directChunksInUse.sum() * chunkSize;
+    }
+
+    /**
+     * @return 正在被缓存使用的溢出文件字节数
+     */
+    public long getSpillUsed() {
+        return mappedChunksInUse.sum() * chunkSize;
+    }
+
+    public synchronized long getDirectMemoryAllocated() {
+        return directAllocated;
+    }
+
+    public synchronized long getSpillAllocated() {
+        return mappedAllocated;
+    }
+
+    /**
+     * 关闭并删除溢出文件，DispatcherServlet销毁时调用；已经映射的内存在映射对象被gc回收时才会解除映射
+     */
+    public synchronized void close() {
+        if (spillChannel == null) {
+            return;
+        }
+        try {
+            spillChannel.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            // windows下映射还存在时无法删除，由deleteOnExit在jvm退出时删除
+            LogUtils.warn("删除响应缓存的溢出文件失败", e);
+        }
+        spillChannel = null;
+    }
+}
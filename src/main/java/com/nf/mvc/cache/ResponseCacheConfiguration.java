@@ -0,0 +1,140 @@
+package com.nf.mvc.cache;
+
+/**
+ * 响应缓存的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureResponseCache(ResponseCacheConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureResponseCache(ResponseCacheConfiguration configuration) {
+ *         configuration.maximumSize(128 * 1024 * 1024);
+ *     }
+ * </pre>
+ * <p>缓存只对有{@link CacheResponse}注解的handler生效，不需要开关；缓存占用的总字节数超出{@link #getMaximumSize()}时，
+ * 由caffeine按照访问频率淘汰</p>
+ * <h3>堆外存储</h3>
+ * <p>几十兆的导出json缓存在堆内会明显增加gc的停顿，通过{@link #offHeap(boolean)}开启之后，
+ * 不小于{@link #getOffHeapThreshold()}的响应体保存在直接内存中，直接内存用完之后溢出到临时目录中的内存映射文件，
+ * 堆内只保留状态码与响应头，详见{@link OffHeapStore}。堆外的响应体不计入{@link #getMaximumSize()}，
+ * 堆外空间不足时响应不会被缓存</p>
+ *
+ * @see ResponseCacheManager
+ */
+public class ResponseCacheConfiguration {
+    private long maximumSize = 64 * 1024 * 1024;
+
+    private boolean offHeap = false;
+
+    private int offHeapThreshold = 256 * 1024;
+
+    private long maxDirectMemory = 256 * 1024 * 1024;
+
+    private long maxSpillSize = 1024 * 1024 * 1024;
+
+    private String spillDirectory = System.getProperty("java.io.tmpdir");
+
+    private int slabSize = 4 * 1024 * 1024;
+
+    private int chunkSize = 64 * 1024;
+
+    /**
+     * @param maximumSize 缓存的响应体总字节数上限
+     * @return 配置对象本身
+     */
+    public ResponseCacheConfiguration maximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public ResponseCacheConfiguration offHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+        return this;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @param offHeapThreshold 响应体达到此字节数才保存在堆外
+     * @return 配置对象本身
+     */
+    public ResponseCacheConfiguration offHeapThreshold(int offHeapThreshold) {
+        this.offHeapThreshold = offHeapThreshold;
+        return this;
+    }
+
+    public int getOffHeapThreshold() {
+        return offHeapThreshold;
+    }
+
+    /**
+     * @param maxDirectMemory 最多使用的直接内存字节数，不能超过jvm参数-XX:MaxDirectMemorySize
+     * @return 配置对象本身
+     */
+    public ResponseCacheConfiguration maxDirectMemory(long maxDirectMemory) {
+        this.maxDirectMemory = maxDirectMemory;
+        return this;
+    }
+
+    public long getMaxDirectMemory() {
+        return maxDirectMemory;
+    }
+
+    /**
+     * @param maxSpillSize 溢出文件的最大字节数，0表示不溢出
+     * @return 配置对象本身
+     */
+    public ResponseCacheConfiguration maxSpillSize(long maxSpillSize) {
+        this.maxSpillSize = maxSpillSize;
+        return this;
+    }
+
+    public long getMaxSpillSize() {
+        return maxSpillSize;
+    }
+
+    /**
+     * @param spillDirectory 溢出文件所在的目录，默认是java.io.tmpdir
+     * @return 配置对象本身
+     */
+    public ResponseCacheConfiguration spillDirectory(String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * @param slabSize 每次申请的直接内存或者映射的文件区域的字节数
+     * @return 配置对象本身
+     */
+    public ResponseCacheConfiguration slabSize(int slabSize) {
+        this.slabSize = slabSize;
+        return this;
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * @param chunkSize slab切分的块的字节数，响应体占用的堆外空间是它的整数倍
+     * @return 配置对象本身
+     */
+    public ResponseCacheConfiguration chunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public static ResponseCacheConfiguration defaultInstance() {
+        return new ResponseCacheConfiguration();
+    }
+}
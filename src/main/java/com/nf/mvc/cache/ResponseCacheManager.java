@@ -0,0 +1,202 @@
+package com.nf.mvc.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nf.mvc.coalesce.BufferedResponse;
+import com.nf.mvc.handler.HandlerMethod;
+import com.nf.mvc.support.HttpMethod;
+import com.nf.mvc.support.PathMatcher;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 响应缓存的管理者，缓存的是渲染好的{@link BufferedResponse}，由caffeine按照响应体字节数加权限制总大小，每一项按照自己的ttl过期
+ * <p>DispatcherServlet初始化时创建唯一的实例并保存到ServletContext中，业务代码在数据变化时通过{@link #get(ServletContext)}获取它清除缓存，比如:
+ * <pre class="code">
+ *     ResponseCacheManager.get(req.getServletContext()).evictMatching("/product/**");
+ * </pre>
+ * </p>
+ * <p>注解在handler方法第一次被请求时解析并缓存，没有注解的方法也会缓存一个空标记</p>
+ * <p>开启堆外存储时，大的响应体复制到{@link OffHeapStore}中再放入缓存，缓存项被移除时释放堆外空间，
+ * 因为过期的缓存项要及时移除，所以使用了caffeine的定时清理(jdk9以上才有效)</p>
+ *
+ * @see CacheResponse
+ * @see ResponseCacheConfiguration
+ */
+public class ResponseCacheManager {
+    public static final String RESPONSE_CACHE_MANAGER_ATTRIBUTE = ResponseCacheManager.class.getName();
+
+    private static final ResponseCachePolicy NONE = new ResponseCachePolicy(0, new String[0], new String[0]);
+
+    private final Map<Method, ResponseCachePolicy> policies = new ConcurrentHashMap<>();
+    private final Cache<String, CachedResponse> cache;
+    private final OffHeapStore offHeapStore;
+    private final int offHeapThreshold;
+    private final PathMatcher pathMatcher = PathMatcher.DEFAULT_PATH_MATCHER;
+
+    public ResponseCacheManager(ResponseCacheConfiguration configuration) {
+        this.offHeapStore = configuration.isOffHeap() ? new OffHeapStore(configuration) : null;
+        this.offHeapThreshold = configuration.getOffHeapThreshold();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(configuration.getMaximumSize())
+                .<String, CachedResponse>weigher((key, value) -> value.getWeight())
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return value.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return value.getTtlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .<String, CachedResponse>removalListener((key, value, cause) -> {
+                    // 释放缓存持有的引用，堆外的响应体在没有请求正在回放时放回存储
+                    if (value != null) {
+                        value.getResponse().release();
+                    }
+                })
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param handler 请求对应的handler
+     * @param req     请求对象
+     * @return 不是GET请求或者handler没有{@link CacheResponse}注解时返回null
+     */
+    public ResponseCachePolicy getPolicy(Object handler, HttpServletRequest req) {
+        if (!(handler instanceof HandlerMethod) || !HttpMethod.GET.matches(req.getMethod())) {
+            return null;
+        }
+        Method method = ((HandlerMethod) handler).getMethod();
+        // 先get是因为jdk8的computeIfAbsent在键已存在时也会加锁
+        ResponseCachePolicy policy = policies.get(method);
+        if (policy == null) {
+            policy = policies.computeIfAbsent(method, ResponseCacheManager::createPolicy);
+        }
+        return policy == NONE ? null : policy;
+    }
+
+    private static ResponseCachePolicy createPolicy(Method method) {
+        CacheResponse cacheResponse = method.getAnnotation(CacheResponse.class);
+        if (cacheResponse == null) {
+            cacheResponse = method.getDeclaringClass().getAnnotation(CacheResponse.class);
+        }
+        return cacheResponse == null ? NONE : ResponseCachePolicy.of(cacheResponse);
+    }
+
+    /**
+     * 获取缓存的响应，返回之前已经调用过{@link BufferedResponse#retain()}，回放之后必须调用{@link BufferedResponse#release()}
+     *
+     * @param key     见{@link ResponseCachePolicy#resolveKey(com.nf.mvc.ServletExchange)}
+     * @param request 当前请求，缓存的响应有Vary响应头时，这些请求头必须与生成响应的请求相同
+     * @return 缓存的响应，没有、已经过期、Vary的请求头不同或者正好被释放时返回null
+     */
+    public BufferedResponse get(String key, HttpServletRequest request) {
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        BufferedResponse response = cached.getResponse();
+        return response.matches(request) && response.retain() ? response : null;
+    }
+
+    /**
+     * 缓存响应，只有状态码为200并且Vary不是*的响应才会被缓存
+     *
+     * @param key      缓存的key
+     * @param path     请求地址，按地址清除时使用
+     * @param response 渲染好的响应
+     * @param policy   缓存策略
+     */
+    public void put(String key, String path, BufferedResponse response, ResponseCachePolicy policy) {
+        if (response.getStatus() != 200 || policy.getTtl() <= 0 || response.isVaryAll()) {
+            return;
+        }
+        BufferedResponse cached = response;
+        byte[] body = response.getBody();
+        if (offHeapStore != null && body != null && body.length >= offHeapThreshold) {
+            OffHeapBody offHeapBody = offHeapStore.store(body, 0, body.length);
+            if (offHeapBody == null) {
+                return;
+            }
+            cached = new OffHeapResponse(response, offHeapBody);
+        }
+        cache.put(key, new CachedResponse(path, cached, policy.getTtl()));
+    }
+
+    /**
+     * 清除某个请求地址的所有缓存，不论参数与请求头
+     *
+     * @param path 不包含上下文路径的请求地址，比如/product/1
+     */
+    public void evict(String path) {
+        cache.asMap().values().removeIf(cached -> cached.getPath().equals(path));
+    }
+
+    /**
+     * @param pattern 地址模式，比如/product/**，匹配规则见{@link PathMatcher}
+     */
+    public void evictMatching(String pattern) {
+        cache.asMap().values().removeIf(cached -> pathMatcher.isMatch(pattern, cached.getPath()));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return 命中、未命中与淘汰次数等统计信息
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getEntryCount() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * @return 所有缓存项的权重之和，也就是估算的总字节数
+     */
+    public long getWeightedSize() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * @return 堆外存储，没有开启时返回null
+     */
+    public OffHeapStore getOffHeapStore() {
+        return offHeapStore;
+    }
+
+    /**
+     * 清除所有缓存并关闭堆外存储，DispatcherServlet销毁时调用
+     */
+    public void close() {
+        cache.invalidateAll();
+        cache.cleanUp();
+        if (offHeapStore != null) {
+            offHeapStore.close();
+        }
+    }
+
+    public static ResponseCacheManager get(ServletContext servletContext) {
+        return (ResponseCacheManager) servletContext.getAttribute(RESPONSE_CACHE_MANAGER_ATTRIBUTE);
+    }
+}
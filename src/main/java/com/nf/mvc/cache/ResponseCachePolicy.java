@@ -0,0 +1,71 @@
+package com.nf.mvc.cache;
+
+import com.nf.mvc.ServletExchange;
+import com.nf.mvc.coalesce.BufferedResponse;
+import com.nf.mvc.util.RequestUtils;
+
+/**
+ * 由{@link CacheResponse}注解解析而来的缓存策略
+ * <p>缓存的key除了注解中的vary请求头，还包括handler渲染出的Vary响应头列出的请求头，比如按Accept协商格式的handler，
+ * 这些请求头是在响应渲染之后学到的，见{@link #learnVary(BufferedResponse)}。
+ * 学到之前缓存的响应由{@link BufferedResponse#matches(javax.servlet.http.HttpServletRequest)}保证不会给请求头不同的请求使用</p>
+ *
+ * @see ResponseCacheManager
+ */
+public class ResponseCachePolicy {
+    private final long ttl;
+    private final String[] params;
+    private final String[] vary;
+    private final String varyHeader;
+    /**
+     * 参与生成key的请求头，注解中的vary加上学到的Vary请求头
+     */
+    private volatile String[] keyHeaders;
+
+    public ResponseCachePolicy(long ttl, String[] params, String[] vary) {
+        this.ttl = ttl;
+        this.params = params;
+        this.vary = vary;
+        this.varyHeader = vary.length == 0 ? null : String.join(", ", vary);
+        this.keyHeaders = vary;
+    }
+
+    public static ResponseCachePolicy of(CacheResponse cacheResponse) {
+        return new ResponseCachePolicy(cacheResponse.ttl(), cacheResponse.params(), cacheResponse.vary());
+    }
+
+    /**
+     * @param exchange 当前请求的交互对象
+     * @return 缓存的key，见{@link RequestUtils#getRequestKey(String, javax.servlet.http.HttpServletRequest, String[], String[])}
+     */
+    public String resolveKey(ServletExchange exchange) {
+        return RequestUtils.getRequestKey(exchange.getPath(), exchange.getRequest(), params, keyHeaders);
+    }
+
+    /**
+     * 把响应的Vary请求头加入到key中，之后不同格式、不同编码的响应分别缓存
+     *
+     * @param response 渲染好的响应
+     * @return 有新的请求头时返回true，此时要重新生成key
+     */
+    public boolean learnVary(BufferedResponse response) {
+        String[] headers = keyHeaders;
+        String[] merged = RequestUtils.mergeVaryHeaders(headers, response.getVary());
+        if (merged == headers) {
+            return false;
+        }
+        keyHeaders = merged;
+        return true;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return Vary响应头的值，没有vary的请求头时返回null
+     */
+    public String getVaryHeader() {
+        return varyHeader;
+    }
+}
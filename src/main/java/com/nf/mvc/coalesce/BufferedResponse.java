@@ -0,0 +1,178 @@
+package com.nf.mvc.coalesce;
+
+import com.nf.mvc.batch.BatchResponseWrapper;
+import com.nf.mvc.support.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 已经渲染完毕的响应的快照，状态码、响应头与响应体字节都是不可变的，可以被多个请求并发的回放
+ * <p>响应体默认在堆内，子类可以把响应体保存在别处，比如{@link com.nf.mvc.cache.OffHeapResponse}，
+ * 这种响应在回放之前要{@link #retain()}，回放之后要{@link #release()}</p>
+ * <p>响应有Vary响应头时(比如按Accept协商了json或cbor格式)，快照记录了生成它的请求中这些请求头的值，
+ * 只能回放给这些请求头相同的请求，见{@link #matches(HttpServletRequest)}</p>
+ *
+ * @see RequestCoalescer
+ */
+public class BufferedResponse {
+    private static final String SET_COOKIE = "Set-Cookie";
+
+    private final int status;
+    private final String contentType;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    /**
+     * Vary响应头中的请求头名字，包括*
+     */
+    private final String[] vary;
+    /**
+     * 生成此响应的请求中vary请求头的值，与vary一一对应
+     */
+    private final String[] varyValues;
+
+    private BufferedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body,
+                             String[] vary, String[] varyValues) {
+        this.status = status;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.body = body;
+        this.vary = vary;
+        this.varyValues = varyValues;
+    }
+
+    /**
+     * 给响应体不在堆内的子类使用，只复制状态码与响应头
+     *
+     * @param head 状态码与响应头的来源
+     */
+    protected BufferedResponse(BufferedResponse head) {
+        this(head.status, head.contentType, head.headers, null, head.vary, head.varyValues);
+    }
+
+    /**
+     * @param response 渲染到内存中的响应
+     * @param request  生成此响应的请求，记录其中Vary响应头列出的请求头的值
+     * @return 响应的快照，不包含Set-Cookie响应头
+     */
+    public static BufferedResponse of(BatchResponseWrapper response, HttpServletRequest request) {
+        Map<String, List<String>> headers = new LinkedHashMap<>(response.getHeaderMap());
+        headers.keySet().removeIf(SET_COOKIE::equalsIgnoreCase);
+        List<String> names = new ArrayList<>();
+        headers.forEach((name, values) -> {
+            if (HttpHeaders.VARY.equalsIgnoreCase(name)) {
+                for (String value : values) {
+                    for (String token : value.split(",")) {
+                        String header = token.trim();
+                        if (!header.isEmpty() && names.stream().noneMatch(header::equalsIgnoreCase)) {
+                            names.add(header);
+                        }
+                    }
+                }
+            }
+        });
+        String[] vary = names.toArray(new String[0]);
+        String[] varyValues = new String[vary.length];
+        for (int i = 0; i < vary.length; i++) {
+            varyValues[i] = request.getHeader(vary[i]);
+        }
+        return new BufferedResponse(response.getStatus(), response.getContentType(), headers, response.getBody(), vary, varyValues);
+    }
+
+    /**
+     * @param request 想要使用此响应的请求
+     * @return Vary响应头列出的请求头与生成此响应的请求都相同时返回true，Vary为*时总是返回false
+     */
+    public boolean matches(HttpServletRequest request) {
+        for (int i = 0; i < vary.length; i++) {
+            if ("*".equals(vary[i]) || !Objects.equals(varyValues[i], request.getHeader(vary[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Vary响应头中的请求头名字，没有时是空数组
+     */
+    public String[] getVary() {
+        return vary.clone();
+    }
+
+    /**
+     * @return Vary响应头是否是*，这种响应不能给其它请求使用
+     */
+    public boolean isVaryAll() {
+        for (String header : vary) {
+            if ("*".equals(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把快照写到真正的响应中
+     *
+     * @param resp 响应对象
+     * @throws IOException 写出响应体时的异常
+     */
+    public void replay(HttpServletResponse resp) throws IOException {
+        resp.setStatus(status);
+        headers.forEach((name, values) -> values.forEach(value -> resp.addHeader(name, value)));
+        if (contentType != null) {
+            resp.setContentType(contentType);
+        }
+        resp.setContentLength(getContentLength());
+        writeBody(resp);
+    }
+
+    protected void writeBody(HttpServletResponse resp) throws IOException {
+        if (body.length > 0) {
+            resp.getOutputStream().write(body);
+        }
+    }
+
+    /**
+     * 回放之前调用，堆内的响应总是返回true
+     *
+     * @return false表示响应体已经被释放，不能再回放
+     */
+    public boolean retain() {
+        return true;
+    }
+
+    /**
+     * 回放之后调用，与{@link #retain()}成对使用
+     */
+    public void release() {
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getContentLength() {
+        return body.length;
+    }
+
+    /**
+     * @return 响应体占用的堆内存字节数
+     */
+    public int getHeapSize() {
+        return body.length;
+    }
+
+    /**
+     * @return 堆内的响应体，不能修改，响应体不在堆内时返回null
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
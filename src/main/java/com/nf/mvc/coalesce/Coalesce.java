@@ -0,0 +1,47 @@
+package com.nf.mvc.coalesce;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 合并并发的相同GET请求，修饰在handler方法上只对这个方法有效，修饰在类上对类中所有没有此注解的handler方法有效，比如:
+ * <pre class="code">
+ *     &#064;RequestMapping("/product/hot")
+ *     &#064;Coalesce(params = {"category"}, headers = {"Accept-Language"})
+ *     public List&lt;Product&gt; hot(String category) {...}
+ * </pre>
+ * <p>请求地址与选定的请求参数、请求头都相同的请求，同一时刻只有第一个请求会执行handler，
+ * 其它请求等待它的结果，然后收到完全相同的响应(状态码、响应头与响应体字节)。
+ * 热门缓存失效的瞬间涌入的几百个相同请求，这样只会有一次查询到达数据库</p>
+ * <h3>注意</h3>
+ * <ul>
+ *     <li>只对GET请求有效，并且handler的结果不能依赖于当前用户，因为所有等待者收到的都是第一个请求的响应</li>
+ *     <li>拦截器对每个请求都会执行，所以认证等逻辑不受影响</li>
+ *     <li>第一个请求的Set-Cookie响应头不会发给其它请求</li>
+ *     <li>等待超过{@link #maxWaitTime()}或者第一个请求执行失败时，等待的请求自己执行handler</li>
+ *     <li>响应的Vary头列出的请求头(比如按Accept协商格式时的Accept)与第一个请求不同的等待者也会自己执行handler，
+ *     之后这些请求头会自动加入合并判断</li>
+ * </ul>
+ *
+ * @see RequestCoalescer
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesce {
+    /**
+     * @return 参与合并判断的请求参数名，为空时整个查询字符串都参与判断
+     */
+    String[] params() default {};
+
+    /**
+     * @return 参与合并判断的请求头名，默认没有
+     */
+    String[] headers() default {};
+
+    /**
+     * @return 等待正在执行的相同请求的最长毫秒数
+     */
+    long maxWaitTime() default 10000;
+}
@@ -0,0 +1,60 @@
+package com.nf.mvc.coalesce;
+
+import com.nf.mvc.ServletExchange;
+import com.nf.mvc.util.RequestUtils;
+
+/**
+ * 由{@link Coalesce}注解解析而来的合并策略，负责生成判断请求是否相同的key
+ * <p>key除了注解中的请求头，还包括handler渲染出的Vary响应头列出的请求头，见{@link #learnVary(BufferedResponse)}。
+ * 学到之前，等待者会用{@link BufferedResponse#matches(javax.servlet.http.HttpServletRequest)}检查执行者的响应是否适用于自己</p>
+ *
+ * @see RequestCoalescer
+ */
+public class CoalescePolicy {
+    private final String[] params;
+    private final String[] headers;
+    private final long maxWaitTime;
+    /**
+     * 参与生成key的请求头，注解中的headers加上学到的Vary请求头
+     */
+    private volatile String[] keyHeaders;
+
+    public CoalescePolicy(String[] params, String[] headers, long maxWaitTime) {
+        this.params = params;
+        this.headers = headers;
+        this.maxWaitTime = maxWaitTime;
+        this.keyHeaders = headers;
+    }
+
+    public static CoalescePolicy of(Coalesce coalesce) {
+        return new CoalescePolicy(coalesce.params(), coalesce.headers(), coalesce.maxWaitTime());
+    }
+
+    /**
+     * @param exchange 当前请求的交互对象
+     * @return 相同的请求有相同的key，见{@link RequestUtils#getRequestKey(String, javax.servlet.http.HttpServletRequest, String[], String[])}
+     */
+    public String resolveKey(ServletExchange exchange) {
+        return RequestUtils.getRequestKey(exchange.getPath(), exchange.getRequest(), params, keyHeaders);
+    }
+
+    /**
+     * 把响应的Vary请求头加入到key中，之后协商出不同格式、不同编码的请求不再合并到一起
+     *
+     * @param response 渲染好的响应
+     * @return 有新的请求头时返回true
+     */
+    public boolean learnVary(BufferedResponse response) {
+        String[] current = keyHeaders;
+        String[] merged = RequestUtils.mergeVaryHeaders(current, response.getVary());
+        if (merged == current) {
+            return false;
+        }
+        keyHeaders = merged;
+        return true;
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+}
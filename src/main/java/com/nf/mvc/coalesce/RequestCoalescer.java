@@ -0,0 +1,135 @@
+package com.nf.mvc.coalesce;
+
+import com.nf.mvc.handler.HandlerMethod;
+import com.nf.mvc.support.HttpMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求合并(single-flight)的实现，每个key同一时刻最多有一个正在执行的请求，见{@link Coalesce}
+ * <p>第一个到达的请求成为执行者，把handler的结果渲染到内存中，生成{@link BufferedResponse}之后交给所有等待者，
+ * 然后从正在执行的表中移除，之后到达的请求会重新执行，所以合并只发生在执行期间，不会返回过期的结果</p>
+ * <p>注解在handler方法第一次被请求时解析并缓存，没有注解的方法也会缓存一个空标记</p>
+ *
+ * @see Coalesce
+ * @see CoalescePolicy
+ */
+public class RequestCoalescer {
+    private static final CoalescePolicy NONE = new CoalescePolicy(new String[0], new String[0], 0);
+
+    private final Map<Method, CoalescePolicy> policies = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param handler 请求对应的handler
+     * @param req     请求对象
+     * @return 不是GET请求或者handler没有{@link Coalesce}注解时返回null
+     */
+    public CoalescePolicy getPolicy(Object handler, HttpServletRequest req) {
+        if (!(handler instanceof HandlerMethod) || !HttpMethod.GET.matches(req.getMethod())) {
+            return null;
+        }
+        Method method = ((HandlerMethod) handler).getMethod();
+        // 先get是因为jdk8的computeIfAbsent在键已存在时也会加锁
+        CoalescePolicy policy = policies.get(method);
+        if (policy == null) {
+            policy = policies.computeIfAbsent(method, RequestCoalescer::createPolicy);
+        }
+        return policy == NONE ? null : policy;
+    }
+
+    private static CoalescePolicy createPolicy(Method method) {
+        Coalesce coalesce = method.getAnnotation(Coalesce.class);
+        if (coalesce == null) {
+            coalesce = method.getDeclaringClass().getAnnotation(Coalesce.class);
+        }
+        return coalesce == null ? NONE : CoalescePolicy.of(coalesce);
+    }
+
+    /**
+     * 加入key对应的执行，没有正在执行的相同请求时当前请求成为执行者
+     *
+     * @param key 见{@link CoalescePolicy#resolveKey(com.nf.mvc.ServletExchange)}
+     * @return 执行者或者等待者
+     */
+    public Flight join(String key) {
+        CompletableFuture<BufferedResponse> future = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> existing = inFlight.putIfAbsent(key, future);
+        return existing == null ? new Flight(key, future, true) : new Flight(key, existing, false);
+    }
+
+    /**
+     * @return 正在执行的key的数量
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return 直接使用了其它请求结果的请求总数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 一个key的一次执行，执行者必须在finally中调用{@link #finish(BufferedResponse)}，否则等待者只能等到超时
+     */
+    public final class Flight {
+        private final String key;
+        private final CompletableFuture<BufferedResponse> future;
+        private final boolean leader;
+
+        private Flight(String key, CompletableFuture<BufferedResponse> future, boolean leader) {
+            this.key = key;
+            this.future = future;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * 等待者等待执行者的结果
+         *
+         * @param timeoutMillis 最长等待毫秒数
+         * @param request       等待者的请求，用来检查执行者响应的Vary请求头是否与自己的相同
+         * @return 执行者的响应，超时、执行者失败或者响应的Vary请求头不匹配时返回null，此时等待者应该自己执行
+         */
+        public BufferedResponse await(long timeoutMillis, HttpServletRequest request) {
+            try {
+                BufferedResponse response = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                if (response == null || !response.matches(request)) {
+                    return null;
+                }
+                coalesced.increment();
+                return response;
+            } catch (TimeoutException | ExecutionException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        /**
+         * 执行者结束执行，先从正在执行的表中移除再通知等待者
+         *
+         * @param response 渲染好的响应，null表示执行失败
+         */
+        public void finish(BufferedResponse response) {
+            inFlight.remove(key, future);
+            future.complete(response);
+        }
+    }
+}
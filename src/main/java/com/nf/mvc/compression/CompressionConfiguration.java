@@ -0,0 +1,164 @@
+package com.nf.mvc.compression;
+
+import com.nf.mvc.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * 响应压缩的配置类，其用法与{@link com.nf.mvc.cors.CorsConfiguration}是类似的，
+ * 通过实现{@link com.nf.mvc.MvcConfigurer#configureCompression(CompressionConfiguration)}方法进行配置，比如：
+ * <pre class="code">
+ *     public void configureCompression(CompressionConfiguration configuration) {
+ *         configuration.enabled(true)
+ *                 .minResponseSize(1024)
+ *                 .mimeTypes("image/svg+xml")
+ *                 .servePrecompressed(true);
+ *     }
+ * </pre>
+ * <p>默认情况下响应压缩是关闭的，开启之后只有同时满足下面的条件才会压缩：
+ * <ul>
+ *     <li>请求头Accept-Encoding支持gzip或deflate</li>
+ *     <li>响应内容的字节数不小于{@link #getMinResponseSize()}</li>
+ *     <li>响应的内容类型在{@link #getMimeTypes()}允许的范围内</li>
+ *     <li>响应没有设置过Content-Encoding，比如已经是预压缩过的文件</li>
+ * </ul>
+ * </p>
+ * <p>{@link #servePrecompressed(boolean)}与是否开启动态压缩无关，设置为true后，
+ * {@link com.nf.mvc.view.FileViewResult}在同目录下存在同名的.gz文件时会直接响应这个预压缩的文件</p>
+ *
+ * @see CompressionResponseWrapper
+ * @see DeflaterPool
+ */
+public class CompressionConfiguration {
+    /**
+     * DispatcherServlet在允许使用预压缩文件时会在请求中设置此属性，值为编码名，FileViewResult据此决定是否查找.gz文件
+     */
+    public static final String PRECOMPRESSED_ENCODING_ATTRIBUTE = CompressionConfiguration.class.getName() + ".PRECOMPRESSED_ENCODING";
+
+    private boolean enabled = false;
+
+    private int minResponseSize = 2048;
+
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    private boolean servePrecompressed = false;
+
+    private int deflaterPoolSize = 64;
+
+    private final List<String> mimeTypes = new ArrayList<>();
+
+    public CompressionConfiguration enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompressionConfiguration minResponseSize(int minResponseSize) {
+        this.minResponseSize = minResponseSize;
+        return this;
+    }
+
+    public int getMinResponseSize() {
+        return minResponseSize;
+    }
+
+    /**
+     * @param compressionLevel 压缩级别，取值范围是0-9，或者{@link Deflater#DEFAULT_COMPRESSION}
+     * @return 配置对象本身
+     */
+    public CompressionConfiguration compressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public CompressionConfiguration servePrecompressed(boolean servePrecompressed) {
+        this.servePrecompressed = servePrecompressed;
+        return this;
+    }
+
+    public boolean isServePrecompressed() {
+        return servePrecompressed;
+    }
+
+    public CompressionConfiguration deflaterPoolSize(int deflaterPoolSize) {
+        this.deflaterPoolSize = deflaterPoolSize;
+        return this;
+    }
+
+    public int getDeflaterPoolSize() {
+        return deflaterPoolSize;
+    }
+
+    /**
+     * 添加允许压缩的内容类型，支持text/*这样的通配写法
+     *
+     * @param mimeTypes 内容类型
+     * @return 配置对象本身
+     */
+    public CompressionConfiguration mimeTypes(String... mimeTypes) {
+        CollectionUtils.mergeArrayIntoCollection(mimeTypes, this.mimeTypes);
+        return this;
+    }
+
+    public List<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    /**
+     * @param contentType 响应的内容类型，可以带有charset之类的参数
+     * @return 此内容类型是否允许压缩
+     */
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int paramIndex = contentType.indexOf(';');
+        String mimeType = (paramIndex == -1 ? contentType : contentType.substring(0, paramIndex)).trim()
+                .toLowerCase(Locale.ENGLISH);
+        for (String allowed : mimeTypes) {
+            if (allowed.equals(mimeType) ||
+                    (allowed.endsWith("/*") && mimeType.startsWith(allowed.substring(0, allowed.length() - 1)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 应用默认的压缩设置，设置如下
+     * <ul>
+     *     <li>不开启压缩</li>
+     *     <li>最小压缩字节数为2048</li>
+     *     <li>允许压缩的类型为常见的文本类型：text/html,text/plain,text/css,text/xml,application/json,application/javascript,application/xml</li>
+     * </ul>
+     */
+    public void applyDefaultConfiguration() {
+        enabled(false)
+                .minResponseSize(2048)
+                .mimeTypes("text/html", "text/plain", "text/css", "text/xml", "text/javascript",
+                        "application/json", "application/javascript", "application/xml");
+    }
+
+    public static CompressionConfiguration defaultInstance() {
+        CompressionConfiguration configuration = new CompressionConfiguration();
+        configuration.applyDefaultConfiguration();
+        return configuration;
+    }
+
+    /**
+     * 清理默认的允许压缩的内容类型
+     */
+    public void clearDefaultConfiguration() {
+        this.mimeTypes.clear();
+    }
+}
@@ -0,0 +1,271 @@
+package com.nf.mvc.compression;
+
+import com.nf.mvc.support.HttpHeaders;
+import com.nf.mvc.util.HttpCacheUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 对响应进行压缩的响应包装器，由{@link com.nf.mvc.DispatcherServlet}在开启压缩并且请求端支持压缩时创建
+ * <h3>处理逻辑</h3>
+ * <ol>
+ *     <li>写出的内容先放在一个大小为{@link CompressionConfiguration#getMinResponseSize()}的缓冲区中</li>
+ *     <li>缓冲区满了之后再决定是否压缩，此时内容类型通常已经设置好了，符合条件就边压缩边写出，不再缓冲</li>
+ *     <li>请求处理结束时调用{@link #finish()}，内容不足最小压缩字节数的就原样写出</li>
+ * </ol>
+ * <p>由于是否压缩要等到内容足够多时才决定，所以在缓冲阶段调用flush是不会真正把内容写出的，
+ * 另外，压缩之后内容长度会变化，所以handler设置的Content-Length只有在不压缩时才会设置到真正的响应中，
+ * handler设置的ETag在压缩时会加上编码，见{@link HttpCacheUtils#encodedETag(String, String)}</p>
+ *
+ * @see CompressionConfiguration
+ * @see ContentEncoding
+ * @see DeflaterPool
+ */
+public class CompressionResponseWrapper extends HttpServletResponseWrapper {
+    private final CompressionConfiguration configuration;
+    private final ContentEncoding encoding;
+    private final DeflaterPool deflaterPool;
+
+    private CompressionOutputStream outputStream;
+    private PrintWriter writer;
+    private long contentLength = -1;
+
+    public CompressionResponseWrapper(HttpServletResponse response, CompressionConfiguration configuration,
+                                      ContentEncoding encoding, DeflaterPool deflaterPool) {
+        super(response);
+        this.configuration = configuration;
+        this.encoding = encoding;
+        this.deflaterPool = deflaterPool;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter()方法已经被调用过了");
+        }
+        return getCompressionOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream()方法已经被调用过了");
+            }
+            writer = new PrintWriter(new OutputStreamWriter(getCompressionOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        this.contentLength = len;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+            return;
+        }
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+            return;
+        }
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null && outputStream.target != null) {
+            outputStream.flush();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+        this.contentLength = -1;
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (outputStream != null) {
+            outputStream.resetBuffer();
+        }
+    }
+
+    /**
+     * 请求处理完毕时调用，把缓冲区中的内容写出，如果已经在压缩就写出压缩的尾部数据，并把Deflater归还到池中
+     *
+     * @throws IOException 写出数据时的异常
+     */
+    public void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.finish();
+        } else if (contentLength >= 0 && !isCommitted()) {
+            super.setContentLengthLong(contentLength);
+        }
+    }
+
+    private CompressionOutputStream getCompressionOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CompressionOutputStream(getResponse().getOutputStream());
+        }
+        return outputStream;
+    }
+
+    private boolean shouldCompress() {
+        if (contentLength >= 0 && contentLength < configuration.getMinResponseSize()) {
+            return false;
+        }
+        int status = getStatus();
+        if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED) {
+            return false;
+        }
+        return getHeader(HttpHeaders.CONTENT_ENCODING) == null && configuration.isCompressible(getContentType());
+    }
+
+    private class CompressionOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private byte[] buffer = new byte[Math.max(configuration.getMinResponseSize(), 1)];
+        private int count;
+        private OutputStream target;
+        private Deflater deflater;
+        private boolean finished;
+
+        CompressionOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                throw new IOException("响应已经结束，不能再写出数据");
+            }
+            if (target != null) {
+                target.write(b, off, len);
+                return;
+            }
+            if (count + len < buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            startTarget(true);
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // 缓冲阶段还没有决定是否压缩，所以此时的flush是忽略的
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+
+        void resetBuffer() {
+            if (target == null) {
+                count = 0;
+            }
+        }
+
+        /**
+         * @param enoughContent 内容是否已经达到最小压缩字节数
+         */
+        private void startTarget(boolean enoughContent) throws IOException {
+            if (enoughContent && shouldCompress()) {
+                CompressionResponseWrapper.super.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.getValue());
+                CompressionResponseWrapper.super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                // 压缩后的内容是另一种表示，不能与未压缩的内容共用handler设置的ETag
+                String etag = getHeader(HttpHeaders.ETAG);
+                if (etag != null) {
+                    CompressionResponseWrapper.super.setHeader(HttpHeaders.ETAG, HttpCacheUtils.encodedETag(etag, encoding.getValue()));
+                }
+                deflater = deflaterPool.borrow(configuration.getCompressionLevel(), encoding.isNowrap());
+                target = encoding.createOutputStream(delegate, deflater);
+            } else {
+                if (contentLength >= 0) {
+                    CompressionResponseWrapper.super.setContentLengthLong(contentLength);
+                } else if (!enoughContent) {
+                    CompressionResponseWrapper.super.setContentLengthLong(count);
+                }
+                target = delegate;
+            }
+            if (count > 0) {
+                target.write(buffer, 0, count);
+            }
+            // 已经不需要缓冲区了，释放掉
+            count = 0;
+            buffer = null;
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (target == null) {
+                startTarget(false);
+            }
+            try {
+                if (target instanceof DeflaterOutputStream) {
+                    ((DeflaterOutputStream) target).finish();
+                }
+                delegate.flush();
+            } finally {
+                if (deflater != null) {
+                    deflaterPool.release(deflater, encoding.isNowrap());
+                    deflater = null;
+                }
+            }
+        }
+    }
+}
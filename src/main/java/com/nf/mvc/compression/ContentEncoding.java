@@ -0,0 +1,138 @@
+package com.nf.mvc.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 支持的响应压缩编码，负责对请求头Accept-Encoding进行协商以及创建对应的压缩输出流
+ * <p>jdk自带的GZIPOutputStream总是自己创建Deflater，没有办法复用池中的Deflater，
+ * 所以gzip格式是自己写出gzip头与尾(crc32与原始长度)，中间的数据用不带zlib头的Deflater压缩</p>
+ *
+ * @see DeflaterPool
+ */
+public enum ContentEncoding {
+    /**
+     * gzip编码，优先使用
+     */
+    GZIP("gzip", true),
+    /**
+     * deflate编码，也就是zlib格式
+     */
+    DEFLATE("deflate", false);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String value;
+    private final boolean nowrap;
+
+    ContentEncoding(String value, boolean nowrap) {
+        this.value = value;
+        this.nowrap = nowrap;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isNowrap() {
+        return nowrap;
+    }
+
+    public DeflaterOutputStream createOutputStream(OutputStream out, Deflater deflater) throws IOException {
+        return this == GZIP ? new GzipOutputStream(out, deflater) : new DeflaterOutputStream(out, deflater, BUFFER_SIZE, true);
+    }
+
+    /**
+     * 依据请求头Accept-Encoding选择编码，q=0的编码表示客户端不接受，同时支持时优先选择gzip。
+     * *表示其它没有列出的编码，所以"gzip;q=0, *"只接受deflate，不会因为*而选择gzip
+     *
+     * @param acceptEncoding 请求头Accept-Encoding的值
+     * @return 协商出的编码，没有可用的编码时返回null
+     */
+    public static ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        /* null表示没有列出，TRUE表示接受，FALSE表示q=0明确拒绝 */
+        Boolean gzip = null;
+        Boolean deflate = null;
+        Boolean any = null;
+        for (String token : acceptEncoding.split(",")) {
+            String coding = token.trim().toLowerCase(Locale.ENGLISH);
+            int paramIndex = coding.indexOf(';');
+            String name = paramIndex == -1 ? coding : coding.substring(0, paramIndex).trim();
+            Boolean accepted = paramIndex == -1 || !isZeroQuality(coding.substring(paramIndex + 1));
+            if (GZIP.value.equals(name)) {
+                gzip = accepted;
+            } else if (DEFLATE.value.equals(name)) {
+                deflate = accepted;
+            } else if ("*".equals(name)) {
+                any = accepted;
+            }
+        }
+        if (isAccepted(gzip, any)) {
+            return GZIP;
+        }
+        return isAccepted(deflate, any) ? DEFLATE : null;
+    }
+
+    private static boolean isAccepted(Boolean coding, Boolean any) {
+        return coding != null ? coding : Boolean.TRUE.equals(any);
+    }
+
+    private static boolean isZeroQuality(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 使用外部提供的Deflater生成gzip格式数据的输出流，gzip格式见RFC 1952
+     */
+    private static class GzipOutputStream extends DeflaterOutputStream {
+        private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+        private final CRC32 crc = new CRC32();
+        private boolean trailerWritten;
+
+        GzipOutputStream(OutputStream out, Deflater deflater) throws IOException {
+            super(out, deflater, BUFFER_SIZE, true);
+            out.write(HEADER);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (trailerWritten) {
+                return;
+            }
+            super.finish();
+            writeInt((int) crc.getValue());
+            writeInt((int) def.getBytesRead());
+            trailerWritten = true;
+        }
+
+        private void writeInt(int i) throws IOException {
+            out.write(i & 0xff);
+            out.write((i >> 8) & 0xff);
+            out.write((i >> 16) & 0xff);
+            out.write((i >> 24) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.nf.mvc.compression;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater对象的池，Deflater内部持有一块本地(native)内存，每次请求都new一个出来再end掉的代价是比较大的，
+ * 所以这里把用完的Deflater reset之后放回池中，下次压缩时直接复用
+ * <p>gzip格式需要的是不带zlib头的Deflater(nowrap=true)，而deflate格式需要的是带zlib头的Deflater(nowrap=false),
+ * 两种Deflater创建之后是不能互相转换的，所以这里用两个队列分别保存</p>
+ * <p>池中最多保存{@link CompressionConfiguration#getDeflaterPoolSize()}个对象，超出的部分直接调用end方法释放本地内存</p>
+ *
+ * @see ContentEncoding
+ */
+public class DeflaterPool {
+    private final Queue<Deflater> nowrapDeflaters = new ConcurrentLinkedQueue<>();
+    private final Queue<Deflater> zlibDeflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final int maxPooled;
+
+    public DeflaterPool(int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    public Deflater borrow(int level, boolean nowrap) {
+        Deflater deflater = queue(nowrap).poll();
+        if (deflater == null) {
+            return new Deflater(level, nowrap);
+        }
+        pooledCount.decrementAndGet();
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    public void release(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (pooledCount.incrementAndGet() <= maxPooled) {
+            queue(nowrap).offer(deflater);
+        } else {
+            pooledCount.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    private Queue<Deflater> queue(boolean nowrap) {
+        return nowrap ? nowrapDeflaters : zlibDeflaters;
+    }
+}
@@ -4,6 +4,7 @@ import com.nf.mvc.HandlerExceptionResolver;
 import com.nf.mvc.MvcContext;
 import com.nf.mvc.ViewResult;
 import com.nf.mvc.handler.HandlerMethod;
+import com.nf.mvc.returnvalue.ReturnValueHandlerComposite;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -11,8 +12,6 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
-
-import static com.nf.mvc.ViewResult.adaptHandlerResult;
 import static com.nf.mvc.util.AnnotationUtils.getAttrValue;
 import static com.nf.mvc.util.ExceptionUtils.exceptionCompare;
 import static com.nf.mvc.util.ExceptionUtils.getRootCause;
@@ -48,7 +47,7 @@ import static com.nf.mvc.util.ExceptionUtils.getRootCause;
  * 这些异常处理方法必须有一个参数，并且类型只能是Exception类型或其子类型，
  * 并不能像Handler那样支持各种类型，你如果有兴趣可以改写此类的实现来达成此目的
  * 其方法返回值与handler的方法返回值是一样的，可以是void，ViewResult或其它类型，
- * 异常解析器负责把异常处理方法的返回结果适配为ViewResult类型
+ * 异常解析器利用返回值处理器把异常处理方法的返回结果转换为ViewResult类型，见{@link ReturnValueHandlerComposite}
  * </p>
  * <h3>核心思想</h3>
  * <p>
@@ -90,6 +89,7 @@ public class ExceptionHandlerExceptionResolver implements HandlerExceptionResolv
    * 而不是像此类实现一样只支持一个Exception类型的参数
    */
   private final List<HandlerMethod> exceptionHandlerMethods = new ArrayList<>();
+  private final ReturnValueHandlerComposite returnValueHandlers = ReturnValueHandlerComposite.defaultInstance();
 
   public ExceptionHandlerExceptionResolver() {
     resolveExceptionHandlerMethods();
@@ -170,7 +170,7 @@ public class ExceptionHandlerExceptionResolver implements HandlerExceptionResolv
     }
     try {
       Object exceptionHandlerResult = executeExceptionHandlerMethod(exceptionHandlerMethod, raisedException, request);
-      return adaptHandlerResult(exceptionHandlerResult);
+      return returnValueHandlers.handleReturnValue(exceptionHandlerResult, exceptionHandlerMethod.getMethod(), request);
     } catch (Exception e) {
       /* 进入到这里就是异常处理方法本身的执行出了错，catch里如果什么都不干，相当于吞掉异常处理方法本身的异常;
        异常处理方法本身执行出问题其含义就是说本异常解析器无法处理异常.因此，通过在catch这里返回null的形式，
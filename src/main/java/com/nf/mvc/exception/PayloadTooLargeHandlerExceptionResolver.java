@@ -0,0 +1,25 @@
+package com.nf.mvc.exception;
+
+import com.nf.mvc.HandlerExceptionResolver;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.body.PayloadTooLargeException;
+import com.nf.mvc.util.ExceptionUtils;
+import com.nf.mvc.view.StatusViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 把{@link PayloadTooLargeException}转换为413的异常解析器，与{@link TimeoutHandlerExceptionResolver}一样放在默认异常解析器的最后
+ * <p>迭代器等不能抛出受检异常的地方会把它包装在{@link java.io.UncheckedIOException}中，这种情况也会处理</p>
+ */
+public class PayloadTooLargeHandlerExceptionResolver implements HandlerExceptionResolver {
+    @Override
+    public ViewResult resolveException(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // handler抛出的异常被反射调用包装在InvocationTargetException中，所以要在异常链上查找
+        if (ExceptionUtils.findCause(ex, PayloadTooLargeException.class) != null) {
+            return new StatusViewResult(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        }
+        return null;
+    }
+}
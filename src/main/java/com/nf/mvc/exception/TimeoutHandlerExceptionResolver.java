@@ -0,0 +1,34 @@
+package com.nf.mvc.exception;
+
+import com.nf.mvc.HandlerExceptionResolver;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.async.AsyncRequestTimeoutException;
+import com.nf.mvc.timeout.RequestTimeoutException;
+import com.nf.mvc.util.ExceptionUtils;
+import com.nf.mvc.view.StatusViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 把超时异常转换为状态码的异常解析器，放在默认异常解析器的最后，
+ * 用户用{@link ExceptionHandler}处理了这两种异常时以用户的处理为准
+ * <ul>
+ *     <li>{@link RequestTimeoutException}：超过了请求的截止时间，响应504</li>
+ *     <li>{@link AsyncRequestTimeoutException}：异步请求在超时之前没有得到结果，响应503</li>
+ * </ul>
+ * <p>handler中调用{@link com.nf.mvc.timeout.Deadline#checkExpired()}抛出的异常被反射调用包装在InvocationTargetException中，
+ * 所以在异常链上查找</p>
+ */
+public class TimeoutHandlerExceptionResolver implements HandlerExceptionResolver {
+    @Override
+    public ViewResult resolveException(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (ExceptionUtils.findCause(ex, RequestTimeoutException.class) != null) {
+            return new StatusViewResult(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        }
+        if (ExceptionUtils.findCause(ex, AsyncRequestTimeoutException.class) != null) {
+            return new StatusViewResult(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        return null;
+    }
+}
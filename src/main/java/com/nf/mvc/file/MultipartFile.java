@@ -1,12 +1,11 @@
 package com.nf.mvc.file;
 
-import com.nf.mvc.util.FileUtils;
-
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public interface MultipartFile {
 
@@ -27,7 +26,9 @@ public interface MultipartFile {
   void transferTo(File dest) throws IOException, IllegalStateException;
 
   default void transferTo(Path dest) throws IOException, IllegalStateException {
-    FileUtils.copy(getInputStream(), Files.newOutputStream(dest));
+    try (InputStream input = getInputStream()) {
+      Files.copy(input, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
   }
 
 }
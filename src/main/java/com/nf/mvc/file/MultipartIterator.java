@@ -0,0 +1,375 @@
+package com.nf.mvc.file;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * 流式的multipart请求体解析器，直接从请求的输入流中解析，不经过servlet容器的getParts，
+ * 容器不会先把所有的part缓存到内存或临时文件中，handler拿到的是一个个按照到达顺序出现的part
+ * <h3>典型用法</h3>
+ * <pre class="code">
+ *    &#064;RequestMapping("/upload")
+ *     public String upload(MultipartIterator parts) throws IOException {
+ *         while (parts.hasNext()) {
+ *             StreamingPart part = parts.next();
+ *             if (part.isFile()) {
+ *                 part.transferTo(Paths.get("D:/uploads", part.getOriginalFilename()));
+ *             } else {
+ *                 String value = part.getString();
+ *             }
+ *         }
+ *         return "ok";
+ *     }
+ * </pre>
+ * <h3>注意</h3>
+ * <ul>
+ *     <li>part的内容只能在迭代到下一个part之前读取，调用hasNext时当前part没有读完的内容会被跳过</li>
+ *     <li>表单字段也是以part的形式出现的，handler方法的其它参数不能从请求参数获取，
+ *     因为容器解析请求参数时会读取整个请求体，路径变量、请求头等不读取请求体的参数不受影响</li>
+ *     <li>读取是阻塞的，客户端上传多慢handler就执行多久，虚拟线程模式下不会占用平台线程</li>
+ *     <li>读取时按照{@link MultipartLimits}检查大小，超过时抛出{@link com.nf.mvc.body.PayloadTooLargeException}，
+ *     hasNext中抛出时包装在UncheckedIOException中，没有处理时框架响应413</li>
+ * </ul>
+ * <p>实现上是在一个64K的缓冲区中查找分隔符，缓冲区之外不会再复制part的内容</p>
+ *
+ * @see StreamingPart
+ * @see com.nf.mvc.argument.StreamingMultipartMethodArgumentResolver
+ */
+public class MultipartIterator implements Iterator<StreamingPart> {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_HEADER_SIZE = 16 * 1024;
+  private static final String BOUNDARY = "boundary=";
+
+  private final InputStream input;
+  private final byte[] delimiter;
+  private final byte[] buffer;
+  private final Charset headerCharset;
+  private final MultipartLimits limits;
+  /**
+   * 从输入流中读取的总字节数
+   */
+  private long received;
+  /**
+   * 缓冲区中还没有读取的内容在head与tail之间
+   */
+  private int head;
+  private int tail;
+  private boolean eof;
+  private boolean finished;
+  private PartInputStream current;
+  private StreamingPart nextPart;
+
+  /**
+   * @param input         请求体的输入流
+   * @param boundary      Content-Type中的boundary参数
+   * @param headerCharset part头的编码，浏览器用页面的编码发送文件名
+   */
+  public MultipartIterator(InputStream input, String boundary, Charset headerCharset) {
+    this(input, boundary, headerCharset, MultipartLimits.UNLIMITED);
+  }
+
+  /**
+   * @param input         请求体的输入流
+   * @param boundary      Content-Type中的boundary参数
+   * @param headerCharset part头的编码
+   * @param limits        part与整个请求体的大小限制
+   */
+  public MultipartIterator(InputStream input, String boundary, Charset headerCharset, MultipartLimits limits) {
+    this.input = input;
+    this.limits = limits;
+    this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+    this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 4)];
+    this.headerCharset = headerCharset;
+    // 第一个分隔符前面没有换行，预先放入一个换行，这样所有的分隔符都一样了，第一个分隔符之前的内容当作一个被跳过的part
+    buffer[0] = '\r';
+    buffer[1] = '\n';
+    this.tail = 2;
+    this.current = new PartInputStream();
+  }
+
+  /**
+   * @param request 请求对象，大小限制取自{@link MultipartLimits#of(javax.servlet.ServletRequest)}
+   * @return 不是multipart请求或者没有boundary时返回null
+   * @throws IOException 获取输入流出错时抛出
+   */
+  public static MultipartIterator of(HttpServletRequest request) throws IOException {
+    String boundary = getBoundary(request.getContentType());
+    if (boundary == null) {
+      return null;
+    }
+    String encoding = request.getCharacterEncoding();
+    Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+    return new MultipartIterator(request.getInputStream(), boundary, charset, MultipartLimits.of(request));
+  }
+
+  static String getBoundary(String contentType) {
+    if (contentType == null || !contentType.toLowerCase(Locale.ENGLISH).startsWith("multipart/")) {
+      return null;
+    }
+    for (String param : contentType.split(";")) {
+      String trimmed = param.trim();
+      if (trimmed.regionMatches(true, 0, BOUNDARY, 0, BOUNDARY.length())) {
+        String boundary = unquote(trimmed.substring(BOUNDARY.length()).trim());
+        return boundary.isEmpty() ? null : boundary;
+      }
+    }
+    return null;
+  }
+
+  static String unquote(String value) {
+    return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+  }
+
+  /**
+   * @return 还有下一个part时返回true，当前part没有读完的内容会被跳过
+   * @throws UncheckedIOException 读取出错或者请求体格式不正确时抛出
+   */
+  @Override
+  public boolean hasNext() {
+    if (nextPart != null) {
+      return true;
+    }
+    if (finished) {
+      return false;
+    }
+    try {
+      nextPart = readNextPart();
+    } catch (IOException e) {
+      finished = true;
+      throw new UncheckedIOException(e);
+    }
+    return nextPart != null;
+  }
+
+  @Override
+  public StreamingPart next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    StreamingPart part = nextPart;
+    nextPart = null;
+    return part;
+  }
+
+  private StreamingPart readNextPart() throws IOException {
+    current.drain();
+    // 分隔符之后紧跟--表示请求体结束，之后的内容不用再读
+    if (!ensure(2)) {
+      throw new IOException("multipart请求体不完整，分隔符之后没有内容");
+    }
+    if (buffer[head] == '-' && buffer[head + 1] == '-') {
+      finished = true;
+      return null;
+    }
+    // 分隔符与换行之间可以有空白
+    while (ensure(1) && (buffer[head] == ' ' || buffer[head] == '\t')) {
+      head++;
+    }
+    if (!ensure(2) || buffer[head] != '\r' || buffer[head + 1] != '\n') {
+      throw new IOException("multipart请求体格式不正确，分隔符之后不是换行");
+    }
+    head += 2;
+    Map<String, String> headers = readHeaders();
+    PartInputStream stream = new PartInputStream();
+    StreamingPart part = new StreamingPart(headers, stream);
+    stream.name = part.getName();
+    current = stream;
+    return part;
+  }
+
+  private Map<String, String> readHeaders() throws IOException {
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    int total = 0;
+    for (; ; ) {
+      int lineEnd = indexOfCrlf();
+      while (lineEnd < 0) {
+        if (tail - head + total > MAX_HEADER_SIZE) {
+          throw new IOException("multipart的part头超过了" + MAX_HEADER_SIZE + "字节");
+        }
+        if (eof) {
+          throw new IOException("multipart请求体不完整，part头没有结束");
+        }
+        fill();
+        lineEnd = indexOfCrlf();
+      }
+      int length = lineEnd - head;
+      total += length + 2;
+      if (total > MAX_HEADER_SIZE) {
+        throw new IOException("multipart的part头超过了" + MAX_HEADER_SIZE + "字节");
+      }
+      String line = new String(buffer, head, length, headerCharset);
+      head = lineEnd + 2;
+      if (line.isEmpty()) {
+        return headers;
+      }
+      int colon = line.indexOf(':');
+      if (colon > 0) {
+        headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+      }
+    }
+  }
+
+  private int indexOfCrlf() {
+    for (int i = head; i < tail - 1; i++) {
+      if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return 缓冲区中至少有count个字节时返回true，输入流结束了还不够时返回false
+   */
+  private boolean ensure(int count) throws IOException {
+    while (tail - head < count && !eof) {
+      fill();
+    }
+    return tail - head >= count;
+  }
+
+  /**
+   * 先把没有读取的内容移到缓冲区开头，再从输入流读取一次
+   */
+  private void fill() throws IOException {
+    if (head > 0) {
+      System.arraycopy(buffer, head, buffer, 0, tail - head);
+      tail -= head;
+      head = 0;
+    }
+    int count = input.read(buffer, tail, buffer.length - tail);
+    if (count == -1) {
+      eof = true;
+    } else {
+      tail += count;
+      received += count;
+      if (limits.isRequestTooLarge(received)) {
+        throw limits.requestTooLarge();
+      }
+    }
+  }
+
+  /**
+   * 分隔符的第一个字节是\r，part内容中很少出现，所以简单的逐个比较就足够快了
+   *
+   * @return 完整的分隔符在缓冲区中的位置，没有时返回-1
+   */
+  private int indexOfDelimiter() {
+    int last = tail - delimiter.length;
+    byte first = delimiter[0];
+    outer:
+    for (int i = head; i <= last; i++) {
+      if (buffer[i] != first) {
+        continue;
+      }
+      for (int j = 1; j < delimiter.length; j++) {
+        if (buffer[i + j] != delimiter[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  /**
+   * 一个part的内容，读到分隔符时结束
+   */
+  private class PartInputStream extends InputStream {
+    private boolean ended;
+    private String name;
+    /**
+     * 已经读取的字节数，跳过的内容不计算在内
+     */
+    private long size;
+
+    /**
+     * @return 可以直接从缓冲区读取的字节数，-1表示part已经结束
+     */
+    private int readable() throws IOException {
+      if (ended) {
+        return -1;
+      }
+      for (; ; ) {
+        int index = indexOfDelimiter();
+        if (index == head) {
+          head += delimiter.length;
+          ended = true;
+          return -1;
+        }
+        if (index > head) {
+          return index - head;
+        }
+        // 缓冲区末尾可能是分隔符的前半部分，不能当作内容
+        int safe = tail - head - delimiter.length + 1;
+        if (safe > 0) {
+          return safe;
+        }
+        if (eof) {
+          throw new IOException("multipart请求体不完整，没有找到结束的分隔符");
+        }
+        fill();
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (readable() <= 0) {
+        return -1;
+      }
+      count(1);
+      return buffer[head++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      int readable = readable();
+      if (readable <= 0) {
+        return -1;
+      }
+      int count = Math.min(len, readable);
+      count(count);
+      System.arraycopy(buffer, head, b, off, count);
+      head += count;
+      return count;
+    }
+
+    @Override
+    public int available() {
+      if (ended) {
+        return 0;
+      }
+      int index = indexOfDelimiter();
+      return index >= 0 ? index - head : Math.max(0, tail - head - delimiter.length + 1);
+    }
+
+    private void count(int count) throws IOException {
+      size += count;
+      if (limits.isFileTooLarge(size)) {
+        throw limits.fileTooLarge(name);
+      }
+    }
+
+    /**
+     * 跳过没有读取的内容，不需要复制
+     */
+    void drain() throws IOException {
+      int readable;
+      while ((readable = readable()) > 0) {
+        head += readable;
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.nf.mvc.file;
+
+import com.nf.mvc.handler.HandlerMethod;
+import com.nf.mvc.mapping.RequestMapping;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 依据handler确定文件上传的大小限制，handler方法上的注解在第一次请求时解析并缓存
+ * <p>{@link RequestMapping#maxFileSize()}与{@link RequestMapping#maxRequestSize()}分别解析，
+ * 方法上的设置优先于类上的设置，都没有设置时使用全局的设置</p>
+ * <p>注意：用{@link MultipartFile}或Part接收文件时，容器在解析请求体时会用全局的设置检查，
+ * 所以handler上的设置只能比全局的更严格；用{@link MultipartIterator}接收时容器不解析请求体，
+ * handler上的设置可以比全局的更宽松</p>
+ *
+ * @see MultipartLimits
+ */
+public class MultipartLimitResolver {
+  private final MultipartLimits defaultLimits;
+  private final Map<Method, MultipartLimits> methodLimits = new ConcurrentHashMap<>();
+
+  public MultipartLimitResolver(MultipartLimits defaultLimits) {
+    this.defaultLimits = defaultLimits;
+  }
+
+  /**
+   * @param handler 请求对应的handler
+   * @return handler的限制，不是handler方法时返回全局的设置
+   */
+  public MultipartLimits resolveLimits(Object handler) {
+    if (!(handler instanceof HandlerMethod)) {
+      return defaultLimits;
+    }
+    Method method = ((HandlerMethod) handler).getMethod();
+    MultipartLimits limits = methodLimits.get(method);
+    if (limits == null) {
+      limits = methodLimits.computeIfAbsent(method, this::findAnnotatedLimits);
+    }
+    return limits;
+  }
+
+  private MultipartLimits findAnnotatedLimits(Method method) {
+    RequestMapping methodMapping = method.getAnnotation(RequestMapping.class);
+    RequestMapping classMapping = method.getDeclaringClass().getAnnotation(RequestMapping.class);
+    long maxFileSize = defaultLimits.getMaxFileSize();
+    long maxRequestSize = defaultLimits.getMaxRequestSize();
+    if (classMapping != null) {
+      maxFileSize = classMapping.maxFileSize() >= 0 ? classMapping.maxFileSize() : maxFileSize;
+      maxRequestSize = classMapping.maxRequestSize() >= 0 ? classMapping.maxRequestSize() : maxRequestSize;
+    }
+    if (methodMapping != null) {
+      maxFileSize = methodMapping.maxFileSize() >= 0 ? methodMapping.maxFileSize() : maxFileSize;
+      maxRequestSize = methodMapping.maxRequestSize() >= 0 ? methodMapping.maxRequestSize() : maxRequestSize;
+    }
+    if (maxFileSize == defaultLimits.getMaxFileSize() && maxRequestSize == defaultLimits.getMaxRequestSize()) {
+      return defaultLimits;
+    }
+    return new MultipartLimits(maxFileSize, maxRequestSize);
+  }
+}
@@ -0,0 +1,63 @@
+package com.nf.mvc.file;
+
+import com.nf.mvc.body.PayloadTooLargeException;
+
+import javax.servlet.ServletRequest;
+
+/**
+ * 文件上传的大小限制，值小于0表示不限制，与servlet规范中multipart-config的含义一样
+ * <p>DispatcherServlet找到handler之后把它的限制保存在请求的属性中，
+ * 文件上传相关的参数解析器用{@link #of(ServletRequest)}获取</p>
+ *
+ * @see MultipartLimitResolver
+ */
+public class MultipartLimits {
+  public static final MultipartLimits UNLIMITED = new MultipartLimits(-1, -1);
+
+  public static final String MULTIPART_LIMITS_ATTRIBUTE = MultipartLimits.class.getName();
+
+  private final long maxFileSize;
+  private final long maxRequestSize;
+
+  public MultipartLimits(long maxFileSize, long maxRequestSize) {
+    this.maxFileSize = maxFileSize;
+    this.maxRequestSize = maxRequestSize;
+  }
+
+  /**
+   * @param request 请求对象
+   * @return 请求的handler的限制，没有时返回{@link #UNLIMITED}
+   */
+  public static MultipartLimits of(ServletRequest request) {
+    Object limits = request.getAttribute(MULTIPART_LIMITS_ATTRIBUTE);
+    return limits instanceof MultipartLimits ? (MultipartLimits) limits : UNLIMITED;
+  }
+
+  public long getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public long getMaxRequestSize() {
+    return maxRequestSize;
+  }
+
+  public boolean isFileTooLarge(long size) {
+    return maxFileSize >= 0 && size > maxFileSize;
+  }
+
+  public boolean isRequestTooLarge(long size) {
+    return maxRequestSize >= 0 && size > maxRequestSize;
+  }
+
+  /**
+   * @param name part的名字
+   * @return 表示part超过了限制的异常
+   */
+  public PayloadTooLargeException fileTooLarge(String name) {
+    return new PayloadTooLargeException("上传的part[" + name + "]超过了允许的最大字节数:" + maxFileSize, maxFileSize);
+  }
+
+  public PayloadTooLargeException requestTooLarge() {
+    return new PayloadTooLargeException("上传的请求体超过了允许的最大字节数:" + maxRequestSize, maxRequestSize);
+  }
+}
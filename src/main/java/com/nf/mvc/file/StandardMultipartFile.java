@@ -1,22 +1,45 @@
 package com.nf.mvc.file;
 
-import com.nf.mvc.util.FileUtils;
-
 import javax.servlet.http.Part;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
+/**
+ * 基于servlet容器的Part实现的上传文件
+ * <p>{@link #getBytes()}会把整个文件读到堆内，所以限制了文件大小，超过{@link #getMaxBytesSize()}时应该用
+ * {@link #getInputStream()}或{@link #transferTo(Path)}处理。transferTo交给Part.write处理，
+ * tomcat在文件已经写到临时文件时直接把临时文件改名为目标文件，不需要再复制一次</p>
+ */
 public class StandardMultipartFile implements MultipartFile {
+  /**
+   * getBytes默认允许的最大文件字节数
+   */
+  public static final long DEFAULT_MAX_BYTES_SIZE = 64 * 1024 * 1024;
+
   private final Part part;
 
   private final String filename;
 
+  private final long maxBytesSize;
+
   public StandardMultipartFile(Part part, String filename) {
+    this(part, filename, DEFAULT_MAX_BYTES_SIZE);
+  }
+
+  public StandardMultipartFile(Part part, String filename, long maxBytesSize) {
     this.part = part;
     this.filename = filename;
+    this.maxBytesSize = maxBytesSize;
+  }
+
+  public long getMaxBytesSize() {
+    return maxBytesSize;
   }
 
   @Override
@@ -44,9 +67,31 @@ public class StandardMultipartFile implements MultipartFile {
     return this.part.getSize();
   }
 
+  /**
+   * 按照文件大小一次分配好数组，不需要像ByteArrayOutputStream那样边读边扩容复制
+   *
+   * @return 文件的全部内容
+   * @throws IOException 文件超过{@link #getMaxBytesSize()}或者读取出错时抛出
+   */
   @Override
   public byte[] getBytes() throws IOException {
-    return FileUtils.copyToByteArray(this.part.getInputStream());
+    long size = getSize();
+    if (size > maxBytesSize) {
+      throw new IOException("上传的文件" + filename + "有" + size + "字节，超过了getBytes允许的" + maxBytesSize
+              + "字节，请使用getInputStream或transferTo处理");
+    }
+    byte[] bytes = new byte[(int) size];
+    try (InputStream input = this.part.getInputStream()) {
+      int offset = 0;
+      while (offset < bytes.length) {
+        int count = input.read(bytes, offset, bytes.length - offset);
+        if (count == -1) {
+          throw new EOFException("上传的文件" + filename + "内容不完整");
+        }
+        offset += count;
+      }
+    }
+    return bytes;
   }
 
   @Override
@@ -64,12 +109,18 @@ public class StandardMultipartFile implements MultipartFile {
       // At least we offloaded the file from memory storage; it'll get deleted
       // from the temp dir eventually in any case. And for our user's purposes,
       // we can manually copy it to the requested location as a fallback.
-      FileUtils.copy(this.part.getInputStream(), Files.newOutputStream(dest.toPath()));
+      try (InputStream input = this.part.getInputStream()) {
+        Files.copy(input, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
     }
   }
 
   @Override
   public void transferTo(Path dest) throws IOException, IllegalStateException {
-    FileUtils.copy(this.part.getInputStream(), Files.newOutputStream(dest));
+    if (dest.getFileSystem() == FileSystems.getDefault()) {
+      transferTo(dest.toFile());
+      return;
+    }
+    MultipartFile.super.transferTo(dest);
   }
 }
@@ -0,0 +1,148 @@
+package com.nf.mvc.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@link MultipartIterator}返回的一个part，内容直接从请求的输入流中读取，只能读取一次，
+ * 并且只能在迭代到下一个part之前读取
+ * <p>文件用{@link #transferTo(Path)}直接写到目标位置，不需要容器的临时文件，表单字段用{@link #getString()}读取</p>
+ *
+ * @see MultipartIterator
+ */
+public class StreamingPart {
+  /**
+   * {@link #getString()}读取的最大字节数，表单字段通常很小，更大的内容应该用流读取
+   */
+  public static final int DEFAULT_MAX_FIELD_SIZE = 1024 * 1024;
+
+  private static final String CONTENT_DISPOSITION = "Content-Disposition";
+  private static final String CONTENT_TYPE = "Content-Type";
+
+  private final Map<String, String> headers;
+  private final InputStream inputStream;
+  private final String name;
+  private final String filename;
+
+  StreamingPart(Map<String, String> headers, InputStream inputStream) {
+    this.headers = headers;
+    this.inputStream = inputStream;
+    String disposition = headers.get(CONTENT_DISPOSITION);
+    this.name = getDispositionParam(disposition, "name");
+    this.filename = getDispositionParam(disposition, "filename");
+  }
+
+  /**
+   * 从Content-Disposition中取出参数值，比如form-data; name="file"; filename="a.txt"，引号中的分号不是分隔符
+   */
+  private static String getDispositionParam(String disposition, String param) {
+    if (disposition == null) {
+      return null;
+    }
+    int start = 0;
+    boolean quoted = false;
+    for (int i = 0; i <= disposition.length(); i++) {
+      if (i < disposition.length()) {
+        char c = disposition.charAt(i);
+        if (c == '"') {
+          quoted = !quoted;
+        }
+        if (c != ';' || quoted) {
+          continue;
+        }
+      }
+      String token = disposition.substring(start, i).trim();
+      start = i + 1;
+      int equals = token.indexOf('=');
+      if (equals > 0 && token.substring(0, equals).trim().equalsIgnoreCase(param)) {
+        return MultipartIterator.unquote(token.substring(equals + 1).trim());
+      }
+    }
+    return null;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return 上传的文件名，表单字段时为null
+   */
+  public String getOriginalFilename() {
+    return filename;
+  }
+
+  public String getContentType() {
+    return headers.get(CONTENT_TYPE);
+  }
+
+  public String getHeader(String name) {
+    return headers.get(name);
+  }
+
+  public Map<String, String> getHeaders() {
+    return Collections.unmodifiableMap(headers);
+  }
+
+  public boolean isFile() {
+    return filename != null;
+  }
+
+  /**
+   * @return part内容的输入流，读到part结束时返回-1，关闭此流不会关闭请求的输入流
+   */
+  public InputStream getInputStream() {
+    return inputStream;
+  }
+
+  /**
+   * 把内容写到文件中，目标文件已经存在时覆盖
+   *
+   * @param dest 目标文件
+   * @return 写出的字节数
+   * @throws IOException 读写出错时抛出
+   */
+  public long transferTo(Path dest) throws IOException {
+    return Files.copy(inputStream, dest, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  public long transferTo(File dest) throws IOException {
+    return transferTo(dest.toPath());
+  }
+
+  /**
+   * @param maxSize 最多读取的字节数
+   * @return part的全部内容
+   * @throws IOException 内容超过maxSize或者读取出错时抛出
+   */
+  public byte[] getBytes(int maxSize) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(Math.min(maxSize, 1024));
+    // 用long计算，maxSize是Integer.MAX_VALUE时加1不会溢出为负数
+    byte[] buffer = new byte[(int) Math.min(maxSize + 1L, 8192)];
+    int count;
+    while ((count = inputStream.read(buffer)) != -1) {
+      if ((long) output.size() + count > maxSize) {
+        throw new IOException("part[" + name + "]的内容超过了" + maxSize + "字节，请使用getInputStream或transferTo读取");
+      }
+      output.write(buffer, 0, count);
+    }
+    return output.toByteArray();
+  }
+
+  public String getString(Charset charset) throws IOException {
+    return new String(getBytes(DEFAULT_MAX_FIELD_SIZE), charset);
+  }
+
+  public String getString() throws IOException {
+    return getString(StandardCharsets.UTF_8);
+  }
+}
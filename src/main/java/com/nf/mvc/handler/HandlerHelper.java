@@ -30,6 +30,15 @@ public class HandlerHelper {
         return new JsonViewResult(obj);
     }
 
+    /**
+     * @param obj 要序列化的对象
+     * @param weakETag 为true时会依据序列化的内容生成弱ETag，内容不变时响应304
+     * @return json视图结果
+     */
+    public static JsonViewResult json(Object obj, boolean weakETag) {
+        return new JsonViewResult(obj, weakETag);
+    }
+
     public static PlainViewResult plain(String text) {
         return new PlainViewResult(text);
     }
@@ -38,6 +47,30 @@ public class HandlerHelper {
         return new HtmlViewResult(html);
     }
 
+    /**
+     * 与{@link #plain(String)}不同，文本在这里就编码为UTF-8字节了，返回的实例可以保存起来重复使用，
+     * 适合健康检查这类内容固定的响应
+     *
+     * @param text 文本内容
+     * @return 字节视图结果
+     */
+    public static BytesViewResult preencodedPlain(String text) {
+        return BytesViewResult.plain(text);
+    }
+
+    /**
+     * @param html html内容
+     * @return 字节视图结果，可以重复使用
+     * @see #preencodedPlain(String)
+     */
+    public static BytesViewResult preencodedHtml(String html) {
+        return BytesViewResult.html(html);
+    }
+
+    public static BytesViewResult bytes(byte[] bytes, String contentType) {
+        return new BytesViewResult(bytes, contentType);
+    }
+
     public static ForwardViewResult forward(String url) {
         return forward(url, new HashMap<>());
     }
@@ -46,6 +79,14 @@ public class HandlerHelper {
         return new ForwardViewResult(url,model);
     }
 
+    public static TemplateViewResult view(String name) {
+        return view(name, new HashMap<>());
+    }
+
+    public static TemplateViewResult view(String name, Map<String, Object> model) {
+        return new TemplateViewResult(name, model);
+    }
+
     public static RedirectViewResult redirect(String url) {
         return redirect(url, new HashMap<>());
     }
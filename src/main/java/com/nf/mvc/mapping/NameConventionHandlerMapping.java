@@ -48,7 +48,12 @@ public class NameConventionHandlerMapping implements HandlerMapping {
     public HandlerExecutionChain getHandler(HttpServletRequest request) {
         String requestUrl = RequestUtils.getRequestUrl(request);
         Object handler = handlers.get(requestUrl);
-        return handler==null?null:new HandlerExecutionChain(handler, getInterceptors(request));
+        if (handler == null) {
+            return null;
+        }
+        HandlerExecutionChain chain = new HandlerExecutionChain(handler, getInterceptors(request));
+        chain.setRoute(requestUrl);
+        return chain;
     }
 
 }
@@ -9,4 +9,20 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RequestMapping {
     String value() default "";
+
+    /**
+     * 文件上传时每个part的最大字节数，-1表示使用类上或全局的设置，
+     * 修饰在方法上的设置优先于类上的设置，见{@link com.nf.mvc.file.MultipartLimitResolver}
+     *
+     * @return 最大字节数
+     */
+    long maxFileSize() default -1;
+
+    /**
+     * 文件上传时整个请求体的最大字节数，-1表示使用类上或全局的设置，
+     * 请求的Content-Length超过此值时在读取请求体之前就响应413
+     *
+     * @return 最大字节数
+     */
+    long maxRequestSize() default -1;
 }
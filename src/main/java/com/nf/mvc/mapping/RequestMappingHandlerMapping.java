@@ -43,6 +43,10 @@ import static com.nf.mvc.mapping.RequestMappingUtils.getUrlPattern;
  */
 public class RequestMappingHandlerMapping implements HandlerMapping {
     private final Map<String, HandlerMethod> handlers = new HashMap<>();
+    /**
+     * handler对应的地址模式，每个地址模式都会创建一个HandlerMethod，所以按照对象本身查找
+     */
+    private final Map<HandlerMethod, String> routes = new IdentityHashMap<>();
     private PathMatcher pathMatcher = PathMatcher.DEFAULT_PATH_MATCHER;
     private final Cache<String, HandlerExecutionChain> cache = Caffeine.newBuilder()
             .initialCapacity(10)
@@ -74,6 +78,7 @@ public class RequestMappingHandlerMapping implements HandlerMapping {
             throw new IllegalStateException("不能有多个处理者对应同一个url");
         }
         this.handlers.put(url, handlerMethod);
+        this.routes.put(handlerMethod, url);
     }
     @SuppressWarnings("RedundantThrows")
     @Override
@@ -85,7 +90,9 @@ public class RequestMappingHandlerMapping implements HandlerMapping {
         return cache.get(requestUrl, k->{
             HandlerMethod handler = getHandlerInternal(requestUrl);
             if (handler != null) {
-               return new HandlerExecutionChain(handler, getInterceptors(request));
+               HandlerExecutionChain chain = new HandlerExecutionChain(handler, getInterceptors(request));
+               chain.setRoute(routes.get(handler));
+               return chain;
             }
             return null;
         });
@@ -0,0 +1,56 @@
+package com.nf.mvc.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 默认的指标注册表，每个路由一个{@link RouteMetrics}，指标保存在内存中，可以通过{@link #getRoutes()}读取
+ * <p>路由本来就是有限的，但handler映射是可以定制的，为了防止定制的映射把请求地址当作路由，
+ * 路由数量超过上限之后新的路由都记录到{@link #OTHER_ROUTE}中</p>
+ */
+public class DefaultMetricsRegistry implements MetricsRegistry {
+    /**
+     * 路由数量超过上限之后使用的路由
+     */
+    public static final String OTHER_ROUTE = "[other]";
+
+    private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final int maxRoutes;
+    private final int significantDigits;
+
+    /**
+     * @param maxRoutes         最多记录的路由数量
+     * @param significantDigits 延迟直方图的有效数字位数，0到5之间
+     */
+    public DefaultMetricsRegistry(int maxRoutes, int significantDigits) {
+        this.maxRoutes = maxRoutes;
+        this.significantDigits = significantDigits;
+    }
+
+    @Override
+    public RouteRecorder getRecorder(String route) {
+        RouteMetrics metrics = routes.get(route);
+        if (metrics != null) {
+            return metrics;
+        }
+        String key = routes.size() < maxRoutes ? route : OTHER_ROUTE;
+        return routes.computeIfAbsent(key, k -> new RouteMetrics(k, significantDigits));
+    }
+
+    /**
+     * @return 所有路由的指标，是实时的视图
+     */
+    public Collection<RouteMetrics> getRoutes() {
+        return Collections.unmodifiableCollection(routes.values());
+    }
+
+    /**
+     * @param route 路由
+     * @return 路由的指标，这个路由还没有请求时返回null
+     */
+    public RouteMetrics getRouteMetrics(String route) {
+        return routes.get(route);
+    }
+}
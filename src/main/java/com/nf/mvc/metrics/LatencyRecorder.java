@@ -0,0 +1,33 @@
+package com.nf.mvc.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * 一个延迟直方图，记录是无锁的，读取时把这段时间记录的值合并到累计的直方图中
+ * <p>{@link Recorder}内部有两个直方图交替使用，读取时交换，记录的线程不会等待读取的线程。
+ * 直方图是自动扩容的，只有出现了更大的值才会扩容，大部分路由的延迟范围不大，占用的内存也就不多</p>
+ */
+class LatencyRecorder {
+    private final Recorder recorder;
+    private final Histogram cumulative;
+    private Histogram interval;
+
+    LatencyRecorder(int significantDigits) {
+        this.recorder = new Recorder(significantDigits);
+        this.cumulative = new Histogram(significantDigits);
+    }
+
+    void record(long nanos) {
+        recorder.recordValue(Math.max(0, nanos));
+    }
+
+    /**
+     * @return 从创建开始累计的直方图的副本，单位是纳秒
+     */
+    synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        cumulative.add(interval);
+        return cumulative.copy();
+    }
+}
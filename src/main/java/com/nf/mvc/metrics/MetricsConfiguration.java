@@ -0,0 +1,127 @@
+package com.nf.mvc.metrics;
+
+import java.util.Arrays;
+
+/**
+ * 请求指标的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureMetrics(MetricsConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureMetrics(MetricsConfiguration configuration) {
+ *         configuration.enabled(true)
+ *                 .maxRoutes(500)
+ *                 .endpoint("/_metrics");
+ *     }
+ * </pre>
+ * <p>默认是不记录指标的，开启之后每个请求按照匹配的路由记录请求数、按异常类型的错误数、在处理中的请求数，
+ * 以及整个请求与查找handler、解析参数、执行handler、渲染四个阶段的延迟直方图，见{@link RequestPhase}</p>
+ * <p>设置了自定义的注册表时自动开启，此时maxRoutes与significantDigits不起作用</p>
+ * <p>设置了{@link #endpoint(String)}时也自动开启，这个地址以Prometheus文本格式输出指标，见{@link PrometheusMetricsHandler}</p>
+ *
+ * @see MetricsRegistry
+ * @see DefaultMetricsRegistry
+ * @see PrometheusMetricsHandler
+ */
+public class MetricsConfiguration {
+    private boolean enabled;
+
+    private MetricsRegistry registry;
+
+    private int maxRoutes = 1000;
+
+    private int significantDigits = 2;
+
+    private String endpoint;
+
+    private double[] buckets = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    /**
+     * @param enabled 是否记录请求指标
+     * @return 配置对象本身
+     */
+    public MetricsConfiguration enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled || registry != null || endpoint != null;
+    }
+
+    /**
+     * @param registry 自定义的注册表，比如把指标转交给其它监控系统
+     * @return 配置对象本身
+     */
+    public MetricsConfiguration registry(MetricsRegistry registry) {
+        this.registry = registry;
+        return this;
+    }
+
+    /**
+     * @return 自定义的注册表，没有设置时返回null
+     */
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @param maxRoutes 默认注册表最多记录的路由数量，超出之后新的路由都记录到{@link DefaultMetricsRegistry#OTHER_ROUTE}中
+     * @return 配置对象本身
+     */
+    public MetricsConfiguration maxRoutes(int maxRoutes) {
+        this.maxRoutes = maxRoutes;
+        return this;
+    }
+
+    public int getMaxRoutes() {
+        return maxRoutes;
+    }
+
+    /**
+     * @param significantDigits 延迟直方图的有效数字位数，0到5之间，默认是2，也就是误差在1%以内，位数越多占用的内存越多
+     * @return 配置对象本身
+     */
+    public MetricsConfiguration significantDigits(int significantDigits) {
+        this.significantDigits = significantDigits;
+        return this;
+    }
+
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    /**
+     * @param endpoint 输出指标的地址，比如/_metrics，不包含上下文路径，默认不输出。这个地址不经过handler映射，
+     *                 但经过按地址匹配的拦截器，需要限制访问时用{@link com.nf.mvc.Intercepts}拦截这个地址，或者只在内网开放
+     * @return 配置对象本身
+     */
+    public MetricsConfiguration endpoint(String endpoint) {
+        this.endpoint = endpoint.startsWith("/") ? endpoint : "/" + endpoint;
+        return this;
+    }
+
+    /**
+     * @return 输出指标的地址，没有设置时返回null
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @param buckets 输出的延迟直方图中桶的上限，单位是秒，从小到大排列，不需要包含+Inf。
+     *                只影响输出，记录时用的是HdrHistogram，所以修改桶不需要重新记录
+     * @return 配置对象本身
+     */
+    public MetricsConfiguration buckets(double... buckets) {
+        double[] sorted = buckets.clone();
+        Arrays.sort(sorted);
+        this.buckets = sorted;
+        return this;
+    }
+
+    public double[] getBuckets() {
+        return buckets;
+    }
+
+    public static MetricsConfiguration defaultInstance() {
+        return new MetricsConfiguration();
+    }
+}
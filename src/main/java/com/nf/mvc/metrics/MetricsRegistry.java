@@ -0,0 +1,30 @@
+package com.nf.mvc.metrics;
+
+/**
+ * 请求指标的注册表，DispatcherServlet按照路由取得记录器并记录每个请求的指标，
+ * 路由是handler映射时匹配的地址模式(比如/product/{id})，而不是请求的地址，这样指标的数量是有限的
+ * <p>默认的实现是{@link DefaultMetricsRegistry}，指标保存在内存中，
+ * 需要把指标交给其它监控系统时可以实现此接口，通过{@link MetricsConfiguration#registry(MetricsRegistry)}设置</p>
+ *
+ * @see MetricsConfiguration
+ * @see RouteRecorder
+ */
+public interface MetricsRegistry {
+    /**
+     * 注册表保存在ServletContext中的属性名，handler可以通过它获取注册表
+     */
+    String METRICS_REGISTRY_ATTRIBUTE = MetricsRegistry.class.getName();
+
+    /**
+     * 找不到handler的请求使用的路由
+     */
+    String UNMATCHED_ROUTE = "[unmatched]";
+
+    /**
+     * 每个请求都会调用此方法，实现应该缓存每个路由的记录器，而不是每次创建
+     *
+     * @param route 路由，找不到handler的请求是{@link #UNMATCHED_ROUTE}
+     * @return 路由的记录器，不能为null
+     */
+    RouteRecorder getRecorder(String route);
+}
@@ -0,0 +1,446 @@
+package com.nf.mvc.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nf.mvc.bulkhead.BulkheadRegistry;
+import com.nf.mvc.bulkhead.ConcurrencyLimiter;
+import com.nf.mvc.cache.ResponseCacheManager;
+import com.nf.mvc.compression.ContentEncoding;
+import com.nf.mvc.support.HttpHeaders;
+import com.nf.mvc.support.HttpMethod;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 以<a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus文本格式</a>输出指标的处理者，
+ * 设置了{@link MetricsConfiguration#endpoint(String)}之后，DispatcherServlet在service方法中发现请求地址是这个地址时直接交给它处理，
+ * 处理之前与之后都会执行匹配这个地址的拦截器，所以认证、限流等拦截器同样适用，这个请求本身不记录指标
+ * <h3>指标</h3>
+ * <ul>
+ *     <li>mvc_requests_total、mvc_requests_in_flight、mvc_request_errors_total：每个路由的请求数、在处理中的请求数与按异常类型的错误数</li>
+ *     <li>mvc_request_duration_seconds、mvc_request_phase_duration_seconds：整个请求与每个阶段的延迟直方图，
+ *     桶的上限见{@link MetricsConfiguration#buckets(double...)}，桶中的数量从HdrHistogram的直方图中换算出来</li>
+ *     <li>mvc_bulkhead_*：每个并发限制器执行中、等待中的请求数与累计拒绝的请求数，bulkhead标签是限制器的名字，
+ *     也就是配置的地址模式或者注解所在的方法名，见{@link BulkheadRegistry#getLimiters()}</li>
+ *     <li>mvc_response_cache_*：响应缓存的命中、未命中与淘汰次数，缓存项的数量与估算的字节数，见{@link ResponseCacheManager}</li>
+ *     <li>tomcat_*：每个连接器的线程池与请求处理的统计，来自JMX中type=ThreadPool与type=GlobalRequestProcessor的MBean，
+ *     不是运行在tomcat中时没有这部分指标</li>
+ *     <li>jvm_*：堆与非堆内存、垃圾收集的次数与时间、线程数，来自平台的MXBean</li>
+ * </ul>
+ * <p>路由指标只有在使用{@link DefaultMetricsRegistry}时才输出，自定义的注册表应该由自己负责输出</p>
+ * <p>内容是边生成边写到响应中的，不会先拼接成一个大字符串，抓取的客户端接受gzip时压缩输出</p>
+ *
+ * @see MetricsConfiguration
+ */
+public class PrometheusMetricsHandler {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * tomcat的MBean中要输出的属性，每一行依次是属性名、指标名、类型、说明、换算成指标单位要乘的系数
+     */
+    private static final Object[][] THREAD_POOL_ATTRIBUTES = {
+            {"currentThreadCount", "tomcat_threads_current", "gauge", "Current number of threads in the connector thread pool", 1.0},
+            {"currentThreadsBusy", "tomcat_threads_busy", "gauge", "Number of threads processing requests", 1.0},
+            {"maxThreads", "tomcat_threads_max", "gauge", "Maximum number of threads in the connector thread pool", 1.0},
+            {"connectionCount", "tomcat_connections_current", "gauge", "Current number of connections", 1.0},
+            {"maxConnections", "tomcat_connections_max", "gauge", "Maximum number of connections", 1.0}
+    };
+
+    private static final Object[][] REQUEST_PROCESSOR_ATTRIBUTES = {
+            {"requestCount", "tomcat_requests_total", "counter", "Requests processed by the connector", 1.0},
+            {"errorCount", "tomcat_request_errors_total", "counter", "Requests that ended with an error status", 1.0},
+            {"processingTime", "tomcat_request_processing_seconds_total", "counter", "Total request processing time", 0.001},
+            {"bytesReceived", "tomcat_received_bytes_total", "counter", "Bytes received by the connector", 1.0},
+            {"bytesSent", "tomcat_sent_bytes_total", "counter", "Bytes sent by the connector", 1.0}
+    };
+
+    private final String path;
+    private final MetricsRegistry registry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final ResponseCacheManager responseCacheManager;
+    /**
+     * 桶的上限，单位是纳秒，从小到大排列
+     */
+    private final long[] bucketNanos;
+    /**
+     * 桶的上限，le标签的值
+     */
+    private final String[] bucketLabels;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * @param configuration 指标的配置，使用其中的地址与桶的上限
+     * @param registry      指标的注册表
+     */
+    public PrometheusMetricsHandler(MetricsConfiguration configuration, MetricsRegistry registry) {
+        this(configuration, registry, null, null);
+    }
+
+    /**
+     * @param bulkheadRegistry     并发限制器的注册表，为null时不输出mvc_bulkhead_*指标
+     * @param responseCacheManager 响应缓存，为null时不输出mvc_response_cache_*指标
+     */
+    public PrometheusMetricsHandler(MetricsConfiguration configuration, MetricsRegistry registry,
+                                    BulkheadRegistry bulkheadRegistry, ResponseCacheManager responseCacheManager) {
+        this.path = configuration.getEndpoint();
+        this.registry = registry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.responseCacheManager = responseCacheManager;
+        double[] buckets = configuration.getBuckets();
+        this.bucketNanos = new long[buckets.length];
+        this.bucketLabels = new String[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            bucketNanos[i] = (long) (buckets[i] * NANOS_PER_SECOND);
+            bucketLabels[i] = BigDecimal.valueOf(buckets[i]).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    /**
+     * @param path 不包含上下文路径的请求地址
+     * @return 地址是否是指标的地址
+     */
+    public boolean matches(String path) {
+        return this.path.equals(path);
+    }
+
+    /**
+     * 输出所有的指标，只支持GET与HEAD请求
+     *
+     * @param req  请求对象
+     * @param resp 响应对象
+     * @throws IOException 写出响应出错时抛出
+     */
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String method = req.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            resp.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        resp.setContentType(CONTENT_TYPE);
+        resp.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        resp.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (HttpMethod.HEAD.matches(method)) {
+            return;
+        }
+        OutputStream out = resp.getOutputStream();
+        if (ContentEncoding.negotiate(req.getHeader(HttpHeaders.ACCEPT_ENCODING)) == ContentEncoding.GZIP) {
+            resp.setHeader(HttpHeaders.CONTENT_ENCODING, ContentEncoding.GZIP.getValue());
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        write(writer);
+        /* gzip时close才会写出压缩流的结尾，关闭的是响应的输出流，之后不能再写出任何内容 */
+        writer.close();
+    }
+
+    /**
+     * @param writer 指标写到此writer中，不会关闭它
+     * @throws IOException 写出出错时抛出
+     */
+    public void write(Writer writer) throws IOException {
+        if (registry instanceof DefaultMetricsRegistry) {
+            writeRouteMetrics(writer, ((DefaultMetricsRegistry) registry).getRoutes());
+        }
+        if (bulkheadRegistry != null) {
+            writeBulkheadMetrics(writer, bulkheadRegistry.getLimiters());
+        }
+        if (responseCacheManager != null) {
+            writeResponseCacheMetrics(writer, responseCacheManager);
+        }
+        writeTomcatMetrics(writer, "*:type=ThreadPool,name=*", THREAD_POOL_ATTRIBUTES);
+        writeTomcatMetrics(writer, "*:type=GlobalRequestProcessor,name=*", REQUEST_PROCESSOR_ATTRIBUTES);
+        writeJvmMetrics(writer);
+        writer.flush();
+    }
+
+    /**
+     * 同一个指标的所有样本必须在一起，所以按指标逐个遍历路由，直方图的快照是复制出来的，每个路由只取一次
+     */
+    private void writeRouteMetrics(Writer writer, Collection<RouteMetrics> routes) throws IOException {
+        writeHeader(writer, "mvc_requests_total", "counter", "Completed requests by route");
+        for (RouteMetrics route : routes) {
+            writeSample(writer, "mvc_requests_total", "route", route.getRoute(), route.getRequestCount());
+        }
+        writeHeader(writer, "mvc_requests_in_flight", "gauge", "Requests currently being processed by route");
+        for (RouteMetrics route : routes) {
+            writeSample(writer, "mvc_requests_in_flight", "route", route.getRoute(), route.getInFlight());
+        }
+        writeHeader(writer, "mvc_request_errors_total", "counter", "Failed requests by route and exception type");
+        for (RouteMetrics route : routes) {
+            for (Map.Entry<String, Long> entry : route.getErrorCounts().entrySet()) {
+                writer.write("mvc_request_errors_total{route=\"");
+                writeLabelValue(writer, route.getRoute());
+                writer.write("\",exception=\"");
+                writeLabelValue(writer, entry.getKey());
+                writer.write("\"} ");
+                writer.write(Long.toString(entry.getValue()));
+                writer.write('\n');
+            }
+        }
+        writeHeader(writer, "mvc_request_duration_seconds", "histogram", "Request latency by route");
+        for (RouteMetrics route : routes) {
+            writeHistogram(writer, "mvc_request_duration_seconds", route.getRoute(), null, route.getLatency());
+        }
+        writeHeader(writer, "mvc_request_phase_duration_seconds", "histogram", "Latency of each request processing phase by route");
+        for (RouteMetrics route : routes) {
+            for (RequestPhase phase : RequestPhase.values()) {
+                Histogram histogram = route.getLatency(phase);
+                /* 比如没有找到handler的请求只有查找handler一个阶段，没有记录过的阶段不输出 */
+                if (histogram.getTotalCount() > 0) {
+                    writeHistogram(writer, "mvc_request_phase_duration_seconds", route.getRoute(), phase.getLabel(), histogram);
+                }
+            }
+        }
+    }
+
+    /**
+     * 注解的限制器在handler第一次被请求之后才有，所以刚启动时可能只有指标的说明没有样本
+     */
+    private void writeBulkheadMetrics(Writer writer, List<ConcurrencyLimiter> limiters) throws IOException {
+        writeHeader(writer, "mvc_bulkhead_in_flight", "gauge", "Requests currently executing by bulkhead");
+        for (ConcurrencyLimiter limiter : limiters) {
+            writeSample(writer, "mvc_bulkhead_in_flight", "bulkhead", limiter.getName(), limiter.getInFlight());
+        }
+        writeHeader(writer, "mvc_bulkhead_queued", "gauge", "Requests waiting for a permit by bulkhead");
+        for (ConcurrencyLimiter limiter : limiters) {
+            writeSample(writer, "mvc_bulkhead_queued", "bulkhead", limiter.getName(), limiter.getQueued());
+        }
+        writeHeader(writer, "mvc_bulkhead_rejected_total", "counter", "Requests rejected by bulkhead");
+        for (ConcurrencyLimiter limiter : limiters) {
+            writeSample(writer, "mvc_bulkhead_rejected_total", "bulkhead", limiter.getName(), limiter.getRejected());
+        }
+    }
+
+    private void writeResponseCacheMetrics(Writer writer, ResponseCacheManager cacheManager) throws IOException {
+        CacheStats stats = cacheManager.getStats();
+        writeHeader(writer, "mvc_response_cache_hits_total", "counter", "Response cache lookups that found an entry");
+        writeSample(writer, "mvc_response_cache_hits_total", null, null, stats.hitCount());
+        writeHeader(writer, "mvc_response_cache_misses_total", "counter", "Response cache lookups that found no entry");
+        writeSample(writer, "mvc_response_cache_misses_total", null, null, stats.missCount());
+        writeHeader(writer, "mvc_response_cache_evictions_total", "counter", "Response cache entries evicted by size or expiry");
+        writeSample(writer, "mvc_response_cache_evictions_total", null, null, stats.evictionCount());
+        writeHeader(writer, "mvc_response_cache_entries", "gauge", "Approximate number of cached responses");
+        writeSample(writer, "mvc_response_cache_entries", null, null, cacheManager.getEntryCount());
+        writeHeader(writer, "mvc_response_cache_size_bytes", "gauge", "Estimated size of cached responses in bytes");
+        writeSample(writer, "mvc_response_cache_size_bytes", null, null, cacheManager.getWeightedSize());
+    }
+
+    /**
+     * 按值从小到大遍历直方图中有记录的值，一次遍历算出所有桶的累计数量，桶是累计的，le为+Inf的桶就是总数
+     */
+    private void writeHistogram(Writer writer, String name, String route, String phase, Histogram histogram) throws IOException {
+        long[] counts = new long[bucketNanos.length];
+        double sum = 0;
+        int bucket = 0;
+        long cumulative = 0;
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            long count = value.getCountAddedInThisIterationStep();
+            /* 同一个值在HdrHistogram中代表一个范围，与桶的上限比较时用范围的上限，宁可归到大一些的桶中 */
+            long highest = histogram.highestEquivalentValue(value.getValueIteratedTo());
+            while (bucket < bucketNanos.length && highest > bucketNanos[bucket]) {
+                counts[bucket++] = cumulative;
+            }
+            cumulative += count;
+            sum += histogram.medianEquivalentValue(value.getValueIteratedTo()) * (double) count;
+        }
+        while (bucket < bucketNanos.length) {
+            counts[bucket++] = cumulative;
+        }
+        for (int i = 0; i < bucketNanos.length; i++) {
+            writeBucket(writer, name, route, phase, bucketLabels[i], counts[i]);
+        }
+        writeBucket(writer, name, route, phase, "+Inf", cumulative);
+        writeHistogramSample(writer, name, "_sum", route, phase);
+        writer.write(Double.toString(sum / NANOS_PER_SECOND));
+        writer.write('\n');
+        writeHistogramSample(writer, name, "_count", route, phase);
+        writer.write(Long.toString(cumulative));
+        writer.write('\n');
+    }
+
+    private void writeBucket(Writer writer, String name, String route, String phase, String le, long count) throws IOException {
+        writer.write(name);
+        writer.write("_bucket{route=\"");
+        writeLabelValue(writer, route);
+        if (phase != null) {
+            writer.write("\",phase=\"");
+            writer.write(phase);
+        }
+        writer.write("\",le=\"");
+        writer.write(le);
+        writer.write("\"} ");
+        writer.write(Long.toString(count));
+        writer.write('\n');
+    }
+
+    private void writeHistogramSample(Writer writer, String name, String suffix, String route, String phase) throws IOException {
+        writer.write(name);
+        writer.write(suffix);
+        writer.write("{route=\"");
+        writeLabelValue(writer, route);
+        if (phase != null) {
+            writer.write("\",phase=\"");
+            writer.write(phase);
+        }
+        writer.write("\"} ");
+    }
+
+    /**
+     * 每个连接器有一个ThreadPool与GlobalRequestProcessor的MBean，name属性是连接器的名字，比如"http-nio-8080"，作为connector标签。
+     * 独立的tomcat的域是Catalina，嵌入式的是引擎的名字(默认是Tomcat)，所以不限定域
+     */
+    private void writeTomcatMetrics(Writer writer, String pattern, Object[][] attributes) throws IOException {
+        Set<ObjectName> names;
+        try {
+            names = mBeanServer.queryNames(new ObjectName(pattern), null);
+        } catch (JMException e) {
+            return;
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+        String[] attributeNames = new String[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            attributeNames[i] = (String) attributes[i][0];
+        }
+        /* 先把所有MBean的属性读出来，再按指标输出，读取失败的MBean或属性不输出 */
+        AttributeList[] values = new AttributeList[names.size()];
+        String[] connectors = new String[names.size()];
+        int index = 0;
+        for (ObjectName name : names) {
+            connectors[index] = ObjectName.unquote(name.getKeyProperty("name"));
+            try {
+                values[index] = mBeanServer.getAttributes(name, attributeNames);
+            } catch (JMException e) {
+                values[index] = new AttributeList();
+            }
+            index++;
+        }
+        for (Object[] attribute : attributes) {
+            writeHeader(writer, (String) attribute[1], (String) attribute[2], (String) attribute[3]);
+            for (int i = 0; i < values.length; i++) {
+                for (Attribute value : values[i].asList()) {
+                    if (value.getName().equals(attribute[0]) && value.getValue() instanceof Number) {
+                        double number = ((Number) value.getValue()).doubleValue() * (Double) attribute[4];
+                        writeSample(writer, (String) attribute[1], "connector", connectors[i], number);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeJvmMetrics(Writer writer) throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        writeHeader(writer, "jvm_memory_bytes_used", "gauge", "Used bytes of a given JVM memory area");
+        writeSample(writer, "jvm_memory_bytes_used", "area", "heap", heap.getUsed());
+        writeSample(writer, "jvm_memory_bytes_used", "area", "nonheap", nonHeap.getUsed());
+        writeHeader(writer, "jvm_memory_bytes_committed", "gauge", "Committed bytes of a given JVM memory area");
+        writeSample(writer, "jvm_memory_bytes_committed", "area", "heap", heap.getCommitted());
+        writeSample(writer, "jvm_memory_bytes_committed", "area", "nonheap", nonHeap.getCommitted());
+        writeHeader(writer, "jvm_memory_bytes_max", "gauge", "Max bytes of a given JVM memory area, -1 if undefined");
+        writeSample(writer, "jvm_memory_bytes_max", "area", "heap", heap.getMax());
+        writeSample(writer, "jvm_memory_bytes_max", "area", "nonheap", nonHeap.getMax());
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        /* 与Prometheus的java客户端一样输出为summary，这样现成的仪表盘可以直接使用 */
+        writeHeader(writer, "jvm_gc_collection_seconds", "summary", "Time spent in a given JVM garbage collector in seconds");
+        for (GarbageCollectorMXBean collector : collectors) {
+            writeSample(writer, "jvm_gc_collection_seconds_count", "gc", collector.getName(), collector.getCollectionCount());
+        }
+        for (GarbageCollectorMXBean collector : collectors) {
+            writeSample(writer, "jvm_gc_collection_seconds_sum", "gc", collector.getName(),
+                    collector.getCollectionTime() / (double) TimeUnit.SECONDS.toMillis(1));
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        writeHeader(writer, "jvm_threads_current", "gauge", "Current thread count of the JVM");
+        writeSample(writer, "jvm_threads_current", null, null, threads.getThreadCount());
+        writeHeader(writer, "jvm_threads_daemon", "gauge", "Daemon thread count of the JVM");
+        writeSample(writer, "jvm_threads_daemon", null, null, threads.getDaemonThreadCount());
+    }
+
+    private static void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+        writer.write("# HELP ");
+        writer.write(name);
+        writer.write(' ');
+        writer.write(help);
+        writer.write("\n# TYPE ");
+        writer.write(name);
+        writer.write(' ');
+        writer.write(type);
+        writer.write('\n');
+    }
+
+    private static void writeSample(Writer writer, String name, String label, String labelValue, long value) throws IOException {
+        writeSampleName(writer, name, label, labelValue);
+        writer.write(Long.toString(value));
+        writer.write('\n');
+    }
+
+    private static void writeSample(Writer writer, String name, String label, String labelValue, double value) throws IOException {
+        writeSampleName(writer, name, label, labelValue);
+        writer.write(value == (long) value ? Long.toString((long) value) : Double.toString(value));
+        writer.write('\n');
+    }
+
+    private static void writeSampleName(Writer writer, String name, String label, String labelValue) throws IOException {
+        writer.write(name);
+        if (label != null) {
+            writer.write('{');
+            writer.write(label);
+            writer.write("=\"");
+            writeLabelValue(writer, labelValue);
+            writer.write("\"}");
+        }
+        writer.write(' ');
+    }
+
+    /**
+     * 标签值中的反斜杠、双引号与换行需要转义，路由与异常类名一般都没有，所以逐个字符检查而不是替换字符串
+     */
+    static void writeLabelValue(Writer writer, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                writer.write("\\\\");
+            } else if (c == '"') {
+                writer.write("\\\"");
+            } else if (c == '\n') {
+                writer.write("\\n");
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.nf.mvc.metrics;
+
+/**
+ * 请求处理的阶段，每个阶段的耗时分别记录，整个请求的耗时另外记录，
+ * 它还包括拦截器、异步等待、非阻塞写出等不属于任何阶段的时间
+ *
+ * @see RouteRecorder#recordPhase(RequestPhase, long)
+ */
+public enum RequestPhase {
+    /**
+     * 查找handler，从DispatcherServlet开始处理请求到找到handler为止
+     */
+    MAPPING("mapping"),
+    /**
+     * 解析handler方法的参数，包括读取与反序列化请求体
+     */
+    ARGUMENT_RESOLUTION("argument_resolution"),
+    /**
+     * 执行handler方法以及把返回值转换为视图结果
+     */
+    INVOCATION("invocation"),
+    /**
+     * 渲染视图结果，非阻塞写出时只包括准备响应体的时间
+     */
+    RENDER("render");
+
+    private final String label;
+
+    RequestPhase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return 小写下划线形式的名字，用作导出指标时的标签值
+     */
+    public String getLabel() {
+        return label;
+    }
+}
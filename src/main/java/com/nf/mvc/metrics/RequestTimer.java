@@ -0,0 +1,77 @@
+package com.nf.mvc.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 一个请求的计时器，在DispatcherServlet开始处理请求时创建，保存在{@link com.nf.mvc.ServletExchange}中，
+ * 处理请求的各个环节通过交互对象取得它并记录阶段的耗时，请求结束时把整个请求的耗时与异常交给路由的记录器
+ * <p>找到handler之前还不知道路由，所以查找handler的耗时在{@link #mapped(String)}中记录，
+ * 在此之前调用{@link #record(RequestPhase, long)}是没有效果的</p>
+ * <p>与交互对象一样不是线程安全的，同一时刻只有一个线程处理请求</p>
+ */
+public class RequestTimer {
+    private final MetricsRegistry registry;
+    private final long startTime;
+    private RouteRecorder recorder;
+    private Throwable error;
+    private boolean completed;
+
+    public RequestTimer(MetricsRegistry registry) {
+        this.registry = registry;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * 找到了handler(或者确定找不到)，从创建计时器到现在的时间记为{@link RequestPhase#MAPPING}
+     *
+     * @param route 匹配的路由
+     */
+    public void mapped(String route) {
+        recorder = registry.getRecorder(route);
+        recorder.requestStarted();
+        recorder.recordPhase(RequestPhase.MAPPING, System.nanoTime() - startTime);
+    }
+
+    /**
+     * @param phase 阶段
+     * @param nanos 阶段的耗时纳秒数
+     */
+    public void record(RequestPhase phase, long nanos) {
+        if (recorder != null) {
+            recorder.recordPhase(phase, nanos);
+        }
+    }
+
+    /**
+     * 记录处理过程中的异常，只记录第一个，反射调用与异步执行的包装异常会被去掉
+     *
+     * @param ex 异常
+     */
+    public void failed(Throwable ex) {
+        if (error == null) {
+            error = unwrap(ex);
+        }
+    }
+
+    /**
+     * 请求处理结束，多次调用时只有第一次有效
+     */
+    public void complete() {
+        if (completed || recorder == null) {
+            return;
+        }
+        completed = true;
+        recorder.requestCompleted(System.nanoTime() - startTime, error);
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        Throwable current = ex;
+        while ((current instanceof InvocationTargetException || current instanceof CompletionException
+                || current instanceof ExecutionException) && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
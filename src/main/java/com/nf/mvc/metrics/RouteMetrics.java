@@ -0,0 +1,113 @@
+package com.nf.mvc.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link DefaultMetricsRegistry}中一个路由的指标
+ * <ul>
+ *     <li>请求数与在处理中的请求数：{@link LongAdder}，高并发时不同线程累加的是不同的单元，不会在同一个变量上竞争</li>
+ *     <li>按异常类型统计的错误数：异常的类型是有限的，超过{@link #MAX_ERROR_TYPES}种之后都算作{@link #OTHER_ERROR}</li>
+ *     <li>整个请求与每个阶段的延迟：HdrHistogram的直方图，单位是纳秒</li>
+ * </ul>
+ */
+public class RouteMetrics implements RouteRecorder {
+    static final int MAX_ERROR_TYPES = 64;
+    static final String OTHER_ERROR = "other";
+
+    private final String route;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LatencyRecorder latency;
+    private final Map<RequestPhase, LatencyRecorder> phases = new EnumMap<>(RequestPhase.class);
+
+    /**
+     * @param route             路由
+     * @param significantDigits 直方图的有效数字位数，2表示误差在1%以内
+     */
+    public RouteMetrics(String route, int significantDigits) {
+        this.route = route;
+        this.latency = new LatencyRecorder(significantDigits);
+        for (RequestPhase phase : RequestPhase.values()) {
+            phases.put(phase, new LatencyRecorder(significantDigits));
+        }
+    }
+
+    @Override
+    public void requestStarted() {
+        inFlight.increment();
+    }
+
+    @Override
+    public void recordPhase(RequestPhase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    @Override
+    public void requestCompleted(long nanos, Throwable error) {
+        inFlight.decrement();
+        requests.increment();
+        latency.record(nanos);
+        if (error != null) {
+            String type = error.getClass().getName();
+            LongAdder counter = errors.get(type);
+            if (counter == null) {
+                counter = errors.size() < MAX_ERROR_TYPES ? errors.computeIfAbsent(type, k -> new LongAdder())
+                        : errors.computeIfAbsent(OTHER_ERROR, k -> new LongAdder());
+            }
+            counter.increment();
+        }
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * @return 处理完毕的请求数
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return 正在处理的请求数
+     */
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * @return 异常类的全名与出现次数，按类名排序
+     */
+    public Map<String, Long> getErrorCounts() {
+        if (errors.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((type, counter) -> counts.put(type, counter.sum()));
+        return counts;
+    }
+
+    /**
+     * @return 整个请求的延迟直方图，单位是纳秒
+     */
+    public Histogram getLatency() {
+        return latency.snapshot();
+    }
+
+    /**
+     * @param phase 请求处理的阶段
+     * @return 这个阶段的延迟直方图，单位是纳秒
+     */
+    public Histogram getLatency(RequestPhase phase) {
+        return phases.get(phase).snapshot();
+    }
+}
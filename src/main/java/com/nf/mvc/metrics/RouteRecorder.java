@@ -0,0 +1,28 @@
+package com.nf.mvc.metrics;
+
+/**
+ * 一个路由的指标记录器，由{@link MetricsRegistry#getRecorder(String)}返回，
+ * 同一个路由的请求在多个线程中同时记录，所以实现必须是线程安全的，并且不应该加锁
+ * <p>每个请求依次调用：{@link #requestStarted()}一次，{@link #recordPhase(RequestPhase, long)}若干次，
+ * {@link #requestCompleted(long, Throwable)}一次，调用由{@link RequestTimer}完成</p>
+ */
+public interface RouteRecorder {
+    /**
+     * 请求开始处理，在处理中的请求数加1
+     */
+    void requestStarted();
+
+    /**
+     * @param phase 请求处理的阶段
+     * @param nanos 阶段的耗时纳秒数
+     */
+    void recordPhase(RequestPhase phase, long nanos);
+
+    /**
+     * 请求处理结束，在处理中的请求数减1
+     *
+     * @param nanos 整个请求的耗时纳秒数，异步请求到异步处理结束为止
+     * @param error 处理过程中的异常，没有异常时为null，被异常解析器处理了的异常也算
+     */
+    void requestCompleted(long nanos, Throwable error);
+}
@@ -0,0 +1,137 @@
+package com.nf.mvc.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nf.mvc.HandlerInterceptor;
+import com.nf.mvc.support.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于令牌桶的限流拦截器，按照{@link RateLimitKeyResolver}解析出来的键(ip、请求头或用户)分别限流，
+ * 超出限制时响应429，不需要额外的网关。框架不会扫描自己的包，所以使用时写一个子类，
+ * 用{@link com.nf.mvc.Intercepts}指定要限流的地址，比如:
+ * <pre class="code">
+ *     &#064;Intercepts("/api/**")
+ *     public class ApiRateLimitInterceptor extends RateLimitInterceptor {
+ *         public ApiRateLimitInterceptor() {
+ *             // 每个ip最多突发20个请求，每秒补充10个令牌
+ *             super(20, 10, 1000, RateLimitKeyResolver.ip());
+ *         }
+ *     }
+ * </pre>
+ * <h3>响应头</h3>
+ * <p>放行与拒绝的响应都会设置IETF草案中的RateLimit-Limit、RateLimit-Remaining与RateLimit-Reset(秒)响应头，
+ * 拒绝时还会设置Retry-After响应头</p>
+ * <h3>实现</h3>
+ * <ul>
+ *     <li>令牌桶保存在caffeine的缓存中，caffeine内部是分段的ConcurrentHashMap，读取不加锁，
+ *     空闲的键在桶重新装满的时间之后过期，因为过期后新建的桶与原来的桶是完全等价的</li>
+ *     <li>令牌桶本身只是一个AtomicLong，取令牌是一次cas，见{@link TokenBucket}</li>
+ *     <li>已存在的键只有一次缓存读取，不会创建对象，只有写响应头时需要把数字转换为字符串</li>
+ * </ul>
+ *
+ * @see TokenBucket
+ * @see RateLimitKeyResolver
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    public static final int SC_TOO_MANY_REQUESTS = 429;
+    public static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final RateLimitKeyResolver keyResolver;
+    private final String limitHeader;
+    private final Cache<String, TokenBucket> buckets;
+
+    /**
+     * 按ip限流，每个周期把桶补满
+     *
+     * @param capacity     桶的容量
+     * @param periodMillis 补满的周期毫秒数
+     */
+    public RateLimitInterceptor(int capacity, long periodMillis) {
+        this(capacity, capacity, periodMillis, RateLimitKeyResolver.ip());
+    }
+
+    /**
+     * @param capacity     桶的容量，也就是允许的突发请求数量
+     * @param refillTokens 每个周期补充的令牌数
+     * @param periodMillis 补充周期的毫秒数
+     * @param keyResolver  限流的键的解析器
+     */
+    public RateLimitInterceptor(int capacity, int refillTokens, long periodMillis, RateLimitKeyResolver keyResolver) {
+        this(capacity, refillTokens, periodMillis, keyResolver, 100_000);
+    }
+
+    /**
+     * @param maximumKeys 最多保存的键的数量，超出时按照caffeine的淘汰策略淘汰，防止伪造大量的键耗尽内存
+     */
+    public RateLimitInterceptor(int capacity, int refillTokens, long periodMillis, RateLimitKeyResolver keyResolver, long maximumKeys) {
+        if (capacity <= 0 || refillTokens <= 0 || periodMillis <= 0) {
+            throw new IllegalArgumentException("容量、补充的令牌数与周期都必须大于0");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(periodMillis) / refillTokens);
+        this.keyResolver = keyResolver;
+        this.limitHeader = String.valueOf(capacity);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(Math.max(1, capacity * intervalNanos), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        String key = keyResolver.resolveKey(request);
+        if (key == null) {
+            // 解析不出键的请求也要限流，否则客户端去掉请求头就能绕过
+            key = request.getRemoteAddr();
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.getIfPresent(key);
+        if (bucket == null) {
+            bucket = buckets.get(key, k -> new TokenBucket(capacity, intervalNanos, now));
+        }
+        long result = bucket.tryConsume(now);
+        response.setHeader(RATE_LIMIT_LIMIT, limitHeader);
+        response.setHeader(RATE_LIMIT_RESET, String.valueOf(toSeconds(bucket.getNanosToFull(now))));
+        if (result >= 0) {
+            response.setHeader(RATE_LIMIT_REMAINING, String.valueOf(result));
+            return true;
+        }
+        response.setHeader(RATE_LIMIT_REMAINING, "0");
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(toSeconds(-result)));
+        onRejected(request, response, key);
+        return false;
+    }
+
+    /**
+     * 请求被拒绝时的响应，默认响应429，子类可以重写此方法输出自己的响应内容
+     *
+     * @param key 被限流的键
+     */
+    protected void onRejected(HttpServletRequest request, HttpServletResponse response, String key) throws Exception {
+        response.sendError(SC_TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * 向上取整，不足一秒的按一秒算，避免客户端在令牌生成之前重试
+     */
+    static long toSeconds(long nanos) {
+        return (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+
+    /**
+     * @return 当前保存的键的数量(近似值)
+     */
+    public long getKeyCount() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,51 @@
+package com.nf.mvc.ratelimit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.security.Principal;
+
+/**
+ * 解析限流的键，同一个键的请求共享一个令牌桶，返回null时按客户端ip限流，
+ * 这样去掉请求头之类的键就不能绕过限流
+ *
+ * @see RateLimitInterceptor
+ */
+@FunctionalInterface
+public interface RateLimitKeyResolver {
+
+    String resolveKey(HttpServletRequest request);
+
+    /**
+     * @return 按客户端ip限流，经过代理时需要容器(比如tomcat的RemoteIpValve)正确设置remoteAddr
+     */
+    static RateLimitKeyResolver ip() {
+        return HttpServletRequest::getRemoteAddr;
+    }
+
+    /**
+     * @param headerName 请求头的名字，比如X-Api-Key
+     * @return 按请求头的值限流，没有这个请求头的请求按ip限流
+     */
+    static RateLimitKeyResolver header(String headerName) {
+        return request -> {
+            String value = request.getHeader(headerName);
+            return value != null ? value : request.getRemoteAddr();
+        };
+    }
+
+    /**
+     * @param sessionAttribute 会话中保存用户标识的属性名
+     * @return 按用户限流，先取容器认证的用户，再取会话中的属性，都没有时按ip限流
+     */
+    static RateLimitKeyResolver user(String sessionAttribute) {
+        return request -> {
+            Principal principal = request.getUserPrincipal();
+            if (principal != null) {
+                return principal.getName();
+            }
+            HttpSession session = request.getSession(false);
+            Object user = session == null ? null : session.getAttribute(sessionAttribute);
+            return user != null ? user.toString() : request.getRemoteAddr();
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.nf.mvc.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁的令牌桶，用GCRA(通用信元速率算法)实现，与令牌桶是等价的，但整个桶的状态只有一个long值：
+ * 理论上下一个令牌的到达时间(tat)，取令牌就是对这个值做一次cas，不需要加锁，也不会创建任何对象
+ * <ul>
+ *     <li>每个令牌的间隔：interval = 补充周期 / 每个周期补充的令牌数</li>
+ *     <li>桶的容量决定了允许的突发量：burst = capacity * interval</li>
+ *     <li>取令牌：newTat = max(tat, now) + interval，只要newTat - burst不晚于now就允许</li>
+ * </ul>
+ *
+ * @see RateLimitInterceptor
+ */
+public class TokenBucket {
+    private final long interval;
+    private final long burst;
+    private final AtomicLong tat;
+
+    /**
+     * @param capacity       桶的容量，也就是允许的突发请求数量
+     * @param intervalNanos  生成一个令牌的纳秒数
+     * @param now            当前的纳秒时间，新建的桶是满的
+     */
+    public TokenBucket(long capacity, long intervalNanos, long now) {
+        this.interval = intervalNanos;
+        this.burst = capacity * intervalNanos;
+        this.tat = new AtomicLong(now);
+    }
+
+    /**
+     * 取一个令牌，为了不创建结果对象，用返回值的正负区分是否成功
+     *
+     * @param now 当前的纳秒时间，由调用者传入，便于同一个请求中多次使用
+     * @return 大于等于0表示取到了令牌，值是桶中剩余的令牌数；小于0表示没有令牌，其绝对值是还要等待的纳秒数
+     */
+    public long tryConsume(long now) {
+        for (; ; ) {
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            long allowAt = next - burst;
+            if (allowAt > now) {
+                return -(allowAt - now);
+            }
+            if (tat.compareAndSet(current, next)) {
+                return (now - allowAt) / interval;
+            }
+        }
+    }
+
+    /**
+     * @param now 当前的纳秒时间
+     * @return 桶重新装满还需要的纳秒数
+     */
+    public long getNanosToFull(long now) {
+        return Math.max(0, tat.get() - now);
+    }
+}
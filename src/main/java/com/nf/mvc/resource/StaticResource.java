@@ -0,0 +1,228 @@
+package com.nf.mvc.resource;
+
+import com.nf.mvc.util.HttpCacheUtils;
+import com.nf.mvc.write.ChunkSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 一个静态资源文件，按照大小有三种保存内容的方式
+ * <ul>
+ *     <li>不超过{@link StaticResourceConfiguration#getCacheMaxFileSize()}的文件内容读到堆内，可以压缩的类型同时保存gzip压缩的版本</li>
+ *     <li>更大的文件做只读的内存映射，内容由操作系统的page cache保存，写出时从映射直接复制到tomcat的输出缓冲区</li>
+ *     <li>超过2G不能映射或者在jar中的大文件，每次请求都打开文件读取</li>
+ * </ul>
+ * <p>文件被修改之后要重新加载，见{@link #isModified()}，已经映射的文件如果被截断，读取映射时会出错，
+ * 所以部署时应该写新文件再替换，而不是原地修改</p>
+ *
+ * @see StaticResourceHandler
+ */
+public class StaticResource {
+    private static final int OVERHEAD = 512;
+    /**
+     * 地址中内容摘要的长度
+     */
+    static final int HASH_LENGTH = 16;
+
+    private final Path path;
+    private final String mediaType;
+    private final long length;
+    private final long lastModified;
+    private final String etag;
+    private final byte[] content;
+    private final byte[] gzipContent;
+    private final ByteBuffer mapped;
+    private volatile long checkedAt;
+    private volatile String hash;
+
+    private StaticResource(Path path, String mediaType, BasicFileAttributes attributes, byte[] content, byte[] gzipContent, ByteBuffer mapped) {
+        this.path = path;
+        this.mediaType = mediaType;
+        this.length = attributes.size();
+        this.lastModified = attributes.lastModifiedTime().toMillis();
+        this.etag = HttpCacheUtils.fileETag(length, lastModified);
+        this.content = content;
+        this.gzipContent = gzipContent;
+        this.mapped = mapped;
+        this.checkedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @param path          文件路径
+     * @param mediaType     内容类型
+     * @param cacheMaxSize  内容读到堆内的最大字节数
+     * @param compressible  是否准备gzip压缩的版本
+     * @return 不是普通文件时返回null
+     * @throws IOException 读取文件出错时抛出
+     */
+    static StaticResource load(Path path, String mediaType, int cacheMaxSize, boolean compressible) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        if (size <= cacheMaxSize) {
+            byte[] content = Files.readAllBytes(path);
+            return new StaticResource(path, mediaType, attributes, content, compressible ? gzip(content) : null, null);
+        }
+        ByteBuffer mapped = null;
+        // 只有默认文件系统中的文件可以映射，jar中的文件不行
+        if (size <= Integer.MAX_VALUE && path.getFileSystem() == FileSystems.getDefault()) {
+            try (FileChannel channel = FileChannel.open(path)) {
+                // 通道关闭之后映射仍然有效
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return new StaticResource(path, mediaType, attributes, null, null, mapped);
+    }
+
+    /**
+     * @return 压缩之后的内容，压缩之后没有变小时返回null
+     */
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 2 + 32);
+        try (GZIPOutputStream output = new GZIPOutputStream(buffer)) {
+            output.write(content);
+        }
+        return buffer.size() < content.length ? buffer.toByteArray() : null;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public boolean hasGzip() {
+        return gzipContent != null;
+    }
+
+    /**
+     * @param gzip 是否是gzip压缩的版本
+     * @return 内容的字节数
+     */
+    public long getContentLength(boolean gzip) {
+        return gzip ? gzipContent.length : length;
+    }
+
+    /**
+     * 压缩与未压缩两种表示的ETag是不同的，压缩版本的ETag加上了-gzip后缀
+     *
+     * @param gzip 是否是gzip压缩的版本
+     * @return 强ETag
+     */
+    public String getETag(boolean gzip) {
+        return gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+    }
+
+    /**
+     * @param gzip 是否是gzip压缩的版本
+     * @return 响应体的来源，内存中的内容与映射都不会复制，多个请求可以同时写出
+     * @throws IOException 打开文件出错时抛出
+     */
+    public ChunkSource getBody(boolean gzip) throws IOException {
+        if (gzip) {
+            return ChunkSource.of(gzipContent, 0, gzipContent.length);
+        }
+        if (content != null) {
+            return ChunkSource.of(content, 0, content.length);
+        }
+        if (mapped != null) {
+            return ChunkSource.of(mapped);
+        }
+        return path.getFileSystem() == FileSystems.getDefault() ?
+                ChunkSource.of(FileChannel.open(path)) : ChunkSource.of(Files.newInputStream(path), length);
+    }
+
+    /**
+     * @return 内容的md5摘要的前16个十六进制字符，用来生成带摘要的地址，第一次调用时才计算
+     * @throws IOException 读取文件出错时抛出
+     */
+    public String getHash() throws IOException {
+        String result = hash;
+        if (result == null) {
+            MessageDigest digest = newDigest();
+            if (content != null) {
+                digest.update(content);
+            } else if (mapped != null) {
+                digest.update(mapped.duplicate());
+            } else {
+                try (InputStream input = Files.newInputStream(path)) {
+                    byte[] buffer = new byte[8192];
+                    int count;
+                    while ((count = input.read(buffer)) != -1) {
+                        digest.update(buffer, 0, count);
+                    }
+                }
+            }
+            StringBuilder builder = new StringBuilder(HASH_LENGTH);
+            for (byte b : digest.digest()) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            result = builder.substring(0, HASH_LENGTH);
+            hash = result;
+        }
+        return result;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param checkInterval 检查的间隔毫秒数，见{@link StaticResourceConfiguration#getCheckInterval()}
+     * @return 距离上次检查是否已经超过了间隔时间，超过时会把检查时间更新为现在
+     */
+    boolean shouldCheck(long checkInterval) {
+        if (checkInterval < 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now - checkedAt < checkInterval) {
+            return false;
+        }
+        checkedAt = now;
+        return true;
+    }
+
+    /**
+     * @return 文件被删除、大小或最后修改时间变化时返回true
+     */
+    boolean isModified() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.size() != length || attributes.lastModifiedTime().toMillis() != lastModified;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return 占用的堆内存估算值，映射的内容不在堆内
+     */
+    int getWeight() {
+        return (content == null ? 0 : content.length) + (gzipContent == null ? 0 : gzipContent.length) + OVERHEAD;
+    }
+}
@@ -0,0 +1,125 @@
+package com.nf.mvc.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 静态资源的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureStaticResources(StaticResourceConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureStaticResources(StaticResourceConfiguration configuration) {
+ *         configuration.addResourceLocations("/static/", "classpath:static/", "D:/assets/")
+ *                 .cacheMaxFileSize(256 * 1024)
+ *                 .checkInterval(-1);
+ *     }
+ * </pre>
+ * <p>资源位置有两种写法：以classpath:开头的表示类路径中的目录(可以在jar中)，其它的表示文件系统中的目录，
+ * 相对路径相对于user.dir。一个地址前缀可以有多个资源位置，按照添加的顺序查找</p>
+ * <p>没有添加任何资源位置时不处理静态资源，找不到handler的请求仍然交给默认servlet处理</p>
+ *
+ * @see StaticResourceHandler
+ */
+public class StaticResourceConfiguration {
+    private final Map<String, List<String>> locations = new LinkedHashMap<>();
+
+    private int cacheMaxFileSize = 128 * 1024;
+
+    private long cacheMaximumSize = 32 * 1024 * 1024;
+
+    private long checkInterval = 2000;
+
+    private String cacheControl = "no-cache";
+
+    private long fingerprintMaxAge = 365L * 24 * 60 * 60;
+
+    /**
+     * @param pathPrefix 地址前缀，比如/static/，不包含上下文路径
+     * @param locations  资源所在的目录
+     * @return 配置对象本身
+     */
+    public StaticResourceConfiguration addResourceLocations(String pathPrefix, String... locations) {
+        String prefix = pathPrefix.startsWith("/") ? pathPrefix : "/" + pathPrefix;
+        prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        Collections.addAll(this.locations.computeIfAbsent(prefix, k -> new ArrayList<>()), locations);
+        return this;
+    }
+
+    public Map<String, List<String>> getLocations() {
+        return locations;
+    }
+
+    public boolean isEnabled() {
+        return !locations.isEmpty();
+    }
+
+    /**
+     * @param cacheMaxFileSize 不超过此字节数的文件内容(以及它的gzip压缩版本)缓存在内存中，更大的文件使用内存映射
+     * @return 配置对象本身
+     */
+    public StaticResourceConfiguration cacheMaxFileSize(int cacheMaxFileSize) {
+        this.cacheMaxFileSize = cacheMaxFileSize;
+        return this;
+    }
+
+    public int getCacheMaxFileSize() {
+        return cacheMaxFileSize;
+    }
+
+    /**
+     * @param cacheMaximumSize 缓存在内存中的文件内容总字节数上限，超出时按照最近最少使用淘汰
+     * @return 配置对象本身
+     */
+    public StaticResourceConfiguration cacheMaximumSize(long cacheMaximumSize) {
+        this.cacheMaximumSize = cacheMaximumSize;
+        return this;
+    }
+
+    public long getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+
+    /**
+     * @param checkInterval 检查缓存的文件是否被修改的间隔毫秒数，0表示每次请求都检查，小于0表示从不检查(文件不会变化的生产环境)
+     * @return 配置对象本身
+     */
+    public StaticResourceConfiguration checkInterval(long checkInterval) {
+        this.checkInterval = checkInterval;
+        return this;
+    }
+
+    public long getCheckInterval() {
+        return checkInterval;
+    }
+
+    /**
+     * @param cacheControl 普通地址的Cache-Control响应头，默认是no-cache，也就是每次都用ETag向服务端确认
+     * @return 配置对象本身
+     */
+    public StaticResourceConfiguration cacheControl(String cacheControl) {
+        this.cacheControl = cacheControl;
+        return this;
+    }
+
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * @param fingerprintMaxAge 带有内容摘要的地址的缓存秒数，默认是一年，内容变化时地址也会变化，所以可以一直缓存
+     * @return 配置对象本身
+     */
+    public StaticResourceConfiguration fingerprintMaxAge(long fingerprintMaxAge) {
+        this.fingerprintMaxAge = fingerprintMaxAge;
+        return this;
+    }
+
+    public long getFingerprintMaxAge() {
+        return fingerprintMaxAge;
+    }
+
+    public static StaticResourceConfiguration defaultInstance() {
+        return new StaticResourceConfiguration();
+    }
+}
@@ -0,0 +1,302 @@
+package com.nf.mvc.resource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nf.mvc.compression.CompressionConfiguration;
+import com.nf.mvc.compression.ContentEncoding;
+import com.nf.mvc.support.HttpHeaders;
+import com.nf.mvc.support.HttpMethod;
+import com.nf.mvc.util.FileUtils;
+import com.nf.mvc.util.HttpCacheUtils;
+import com.nf.mvc.util.LogUtils;
+import com.nf.mvc.write.ChunkSource;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 静态资源的处理者，DispatcherServlet在service方法中发现请求地址以配置的前缀开头时直接交给它处理，
+ * 不再查找handler，也不再转发给默认servlet
+ * <h3>缓存</h3>
+ * <p>找到的文件以"前缀+相对路径"为key缓存，小文件的内容与gzip压缩版本在内存中，大文件是内存映射，详见{@link StaticResource}，
+ * 缓存按照{@link StaticResourceConfiguration#getCheckInterval()}检查文件是否被修改，被修改或删除的文件会重新加载</p>
+ * <h3>带摘要的地址</h3>
+ * <p>{@link #getFingerprintedUrl(String)}把/static/app.js变为/static/app.0123456789abcdef.js，中间是内容的摘要，
+ * 请求这样的地址时去掉摘要找到文件，摘要与内容一致才响应，并且设置很长的缓存时间与immutable，
+ * 内容变化之后摘要随之变化，页面引用的是新地址，所以浏览器可以一直使用缓存而不用再确认。
+ * 普通地址的缓存策略见{@link StaticResourceConfiguration#getCacheControl()}</p>
+ * <h3>压缩</h3>
+ * <p>内容类型在{@link CompressionConfiguration#getMimeTypes()}中的小文件加载时就压缩好，与是否开启动态压缩无关，
+ * 请求端支持gzip时直接响应压缩的版本</p>
+ * <p>只支持GET与HEAD请求，不支持Range请求</p>
+ *
+ * @see StaticResourceConfiguration
+ */
+public class StaticResourceHandler {
+    /**
+     * 处理者保存在ServletContext中的属性名，页面生成带摘要的地址时可以通过{@link #get(ServletContext)}获取
+     */
+    public static final String STATIC_RESOURCE_HANDLER_ATTRIBUTE = StaticResourceHandler.class.getName();
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final Pattern FINGERPRINTED = Pattern.compile("^(.+)\\.([0-9a-f]{" + StaticResource.HASH_LENGTH + "})(\\.[^./]+)$");
+
+    private final StaticResourceConfiguration configuration;
+    private final CompressionConfiguration compressionConfiguration;
+    private final ServletContext servletContext;
+    private final List<ResourceMapping> mappings = new ArrayList<>();
+    private final Cache<String, StaticResource> cache;
+    private final String immutableCacheControl;
+
+    public StaticResourceHandler(StaticResourceConfiguration configuration, CompressionConfiguration compressionConfiguration,
+                                 ServletContext servletContext) {
+        this.configuration = configuration;
+        this.compressionConfiguration = compressionConfiguration;
+        this.servletContext = servletContext;
+        this.immutableCacheControl = "public, max-age=" + configuration.getFingerprintMaxAge() + ", immutable";
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(configuration.getCacheMaximumSize())
+                .<String, StaticResource>weigher((key, resource) -> resource.getWeight())
+                .build();
+        for (Map.Entry<String, List<String>> entry : configuration.getLocations().entrySet()) {
+            List<Path> roots = new ArrayList<>();
+            for (String location : entry.getValue()) {
+                Path root = resolveLocation(location);
+                if (root == null) {
+                    LogUtils.warn("静态资源位置不存在,已忽略:" + location);
+                } else {
+                    roots.add(root);
+                }
+            }
+            mappings.add(new ResourceMapping(entry.getKey(), roots));
+        }
+        // 长的前缀优先匹配
+        mappings.sort((a, b) -> b.prefix.length() - a.prefix.length());
+    }
+
+    private static Path resolveLocation(String location) {
+        if (!location.startsWith(CLASSPATH_PREFIX)) {
+            Path root = Paths.get(location).toAbsolutePath().normalize();
+            return Files.isDirectory(root) ? root : null;
+        }
+        String name = location.substring(CLASSPATH_PREFIX.length());
+        name = name.startsWith("/") ? name.substring(1) : name;
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        URL url = classLoader == null ? null : classLoader.getResource(name);
+        if (url == null) {
+            return null;
+        }
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                // jar中的目录需要先打开jar的文件系统才能得到Path
+                try {
+                    FileSystems.newFileSystem(uri, Collections.emptyMap());
+                } catch (FileSystemAlreadyExistsException ignored) {
+                    // 已经打开过了
+                }
+            }
+            return Paths.get(uri);
+        } catch (URISyntaxException | IOException | FileSystemNotFoundException e) {
+            LogUtils.warn("无法打开静态资源位置:" + location, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param path 不包含上下文路径的请求地址
+     * @return 地址是否以某个配置的前缀开头
+     */
+    public boolean matches(String path) {
+        return getMapping(path) != null;
+    }
+
+    private ResourceMapping getMapping(String path) {
+        for (ResourceMapping mapping : mappings) {
+            if (path.startsWith(mapping.prefix)) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 处理静态资源请求，设置好状态码与响应头，响应体交给调用者写出
+     *
+     * @param path 不包含上下文路径的请求地址，必须是{@link #matches(String)}返回true的地址
+     * @param req  请求对象
+     * @param resp 响应对象
+     * @return 响应体的来源，为null表示不需要写出响应体(HEAD请求、304、404等)
+     * @throws IOException 读取文件或者响应错误时抛出
+     */
+    public ChunkSource handle(String path, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        boolean head = HttpMethod.HEAD.matches(req.getMethod());
+        if (!head && !HttpMethod.GET.matches(req.getMethod())) {
+            resp.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return null;
+        }
+        ResourceMapping mapping = getMapping(path);
+        String relativePath = decode(path.substring(mapping.prefix.length()));
+        StaticResource resource = relativePath == null ? null : getResource(mapping, relativePath);
+        boolean fingerprinted = false;
+        if (resource == null && relativePath != null) {
+            Matcher matcher = FINGERPRINTED.matcher(relativePath);
+            if (matcher.matches()) {
+                resource = getResource(mapping, matcher.group(1) + matcher.group(3));
+                // 摘要不一致说明引用的是旧的内容，不能把新内容当作它永久缓存
+                fingerprinted = resource != null && resource.getHash().equals(matcher.group(2));
+                resource = fingerprinted ? resource : null;
+            }
+        }
+        if (resource == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return null;
+        }
+
+        boolean gzip = resource.hasGzip()
+                && ContentEncoding.negotiate(req.getHeader(HttpHeaders.ACCEPT_ENCODING)) == ContentEncoding.GZIP;
+        if (resource.hasGzip()) {
+            resp.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        resp.setHeader(HttpHeaders.CACHE_CONTROL, fingerprinted ? immutableCacheControl : configuration.getCacheControl());
+        if (HttpCacheUtils.checkNotModified(req, resp, resource.getETag(gzip), resource.getLastModified())) {
+            return null;
+        }
+        resp.setContentType(resource.getMediaType());
+        if (gzip) {
+            resp.setHeader(HttpHeaders.CONTENT_ENCODING, ContentEncoding.GZIP.getValue());
+        }
+        resp.setContentLengthLong(resource.getContentLength(gzip));
+        return head ? null : resource.getBody(gzip);
+    }
+
+    /**
+     * 生成带有内容摘要的地址，页面中引用静态资源时使用，比如/static/app.js变为/static/app.0123456789abcdef.js
+     *
+     * @param path 不包含上下文路径的资源地址
+     * @return 带摘要的地址，不是静态资源、找不到文件或者文件名没有扩展名时原样返回
+     */
+    public String getFingerprintedUrl(String path) {
+        ResourceMapping mapping = getMapping(path);
+        int dot = path.lastIndexOf('.');
+        if (mapping == null || dot <= path.lastIndexOf('/')) {
+            return path;
+        }
+        String relativePath = decode(path.substring(mapping.prefix.length()));
+        try {
+            StaticResource resource = relativePath == null ? null : getResource(mapping, relativePath);
+            return resource == null ? path : path.substring(0, dot) + "." + resource.getHash() + path.substring(dot);
+        } catch (IOException e) {
+            return path;
+        }
+    }
+
+    private StaticResource getResource(ResourceMapping mapping, String relativePath) throws IOException {
+        String key = mapping.prefix + relativePath;
+        StaticResource resource = cache.getIfPresent(key);
+        if (resource != null && resource.shouldCheck(configuration.getCheckInterval()) && resource.isModified()) {
+            cache.invalidate(key);
+            resource = null;
+        }
+        if (resource != null) {
+            return resource;
+        }
+        try {
+            // 找不到的文件返回null，caffeine不会缓存null
+            return cache.get(key, k -> load(mapping, relativePath));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private StaticResource load(ResourceMapping mapping, String relativePath) {
+        for (Path root : mapping.roots) {
+            Path file;
+            try {
+                file = root.resolve(relativePath).normalize();
+            } catch (InvalidPathException e) {
+                // 文件名中有当前文件系统编码不支持的字符
+                continue;
+            }
+            // 防止用../访问资源目录之外的文件
+            if (!file.startsWith(root)) {
+                continue;
+            }
+            try {
+                String mediaType = getMediaType(file);
+                StaticResource resource = StaticResource.load(file, mediaType, configuration.getCacheMaxFileSize(),
+                        compressionConfiguration.isCompressible(mediaType));
+                if (resource != null) {
+                    return resource;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return null;
+    }
+
+    private String getMediaType(Path file) {
+        String filename = file.getFileName().toString();
+        String mediaType = servletContext.getMimeType(filename);
+        return mediaType == null ? FileUtils.getMediaType(filename) : mediaType;
+    }
+
+    /**
+     * 请求地址中的中文、空格等是编码过的，需要解码才能对应到文件名，加号在路径中不表示空格
+     *
+     * @return 解码之后的相对路径，包含反斜杠或空字符等不合法的内容时返回null
+     */
+    private static String decode(String relativePath) {
+        String decoded;
+        try {
+            decoded = URLDecoder.decode(relativePath.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return null;
+        }
+        if (decoded.isEmpty() || decoded.indexOf('\\') >= 0 || decoded.indexOf('\0') >= 0 || decoded.startsWith("/")) {
+            return null;
+        }
+        return decoded;
+    }
+
+    public long getCachedCount() {
+        return cache.estimatedSize();
+    }
+
+    public static StaticResourceHandler get(ServletContext servletContext) {
+        return (StaticResourceHandler) servletContext.getAttribute(STATIC_RESOURCE_HANDLER_ATTRIBUTE);
+    }
+
+    private static class ResourceMapping {
+        private final String prefix;
+        private final List<Path> roots;
+
+        ResourceMapping(String prefix, List<Path> roots) {
+            this.prefix = prefix;
+            this.roots = roots;
+        }
+    }
+}
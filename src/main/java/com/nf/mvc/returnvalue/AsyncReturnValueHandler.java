@@ -0,0 +1,53 @@
+package com.nf.mvc.returnvalue;
+
+import com.nf.mvc.ReturnValueHandler;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.async.AsyncViewResult;
+import com.nf.mvc.async.DeferredResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 处理返回类型是CompletionStage(比如CompletableFuture)、Callable与{@link DeferredResult}的handler方法，
+ * 返回值被适配为{@link AsyncViewResult}，由DispatcherServlet进行异步处理
+ * <p>异步结果出来之后，会再交给返回值处理器去处理，此时是依据返回类型的泛型参数选择处理器的，
+ * 比如CompletableFuture&lt;Product&gt;就会用处理Product类型的处理器，见{@link ReturnValueHandlerComposite#handleAsyncResult(Object, Method, HttpServletRequest)}</p>
+ */
+public class AsyncReturnValueHandler implements ReturnValueHandler {
+    private volatile ReturnValueHandlerComposite resultHandlers;
+
+    public AsyncReturnValueHandler() {
+    }
+
+    /**
+     * @param resultHandlers 处理异步结果的处理器组合，不指定时第一次使用时用{@link ReturnValueHandlerComposite#defaultInstance()}
+     */
+    public AsyncReturnValueHandler(ReturnValueHandlerComposite resultHandlers) {
+        this.resultHandlers = resultHandlers;
+    }
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return CompletionStage.class.isAssignableFrom(returnType)
+                || Callable.class.isAssignableFrom(returnType)
+                || DeferredResult.class.isAssignableFrom(returnType);
+    }
+
+    @Override
+    public ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) {
+        return new AsyncViewResult(returnValue, method, this::adaptResult);
+    }
+
+    private ViewResult adaptResult(Object result, Method method, HttpServletRequest request) throws Exception {
+        ReturnValueHandlerComposite handlers = this.resultHandlers;
+        if (handlers == null) {
+            // 框架的返回值处理器在此处理器实例化之后才全部初始化完毕，所以延迟到第一次使用时再获取
+            handlers = ReturnValueHandlerComposite.defaultInstance();
+            this.resultHandlers = handlers;
+        }
+        return handlers.handleAsyncResult(result, method, request);
+    }
+}
@@ -0,0 +1,29 @@
+package com.nf.mvc.returnvalue;
+
+import com.nf.mvc.ReturnValueHandler;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.util.StreamUtils;
+import com.nf.mvc.view.BytesViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * 处理返回类型是byte[]或ByteBuffer的handler方法，以application/octet-stream响应，
+ * 内容长度是已知的，所以会设置Content-Length并一次写出
+ */
+public class BytesReturnValueHandler implements ReturnValueHandler {
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return returnType == byte[].class || ByteBuffer.class.isAssignableFrom(returnType);
+    }
+
+    @Override
+    public ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) {
+        if (returnValue instanceof byte[]) {
+            return new BytesViewResult((byte[]) returnValue);
+        }
+        return new BytesViewResult((ByteBuffer) returnValue, StreamUtils.APPLICATION_OCTET_STREAM_VALUE);
+    }
+}
@@ -0,0 +1,27 @@
+package com.nf.mvc.returnvalue;
+
+import com.nf.mvc.ReturnValueHandler;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.util.ClassUtils;
+import com.nf.mvc.view.BytesViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+
+/**
+ * 处理返回类型是CharSequence(比如String)或简单类型(比如int,Integer,枚举等)的handler方法，
+ * 返回值的字符串表示编码为UTF-8之后以text/plain响应，见{@link BytesViewResult#plain(CharSequence)}
+ *
+ * @see ClassUtils#isSimpleType(Class)
+ */
+public class PlainTextReturnValueHandler implements ReturnValueHandler {
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return CharSequence.class.isAssignableFrom(returnType) || ClassUtils.isSimpleType(returnType);
+    }
+
+    @Override
+    public ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) {
+        return BytesViewResult.plain(returnValue.toString());
+    }
+}
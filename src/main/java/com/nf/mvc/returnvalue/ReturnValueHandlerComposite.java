@@ -0,0 +1,175 @@
+package com.nf.mvc.returnvalue;
+
+import com.nf.mvc.MvcContext;
+import com.nf.mvc.ReturnValueHandler;
+import com.nf.mvc.ViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 返回值处理器的组合，其写法与{@link com.nf.mvc.argument.MethodArgumentResolverComposite}是一样的
+ * <h3>缓存</h3>
+ * <p>handler方法的返回类型是固定的，所以第一次处理某个方法的返回值时就依据其声明的返回类型找到处理器，
+ * 并以方法为key缓存起来，之后同一个方法的请求直接从缓存中获取处理器，不需要再遍历处理器链。</p>
+ * <p>方法声明的返回类型是Object时，无法在选择处理器时确定返回值的类型，此时就用返回值的实际类型去选择处理器，
+ * 并以实际类型为key缓存起来</p>
+ * <p>异步返回值(比如CompletableFuture&lt;Product&gt;)的结果是依据方法返回类型的泛型参数选择处理器的，同样每个方法只选择一次，
+ * 见{@link #handleAsyncResult(Object, Method, HttpServletRequest)}</p>
+ * <h3>兜底逻辑</h3>
+ * <p>返回值为null或者没有处理器能处理时，交给{@link ViewResult#adaptHandlerResult(Object)}去适配</p>
+ *
+ * @see ReturnValueHandler
+ * @see com.nf.mvc.adapter.RequestMappingHandlerAdapter
+ */
+public class ReturnValueHandlerComposite implements ReturnValueHandler {
+    /**
+     * 在缓存中表示没有处理器可以处理，因为ConcurrentHashMap不能放置null值
+     */
+    private static final ReturnValueHandler NO_HANDLER = new ViewResultReturnValueHandler();
+    /**
+     * 在方法缓存中表示此方法需要依据返回值的实际类型选择处理器
+     */
+    private static final ReturnValueHandler BY_RUNTIME_TYPE = new ViewResultReturnValueHandler();
+
+    private final List<ReturnValueHandler> returnValueHandlers = new ArrayList<>();
+    private final Map<Method, ReturnValueHandler> methodCache = new ConcurrentHashMap<>(64);
+    private final Map<Method, ReturnValueHandler> asyncMethodCache = new ConcurrentHashMap<>(16);
+    private final Map<Class<?>, ReturnValueHandler> typeCache = new ConcurrentHashMap<>(16);
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return getReturnValueHandler(returnType) != NO_HANDLER;
+    }
+
+    @Override
+    public ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) throws Exception {
+        return handle(returnValue, method, request, methodCache, method.getReturnType());
+    }
+
+    /**
+     * 处理异步返回值的结果，比如方法返回CompletableFuture&lt;Product&gt;时，这里处理的是Product对象
+     *
+     * @param result  异步返回值的结果
+     * @param method  handler方法
+     * @param request 请求对象
+     * @return 视图结果
+     * @throws Exception 处理时的异常
+     */
+    public ViewResult handleAsyncResult(Object result, Method method, HttpServletRequest request) throws Exception {
+        return handle(result, method, request, asyncMethodCache, null);
+    }
+
+    private ViewResult handle(Object returnValue, Method method, HttpServletRequest request,
+                              Map<Method, ReturnValueHandler> cache, Class<?> declaredType) throws Exception {
+        if (returnValue instanceof ViewResult) {
+            return (ViewResult) returnValue;
+        }
+        if (returnValue == null) {
+            return ViewResult.adaptHandlerResult(null);
+        }
+        ReturnValueHandler handler = cache.get(method);
+        if (handler == null) {
+            Class<?> type = declaredType != null ? declaredType : getAsyncResultType(method);
+            handler = type == Object.class ? BY_RUNTIME_TYPE : getReturnValueHandler(type);
+            cache.put(method, handler);
+        }
+        if (handler == BY_RUNTIME_TYPE) {
+            handler = getReturnValueHandler(returnValue.getClass());
+        }
+        if (handler == NO_HANDLER) {
+            return ViewResult.adaptHandlerResult(returnValue);
+        }
+        return handler.handleReturnValue(returnValue, method, request);
+    }
+
+    /**
+     * @return 返回类型的第一个泛型参数，无法确定时(比如没有泛型参数或是类型变量)返回Object.class
+     */
+    private static Class<?> getAsyncResultType(Method method) {
+        Type genericType = method.getGenericReturnType();
+        if (genericType instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+            if (argument instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) argument).getRawType();
+            }
+        }
+        return Object.class;
+    }
+
+    private ReturnValueHandler getReturnValueHandler(Class<?> returnType) {
+        ReturnValueHandler result = typeCache.get(returnType);
+        if (result == null) {
+            result = NO_HANDLER;
+            for (ReturnValueHandler returnValueHandler : returnValueHandlers) {
+                if (returnValueHandler.supports(returnType)) {
+                    result = returnValueHandler;
+                    break;
+                }
+            }
+            typeCache.put(returnType, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return 包含mvc框架内提供的处理器与用户提供的定制处理器的实例
+     */
+    public static ReturnValueHandlerComposite defaultInstance() {
+        return new ReturnValueHandlerComposite()
+                .addHandlers(MvcContext.getMvcContext().getReturnValueHandlers());
+    }
+
+    public ReturnValueHandlerComposite addHandler(ReturnValueHandler handler) {
+        returnValueHandlers.add(handler);
+        return this;
+    }
+
+    public ReturnValueHandlerComposite addHandlers(ReturnValueHandler... handlers) {
+        if (handlers != null) {
+            Collections.addAll(this.returnValueHandlers, handlers);
+        }
+        return this;
+    }
+
+    public ReturnValueHandlerComposite addHandlers(List<ReturnValueHandler> handlers) {
+        if (handlers != null) {
+            this.returnValueHandlers.addAll(handlers);
+        }
+        return this;
+    }
+
+    public ReturnValueHandlerComposite insertHandler(ReturnValueHandler handler) {
+        returnValueHandlers.add(0, handler);
+        return this;
+    }
+
+    public ReturnValueHandlerComposite insertHandlers(ReturnValueHandler... handlers) {
+        if (handlers != null) {
+            returnValueHandlers.addAll(0, Arrays.asList(handlers));
+        }
+        return this;
+    }
+
+    public List<ReturnValueHandler> getHandlers() {
+        return Collections.unmodifiableList(this.returnValueHandlers);
+    }
+
+    public void clear() {
+        this.returnValueHandlers.clear();
+        this.methodCache.clear();
+        this.asyncMethodCache.clear();
+        this.typeCache.clear();
+    }
+}
@@ -0,0 +1,106 @@
+package com.nf.mvc.returnvalue;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.nf.mvc.util.JacksonUtils;
+
+import java.util.Locale;
+
+/**
+ * 返回值序列化支持的格式，cbor与smile两种二进制格式需要项目中有对应的jackson-dataformat依赖才可用，
+ * 它们的ObjectMapper是由{@link JacksonUtils#getObjectMapper()}复制而来的，所以日期格式等设置与json是一致的
+ *
+ * @see SerializingReturnValueHandler
+ */
+public enum SerializationFormat {
+    JSON("application/json", "application/json;charset=UTF-8", null),
+    CBOR("application/cbor", "application/cbor", "com.fasterxml.jackson.dataformat.cbor.CBORFactory"),
+    SMILE("application/x-jackson-smile", "application/x-jackson-smile", "com.fasterxml.jackson.dataformat.smile.SmileFactory");
+
+    private final String mediaType;
+    private final String contentType;
+    private final boolean available;
+    private volatile ObjectMapper objectMapper;
+
+    SerializationFormat(String mediaType, String contentType, String factoryClassName) {
+        this.mediaType = mediaType;
+        this.contentType = contentType;
+        this.available = factoryClassName == null || isPresent(factoryClassName);
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return 对应的jackson-dataformat依赖是否在类路径中
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        ObjectMapper mapper = this.objectMapper;
+        if (mapper == null) {
+            // 重复创建也没有关系，所以这里没有加锁
+            mapper = createObjectMapper();
+            this.objectMapper = mapper;
+        }
+        return mapper;
+    }
+
+    private ObjectMapper createObjectMapper() {
+        if (!available) {
+            throw new IllegalStateException("类路径中没有" + name().toLowerCase(Locale.ENGLISH) + "格式的jackson依赖");
+        }
+        switch (this) {
+            case CBOR:
+                return JacksonUtils.getObjectMapper().copyWith(BinaryFactories.cbor());
+            case SMILE:
+                return JacksonUtils.getObjectMapper().copyWith(BinaryFactories.smile());
+            default:
+                return JacksonUtils.getObjectMapper();
+        }
+    }
+
+    /**
+     * @param mediaType 不带参数的媒体类型，比如application/cbor
+     * @return 对应的格式，没有时返回null
+     */
+    public static SerializationFormat fromMediaType(String mediaType) {
+        for (SerializationFormat format : values()) {
+            if (format.mediaType.equalsIgnoreCase(mediaType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, SerializationFormat.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 可选依赖里的类只在这个内部类里引用，此类只有在格式可用时才会被加载，所以依赖不存在时不会出现NoClassDefFoundError
+     */
+    private static class BinaryFactories {
+        static JsonFactory cbor() {
+            return new CBORFactory();
+        }
+
+        static JsonFactory smile() {
+            return new SmileFactory();
+        }
+    }
+}
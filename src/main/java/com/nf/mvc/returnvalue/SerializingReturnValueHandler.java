@@ -0,0 +1,125 @@
+package com.nf.mvc.returnvalue;
+
+import com.nf.mvc.ReturnValueHandler;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.support.HttpHeaders;
+import com.nf.mvc.view.SerializedViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 处理其它处理器都不能处理的返回类型，通常是pojo、集合、Map以及数组，返回值会被序列化之后响应
+ * <h3>内容协商</h3>
+ * <p>依据请求头Accept在可用的格式({@link SerializationFormat})中选择一个，选择规则是:
+ * <ul>
+ *     <li>没有Accept请求头或者是*&#47;*、application/*时用json</li>
+ *     <li>按照q值从高到低找到第一个可用的格式</li>
+ *     <li>找不到可用的格式时也用json，而不是响应406</li>
+ * </ul>
+ * </p>
+ * <p>同一个地址的请求，其Accept请求头的值通常只有很少的几种，所以协商的结果是按照handler方法缓存的，
+ * 每个方法下再以Accept请求头的原始值为key缓存，这样解析Accept请求头的工作只在第一次遇到时做一次。
+ * 为了防止恶意构造的Accept请求头撑大缓存，每个方法最多缓存{@link #MAX_CACHED_ACCEPT_PER_ROUTE}个协商结果，超出的部分每次都重新协商</p>
+ *
+ * @see SerializationFormat
+ * @see SerializedViewResult
+ */
+public class SerializingReturnValueHandler implements ReturnValueHandler {
+    public static final int MAX_CACHED_ACCEPT_PER_ROUTE = 16;
+
+    private final List<SerializationFormat> formats = new ArrayList<>();
+    private final Map<Method, Map<String, SerializationFormat>> routeCache = new ConcurrentHashMap<>(64);
+
+    public SerializingReturnValueHandler() {
+        this(SerializationFormat.values());
+    }
+
+    /**
+     * @param formats 允许的格式，第一个是默认格式，类路径中没有对应依赖的格式会被忽略
+     */
+    public SerializingReturnValueHandler(SerializationFormat... formats) {
+        for (SerializationFormat format : formats) {
+            if (format.isAvailable()) {
+                this.formats.add(format);
+            }
+        }
+        if (this.formats.isEmpty()) {
+            this.formats.add(SerializationFormat.JSON);
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return returnType != void.class && returnType != Void.class;
+    }
+
+    @Override
+    public ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) {
+        SerializationFormat format = negotiate(method, request.getHeader(HttpHeaders.ACCEPT));
+        return new SerializedViewResult(returnValue, format.getObjectMapper(), format.getContentType(), formats.size() > 1);
+    }
+
+    public List<SerializationFormat> getFormats() {
+        return Collections.unmodifiableList(formats);
+    }
+
+    protected SerializationFormat negotiate(Method method, String accept) {
+        if (accept == null || accept.isEmpty() || formats.size() == 1) {
+            return formats.get(0);
+        }
+        Map<String, SerializationFormat> negotiated = routeCache.get(method);
+        if (negotiated == null) {
+            negotiated = routeCache.computeIfAbsent(method, m -> new ConcurrentHashMap<>(4));
+        }
+        SerializationFormat format = negotiated.get(accept);
+        if (format == null) {
+            format = negotiate(accept);
+            if (negotiated.size() < MAX_CACHED_ACCEPT_PER_ROUTE) {
+                negotiated.put(accept, format);
+            }
+        }
+        return format;
+    }
+
+    private SerializationFormat negotiate(String accept) {
+        SerializationFormat best = null;
+        double bestQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            String mediaType = parts[0].trim().toLowerCase(Locale.ENGLISH);
+            double quality = getQuality(parts);
+            // 相同q值时先出现的优先，所以这里用大于而不是大于等于
+            if (quality <= bestQuality) {
+                continue;
+            }
+            SerializationFormat format = "*/*".equals(mediaType) || "application/*".equals(mediaType)
+                    ? formats.get(0) : SerializationFormat.fromMediaType(mediaType);
+            if (format != null && formats.contains(format)) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return best == null ? formats.get(0) : best;
+    }
+
+    private static double getQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,39 @@
+package com.nf.mvc.returnvalue;
+
+import com.nf.mvc.ReturnValueHandler;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.view.FileViewResult;
+import com.nf.mvc.view.StreamViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+
+/**
+ * 处理返回类型是InputStream、Path或File的handler方法，内容以流的方式边读边写出，不会整个读入内存
+ * <ul>
+ *     <li>InputStream：适配为{@link StreamViewResult}</li>
+ *     <li>Path与File：适配为{@link FileViewResult}，因而也支持条件请求与预压缩文件</li>
+ * </ul>
+ */
+public class StreamingReturnValueHandler implements ReturnValueHandler {
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return InputStream.class.isAssignableFrom(returnType)
+                || Path.class.isAssignableFrom(returnType)
+                || File.class.isAssignableFrom(returnType);
+    }
+
+    @Override
+    public ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) {
+        if (returnValue instanceof InputStream) {
+            return new StreamViewResult((InputStream) returnValue);
+        }
+        if (returnValue instanceof Path) {
+            return new FileViewResult(((Path) returnValue).toAbsolutePath().toString());
+        }
+        return new FileViewResult(((File) returnValue).getAbsolutePath());
+    }
+}
@@ -0,0 +1,22 @@
+package com.nf.mvc.returnvalue;
+
+import com.nf.mvc.ReturnValueHandler;
+import com.nf.mvc.ViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+
+/**
+ * 处理返回类型是ViewResult或void的handler方法，ViewResult原样返回，void(反射调用的结果是null)适配为{@link com.nf.mvc.view.VoidViewResult}
+ */
+public class ViewResultReturnValueHandler implements ReturnValueHandler {
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return ViewResult.class.isAssignableFrom(returnType) || returnType == void.class || returnType == Void.class;
+    }
+
+    @Override
+    public ViewResult handleReturnValue(Object returnValue, Method method, HttpServletRequest request) {
+        return ViewResult.adaptHandlerResult(returnValue);
+    }
+}
@@ -0,0 +1,68 @@
+package com.nf.mvc.support;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定大小的ByteBuffer池，与{@link com.nf.mvc.compression.DeflaterPool}的思路一样，
+ * 直接内存(direct)的ByteBuffer分配与回收的代价比堆内存大得多，而且只有在gc回收了ByteBuffer对象之后才会释放，
+ * 所以用完之后放回池中复用
+ * <p>池中最多保存maxPooled个对象，超出的部分直接丢弃，由gc回收；池是无锁的，借出与归还都只是一次cas</p>
+ */
+public class ByteBufferPool {
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final int bufferSize;
+    private final int maxPooled;
+    private final boolean direct;
+
+    /**
+     * @param bufferSize 每个ByteBuffer的容量
+     * @param maxPooled  池中最多保存的数量
+     * @param direct     是否是直接内存
+     */
+    public ByteBufferPool(int bufferSize, int maxPooled, boolean direct) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.direct = direct;
+    }
+
+    /**
+     * @return 一个已经clear过的ByteBuffer，用完之后调用{@link #release(ByteBuffer)}归还
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        }
+        pooledCount.decrementAndGet();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || buffer.isDirect() != direct) {
+            return;
+        }
+        // 转换为Buffer再调用，否则用jdk9以上编译时会链接到ByteBuffer新增的重载方法，在jdk8中运行会找不到方法
+        ((Buffer) buffer).clear();
+        if (pooledCount.incrementAndGet() <= maxPooled) {
+            buffers.offer(buffer);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return 当前池中空闲的数量
+     */
+    public int getPooledCount() {
+        return pooledCount.get();
+    }
+}
@@ -1,6 +1,7 @@
 package com.nf.mvc.support;
 
 
+import com.nf.mvc.ServletExchange;
 import com.nf.mvc.argument.MethodArgumentResolverComposite;
 import com.nf.mvc.argument.MethodParameter;
 import com.nf.mvc.util.ReflectionUtils;
@@ -41,6 +42,29 @@ public class MethodInvoker {
      * @throws Exception 反射调用方法时可能抛出的异常
      */
     public Object invoke(Object instance, Method method, HttpServletRequest request) throws Exception {
+        return invoke(instance, method, ServletExchange.from(request));
+    }
+
+    /**
+     * 与{@link #invoke(Object, Method, HttpServletRequest)}一样，只是直接使用请求处理开始时创建的交互对象
+     * @param instance:实例方法所属的对象,静态方法传递null
+     * @param method:要调用的方法
+     * @param exchange:当前请求的交互对象
+     * @return 方法执行之后的结果，void签名的方法反射调用后返回值为null
+     * @throws Exception 反射调用方法时可能抛出的异常
+     */
+    public Object invoke(Object instance, Method method, ServletExchange exchange) throws Exception {
+        return method.invoke(instance, resolveArguments(method, exchange));
+    }
+
+    /**
+     * 只解析参数，不调用方法，需要分别统计参数解析与方法执行耗时的地方先调用此方法，再自己反射调用
+     * @param method:要调用的方法
+     * @param exchange:当前请求的交互对象
+     * @return 方法的参数值
+     * @throws Exception 参数解析器抛出的异常
+     */
+    public Object[] resolveArguments(Method method, ServletExchange exchange) throws Exception {
         List<String> paramNames = ReflectionUtils.getParameterNames(method);
         int paramCount = method.getParameterCount();
         Object[] paramValues = new Object[paramCount];
@@ -48,8 +72,8 @@ public class MethodInvoker {
         for (int i = 0; i < paramCount; i++) {
             String paramName = paramNames.get(i);
             MethodParameter methodParameter = new MethodParameter(method, i, paramName);
-            paramValues[i] = resolvers.resolveArgument(methodParameter,request) ;
+            paramValues[i] = resolvers.resolveArgument(methodParameter,exchange) ;
         }
-        return method.invoke(instance, paramValues);
+        return paramValues;
     }
 }
@@ -1,9 +1,12 @@
 package com.nf.mvc.support.path;
 
 import java.util.Comparator;
+import java.util.regex.Pattern;
 
 public class AntPatternComparator implements Comparator<String> {
 
+  private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{[^/]+?}");
+
   private final String path;
 
   public AntPatternComparator(String path) {
@@ -164,7 +167,14 @@ public class AntPatternComparator implements Comparator<String> {
       return this.uriVars + this.singleWildcards + (2 * this.doubleWildcards);
     }
 
+    /**
+     * Returns the length of the given pattern, where template variables are considered to be 1 long.
+     */
     public int getLength() {
+      if (this.length == null) {
+        this.length = (this.pattern != null ?
+            VARIABLE_PATTERN.matcher(this.pattern).replaceAll("#").length() : 0);
+      }
       return this.length;
     }
   }
@@ -0,0 +1,88 @@
+package com.nf.mvc.timeout;
+
+import com.nf.mvc.HandlerContext;
+import com.nf.mvc.ServletExchange;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求处理的截止时间，由{@link com.nf.mvc.DispatcherServlet}依据{@link Timeout}注解或{@link TimeoutConfiguration}创建，
+ * 保存在{@link ServletExchange#getDeadline()}中。handler调用下游服务(http、数据库等)时，应该把剩余的时间传递下去，
+ * 而不是使用一个固定的超时时间，比如:
+ * <pre class="code">
+ *     &#064;RequestMapping("/order")
+ *     &#064;Timeout(2000)
+ *     public Order order(Deadline deadline) {
+ *         connection.setReadTimeout((int) deadline.getRemainingMillis());
+ *         ...
+ *     }
+ * </pre>
+ * <p>没有handler参数可用的地方可以通过{@link #current()}获取，此对象是不可变的，可以在多个线程之间共享</p>
+ *
+ * @see Timeout
+ * @see RequestTimeoutException
+ */
+public final class Deadline {
+    private final long deadlineNanos;
+    private final long timeoutMillis;
+
+    private Deadline(long deadlineNanos, long timeoutMillis) {
+        this.deadlineNanos = deadlineNanos;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param timeoutMillis 从现在开始的毫秒数
+     * @return 新的截止时间
+     */
+    public static Deadline after(long timeoutMillis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), timeoutMillis);
+    }
+
+    /**
+     * @return 当前线程正在处理的请求的截止时间，没有时返回null
+     */
+    public static Deadline current() {
+        ServletExchange exchange = HandlerContext.getContext().getExchange();
+        return exchange == null ? null : exchange.getDeadline();
+    }
+
+    /**
+     * @param unit 时间单位
+     * @return 剩余的时间，已经过期时返回0
+     */
+    public long getRemaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    public long getRemainingMillis() {
+        return getRemaining(TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * handler执行长时间的循环时可以调用此方法，过期之后就不再继续执行
+     *
+     * @throws RequestTimeoutException 已经过期时抛出
+     */
+    public void checkExpired() {
+        if (isExpired()) {
+            throw new RequestTimeoutException(timeoutMillis);
+        }
+    }
+
+    /**
+     * @return 创建时指定的超时毫秒数
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remaining=" + getRemainingMillis() + "ms, timeout=" + timeoutMillis + "ms}";
+    }
+}
@@ -0,0 +1,20 @@
+package com.nf.mvc.timeout;
+
+/**
+ * 请求处理超过了截止时间时使用的异常，会交给异常解析器处理，没有异常解析器能处理时响应504
+ *
+ * @see Deadline
+ * @see com.nf.mvc.exception.TimeoutHandlerExceptionResolver
+ */
+public class RequestTimeoutException extends RuntimeException {
+    private final long timeoutMillis;
+
+    public RequestTimeoutException(long timeoutMillis) {
+        super("请求处理超过了" + timeoutMillis + "毫秒的截止时间");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
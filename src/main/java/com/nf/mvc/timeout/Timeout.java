@@ -0,0 +1,27 @@
+package com.nf.mvc.timeout;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定handler处理请求的超时毫秒数，修饰在类上对类中所有没有此注解的handler方法有效，
+ * 优先级高于{@link TimeoutConfiguration}中按地址与全局的设置
+ * <ul>
+ *     <li>异步handler超时之后会被取消(CompletableFuture以{@link RequestTimeoutException}异常完成，Callable的线程被中断)</li>
+ *     <li>同步handler无法被强制终止，只能通过{@link Deadline}主动检查剩余时间，
+ *     执行完毕时已经超时的话不再渲染结果，而是抛出{@link RequestTimeoutException}</li>
+ * </ul>
+ * 超时异常会交给异常解析器处理，没有用户的异常解析器处理时响应504
+ *
+ * @see Deadline
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timeout {
+    /**
+     * @return 超时毫秒数，0表示不限制，可以用来取消类上或全局的设置
+     */
+    long value();
+}
@@ -0,0 +1,56 @@
+package com.nf.mvc.timeout;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求处理超时的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureTimeout(TimeoutConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureTimeout(TimeoutConfiguration configuration) {
+ *         configuration.defaultTimeout(5000)
+ *                 .route("/report/**", 30000);
+ *     }
+ * </pre>
+ * <p>查找超时时间的顺序是：handler上的{@link Timeout}注解、按配置顺序第一个匹配的地址模式、全局的默认值，
+ * 默认值为0，表示不限制</p>
+ *
+ * @see Timeout
+ * @see Deadline
+ */
+public class TimeoutConfiguration {
+    private final Map<String, Long> routes = new LinkedHashMap<>();
+
+    private long defaultTimeout = 0;
+
+    /**
+     * @param defaultTimeout 全局的超时毫秒数，0表示不限制
+     * @return 配置对象本身
+     */
+    public TimeoutConfiguration defaultTimeout(long defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+        return this;
+    }
+
+    public long getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * @param pattern 地址模式，不包含上下文路径
+     * @param timeout 超时毫秒数，0表示不限制
+     * @return 配置对象本身
+     */
+    public TimeoutConfiguration route(String pattern, long timeout) {
+        routes.put(pattern, timeout);
+        return this;
+    }
+
+    public Map<String, Long> getRoutes() {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    public static TimeoutConfiguration defaultInstance() {
+        return new TimeoutConfiguration();
+    }
+}
@@ -0,0 +1,63 @@
+package com.nf.mvc.timeout;
+
+import com.nf.mvc.handler.HandlerMethod;
+import com.nf.mvc.support.PathMatcher;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 依据handler与请求地址确定请求的超时时间，handler方法上的注解在第一次请求时解析并缓存
+ *
+ * @see Timeout
+ * @see TimeoutConfiguration
+ */
+public class TimeoutResolver {
+    /**
+     * 缓存中表示方法没有{@link Timeout}注解的值
+     */
+    private static final long NOT_ANNOTATED = -1;
+
+    private final Map<String, Long> routes;
+    private final long defaultTimeout;
+    private final Map<Method, Long> methodTimeouts = new ConcurrentHashMap<>();
+    private final PathMatcher pathMatcher = PathMatcher.DEFAULT_PATH_MATCHER;
+
+    public TimeoutResolver(TimeoutConfiguration configuration) {
+        this.routes = configuration.getRoutes();
+        this.defaultTimeout = configuration.getDefaultTimeout();
+    }
+
+    /**
+     * @param handler 请求对应的handler
+     * @param path    不包含上下文路径的请求地址
+     * @return 超时毫秒数，0表示不限制
+     */
+    public long resolveTimeout(Object handler, String path) {
+        if (handler instanceof HandlerMethod) {
+            Method method = ((HandlerMethod) handler).getMethod();
+            Long timeout = methodTimeouts.get(method);
+            if (timeout == null) {
+                timeout = methodTimeouts.computeIfAbsent(method, TimeoutResolver::findAnnotatedTimeout);
+            }
+            if (timeout != NOT_ANNOTATED) {
+                return timeout;
+            }
+        }
+        for (Map.Entry<String, Long> entry : routes.entrySet()) {
+            if (pathMatcher.isMatch(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return defaultTimeout;
+    }
+
+    private static long findAnnotatedTimeout(Method method) {
+        Timeout timeout = method.getAnnotation(Timeout.class);
+        if (timeout == null) {
+            timeout = method.getDeclaringClass().getAnnotation(Timeout.class);
+        }
+        return timeout == null ? NOT_ANNOTATED : Math.max(0, timeout.value());
+    }
+}
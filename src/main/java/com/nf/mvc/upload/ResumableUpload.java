@@ -0,0 +1,225 @@
+package com.nf.mvc.upload;
+
+import com.nf.mvc.util.LogUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 一个可续传的上传，内容写在一个预先分配好长度的稀疏文件中
+ * <p>每个PATCH请求用FileChannel的按位置写入把内容写到自己的偏移量处，按位置写入不改变通道的位置，
+ * 所以多个连接可以同时上传同一个文件的不同部分，收到的范围记录在{@link UploadRanges}中，
+ * 范围覆盖了整个文件并且没有正在进行的写入时，把内容刷到磁盘，上传完成</p>
+ * <p>文件只在有PATCH请求正在写入时才打开，同时进行的写入共用一个通道，最后一个写入结束时关闭，
+ * 所以没有在上传的文件不占用文件描述符</p>
+ *
+ * @see ResumableUploadHandler
+ */
+public class ResumableUpload {
+    private final String id;
+    private final Path path;
+    private final long length;
+    private final Map<String, String> metadata;
+    private final UploadRanges ranges = new UploadRanges();
+    /**
+     * 正在写入时打开的通道，没有写入时为null
+     */
+    private FileChannel channel;
+    private volatile long lastActive;
+    /**
+     * 正在进行的写入数，为0并且内容完整时才能关闭文件
+     */
+    private int writers;
+    private volatile boolean completed;
+    private boolean closed;
+    private boolean moved;
+
+    private ResumableUpload(String id, Path path, long length, Map<String, String> metadata) {
+        this.id = id;
+        this.path = path;
+        this.length = length;
+        this.metadata = metadata;
+        this.lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * @param id        上传的标识
+     * @param directory 保存文件的目录
+     * @param length    文件的总字节数
+     * @param metadata  创建时客户端提供的元数据，比如文件名
+     * @return 创建好文件的上传
+     * @throws IOException 创建文件出错时抛出
+     */
+    static ResumableUpload create(String id, Path directory, long length, Map<String, String> metadata) throws IOException {
+        Path path = directory.resolve(id + ".upload");
+        ResumableUpload upload = new ResumableUpload(id, path, length, metadata);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.SPARSE)) {
+            if (length > 0) {
+                // 写入最后一个字节就把文件扩展到了完整的长度，中间没有写入的部分在支持稀疏文件的文件系统上不占用磁盘
+                channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+            }
+        } catch (IOException e) {
+            upload.delete();
+            throw e;
+        }
+        if (length == 0) {
+            upload.closed = true;
+            upload.completed = true;
+        }
+        return upload;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public Map<String, String> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * @return 从0开始连续收到的字节数
+     */
+    public long getOffset() {
+        return ranges.getContiguousLength();
+    }
+
+    public UploadRanges getRanges() {
+        return ranges;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    long getLastActive() {
+        return lastActive;
+    }
+
+    /**
+     * 把输入流的内容写到offset开始的位置，写入过程中每写完一个缓冲区就记录一次范围，
+     * 连接中途断开时已经写入的部分仍然有效，客户端可以只重传没有收到的部分
+     *
+     * @param input    PATCH请求的输入流
+     * @param offset   开始位置
+     * @param buffer   读取使用的缓冲区
+     * @return 写入的字节数
+     * @throws IOException 读写出错或者内容超出了文件长度时抛出
+     */
+    long write(InputStream input, long offset, byte[] buffer) throws IOException {
+        FileChannel channel = beginWrite();
+        if (channel == null) {
+            return 0;
+        }
+        long position = offset;
+        try {
+            int count;
+            while ((count = input.read(buffer, 0, (int) Math.min(buffer.length, length - position + 1))) != -1) {
+                if (position + count > length) {
+                    throw new IOException("上传[" + id + "]的内容超出了文件长度" + length);
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, count);
+                long at = position;
+                while (chunk.hasRemaining()) {
+                    at += channel.write(chunk, at);
+                }
+                ranges.add(position, position + count);
+                position += count;
+                lastActive = System.currentTimeMillis();
+            }
+        } finally {
+            endWrite();
+        }
+        return position - offset;
+    }
+
+    /**
+     * @return 写入使用的通道，上传已经完成或者被删除时返回null
+     */
+    private synchronized FileChannel beginWrite() throws IOException {
+        if (closed) {
+            return null;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        }
+        writers++;
+        return channel;
+    }
+
+    /**
+     * 最后一个写入结束时关闭通道，内容完整时先把内容刷到磁盘，刷盘是针对文件的，所以之前关闭的通道写入的内容也包括在内
+     */
+    private synchronized void endWrite() throws IOException {
+        writers--;
+        if (writers > 0 || closed) {
+            return;
+        }
+        try {
+            if (ranges.getContiguousLength() == length) {
+                channel.force(false);
+                closed = true;
+                completed = true;
+            }
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * 把完成的文件移动到目标位置，同一个文件系统中只是改名
+     *
+     * @param dest 目标文件，已经存在时覆盖
+     * @throws IOException 移动出错时抛出
+     */
+    synchronized void moveTo(Path dest) throws IOException {
+        if (!completed) {
+            throw new IllegalStateException("上传[" + id + "]还没有完成");
+        }
+        if (moved) {
+            throw new IllegalStateException("上传[" + id + "]的文件已经被移走了");
+        }
+        Files.move(path, dest, StandardCopyOption.REPLACE_EXISTING);
+        moved = true;
+    }
+
+    synchronized boolean isMoved() {
+        return moved;
+    }
+
+    /**
+     * 关闭并删除文件，正在进行的写入会失败
+     */
+    synchronized void delete() {
+        try {
+            closed = true;
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (!moved) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            LogUtils.warn("删除上传的文件失败:" + path, e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.nf.mvc.upload;
+
+import java.nio.file.Paths;
+
+/**
+ * 可续传上传的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureResumableUpload(ResumableUploadConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureResumableUpload(ResumableUploadConfiguration configuration) {
+ *         configuration.pathPrefix("/uploads/")
+ *                 .uploadDirectory("D:/uploads/tmp")
+ *                 .maxUploadSize(20L * 1024 * 1024 * 1024);
+ *     }
+ * </pre>
+ * <p>没有设置地址前缀时不开启可续传上传</p>
+ * <p>上传地址不经过handler映射，但和普通的请求一样经过按地址匹配的拦截器，
+ * 需要登录才能上传时用拦截器保护这个前缀，拦截器收到的handler参数是{@link ResumableUploadHandler}。
+ * 默认一个文件最大1G，最多同时有100个上传，磁盘占用的上限是两者的乘积</p>
+ *
+ * @see ResumableUploadHandler
+ */
+public class ResumableUploadConfiguration {
+    private String pathPrefix;
+
+    private String uploadDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "mvc-uploads").toString();
+
+    private long maxUploadSize = 1024L * 1024 * 1024;
+
+    private int maxUploads = 100;
+
+    private long expiration = 24 * 60 * 60 * 1000L;
+
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * @param pathPrefix 上传地址的前缀，比如/uploads/，不包含上下文路径，创建上传时POST到此地址
+     * @return 配置对象本身
+     */
+    public ResumableUploadConfiguration pathPrefix(String pathPrefix) {
+        String prefix = pathPrefix.startsWith("/") ? pathPrefix : "/" + pathPrefix;
+        this.pathPrefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        return this;
+    }
+
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+
+    public boolean isEnabled() {
+        return pathPrefix != null;
+    }
+
+    /**
+     * @param uploadDirectory 上传中的文件保存的目录，默认是临时目录下的mvc-uploads
+     * @return 配置对象本身
+     */
+    public ResumableUploadConfiguration uploadDirectory(String uploadDirectory) {
+        this.uploadDirectory = uploadDirectory;
+        return this;
+    }
+
+    public String getUploadDirectory() {
+        return uploadDirectory;
+    }
+
+    /**
+     * @param maxUploadSize 一个上传文件的最大字节数，创建上传时检查，默认是1G，小于0表示不限制
+     * @return 配置对象本身
+     */
+    public ResumableUploadConfiguration maxUploadSize(long maxUploadSize) {
+        this.maxUploadSize = maxUploadSize;
+        return this;
+    }
+
+    public long getMaxUploadSize() {
+        return maxUploadSize;
+    }
+
+    /**
+     * @param maxUploads 同时存在的上传(包括完成了但还没有被handler取走的)的最大数量，达到上限时先清理过期的上传，
+     *                   仍然没有空位时创建上传的请求响应503，小于0表示不限制
+     * @return 配置对象本身
+     */
+    public ResumableUploadConfiguration maxUploads(int maxUploads) {
+        this.maxUploads = maxUploads;
+        return this;
+    }
+
+    public int getMaxUploads() {
+        return maxUploads;
+    }
+
+    /**
+     * @param expiration 上传超过此毫秒数没有任何写入时被删除，完成了但没有被handler取走的上传也一样
+     * @return 配置对象本身
+     */
+    public ResumableUploadConfiguration expiration(long expiration) {
+        this.expiration = expiration;
+        return this;
+    }
+
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * @param bufferSize 每个PATCH请求从输入流读取时使用的缓冲区字节数
+     * @return 配置对象本身
+     */
+    public ResumableUploadConfiguration bufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public static ResumableUploadConfiguration defaultInstance() {
+        return new ResumableUploadConfiguration();
+    }
+}
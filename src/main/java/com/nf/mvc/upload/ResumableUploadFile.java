@@ -0,0 +1,93 @@
+package com.nf.mvc.upload;
+
+import com.nf.mvc.file.MultipartFile;
+import com.nf.mvc.file.StandardMultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 已经完成的可续传上传，handler用这个类型的参数接收，参数值是请求参数中的上传地址或者上传标识
+ * <p>{@link #transferTo(Path)}把文件移动到目标位置，同一个文件系统中只是改名，不会复制内容，
+ * 移走之后上传从{@link ResumableUploadHandler}中删除；没有移走的文件在过期之后被删除</p>
+ *
+ * @see com.nf.mvc.argument.ResumableUploadMethodArgumentResolver
+ */
+public class ResumableUploadFile implements MultipartFile {
+    /**
+     * 元数据中文件名与内容类型的键，与tus客户端的习惯一致
+     */
+    public static final String FILENAME_METADATA = "filename";
+    public static final String FILETYPE_METADATA = "filetype";
+
+    private final String name;
+    private final ResumableUpload upload;
+    private final ResumableUploadHandler handler;
+
+    public ResumableUploadFile(String name, ResumableUpload upload, ResumableUploadHandler handler) {
+        this.name = name;
+        this.upload = upload;
+        this.handler = handler;
+    }
+
+    public ResumableUpload getUpload() {
+        return upload;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return upload.getMetadata().get(FILENAME_METADATA);
+    }
+
+    @Override
+    public String getContentType() {
+        return upload.getMetadata().get(FILETYPE_METADATA);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return upload.getLength() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return upload.getLength();
+    }
+
+    /**
+     * @return 文件的全部内容
+     * @throws IOException 文件超过{@link StandardMultipartFile#DEFAULT_MAX_BYTES_SIZE}或者读取出错时抛出
+     */
+    @Override
+    public byte[] getBytes() throws IOException {
+        if (getSize() > StandardMultipartFile.DEFAULT_MAX_BYTES_SIZE) {
+            throw new IOException("上传的文件" + getOriginalFilename() + "有" + getSize() + "字节，超过了getBytes允许的"
+                    + StandardMultipartFile.DEFAULT_MAX_BYTES_SIZE + "字节，请使用getInputStream或transferTo处理");
+        }
+        return Files.readAllBytes(upload.getPath());
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(upload.getPath());
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException, IllegalStateException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException, IllegalStateException {
+        upload.moveTo(dest);
+        handler.remove(upload.getId());
+    }
+}
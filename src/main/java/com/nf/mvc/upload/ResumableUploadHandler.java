@@ -0,0 +1,276 @@
+package com.nf.mvc.upload;
+
+import com.nf.mvc.support.HttpHeaders;
+import com.nf.mvc.support.HttpMethod;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 可续传上传的处理者，协议参照了<a href="https://tus.io/protocols/resumable-upload">tus 1.0</a>的核心协议与creation、termination扩展，
+ * DispatcherServlet在service方法中发现请求地址以配置的前缀开头时直接交给它处理
+ * <ul>
+ *     <li>POST 前缀：创建上传，请求头Upload-Length是文件的字节数，Upload-Metadata是逗号分隔的"键 base64值"，
+ *     响应201，Location响应头是上传的地址</li>
+ *     <li>PATCH 上传地址：请求头Upload-Offset指定请求体写入的位置，响应204，Upload-Offset响应头是从0开始连续收到的字节数</li>
+ *     <li>HEAD 上传地址：查询进度，响应头与PATCH一样</li>
+ *     <li>DELETE 上传地址：放弃上传并删除文件</li>
+ *     <li>OPTIONS 前缀：查询服务端支持的协议版本、扩展与最大文件大小</li>
+ * </ul>
+ * <h3>与tus的区别</h3>
+ * <p>tus要求Upload-Offset等于服务端已经收到的字节数，这里允许是文件范围内的任何位置，
+ * 所以客户端可以把文件分成几段用多个连接同时上传，每段失败了只重传这一段，
+ * 响应头Upload-Ranges列出已经收到的所有范围(比如0-1023,4096-8191，两端都包含)，客户端据此补传缺少的部分</p>
+ * <h3>取得上传的文件</h3>
+ * <p>上传完成之后，客户端把上传地址(或者地址最后的标识)作为请求参数提交给handler，
+ * handler用{@link ResumableUploadFile}类型的参数接收，它实现了{@link com.nf.mvc.file.MultipartFile}，比如:</p>
+ * <pre class="code">
+ *    &#064;RequestMapping("/videos")
+ *     public String save(ResumableUploadFile video) throws IOException {
+ *         video.transferTo(Paths.get("D:/videos", video.getOriginalFilename()));
+ *         return "ok";
+ *     }
+ * </pre>
+ * <p>上传的状态只保存在内存中，应用重启之后没有完成的上传需要重新开始，
+ * 超过{@link ResumableUploadConfiguration#getExpiration()}没有写入的上传在创建新的上传时被清理。
+ * 文件只在PATCH请求写入时打开，上传的数量不超过{@link ResumableUploadConfiguration#getMaxUploads()}，
+ * 所以客户端不能通过创建大量的上传耗尽文件描述符与磁盘</p>
+ * <p>这个处理者不经过handler映射，DispatcherServlet用按地址匹配的拦截器组成执行链，拦截器的前置逻辑返回true才会处理</p>
+ *
+ * @see ResumableUploadConfiguration
+ * @see ResumableUpload
+ */
+public class ResumableUploadHandler {
+    /**
+     * 处理者保存在ServletContext中的属性名，参数解析器通过{@link #get(ServletContext)}获取
+     */
+    public static final String RESUMABLE_UPLOAD_HANDLER_ATTRIBUTE = ResumableUploadHandler.class.getName();
+
+    public static final String TUS_RESUMABLE = "Tus-Resumable";
+    public static final String TUS_VERSION = "Tus-Version";
+    public static final String TUS_EXTENSION = "Tus-Extension";
+    public static final String TUS_MAX_SIZE = "Tus-Max-Size";
+    public static final String UPLOAD_LENGTH = "Upload-Length";
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+    public static final String UPLOAD_METADATA = "Upload-Metadata";
+    public static final String UPLOAD_RANGES = "Upload-Ranges";
+
+    private static final String PROTOCOL_VERSION = "1.0.0";
+    private static final String EXTENSIONS = "creation,termination";
+
+    private final ResumableUploadConfiguration configuration;
+    private final String prefix;
+    private final Path directory;
+    private final Map<String, ResumableUpload> uploads = new ConcurrentHashMap<>();
+
+    public ResumableUploadHandler(ResumableUploadConfiguration configuration) {
+        this.configuration = configuration;
+        this.prefix = configuration.getPathPrefix();
+        this.directory = Paths.get(configuration.getUploadDirectory()).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建上传目录:" + directory, e);
+        }
+    }
+
+    /**
+     * @param path 不包含上下文路径的请求地址
+     * @return 地址是否是上传的地址
+     */
+    public boolean matches(String path) {
+        return path.startsWith(prefix) || path.length() == prefix.length() - 1 && prefix.startsWith(path);
+    }
+
+    /**
+     * 处理上传请求，状态码与响应头都设置好了，没有响应体
+     *
+     * @param path 不包含上下文路径的请求地址，必须是{@link #matches(String)}返回true的地址
+     * @param req  请求对象
+     * @param resp 响应对象
+     * @throws IOException 读写文件或者读取请求体出错时抛出
+     */
+    public void handle(String path, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setHeader(TUS_RESUMABLE, PROTOCOL_VERSION);
+        String id = path.length() > prefix.length() ? path.substring(prefix.length()) : "";
+        String method = req.getMethod();
+        if (id.isEmpty()) {
+            if (HttpMethod.POST.matches(method)) {
+                create(req, resp);
+            } else if (HttpMethod.OPTIONS.matches(method)) {
+                resp.setHeader(TUS_VERSION, PROTOCOL_VERSION);
+                resp.setHeader(TUS_EXTENSION, EXTENSIONS);
+                if (configuration.getMaxUploadSize() >= 0) {
+                    resp.setHeader(TUS_MAX_SIZE, String.valueOf(configuration.getMaxUploadSize()));
+                }
+                resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            } else {
+                resp.setHeader(HttpHeaders.ALLOW, "POST, OPTIONS");
+                resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            }
+            return;
+        }
+        ResumableUpload upload = uploads.get(id);
+        if (upload == null || upload.isMoved()) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (HttpMethod.HEAD.matches(method)) {
+            resp.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            resp.setHeader(UPLOAD_LENGTH, String.valueOf(upload.getLength()));
+            setProgressHeaders(upload, resp);
+            resp.setStatus(HttpServletResponse.SC_OK);
+        } else if (HttpMethod.PATCH.matches(method)) {
+            patch(upload, req, resp);
+        } else if (HttpMethod.DELETE.matches(method)) {
+            remove(id);
+            resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } else {
+            resp.setHeader(HttpHeaders.ALLOW, "HEAD, PATCH, DELETE");
+            resp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+        }
+    }
+
+    private void create(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        long length = parseLong(req.getHeader(UPLOAD_LENGTH));
+        if (length < 0) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (configuration.getMaxUploadSize() >= 0 && length > configuration.getMaxUploadSize()) {
+            resp.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        String id = UUID.randomUUID().toString().replace("-", "");
+        // 检查数量与放入上传要一起完成，否则并发创建时会超过上限，创建文件只是写入一个字节，持有锁的时间很短
+        synchronized (uploads) {
+            removeExpired();
+            if (configuration.getMaxUploads() >= 0 && uploads.size() >= configuration.getMaxUploads()) {
+                resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            uploads.put(id, ResumableUpload.create(id, directory, length, parseMetadata(req.getHeader(UPLOAD_METADATA))));
+        }
+        resp.setHeader(HttpHeaders.LOCATION, req.getContextPath() + prefix + id);
+        resp.setStatus(HttpServletResponse.SC_CREATED);
+    }
+
+    private void patch(ResumableUpload upload, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        long offset = parseLong(req.getHeader(UPLOAD_OFFSET));
+        if (offset < 0) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        long contentLength = req.getContentLengthLong();
+        if (offset > upload.getLength() || contentLength > upload.getLength() - offset) {
+            resp.sendError(HttpServletResponse.SC_CONFLICT);
+            return;
+        }
+        upload.write(req.getInputStream(), offset, new byte[configuration.getBufferSize()]);
+        setProgressHeaders(upload, resp);
+        resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    }
+
+    private static void setProgressHeaders(ResumableUpload upload, HttpServletResponse resp) {
+        resp.setHeader(UPLOAD_OFFSET, String.valueOf(upload.getOffset()));
+        resp.setHeader(UPLOAD_RANGES, upload.getRanges().toString());
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param header 形如filename d29ybGRfZG9taW5hdGlvbl9wbGFuLnBkZg==,filetype dmlkZW8vbXA0的元数据
+     * @return 解码之后的元数据，格式不正确的项被忽略
+     */
+    static Map<String, String> parseMetadata(String header) {
+        Map<String, String> metadata = new HashMap<>();
+        if (header == null) {
+            return metadata;
+        }
+        for (String pair : header.split(",")) {
+            String[] keyValue = pair.trim().split(" ", 2);
+            if (keyValue[0].isEmpty()) {
+                continue;
+            }
+            try {
+                String value = keyValue.length > 1 ? new String(Base64.getDecoder().decode(keyValue[1].trim()), StandardCharsets.UTF_8) : "";
+                metadata.put(keyValue[0], value);
+            } catch (IllegalArgumentException ignored) {
+                // 不是base64的值
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * @param id 上传的标识
+     * @return 对应的上传，不存在或者文件已经被移走时返回null
+     */
+    public ResumableUpload get(String id) {
+        ResumableUpload upload = uploads.get(id);
+        return upload == null || upload.isMoved() ? null : upload;
+    }
+
+    /**
+     * 删除上传，文件还没有被移走时一起删除
+     *
+     * @param id 上传的标识
+     */
+    public void remove(String id) {
+        ResumableUpload upload = uploads.remove(id);
+        if (upload != null) {
+            upload.delete();
+        }
+    }
+
+    private void removeExpired() {
+        long deadline = System.currentTimeMillis() - configuration.getExpiration();
+        Iterator<ResumableUpload> iterator = uploads.values().iterator();
+        while (iterator.hasNext()) {
+            ResumableUpload upload = iterator.next();
+            if (upload.isMoved() || upload.getLastActive() < deadline) {
+                iterator.remove();
+                upload.delete();
+            }
+        }
+    }
+
+    public int getUploadCount() {
+        return uploads.size();
+    }
+
+    /**
+     * 关闭并删除所有的上传，应用停止时调用
+     */
+    public void close() {
+        for (String id : uploads.keySet()) {
+            remove(id);
+        }
+    }
+
+    public static ResumableUploadHandler get(ServletContext servletContext) {
+        return (ResumableUploadHandler) servletContext.getAttribute(RESUMABLE_UPLOAD_HANDLER_ATTRIBUTE);
+    }
+}
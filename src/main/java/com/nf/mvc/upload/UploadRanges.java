@@ -0,0 +1,77 @@
+package com.nf.mvc.upload;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 已经收到的字节范围，重叠与相邻的范围会合并，多个PATCH请求并发写入时用它判断文件是否已经完整
+ */
+public class UploadRanges {
+    /**
+     * key是范围的开始位置，value是结束位置(不包含)
+     */
+    private final TreeMap<Long, Long> ranges = new TreeMap<>();
+    private long total;
+
+    /**
+     * @param start 开始位置
+     * @param end   结束位置，不包含
+     */
+    public synchronized void add(long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        Map.Entry<Long, Long> floor = ranges.floorEntry(start);
+        if (floor != null && floor.getValue() >= start) {
+            if (floor.getValue() >= end) {
+                return;
+            }
+            start = floor.getKey();
+            total -= floor.getValue() - floor.getKey();
+            ranges.remove(floor.getKey());
+        }
+        Iterator<Map.Entry<Long, Long>> iterator = ranges.tailMap(start, true).entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> entry = iterator.next();
+            if (entry.getKey() > end) {
+                break;
+            }
+            end = Math.max(end, entry.getValue());
+            total -= entry.getValue() - entry.getKey();
+            iterator.remove();
+        }
+        ranges.put(start, end);
+        total += end - start;
+    }
+
+    /**
+     * @return 从0开始连续收到的字节数，也就是tus协议中的Upload-Offset
+     */
+    public synchronized long getContiguousLength() {
+        Long end = ranges.get(0L);
+        return end == null ? 0 : end;
+    }
+
+    /**
+     * @return 收到的总字节数，重叠的部分只计算一次
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return 形如0-1023,4096-8191的字符串，两端都包含在内，没有收到任何内容时是空字符串
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Long, Long> entry : ranges.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(entry.getKey()).append('-').append(entry.getValue() - 1);
+        }
+        return builder.toString();
+    }
+}
@@ -27,6 +27,24 @@ public interface ExceptionUtils {
     return result;
   }
 
+  /**
+   * 在异常链上查找指定类型的异常，handler抛出的异常会被反射调用包装在InvocationTargetException中，
+   * 异步的结果会被包装在CompletionException、ExecutionException中，所以不能只判断异常本身的类型
+   *
+   * @param ex   当前抛出的异常
+   * @param type 要查找的异常类型
+   * @param <T>  异常类型
+   * @return 异常链上第一个是此类型的异常，没有时返回null
+   */
+  static <T extends Throwable> T findCause(Throwable ex, Class<T> type) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+      if (type.isInstance(cause)) {
+        return type.cast(cause);
+      }
+    }
+    return null;
+  }
+
   static int exceptionCompare(Class<? extends Throwable> ex1Class, Class<? extends Throwable> ex2Class) {
     return ex1Class == ex2Class ? 0 : isAssignable(ex1Class, ex2Class) ? 1 : -1;
   }
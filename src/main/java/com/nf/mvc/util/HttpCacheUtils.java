@@ -0,0 +1,205 @@
+package com.nf.mvc.util;
+
+import com.nf.mvc.support.HttpMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.Locale;
+
+import static com.nf.mvc.support.HttpHeaders.ETAG;
+import static com.nf.mvc.support.HttpHeaders.IF_MODIFIED_SINCE;
+import static com.nf.mvc.support.HttpHeaders.IF_NONE_MATCH;
+import static com.nf.mvc.support.HttpHeaders.LAST_MODIFIED;
+
+/**
+ * 条件请求(Conditional GET)相关的工具类，用来处理请求头If-None-Match、If-Modified-Since与响应头ETag、Last-Modified，
+ * 在资源没有变化时直接响应304状态码，而不再发送响应体
+ * <p>判断逻辑与RFC 7232的规定一致：
+ * <ul>
+ *     <li>只对GET与HEAD请求进行处理</li>
+ *     <li>请求中有If-None-Match时，优先用ETag进行比较，此时忽略If-Modified-Since</li>
+ *     <li>没有If-None-Match时才用If-Modified-Since与资源的最后修改时间进行比较，比较精度为秒</li>
+ * </ul>
+ * </p>
+ * <p>此类参考了spring的ServletWebRequest#checkNotModified方法</p>
+ *
+ * @see com.nf.mvc.view.FileViewResult
+ * @see com.nf.mvc.view.JsonViewResult
+ */
+public abstract class HttpCacheUtils {
+  private static final String WEAK_PREFIX = "W/";
+  /**
+   * RFC 7231规定的三种http日期格式，发送时只用第一种，接收时三种都要支持
+   */
+  private static final DateTimeFormatter[] HTTP_DATE_FORMATS = {
+      DateTimeFormatter.RFC_1123_DATE_TIME,
+      new DateTimeFormatterBuilder().appendPattern("EEEE, dd-MMM-")
+          .appendValueReduced(ChronoField.YEAR, 2, 2, 1970)
+          .appendPattern(" HH:mm:ss zzz").toFormatter(Locale.US),
+      DateTimeFormatter.ofPattern("EEE MMM ppd HH:mm:ss yyyy", Locale.US).withZone(ZoneOffset.UTC)
+  };
+  /**
+   * {@link #encodedETag(String, String)}可能加上的编码
+   */
+  private static final String[] CODINGS = {"gzip", "deflate"};
+
+  /**
+   * 设置ETag与Last-Modified响应头，并判断资源是否未被修改，未修改时会把响应状态码设置为304
+   *
+   * @param request      请求对象
+   * @param response     响应对象
+   * @param etag         资源的ETag，需要带上双引号，弱ETag以W/开头，为null表示不使用ETag
+   * @param lastModified 资源最后修改时间的毫秒数，小于0表示不使用Last-Modified
+   * @return true表示资源没有变化，调用者不应该再写出响应体
+   */
+  public static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag, long lastModified) {
+    if (etag != null) {
+      response.setHeader(ETAG, etag);
+    }
+    if (lastModified >= 0) {
+      response.setDateHeader(LAST_MODIFIED, lastModified);
+    }
+    if (!isGetOrHead(request)) {
+      return false;
+    }
+
+    boolean notModified;
+    String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+      String matched = etag == null ? null : findMatch(ifNoneMatch, etag);
+      notModified = matched != null;
+      // 客户端持有的是压缩过的表示时，304中的ETag也应该是那个表示的，否则缓存会把两种表示的ETag混在一起
+      if (notModified && !"*".equals(matched) && !stripWeakPrefix(matched).equals(stripWeakPrefix(etag))) {
+        response.setHeader(ETAG, matched);
+      }
+    } else {
+      notModified = lastModified >= 0 && notModifiedSince(request, lastModified);
+    }
+
+    if (notModified) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+    return notModified;
+  }
+
+  /**
+   * 依据文件的大小与最后修改时间生成强ETag，这与tomcat默认servlet的做法类似
+   *
+   * @param size         文件大小
+   * @param lastModified 文件最后修改时间的毫秒数
+   * @return 强ETag，比如"1f4-18b3c2a7d40"
+   */
+  public static String fileETag(long size, long lastModified) {
+    return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+  }
+
+  /**
+   * 生成弱ETag
+   *
+   * @param hash 内容的摘要值
+   * @return 弱ETag，比如W/"0815a2..."
+   */
+  public static String weakETag(String hash) {
+    return WEAK_PREFIX + "\"" + hash + "\"";
+  }
+
+  /**
+   * 响应体被压缩之后是另一种表示，不能与未压缩的表示共用一个强ETag(RFC 7232)，所以在引号中的值后面加上编码，
+   * 比如"1f4-18b3c2a7d40"变为"1f4-18b3c2a7d40-gzip"，与静态资源的预压缩文件的做法一样
+   *
+   * @param etag   未压缩时的ETag
+   * @param coding 内容编码，比如gzip
+   * @return 压缩之后的ETag，格式不对(没有以双引号结尾)时原样返回
+   */
+  public static String encodedETag(String etag, String coding) {
+    if (!etag.endsWith("\"") || etag.endsWith("-" + coding + "\"")) {
+      return etag;
+    }
+    return etag.substring(0, etag.length() - 1) + "-" + coding + "\"";
+  }
+
+  /**
+   * If-None-Match采用的是弱比较，也就是忽略W/前缀，只比较引号中的值，值可以有多个，用逗号分隔，也可以是*。
+   * 压缩之后的ETag(见{@link #encodedETag(String, String)})也认为是匹配的，因为它们的内容来自同一个资源
+   *
+   * @param ifNoneMatch 请求头If-None-Match的值
+   * @param etag        当前资源的ETag
+   * @return 有一个匹配就返回true
+   */
+  public static boolean etagMatches(String ifNoneMatch, String etag) {
+    return findMatch(ifNoneMatch, etag) != null;
+  }
+
+  /**
+   * @return If-None-Match中与etag匹配的那个值，没有匹配的返回null
+   */
+  private static String findMatch(String ifNoneMatch, String etag) {
+    String current = stripWeakPrefix(etag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if ("*".equals(trimmed)) {
+        return trimmed;
+      }
+      String value = stripWeakPrefix(trimmed);
+      if (current.equals(value) || current.equals(stripCoding(value))) {
+        return trimmed;
+      }
+    }
+    return null;
+  }
+
+  private static String stripCoding(String etag) {
+    for (String coding : CODINGS) {
+      String suffix = "-" + coding + "\"";
+      if (etag.endsWith(suffix)) {
+        return etag.substring(0, etag.length() - suffix.length()) + "\"";
+      }
+    }
+    return etag;
+  }
+
+  /**
+   * 解析http日期，servlet容器的getDateHeader就是这样解析请求头的，自己实现的请求包装器可以用此方法
+   *
+   * @param value http日期，比如Sun, 06 Nov 1994 08:49:37 GMT
+   * @return 日期的毫秒数
+   * @throws IllegalArgumentException 不是三种http日期格式中的任何一种时抛出
+   */
+  public static long parseHttpDate(String value) {
+    String trimmed = value.trim();
+    for (DateTimeFormatter format : HTTP_DATE_FORMATS) {
+      try {
+        return ZonedDateTime.parse(trimmed, format).toInstant().toEpochMilli();
+      } catch (DateTimeParseException ignored) {
+        // 试下一种格式
+      }
+    }
+    throw new IllegalArgumentException("不是http日期格式:" + value);
+  }
+
+  private static boolean notModifiedSince(HttpServletRequest request, long lastModified) {
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
+    } catch (IllegalArgumentException e) {
+      // 日期格式不对，当做没有这个请求头处理
+      return false;
+    }
+    // http日期只精确到秒，所以比较时要去掉毫秒部分
+    return ifModifiedSince >= 0 && (lastModified / 1000 * 1000) <= ifModifiedSince;
+  }
+
+  private static String stripWeakPrefix(String etag) {
+    return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+  }
+
+  private static boolean isGetOrHead(HttpServletRequest request) {
+    return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+  }
+}
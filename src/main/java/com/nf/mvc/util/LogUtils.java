@@ -0,0 +1,29 @@
+package com.nf.mvc.util;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 框架内部的日志输出，框架没有依赖日志库，所以用的是jdk自带的java.util.logging，
+ * 运行在tomcat中时由tomcat的JULI输出到它的日志中，级别可以在logging.properties中按名为com.nf.mvc的logger调整
+ * <p>只用来记录已经处理掉、不会再抛出的异常与配置上的提示，需要中断请求的异常仍然应该抛出</p>
+ */
+public abstract class LogUtils {
+    private static final Logger LOGGER = Logger.getLogger("com.nf.mvc");
+
+    public static void info(String message) {
+        LOGGER.info(message);
+    }
+
+    public static void warn(String message) {
+        LOGGER.warning(message);
+    }
+
+    /**
+     * @param message 发生了什么，不需要再拼接异常消息
+     * @param ex      异常，堆栈会一起输出
+     */
+    public static void warn(String message, Throwable ex) {
+        LOGGER.log(Level.WARNING, message, ex);
+    }
+}
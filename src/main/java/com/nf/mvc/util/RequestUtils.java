@@ -1,6 +1,9 @@
 package com.nf.mvc.util;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * <h3>参考资料</h3>
@@ -20,4 +23,68 @@ public abstract class RequestUtils {
         String contextPath = request.getContextPath();
         return request.getRequestURI().substring(contextPath.length());
     }
+
+    /**
+     * 生成用来判断两个请求是否相同的key，由请求地址、选定的请求参数与请求头组成，各部分用空字符分隔以免不同的值拼接之后相同，
+     * 请求合并与响应缓存都使用此方法
+     *
+     * @param path    不包含上下文路径的请求地址，路径变量已经包含在其中
+     * @param request 当前请求
+     * @param params  参与判断的请求参数名，为空时整个查询字符串都参与判断
+     * @param headers 参与判断的请求头名
+     * @return 相同的请求有相同的key
+     */
+    public static String getRequestKey(String path, HttpServletRequest request, String[] params, String[] headers) {
+        StringBuilder key = new StringBuilder(64).append(path);
+        if (params.length == 0) {
+            String queryString = request.getQueryString();
+            if (queryString != null) {
+                key.append('?').append(queryString);
+            }
+        } else {
+            for (String param : params) {
+                key.append('\u0000').append(param).append('=');
+                String[] values = request.getParameterValues(param);
+                if (values != null) {
+                    for (String value : values) {
+                        key.append(value).append(',');
+                    }
+                }
+            }
+        }
+        for (String header : headers) {
+            key.append('\u0000').append(header).append(':').append(request.getHeader(header));
+        }
+        return key.toString();
+    }
+
+    /**
+     * 把响应的Vary请求头合并到生成key使用的请求头中，用于{@link #getRequestKey(String, HttpServletRequest, String[], String[])}
+     *
+     * @param headers 现有的请求头
+     * @param vary    响应的Vary请求头，*会被忽略
+     * @return 没有新的请求头时返回headers本身，否则返回合并之后的新数组
+     */
+    public static String[] mergeVaryHeaders(String[] headers, String[] vary) {
+        List<String> merged = null;
+        for (String header : vary) {
+            if ("*".equals(header) || containsIgnoreCase(headers, header) || merged != null && merged.stream().anyMatch(header::equalsIgnoreCase)) {
+                continue;
+            }
+            if (merged == null) {
+                merged = new ArrayList<>(Arrays.asList(headers));
+            }
+            merged.add(header);
+        }
+        return merged == null ? headers : merged.toArray(new String[0]);
+    }
+
+    private static boolean containsIgnoreCase(String[] headers, String header) {
+        for (String existing : headers) {
+            if (existing.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -17,8 +17,11 @@
 package com.nf.mvc.util;
 
 import com.nf.mvc.support.Assert;
+import org.apache.catalina.connector.CoyoteOutputStream;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -76,6 +79,27 @@ public abstract class StreamUtils {
     out.flush();
   }
 
+  /**
+   * 把ByteBuffer中剩余的内容写到输出流中，不会改变buffer的位置，也不会flush
+   * <p>tomcat的输出流可以直接写出ByteBuffer，堆外的内容直接复制到tomcat的输出缓冲区，不经过堆内的byte[]，
+   * 其它输出流(比如压缩的包装)只能通过通道写出，通道内部会用一个小的byte[]中转</p>
+   *
+   * @param in  要写出的内容，可以是直接内存或者内存映射
+   * @param out 输出流
+   * @throws IOException 写出时的异常
+   */
+  public static void copy(ByteBuffer in, OutputStream out) throws IOException {
+    Assert.notNull(in, "No input ByteBuffer specified");
+    Assert.notNull(out, "No OutputStream specified");
+
+    ByteBuffer content = in.duplicate();
+    if (out instanceof CoyoteOutputStream) {
+      ((CoyoteOutputStream) out).write(content);
+      return;
+    }
+    Channels.newChannel(out).write(content);
+  }
+
   public static void copy(String in, Charset charset, OutputStream out) throws IOException {
     Assert.notNull(in, "No input String specified");
     Assert.notNull(charset, "No Charset specified");
@@ -0,0 +1,70 @@
+package com.nf.mvc.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程相关的工具类，虚拟线程是jdk21才正式提供的，而框架是按照jdk8编译的，所以这里是通过反射调用
+ * {@code Executors.newVirtualThreadPerTaskExecutor()}的，运行在低版本jdk上时{@link #isSupported()}返回false，
+ * 调用方应该退回到平台线程的处理方式
+ */
+public abstract class VirtualThreadUtils {
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findFactoryMethod();
+    private static final Method IS_VIRTUAL = findIsVirtualMethod();
+
+    private static Method findFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findIsVirtualMethod() {
+        try {
+            return Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true表示当前jvm支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * jdk19、20中虚拟线程是预览特性，没有开启--enable-preview时调用会抛出UnsupportedOperationException，这里也当作不支持处理
+     *
+     * @return 每个任务一个虚拟线程的执行器，不支持虚拟线程时返回null
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 比如连接器的执行器已经是虚拟线程的执行器时，service方法本身就运行在虚拟线程上，不需要再切换到另一个虚拟线程
+     *
+     * @return 当前线程是否是虚拟线程，不支持虚拟线程的jvm上总是返回false
+     */
+    public static boolean isCurrentThreadVirtual() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(Thread.currentThread());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+}
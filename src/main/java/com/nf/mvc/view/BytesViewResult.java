@@ -0,0 +1,118 @@
+package com.nf.mvc.view;
+
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.util.StreamUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 此类用来响应已经编码好的字节内容，内容长度在构造时就确定了，渲染时只是设置Content-Type与Content-Length,
+ * 然后调用一次{@link ServletOutputStream#write(byte[], int, int)}写出
+ * <p>与{@link PlainViewResult}、{@link HtmlViewResult}每次渲染都要经过Writer把字符串重新编码一次不同，
+ * 此类的实例是不可变的，对于健康检查、固定的html片段这类内容不变的响应，可以把实例保存在静态字段中重复使用，比如:
+ * <pre class="code">
+ *     private static final ViewResult OK = HandlerHelper.preencodedPlain("ok");
+ *
+ *     &#064;RequestMapping("/health")
+ *     public ViewResult health() {
+ *         return OK;
+ *     }
+ * </pre>
+ * </p>
+ * <p>{@link ViewResult#adaptHandlerResult(Object)}在控制器方法直接返回byte[]、ByteBuffer与CharSequence时也会适配为此类型。
+ * handler已经调用过getWriter时不能再调用getOutputStream，此时文本内容({@link #plain(CharSequence)}与{@link #html(CharSequence)}创建的)
+ * 改为通过Writer写出，不设置Content-Length，与{@link PlainViewResult}的行为一样</p>
+ *
+ * @see com.nf.mvc.handler.HandlerHelper#preencodedPlain(String)
+ * @see com.nf.mvc.handler.HandlerHelper#preencodedHtml(String)
+ */
+public class BytesViewResult extends ViewResult {
+    public static final String TEXT_PLAIN_UTF8 = "text/plain;charset=UTF-8";
+    public static final String TEXT_HTML_UTF8 = "text/html;charset=UTF-8";
+
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private final String contentType;
+    /**
+     * 文本内容的原文，Writer已经被使用时用它写出，字节内容时为null
+     */
+    private final String text;
+
+    public BytesViewResult(byte[] bytes) {
+        this(bytes, StreamUtils.APPLICATION_OCTET_STREAM_VALUE);
+    }
+
+    public BytesViewResult(byte[] bytes, String contentType) {
+        this(bytes, contentType, null);
+    }
+
+    private BytesViewResult(byte[] bytes, String contentType, String text) {
+        this.bytes = bytes;
+        this.buffer = null;
+        this.contentType = contentType;
+        this.text = text;
+    }
+
+    /**
+     * 堆内的ByteBuffer直接使用其底层数组，不会复制数据；
+     * 渲染时使用的是buffer的副本，所以不会修改传入buffer的position，实例可以重复渲染
+     *
+     * @param buffer      要写出的内容，从position到limit的部分
+     * @param contentType 内容类型
+     */
+    public BytesViewResult(ByteBuffer buffer, String contentType) {
+        this.bytes = null;
+        this.buffer = buffer.slice();
+        this.contentType = contentType;
+        this.text = null;
+    }
+
+    public static BytesViewResult plain(CharSequence text) {
+        return text(text.toString(), TEXT_PLAIN_UTF8);
+    }
+
+    public static BytesViewResult html(CharSequence html) {
+        return text(html.toString(), TEXT_HTML_UTF8);
+    }
+
+    private static BytesViewResult text(String text, String contentType) {
+        return new BytesViewResult(text.getBytes(StandardCharsets.UTF_8), contentType, text);
+    }
+
+    public int getContentLength() {
+        return bytes != null ? bytes.length : buffer.remaining();
+    }
+
+    @Override
+    public void render(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        ServletOutputStream output;
+        try {
+            output = resp.getOutputStream();
+        } catch (IllegalStateException e) {
+            // handler已经用过Writer了，文本内容改用Writer写出，字节内容没有办法写出
+            if (text == null) {
+                throw e;
+            }
+            resp.setContentType(contentType);
+            resp.getWriter().print(text);
+            return;
+        }
+        resp.setContentType(contentType);
+        resp.setContentLength(getContentLength());
+        if (bytes != null) {
+            output.write(bytes, 0, bytes.length);
+        } else if (buffer.hasArray()) {
+            output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            // 直接内存的buffer没有底层数组，通过通道写出，每次都用副本以免多线程渲染时互相影响position
+            WritableByteChannel channel = Channels.newChannel(output);
+            channel.write(buffer.duplicate());
+        }
+    }
+}
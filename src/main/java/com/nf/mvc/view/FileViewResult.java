@@ -1,12 +1,22 @@
 package com.nf.mvc.view;
 
 
+import com.nf.mvc.ServletExchange;
+import com.nf.mvc.compression.CompressionConfiguration;
+import com.nf.mvc.support.HttpHeaders;
 import com.nf.mvc.util.FileUtils;
+import com.nf.mvc.util.HttpCacheUtils;
 import com.nf.mvc.util.StreamUtils;
+import com.nf.mvc.write.ChunkSource;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,14 +46,27 @@ import static com.nf.mvc.util.FileUtils.getMediaType;
  *     <img src="http://localhost:8080/file/download?filename=a.jpg"/>
  * </pre>
  * </p>
+ * <h3>条件请求</h3>
+ * <p>通过文件物理路径实例化时，会依据文件的最后修改时间设置Last-Modified响应头，依据文件大小与最后修改时间设置强ETag响应头，
+ * 请求端再次请求时如果带上了If-None-Match或If-Modified-Since并且文件没有变化，就直接响应304而不再发送文件内容，
+ * 具体判断逻辑见{@link HttpCacheUtils#checkNotModified(HttpServletRequest, HttpServletResponse, String, long)}。
+ * 通过流实例化时，由于无法得知文件的元数据，所以不进行条件请求的处理</p>
+ * <h3>预压缩文件</h3>
+ * <p>如果通过{@link CompressionConfiguration#servePrecompressed(boolean)}开启了预压缩文件的支持，并且请求端支持gzip，
+ * 那么在同一目录下存在"文件名.gz"文件时，会直接响应这个预压缩的文件并设置Content-Encoding为gzip，不需要在请求时再进行压缩</p>
  *
  * @see StreamViewResult
+ * @see HttpCacheUtils
  * @see com.nf.mvc.ViewResult
  * @see com.nf.mvc.handler.HandlerHelper
  */
 public class FileViewResult extends StreamViewResult {
 
   private final String filename;
+  /**
+   * 通过流实例化时此字段为null，表示不支持条件请求
+   */
+  private final File file;
 
   public FileViewResult(String realPath) {
     this(realPath, new HashMap<>());
@@ -57,7 +80,7 @@ public class FileViewResult extends StreamViewResult {
    */
   public FileViewResult(String realPath, Map<String, String> headers) {
     super(StreamUtils.getInputStreamFromRealPath(realPath), headers);
-    // this.realPath = realPath;
+    this.file = new File(realPath);
     this.filename = FileUtils.getFilename(realPath);
   }
 
@@ -74,9 +97,98 @@ public class FileViewResult extends StreamViewResult {
    */
   public FileViewResult(InputStream inputStream, String filename, Map<String, String> headers) {
     super(inputStream, headers);
+    this.file = null;
     this.filename = filename;
   }
 
+  @Override
+  public void render(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+    if (file != null) {
+      File precompressedFile = getPrecompressedFile(req);
+      if (precompressedFile != null) {
+        renderPrecompressed(req, resp, precompressedFile);
+        return;
+      }
+      if (checkNotModified(req, resp, file)) {
+        // 文件没有变化，不需要再发送文件内容，但构造函数里已经打开的流需要关闭
+        closeInputStream();
+        return;
+      }
+    }
+    super.render(req, resp);
+  }
+
+  protected boolean checkNotModified(HttpServletRequest req, HttpServletResponse resp, File target) {
+    long lastModified = target.lastModified();
+    String etag = HttpCacheUtils.fileETag(target.length(), lastModified);
+    return HttpCacheUtils.checkNotModified(req, resp, etag, lastModified);
+  }
+
+  protected File getPrecompressedFile(HttpServletRequest req) {
+    Object encoding = req.getAttribute(CompressionConfiguration.PRECOMPRESSED_ENCODING_ATTRIBUTE);
+    if (encoding == null) {
+      return null;
+    }
+    File precompressedFile = new File(file.getPath() + ".gz");
+    return precompressedFile.isFile() ? precompressedFile : null;
+  }
+
+  /**
+   * 开启非阻塞写出时的处理与{@link #render(HttpServletRequest, HttpServletResponse)}是一样的，
+   * 只是响应体交给返回的来源写出，预压缩文件通过文件通道读取
+   */
+  @Override
+  public ChunkSource prepareBody(ServletExchange exchange) throws Exception {
+    HttpServletRequest req = exchange.getRequest();
+    HttpServletResponse resp = exchange.getResponse();
+    if (file != null) {
+      File precompressedFile = getPrecompressedFile(req);
+      if (precompressedFile != null) {
+        return preparePrecompressed(req, resp, precompressedFile) ?
+                ChunkSource.of(FileChannel.open(precompressedFile.toPath())) : null;
+      }
+      if (checkNotModified(req, resp, file)) {
+        closeInputStream();
+        return null;
+      }
+    }
+    return super.prepareBody(exchange);
+  }
+
+  @Override
+  protected long getContentLength() {
+    return file == null ? -1 : file.length();
+  }
+
+  /**
+   * 设置预压缩文件的响应头
+   *
+   * @return false表示已经响应了304，不需要再写出文件内容
+   */
+  private boolean preparePrecompressed(HttpServletRequest req, HttpServletResponse resp, File precompressedFile) throws Exception {
+    // 响应的是预压缩文件，原始文件的流用不上了
+    closeInputStream();
+    resp.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    // 用.gz文件的元数据生成ETag，这样压缩与未压缩两种表示的ETag是不同的
+    if (checkNotModified(req, resp, precompressedFile)) {
+      return false;
+    }
+    writeContentType(resp);
+    writeHeaders(resp);
+    resp.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    resp.setContentLengthLong(precompressedFile.length());
+    return true;
+  }
+
+  private void renderPrecompressed(HttpServletRequest req, HttpServletResponse resp, File precompressedFile) throws Exception {
+    if (!preparePrecompressed(req, resp, precompressedFile)) {
+      return;
+    }
+    try (InputStream input = Files.newInputStream(precompressedFile.toPath()); OutputStream output = resp.getOutputStream()) {
+      StreamUtils.copy(input, output);
+    }
+  }
+
   @SuppressWarnings("RedundantThrows")
   @Override
   protected void writeContentType(HttpServletResponse resp) throws Exception {
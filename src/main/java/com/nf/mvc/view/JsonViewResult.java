@@ -1,28 +1,118 @@
 package com.nf.mvc.view;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nf.mvc.ServletExchange;
 import com.nf.mvc.ViewResult;
+import com.nf.mvc.util.HttpCacheUtils;
+import com.nf.mvc.write.ChunkSource;
+import com.nf.mvc.write.NonBlockingViewResult;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 
 import static com.nf.mvc.util.JacksonUtils.getObjectMapper;
 
-
-public class JsonViewResult extends ViewResult {
+/**
+ * 此类用来响应json数据
+ * <h3>弱ETag</h3>
+ * <p>通过{@link #JsonViewResult(Object, boolean)}构造函数启用弱ETag之后，序列化时会边写边计算序列化字节的摘要值，
+ * 以此生成弱ETag，如果请求头If-None-Match与之匹配就响应304，不再发送json内容。
+ * 因为响应头必须在响应体之前发出，所以启用ETag时序列化的结果会先写到内存缓冲区，计算完摘要之后再一次性写出</p>
+ * <h3>非阻塞写出</h3>
+ * <p>开启非阻塞写出时，对象先序列化到内存中(序列化只消耗cpu，不会因为客户端慢而阻塞)，
+ * 然后在响应可写时分块写出，见{@link #prepareBody(ServletExchange)}。
+ * jackson的序列化是推的方式，无法在响应不可写时暂停，所以没有做成边序列化边写出</p>
+ *
+ * @see HttpCacheUtils
+ */
+public class JsonViewResult extends ViewResult implements NonBlockingViewResult {
+    private static final String DIGEST_ALGORITHM = "MD5";
     private final Object obj;
+    private final boolean weakETag;
 
     public JsonViewResult(Object obj) {
+        this(obj, false);
+    }
+
+    /**
+     * @param obj      要序列化的对象
+     * @param weakETag 是否生成弱ETag以支持条件请求
+     */
+    public JsonViewResult(Object obj, boolean weakETag) {
         this.obj = obj;
+        this.weakETag = weakETag;
     }
 
     @Override
     public void render(HttpServletRequest req, HttpServletResponse resp) throws Exception {
         resp.setContentType("application/json;charset=UTF-8");
         ObjectMapper objectMapper = getObjectMapper();
+        if (weakETag) {
+            renderWithETag(req, resp, objectMapper);
+            return;
+        }
         String jsonText = objectMapper.writeValueAsString(this.obj);
         resp.getWriter().print(jsonText);
     }
 
+    @Override
+    public ChunkSource prepareBody(ServletExchange exchange) throws Exception {
+        HttpServletResponse resp = exchange.getResponse();
+        resp.setContentType("application/json;charset=UTF-8");
+        ObjectMapper objectMapper = getObjectMapper();
+        if (weakETag) {
+            JsonBuffer buffer = serializeWithETag(exchange.getRequest(), resp, objectMapper);
+            return buffer == null ? null : buffer.toChunkSource();
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(this.obj);
+        resp.setContentLength(bytes.length);
+        return ChunkSource.of(bytes, 0, bytes.length);
+    }
 
+    private void renderWithETag(HttpServletRequest req, HttpServletResponse resp, ObjectMapper objectMapper) throws Exception {
+        JsonBuffer buffer = serializeWithETag(req, resp, objectMapper);
+        if (buffer != null) {
+            buffer.writeTo(resp.getOutputStream());
+        }
+    }
+
+    /**
+     * 序列化到内存中并计算ETag，设置好ETag与Content-Length响应头
+     *
+     * @return 序列化的结果，null表示已经响应了304
+     */
+    private JsonBuffer serializeWithETag(HttpServletRequest req, HttpServletResponse resp, ObjectMapper objectMapper) throws Exception {
+        JsonBuffer buffer = new JsonBuffer();
+        MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        // jackson写出字节的同时就完成了摘要的计算，不需要序列化之后再遍历一次字节数组
+        objectMapper.writeValue(new DigestOutputStream(buffer, digest), this.obj);
+
+        String etag = HttpCacheUtils.weakETag(toHex(digest.digest()));
+        if (HttpCacheUtils.checkNotModified(req, resp, etag, -1)) {
+            return null;
+        }
+        resp.setContentLength(buffer.size());
+        return buffer;
+    }
+
+    /**
+     * 可以直接使用内部数组创建来源的缓冲区，非阻塞写出时不需要再复制一次
+     */
+    private static class JsonBuffer extends ByteArrayOutputStream {
+        ChunkSource toChunkSource() {
+            return ChunkSource.of(buf, 0, count);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
 }
@@ -0,0 +1,47 @@
+package com.nf.mvc.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.support.HttpHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 用指定的ObjectMapper把对象序列化之后响应，json、cbor、smile等格式只是ObjectMapper的底层工厂不同，
+ * 所以用同一个类来处理。序列化的结果是字节数组，因而可以设置Content-Length并一次写出
+ * <p>此类主要由{@link com.nf.mvc.returnvalue.SerializingReturnValueHandler}在内容协商之后创建，
+ * 用户想响应json数据时直接使用{@link JsonViewResult}即可</p>
+ *
+ * @see com.nf.mvc.returnvalue.SerializationFormat
+ */
+public class SerializedViewResult extends ViewResult {
+    private final Object obj;
+    private final ObjectMapper objectMapper;
+    private final String contentType;
+    private final boolean varyOnAccept;
+
+    /**
+     * @param obj          要序列化的对象
+     * @param objectMapper 序列化用的ObjectMapper
+     * @param contentType  响应的内容类型
+     * @param varyOnAccept 响应内容是否依据Accept请求头协商，是的话会设置Vary: Accept，以免缓存把不同格式的响应混在一起
+     */
+    public SerializedViewResult(Object obj, ObjectMapper objectMapper, String contentType, boolean varyOnAccept) {
+        this.obj = obj;
+        this.objectMapper = objectMapper;
+        this.contentType = contentType;
+        this.varyOnAccept = varyOnAccept;
+    }
+
+    @Override
+    public void render(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        byte[] bytes = objectMapper.writeValueAsBytes(obj);
+        resp.setContentType(contentType);
+        if (varyOnAccept) {
+            resp.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        resp.setContentLength(bytes.length);
+        resp.getOutputStream().write(bytes);
+    }
+}
@@ -0,0 +1,30 @@
+package com.nf.mvc.view;
+
+import com.nf.mvc.ViewResult;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 只响应一个错误状态码的视图结果，响应体由容器的错误页面生成，主要给异常解析器使用，
+ * 响应已经提交时无法再修改状态码，此时什么都不做
+ */
+public class StatusViewResult extends ViewResult {
+    private final int status;
+
+    public StatusViewResult(int status) {
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void render(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!resp.isCommitted()) {
+            resp.sendError(status);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.nf.mvc.view;
 
+import com.nf.mvc.ServletExchange;
 import com.nf.mvc.ViewResult;
 import com.nf.mvc.util.ObjectUtils;
 import com.nf.mvc.util.StreamUtils;
+import com.nf.mvc.write.ChunkSource;
+import com.nf.mvc.write.NonBlockingViewResult;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.HashMap;
@@ -13,11 +17,12 @@ import java.util.Map;
 
 /**
  * 此类主要是用来响应流这种视图结果的
+ * <p>开启非阻塞写出时，流中的内容在响应可写时才读取并写出，见{@link #prepareBody(ServletExchange)}</p>
  * @see FileViewResult
  * @see ViewResult
  * @see com.nf.mvc.handler.HandlerHelper
  */
-public class StreamViewResult extends ViewResult {
+public class StreamViewResult extends ViewResult implements NonBlockingViewResult {
     private final Map<String, String> headers ;
     private final InputStream inputStream;
 
@@ -37,6 +42,21 @@ public class StreamViewResult extends ViewResult {
         writeContent(resp);
     }
 
+    @Override
+    public ChunkSource prepareBody(ServletExchange exchange) throws Exception {
+        HttpServletResponse resp = exchange.getResponse();
+        writeContentType(resp);
+        writeHeaders(resp);
+        return ChunkSource.of(this.inputStream, getContentLength());
+    }
+
+    /**
+     * @return 流中内容的字节数，未知时返回-1，用来决定是否值得非阻塞写出
+     */
+    protected long getContentLength() {
+        return -1;
+    }
+
     protected void writeContentType(HttpServletResponse resp) throws Exception{
         resp.setContentType(StreamUtils.APPLICATION_OCTET_STREAM_VALUE);
     }
@@ -53,4 +73,11 @@ public class StreamViewResult extends ViewResult {
             StreamUtils.copy(input, output);
         }
     }
+
+    /**
+     * 不需要写出内容时(比如响应304)，子类调用此方法关闭流
+     */
+    protected void closeInputStream() throws IOException {
+        this.inputStream.close();
+    }
 }
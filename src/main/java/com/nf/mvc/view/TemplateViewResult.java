@@ -0,0 +1,50 @@
+package com.nf.mvc.view;
+
+import com.nf.mvc.MvcContext;
+import com.nf.mvc.ViewResult;
+import com.nf.mvc.view.template.TemplateEngine;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 模板视图结果，利用{@link TemplateEngine}把模板与模型数据直接渲染到响应的Writer中。
+ * <p>与{@link ForwardViewResult}转发到jsp不同，此视图不需要经过容器的RequestDispatcher，
+ * 模型数据也不需要放置到request的属性中，模板只在第一次使用时编译，之后都使用缓存的编译结果</p>
+ * <p>典型用法如下:
+ * <pre class="code">
+ *     import static com.nf.mvc.handler.HandlerHelper.view;
+ *     &#064;RequestMapping("/list")
+ *     public ViewResult list(){
+ *         Map&lt;String,Object&gt; model = new HashMap&lt;&gt;();
+ *         model.put("products", productService.getAll());
+ *         return view("product/list", model);
+ *     }
+ * </pre>
+ * </p>
+ *
+ * @see TemplateEngine
+ * @see com.nf.mvc.view.template.SimpleTemplateEngine
+ */
+public class TemplateViewResult extends ViewResult {
+    private final String name;
+    private final Map<String, Object> model;
+
+    public TemplateViewResult(String name) {
+        this(name, new HashMap<>());
+    }
+
+    public TemplateViewResult(String name, Map<String, Object> model) {
+        this.name = name;
+        this.model = model;
+    }
+
+    @Override
+    public void render(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        resp.setContentType("text/html;charset=UTF-8");
+        TemplateEngine templateEngine = MvcContext.getMvcContext().getTemplateEngine();
+        templateEngine.render(name, model, resp.getWriter());
+    }
+}
@@ -0,0 +1,174 @@
+package com.nf.mvc.view.template;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模板中变量值的获取逻辑，变量名用"."分隔，比如{{product.name}}
+ * <p>第一段名字会从内到外在作用域栈中查找，找到之后后续的每一段都在上一段的值中查找，查找规则是:
+ * <ul>
+ *     <li>Map类型就调用get方法</li>
+ *     <li>否则依次查找getXxx方法、isXxx方法以及public字段</li>
+ * </ul>
+ * 通过反射找到的方法或字段会转换成类型为(Object)Object的MethodHandle，并按照类型与属性名缓存起来，
+ * 渲染时不需要每次都去查找，调用时也没有Method.invoke那样的参数数组与访问检查的开销</p>
+ * <p>名字"."表示当前作用域本身，通常用在遍历简单类型的集合时</p>
+ */
+class PropertyAccessor {
+    /**
+     * 集合中的元素是null时，用此对象占位，因为ArrayDeque不能放置null
+     */
+    static final Object NULL_SCOPE = new Object();
+    private static final Object NOT_FOUND = new Object();
+    private static final MethodHandle NO_ACCESSOR = MethodHandles.constant(Object.class, NOT_FOUND);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    /**
+     * 用ClassValue按类型保存属性访问器，比以Class为key的Map查找更快，也不会阻止类被卸载
+     */
+    private static final ClassValue<Map<String, MethodHandle>> ACCESSOR_CACHE = new ClassValue<Map<String, MethodHandle>>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private PropertyAccessor() {
+    }
+
+    static Object lookup(Deque<Object> scopes, String[] path) {
+        if (path.length == 0) {
+            Object current = scopes.peek();
+            return current == NULL_SCOPE ? null : current;
+        }
+        Object value = NOT_FOUND;
+        for (Object scope : scopes) {
+            if (scope != NULL_SCOPE && (value = getProperty(scope, path[0])) != NOT_FOUND) {
+                break;
+            }
+        }
+        for (int i = 1; i < path.length && value != null && value != NOT_FOUND; i++) {
+            value = getProperty(value, path[i]);
+        }
+        return value == NOT_FOUND ? null : value;
+    }
+
+    /**
+     * 查找与取值合并为一次，避免先判断有没有再取值时对缓存查找两次
+     *
+     * @return 值，没有此属性时返回{@link #NOT_FOUND}
+     */
+    private static Object getProperty(Object target, String name) {
+        if (target instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) target;
+            Object value = map.get(name);
+            return value != null || map.containsKey(name) ? value : NOT_FOUND;
+        }
+        Class<?> clz = target.getClass();
+        Map<String, MethodHandle> accessors = ACCESSOR_CACHE.get(clz);
+        MethodHandle accessor = accessors.get(name);
+        if (accessor == null) {
+            accessor = accessors.computeIfAbsent(name, k -> findAccessor(clz, k));
+        }
+        if (accessor == NO_ACCESSOR) {
+            return NOT_FOUND;
+        }
+        try {
+            return accessor.invokeExact(target);
+        } catch (Throwable e) {
+            throw new IllegalStateException("获取模板变量的值失败，类:" + clz.getName() + ",属性:" + name, e);
+        }
+    }
+
+    private static MethodHandle findAccessor(Class<?> clz, String name) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        try {
+            for (String methodName : new String[]{"get" + capitalized, "is" + capitalized}) {
+                try {
+                    Method method = clz.getMethod(methodName);
+                    if (method.getReturnType() != void.class) {
+                        MethodHandle accessor = unreflectPublic(lookup, clz, methodName);
+                        if (accessor == null) {
+                            // 非public类(比如私有内部类)的public方法需要设置accessible才能反射调用
+                            if (!trySetAccessible(method)) {
+                                return NO_ACCESSOR;
+                            }
+                            accessor = lookup.unreflect(method);
+                        }
+                        return accessor.asType(GETTER_TYPE);
+                    }
+                } catch (NoSuchMethodException ignored) {
+                    // 继续找下一种
+                }
+            }
+            try {
+                Field field = clz.getField(name);
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    try {
+                        return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                    } catch (IllegalAccessException e) {
+                        // 非public类的public字段需要设置accessible才能访问
+                        if (!trySetAccessible(field)) {
+                            return NO_ACCESSOR;
+                        }
+                    }
+                    return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                }
+            } catch (NoSuchFieldException ignored) {
+                // 没有此字段
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问模板变量，类:" + clz.getName() + ",属性:" + name, e);
+        }
+        return NO_ACCESSOR;
+    }
+
+    /**
+     * 从类型本身开始依次在它的public父类与接口中查找可以直接访问的同名方法，
+     * 比如HashMap的Entry实现类不是public的，但可以通过Map.Entry接口的getKey方法访问
+     *
+     * @return 找不到可以直接访问的方法时返回null
+     */
+    private static MethodHandle unreflectPublic(MethodHandles.Lookup lookup, Class<?> type, String methodName) {
+        if (type == null) {
+            return null;
+        }
+        if (Modifier.isPublic(type.getModifiers())) {
+            try {
+                return lookup.unreflect(type.getMethod(methodName));
+            } catch (NoSuchMethodException | IllegalAccessException ignored) {
+                // 比如jdk中没有导出的包里的public类，继续在父类型中找
+            }
+        }
+        for (Class<?> superInterface : type.getInterfaces()) {
+            MethodHandle accessor = unreflectPublic(lookup, superInterface, methodName);
+            if (accessor != null) {
+                return accessor;
+            }
+        }
+        return unreflectPublic(lookup, type.getSuperclass(), methodName);
+    }
+
+    /**
+     * jdk9以上不允许对jdk内部的类型设置accessible，会抛出InaccessibleObjectException，
+     * 这个异常是jdk9才有的RuntimeException，所以这里捕获的是RuntimeException
+     *
+     * @return 设置成功返回true
+     */
+    private static boolean trySetAccessible(AccessibleObject accessibleObject) {
+        try {
+            accessibleObject.setAccessible(true);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
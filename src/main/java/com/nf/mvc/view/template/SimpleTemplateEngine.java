@@ -0,0 +1,159 @@
+package com.nf.mvc.view.template;
+
+import com.nf.mvc.util.StreamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * mvc框架默认的模板引擎，模板语法见{@link TemplateCompiler}
+ * <h3>模板的位置</h3>
+ * <p>默认从类路径下的templates目录加载扩展名为.html的模板，比如模板名为"product/list"，
+ * 那么模板文件就是类路径下的templates/product/list.html，
+ * 也可以通过{@link #setTemplateDirectory(String)}指定一个文件系统的目录，此时就不再从类路径加载模板</p>
+ * <h3>缓存</h3>
+ * <p>模板只在第一次使用时读取并编译，编译之后的{@link Template}会缓存起来，之后的渲染都直接使用缓存的模板。
+ * 开发模式下({@link #setDevMode(boolean)})每次渲染前会检查模板文件的最后修改时间，文件修改过就重新编译，
+ * 这样修改模板之后不需要重启项目，生产环境不建议开启开发模式</p>
+ * <h3>配置</h3>
+ * <pre class="code">
+ *     public class MyMvcConfigurer implements MvcConfigurer {
+ *         &#064;Override
+ *         public void configureTemplateEngine(TemplateEngine templateEngine) {
+ *             if (templateEngine instanceof SimpleTemplateEngine) {
+ *                 ((SimpleTemplateEngine) templateEngine).setDevMode(true);
+ *             }
+ *         }
+ *     }
+ * </pre>
+ *
+ * @see TemplateEngine
+ * @see TemplateCompiler
+ * @see com.nf.mvc.view.TemplateViewResult
+ */
+public class SimpleTemplateEngine implements TemplateEngine {
+    private final Map<String, Template> cache = new ConcurrentHashMap<>();
+    private final TemplateCompiler compiler = new TemplateCompiler();
+
+    private String classpathPrefix = "templates/";
+    private String templateDirectory;
+    private String suffix = ".html";
+    private Charset charset = StandardCharsets.UTF_8;
+    private boolean devMode = false;
+
+    @Override
+    public void render(String name, Map<String, Object> model, Writer writer) throws Exception {
+        getTemplate(name).render(model, writer, this::getTemplate);
+    }
+
+    public Template getTemplate(String name) {
+        Template template = cache.get(name);
+        if (template == null) {
+            return cache.computeIfAbsent(name, this::loadTemplate);
+        }
+        if (devMode && getLastModified(name) != template.getLastModified()) {
+            template = loadTemplate(name);
+            cache.put(name, template);
+        }
+        return template;
+    }
+
+    /**
+     * 清空缓存的模板，下次使用时会重新加载编译
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    private Template loadTemplate(String name) {
+        try {
+            long lastModified = getLastModified(name);
+            String source;
+            try (InputStream input = openTemplate(name)) {
+                source = StreamUtils.copyToString(input, charset);
+            }
+            return compiler.compile(name, source, lastModified);
+        } catch (IOException e) {
+            throw new UncheckedIOException("模板[" + name + "]读取失败", e);
+        }
+    }
+
+    private InputStream openTemplate(String name) throws IOException {
+        if (templateDirectory != null) {
+            return Files.newInputStream(getTemplateFile(name).toPath());
+        }
+        return getTemplateUrl(name).openStream();
+    }
+
+    private long getLastModified(String name) {
+        if (templateDirectory != null) {
+            return getTemplateFile(name).lastModified();
+        }
+        try {
+            URL url = getTemplateUrl(name);
+            if ("file".equals(url.getProtocol())) {
+                return new File(url.toURI()).lastModified();
+            }
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            try {
+                return connection.getLastModified();
+            } finally {
+                connection.getInputStream().close();
+            }
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private File getTemplateFile(String name) {
+        File file = new File(templateDirectory, name + suffix);
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("模板[" + name + "]不存在:" + file.getAbsolutePath());
+        }
+        return file;
+    }
+
+    private URL getTemplateUrl(String name) {
+        String path = classpathPrefix + name + suffix;
+        URL url = Thread.currentThread().getContextClassLoader().getResource(path);
+        if (url == null) {
+            throw new IllegalArgumentException("模板[" + name + "]在类路径下不存在:" + path);
+        }
+        return url;
+    }
+
+    public void setClasspathPrefix(String classpathPrefix) {
+        this.classpathPrefix = classpathPrefix;
+    }
+
+    public void setTemplateDirectory(String templateDirectory) {
+        this.templateDirectory = templateDirectory;
+    }
+
+    public void setSuffix(String suffix) {
+        this.suffix = suffix;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public void setDevMode(boolean devMode) {
+        this.devMode = devMode;
+    }
+
+    public boolean isDevMode() {
+        return devMode;
+    }
+}
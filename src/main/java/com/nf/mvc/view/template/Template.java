@@ -0,0 +1,232 @@
+package com.nf.mvc.view.template;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 编译之后的模板，模板文本在编译时就被解析成了一组节点，渲染时只需要依次执行每个节点即可，不需要再解析模板文本
+ * <p>此类的实例是不可变的，所以可以被缓存并被多个线程同时使用</p>
+ *
+ * @see TemplateCompiler
+ * @see SimpleTemplateEngine
+ */
+public class Template {
+    private final String name;
+    private final Node[] nodes;
+    private final long lastModified;
+
+    Template(String name, List<Node> nodes, long lastModified) {
+        this.name = name;
+        this.nodes = nodes.toArray(new Node[0]);
+        this.lastModified = lastModified;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 模板文件编译时的最后修改时间，无法获取时为-1
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param model           模型数据
+     * @param writer          渲染结果写出的目标
+     * @param partialResolver 用来获取{{>name}}引用的子模板
+     * @throws IOException 写出时的异常
+     */
+    public void render(Map<String, Object> model, Writer writer, Function<String, Template> partialResolver) throws IOException {
+        Deque<Object> scopes = new ArrayDeque<>();
+        scopes.push(model);
+        render(nodes, scopes, writer, partialResolver);
+    }
+
+    static void render(Node[] nodes, Deque<Object> scopes, Writer writer, Function<String, Template> partialResolver) throws IOException {
+        for (Node node : nodes) {
+            node.render(scopes, writer, partialResolver);
+        }
+    }
+
+    interface Node {
+        void render(Deque<Object> scopes, Writer writer, Function<String, Template> partialResolver) throws IOException;
+    }
+
+    /**
+     * 静态文本，编译时就转成char数组，渲染时直接写出
+     */
+    static class TextNode implements Node {
+        private final char[] text;
+
+        TextNode(String text) {
+            this.text = text.toCharArray();
+        }
+
+        @Override
+        public void render(Deque<Object> scopes, Writer writer, Function<String, Template> partialResolver) throws IOException {
+            writer.write(text);
+        }
+    }
+
+    /**
+     * {{name}}与{{{name}}}，前者会进行html转义
+     */
+    static class VariableNode implements Node {
+        private final String[] path;
+        private final boolean escape;
+
+        VariableNode(String[] path, boolean escape) {
+            this.path = path;
+            this.escape = escape;
+        }
+
+        @Override
+        public void render(Deque<Object> scopes, Writer writer, Function<String, Template> partialResolver) throws IOException {
+            Object value = PropertyAccessor.lookup(scopes, path);
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (escape) {
+                escapeHtml(text, writer);
+            } else {
+                writer.write(text);
+            }
+        }
+
+        private static void escapeHtml(String text, Writer writer) throws IOException {
+            int length = text.length();
+            int first = 0;
+            while (first < length && replacementOf(text.charAt(first)) == null) {
+                first++;
+            }
+            // 绝大多数值是不需要转义的，此时整个字符串一次写出
+            if (first == length) {
+                writer.write(text);
+                return;
+            }
+            StringBuilder builder = new StringBuilder(length + 16).append(text, 0, first);
+            for (int i = first; i < length; i++) {
+                char c = text.charAt(i);
+                String replacement = replacementOf(c);
+                if (replacement == null) {
+                    builder.append(c);
+                } else {
+                    builder.append(replacement);
+                }
+            }
+            writer.write(builder.toString());
+        }
+
+        private static String replacementOf(char c) {
+            switch (c) {
+                case '<':
+                    return "&lt;";
+                case '>':
+                    return "&gt;";
+                case '&':
+                    return "&amp;";
+                case '"':
+                    return "&quot;";
+                case '\'':
+                    return "&#39;";
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * {{#name}}...{{/name}}与{{^name}}...{{/name}}
+     * <ul>
+     *     <li>值是集合或数组时，对每一个元素渲染一次，元素会成为内部的当前作用域</li>
+     *     <li>值是Boolean时，为true才渲染</li>
+     *     <li>值是其它非null对象时渲染一次，此对象成为内部的当前作用域</li>
+     *     <li>反向的section({{^name}})只在值为null、false或空集合时渲染一次</li>
+     * </ul>
+     */
+    static class SectionNode implements Node {
+        private final String[] path;
+        private final boolean inverted;
+        private final Node[] children;
+
+        SectionNode(String[] path, boolean inverted, List<Node> children) {
+            this.path = path;
+            this.inverted = inverted;
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        public void render(Deque<Object> scopes, Writer writer, Function<String, Template> partialResolver) throws IOException {
+            Object value = PropertyAccessor.lookup(scopes, path);
+            if (inverted) {
+                if (isFalsy(value)) {
+                    Template.render(children, scopes, writer, partialResolver);
+                }
+                return;
+            }
+            if (isFalsy(value)) {
+                return;
+            }
+            if (value instanceof Boolean) {
+                Template.render(children, scopes, writer, partialResolver);
+            } else if (value instanceof Iterable) {
+                for (Object item : (Iterable<?>) value) {
+                    renderInScope(item, scopes, writer, partialResolver);
+                }
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    renderInScope(Array.get(value, i), scopes, writer, partialResolver);
+                }
+            } else {
+                renderInScope(value, scopes, writer, partialResolver);
+            }
+        }
+
+        private void renderInScope(Object scope, Deque<Object> scopes, Writer writer, Function<String, Template> partialResolver) throws IOException {
+            scopes.push(scope == null ? PropertyAccessor.NULL_SCOPE : scope);
+            try {
+                Template.render(children, scopes, writer, partialResolver);
+            } finally {
+                scopes.pop();
+            }
+        }
+
+        private static boolean isFalsy(Object value) {
+            if (value == null || Boolean.FALSE.equals(value)) {
+                return true;
+            }
+            if (value instanceof Collection) {
+                return ((Collection<?>) value).isEmpty();
+            }
+            return value.getClass().isArray() && Array.getLength(value) == 0;
+        }
+    }
+
+    /**
+     * {{>name}}引用的子模板，子模板在渲染时才去获取，这样子模板修改之后不需要重新编译父模板
+     */
+    static class PartialNode implements Node {
+        private final String name;
+
+        PartialNode(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void render(Deque<Object> scopes, Writer writer, Function<String, Template> partialResolver) throws IOException {
+            Template partial = partialResolver.apply(name);
+            Template.render(partial.nodes, scopes, writer, partialResolver);
+        }
+    }
+}
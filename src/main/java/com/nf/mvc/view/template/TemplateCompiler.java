@@ -0,0 +1,112 @@
+package com.nf.mvc.view.template;
+
+import com.nf.mvc.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 模板编译器，把模板文本解析成{@link Template}，支持的语法是mustache的一个子集
+ * <ul>
+ *     <li>{{name}}:输出变量值，会进行html转义，name可以是a.b.c这种形式，也可以是"."代表当前元素</li>
+ *     <li>{{{name}}}:输出变量值，不进行html转义</li>
+ *     <li>{{#name}}...{{/name}}:条件或者循环，具体逻辑见{@link Template.SectionNode}</li>
+ *     <li>{{^name}}...{{/name}}:值为空时才渲染</li>
+ *     <li>{{>name}}:引入另一个模板</li>
+ *     <li>{{!注释}}:注释，不会输出</li>
+ * </ul>
+ * <p>一个典型的模板如下:
+ * <pre class="code">
+ *     &lt;h1&gt;{{title}}&lt;/h1&gt;
+ *     &lt;ul&gt;
+ *     {{#products}}
+ *         &lt;li&gt;{{name}}:{{price}}&lt;/li&gt;
+ *     {{/products}}
+ *     {{^products}}&lt;li&gt;没有商品&lt;/li&gt;{{/products}}
+ *     &lt;/ul&gt;
+ * </pre>
+ * </p>
+ */
+public class TemplateCompiler {
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final String TRIPLE_CLOSE = "}}}";
+    private static final String[] CURRENT_SCOPE = new String[0];
+
+    public Template compile(String name, String source, long lastModified) {
+        // 栈底是模板的顶层节点，每遇到一个section开始标签就压入一个新的节点集合
+        Deque<List<Template.Node>> nodeStack = new ArrayDeque<>();
+        Deque<String> sectionStack = new ArrayDeque<>();
+        Deque<Character> sectionTypes = new ArrayDeque<>();
+        nodeStack.push(new ArrayList<>());
+
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            if (open == -1) {
+                addText(nodeStack.peek(), source.substring(position));
+                break;
+            }
+            addText(nodeStack.peek(), source.substring(position, open));
+
+            boolean triple = source.startsWith("{", open + OPEN.length());
+            String closeTag = triple ? TRIPLE_CLOSE : CLOSE;
+            int tagStart = open + OPEN.length() + (triple ? 1 : 0);
+            int close = source.indexOf(closeTag, tagStart);
+            if (close == -1) {
+                throw new IllegalArgumentException("模板[" + name + "]的标签没有结束，位置:" + open);
+            }
+            String tag = source.substring(tagStart, close).trim();
+            position = close + closeTag.length();
+
+            if (triple) {
+                nodeStack.peek().add(new Template.VariableNode(toPath(tag), false));
+                continue;
+            }
+            char type = tag.isEmpty() ? ' ' : tag.charAt(0);
+            String tagName = tag.length() > 1 ? tag.substring(1).trim() : "";
+            switch (type) {
+                case '!':
+                    break;
+                case '#':
+                case '^':
+                    sectionStack.push(tagName);
+                    sectionTypes.push(type);
+                    nodeStack.push(new ArrayList<>());
+                    break;
+                case '/':
+                    if (sectionStack.isEmpty() || !sectionStack.peek().equals(tagName)) {
+                        throw new IllegalArgumentException("模板[" + name + "]的结束标签{{/" + tagName + "}}没有对应的开始标签");
+                    }
+                    List<Template.Node> children = nodeStack.pop();
+                    boolean inverted = sectionTypes.pop() == '^';
+                    nodeStack.peek().add(new Template.SectionNode(toPath(sectionStack.pop()), inverted, children));
+                    break;
+                case '>':
+                    nodeStack.peek().add(new Template.PartialNode(tagName));
+                    break;
+                default:
+                    nodeStack.peek().add(new Template.VariableNode(toPath(tag), true));
+            }
+        }
+        if (!sectionStack.isEmpty()) {
+            throw new IllegalArgumentException("模板[" + name + "]的标签{{#" + sectionStack.peek() + "}}没有结束标签");
+        }
+        return new Template(name, nodeStack.pop(), lastModified);
+    }
+
+    private void addText(List<Template.Node> nodes, String text) {
+        if (!text.isEmpty()) {
+            nodes.add(new Template.TextNode(text));
+        }
+    }
+
+    private String[] toPath(String name) {
+        if (".".equals(name)) {
+            return CURRENT_SCOPE;
+        }
+        return StringUtils.tokenizeToStringArray(name, ".");
+    }
+}
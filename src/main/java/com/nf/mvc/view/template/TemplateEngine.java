@@ -0,0 +1,29 @@
+package com.nf.mvc.view.template;
+
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * 模板引擎接口，{@link com.nf.mvc.view.TemplateViewResult}利用此接口把模板与模型数据渲染到响应的Writer中
+ * <p>
+ * 此接口是可以替换的，用户只需要在扫描的包下编写一个此接口的实现类即可替换掉mvc框架默认的{@link SimpleTemplateEngine}，
+ * 与其它核心组件一样，实现类必须有默认构造函数，如果只是想对默认的模板引擎进行设置，比如修改模板目录，
+ * 可以通过实现{@link com.nf.mvc.MvcConfigurer#configureTemplateEngine(TemplateEngine)}方法来实现
+ * </p>
+ * <p>实现类是单例的，会被多个线程同时使用，所以要保证线程安全，
+ * 并且应该尽量把模板的解析工作放在第一次使用时完成并缓存起来，而不是每次渲染都解析一次</p>
+ *
+ * @see SimpleTemplateEngine
+ * @see com.nf.mvc.view.TemplateViewResult
+ */
+public interface TemplateEngine {
+    /**
+     * 渲染模板
+     *
+     * @param name   模板名，不包含模板目录与扩展名，比如"product/list"
+     * @param model  模型数据
+     * @param writer 渲染的结果直接写到此Writer中，不会生成中间的字符串
+     * @throws Exception 模板不存在或者渲染出错时抛出的异常
+     */
+    void render(String name, Map<String, Object> model, Writer writer) throws Exception;
+}
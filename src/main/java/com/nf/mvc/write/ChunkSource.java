@@ -0,0 +1,188 @@
+package com.nf.mvc.write;
+
+import com.nf.mvc.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 响应体的来源，非阻塞写出时每当响应可写就调用一次{@link #read(ByteBuffer)}取下一块内容，
+ * 所以来源是按需推进的，不需要事先把整个响应体准备好，自己实现此接口就可以边生成边写出
+ * <p>本接口提供了输入流、文件通道、字节数组与ByteBuffer四种常用来源的实现</p>
+ *
+ * @see NonBlockingWriter
+ * @see NonBlockingViewResult
+ */
+@FunctionalInterface
+public interface ChunkSource {
+    /**
+     * 把下一块内容读到buffer中
+     *
+     * @param buffer 堆内的缓冲区，从position开始写入，最多写到limit
+     * @return 读取的字节数，-1表示没有内容了
+     * @throws IOException 读取出错时抛出
+     */
+    int read(ByteBuffer buffer) throws IOException;
+
+    /**
+     * @return 全部内容的字节数，未知时返回-1
+     */
+    default long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * 释放来源占用的资源，写出完毕、出错或超时都会调用
+     */
+    default void close() throws IOException {
+    }
+
+    /**
+     * 以阻塞的方式把全部内容写到输出流中，写完之后关闭来源，内容较少不值得非阻塞写出时使用
+     *
+     * @param output    输出流
+     * @param chunkSize 每次读取的字节数
+     * @throws IOException 读写出错时抛出
+     */
+    default void copyTo(OutputStream output, int chunkSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+        try {
+            int count;
+            while ((count = read(buffer)) != -1) {
+                output.write(buffer.array(), buffer.arrayOffset(), count);
+                ((Buffer) buffer).clear();
+            }
+        } finally {
+            close();
+        }
+    }
+
+    static ChunkSource of(InputStream inputStream) {
+        return of(inputStream, -1);
+    }
+
+    /**
+     * @param inputStream   输入流，关闭来源时一起关闭
+     * @param contentLength 流中内容的字节数，未知时传-1
+     * @return 从输入流读取的来源
+     */
+    static ChunkSource of(InputStream inputStream, long contentLength) {
+        return new ChunkSource() {
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                int count = inputStream.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                if (count > 0) {
+                    ((Buffer) buffer).position(buffer.position() + count);
+                }
+                return count;
+            }
+
+            @Override
+            public long getContentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public void close() throws IOException {
+                inputStream.close();
+            }
+        };
+    }
+
+    /**
+     * @param channel 文件通道，从当前位置读到文件末尾，关闭来源时一起关闭
+     * @return 从文件通道读取的来源
+     * @throws IOException 获取文件大小出错时抛出
+     */
+    static ChunkSource of(FileChannel channel) throws IOException {
+        long contentLength = channel.size() - channel.position();
+        return new ChunkSource() {
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                return channel.read(buffer);
+            }
+
+            @Override
+            public long getContentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    /**
+     * @param bytes  内容所在的数组，不会复制
+     * @param offset 内容的起始位置
+     * @param length 内容的字节数
+     * @return 从数组读取的来源
+     */
+    static ChunkSource of(byte[] bytes, int offset, int length) {
+        ByteBuffer content = ByteBuffer.wrap(bytes, offset, length);
+        return new ChunkSource() {
+            @Override
+            public int read(ByteBuffer buffer) {
+                if (!content.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(content.remaining(), buffer.remaining());
+                ByteBuffer slice = content.duplicate();
+                ((Buffer) slice).limit(slice.position() + count);
+                buffer.put(slice);
+                ((Buffer) content).position(content.position() + count);
+                return count;
+            }
+
+            @Override
+            public long getContentLength() {
+                return length;
+            }
+
+            @Override
+            public void copyTo(OutputStream output, int chunkSize) throws IOException {
+                // 内容已经在数组中了，不需要再经过缓冲区
+                output.write(bytes, offset, length);
+            }
+        };
+    }
+
+    /**
+     * @param content 内容所在的ByteBuffer，比如直接内存或者文件的内存映射，不会复制也不会改变它的位置
+     * @return 从ByteBuffer读取的来源
+     */
+    static ChunkSource of(ByteBuffer content) {
+        ByteBuffer remaining = content.duplicate();
+        int length = remaining.remaining();
+        return new ChunkSource() {
+            @Override
+            public int read(ByteBuffer buffer) {
+                if (!remaining.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(remaining.remaining(), buffer.remaining());
+                ByteBuffer slice = remaining.duplicate();
+                ((Buffer) slice).limit(slice.position() + count);
+                buffer.put(slice);
+                ((Buffer) remaining).position(remaining.position() + count);
+                return count;
+            }
+
+            @Override
+            public long getContentLength() {
+                return length;
+            }
+
+            @Override
+            public void copyTo(OutputStream output, int chunkSize) throws IOException {
+                StreamUtils.copy(remaining, output);
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.nf.mvc.write;
+
+import com.nf.mvc.ServletExchange;
+
+/**
+ * 支持非阻塞写出响应体的视图结果实现此接口，开启非阻塞写出之后DispatcherServlet不再调用视图结果的render方法，
+ * 而是先调用{@link #prepareBody(ServletExchange)}设置好响应头，再由{@link NonBlockingWriter}在响应可写时从返回的来源推送内容，
+ * 客户端接收得再慢也不会占用线程
+ * <p>实现类的render方法仍然需要保留阻塞写出的逻辑，没有开启非阻塞写出或者当前请求不支持异步处理时使用的还是render方法</p>
+ *
+ * @see com.nf.mvc.view.StreamViewResult
+ * @see com.nf.mvc.view.JsonViewResult
+ */
+public interface NonBlockingViewResult {
+    /**
+     * 设置响应状态码与响应头，然后返回响应体的来源，调用之后响应体只能从返回的来源写出
+     *
+     * @param exchange 当前请求的交互对象
+     * @return 响应体的来源，null表示没有响应体需要写出，比如响应了304
+     * @throws Exception 准备响应体时的异常
+     */
+    ChunkSource prepareBody(ServletExchange exchange) throws Exception;
+}
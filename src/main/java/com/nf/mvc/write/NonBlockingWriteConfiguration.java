@@ -0,0 +1,80 @@
+package com.nf.mvc.write;
+
+/**
+ * 非阻塞写出响应体的配置类，通过实现{@link com.nf.mvc.MvcConfigurer#configureNonBlockingWrite(NonBlockingWriteConfiguration)}方法进行配置，比如:
+ * <pre class="code">
+ *     public void configureNonBlockingWrite(NonBlockingWriteConfiguration configuration) {
+ *         configuration.enabled(true)
+ *                 .minContentLength(256 * 1024)
+ *                 .timeout(120000);
+ *     }
+ * </pre>
+ * <p>默认是关闭的，开启之后实现了{@link NonBlockingViewResult}的视图结果用servlet3.1的WriteListener写出响应体，
+ * 大文件下载、大json等响应在客户端接收得很慢时也不会一直占用线程，详见{@link NonBlockingWriter}</p>
+ * <p>内容长度已知并且小于{@link #getMinContentLength()}的响应体仍然直接写出，因为它们通常一次就能写进socket缓冲区，
+ * 开启异步处理反而多了线程切换。长度未知的流总是非阻塞写出</p>
+ * <p>开启了响应压缩并且当前响应会被压缩时，压缩输出流不支持非阻塞写出，仍然使用阻塞的方式</p>
+ *
+ * @see NonBlockingWriter
+ */
+public class NonBlockingWriteConfiguration {
+    private boolean enabled = false;
+
+    private long minContentLength = 64 * 1024;
+
+    private int chunkSize = 16 * 1024;
+
+    private long timeout = 60000;
+
+    public NonBlockingWriteConfiguration enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param minContentLength 长度已知的响应体达到此字节数才非阻塞写出
+     * @return 配置对象本身
+     */
+    public NonBlockingWriteConfiguration minContentLength(long minContentLength) {
+        this.minContentLength = minContentLength;
+        return this;
+    }
+
+    public long getMinContentLength() {
+        return minContentLength;
+    }
+
+    /**
+     * @param chunkSize 每次从来源读取并写出的字节数
+     * @return 配置对象本身
+     */
+    public NonBlockingWriteConfiguration chunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param timeout 写出整个响应体的超时毫秒数，超时之后放弃写出并断开，0表示不超时
+     * @return 配置对象本身
+     */
+    public NonBlockingWriteConfiguration timeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public static NonBlockingWriteConfiguration defaultInstance() {
+        return new NonBlockingWriteConfiguration();
+    }
+}
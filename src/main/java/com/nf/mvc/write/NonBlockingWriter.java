@@ -0,0 +1,98 @@
+package com.nf.mvc.write;
+
+import com.nf.mvc.util.LogUtils;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 用servlet3.1的WriteListener非阻塞的写出响应体，调用{@link #start()}之后当前线程直接返回，
+ * 之后每当{@link ServletOutputStream#isReady()}为true时容器线程会回调{@link #onWritePossible()}，
+ * 此时从{@link ChunkSource}中读取下一块内容写出，直到输出流不可写为止，然后线程返回，等待下一次可写时继续
+ * <h3>处理逻辑</h3>
+ * <ol>
+ *     <li>缓冲区中还有没写出的内容时先写出</li>
+ *     <li>缓冲区空了就从来源读取下一块，来源读完时调用{@link Callback#onComplete()}</li>
+ *     <li>出错时调用{@link Callback#onError(Throwable)}</li>
+ * </ol>
+ * <p>ServletOutputStream只能写出byte[]，所以缓冲区是堆内的，文件通道等来源直接读到这个数组里，不需要再复制一次</p>
+ * <p>不论是完成还是出错，来源都会被关闭，异步请求的结束由回调负责</p>
+ *
+ * @see ChunkSource
+ */
+public class NonBlockingWriter implements WriteListener {
+    private final ServletOutputStream outputStream;
+    private final ChunkSource source;
+    private final ByteBuffer buffer;
+    private final Callback callback;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public NonBlockingWriter(ServletOutputStream outputStream, ChunkSource source, int chunkSize, Callback callback) {
+        this.outputStream = outputStream;
+        this.source = source;
+        this.buffer = ByteBuffer.allocate(chunkSize);
+        ((Buffer) this.buffer).limit(0);
+        this.callback = callback;
+    }
+
+    /**
+     * 注册写监听器，容器在输出流可写时开始回调，必须在已经开启异步处理的请求中调用
+     */
+    public void start() {
+        outputStream.setWriteListener(this);
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        while (outputStream.isReady()) {
+            if (!buffer.hasRemaining()) {
+                ((Buffer) buffer).clear();
+                int count = source.read(buffer);
+                ((Buffer) buffer).flip();
+                if (count == -1) {
+                    close();
+                    callback.onComplete();
+                    return;
+                }
+                if (count == 0) {
+                    continue;
+                }
+            }
+            // isReady为true时write不会阻塞，写不完的部分由容器缓冲，下次可写时再回调
+            outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            ((Buffer) buffer).position(buffer.limit());
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        close();
+        callback.onError(t);
+    }
+
+    /**
+     * 关闭来源，只有第一次调用有效，超时放弃写出时也调用此方法
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                source.close();
+            } catch (IOException e) {
+                LogUtils.warn("关闭响应体的来源失败", e);
+            }
+        }
+    }
+
+    /**
+     * 写出结束的回调，由DispatcherServlet实现，负责结束异步请求
+     */
+    public interface Callback {
+        void onComplete();
+
+        void onError(Throwable error);
+    }
+}
@@ -0,0 +1,45 @@
+package com.nf.mvc.compression;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ContentEncodingTest {
+
+    @Test
+    public void missingOrUnknownCodingsSelectNothing() {
+        assertNull(ContentEncoding.negotiate(null));
+        assertNull(ContentEncoding.negotiate(""));
+        assertNull(ContentEncoding.negotiate("br, identity"));
+    }
+
+    @Test
+    public void gzipIsPreferredOverDeflate() {
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("deflate, gzip"));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("gzip;q=0.5, deflate;q=1"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("br, deflate"));
+    }
+
+    @Test
+    public void zeroQualityRefusesCoding() {
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, deflate"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("GZIP ; Q=0.000, Deflate"));
+        assertNull(ContentEncoding.negotiate("gzip;q=0, deflate;q=0"));
+    }
+
+    @Test
+    public void wildcardAppliesOnlyToCodingsNotNamed() {
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("*"));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("br, *;q=0.1"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, *"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("*, gzip;q=0"));
+        assertNull(ContentEncoding.negotiate("gzip;q=0, deflate;q=0, *"));
+    }
+
+    @Test
+    public void refusedWildcardKeepsNamedCodings() {
+        assertNull(ContentEncoding.negotiate("*;q=0"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("deflate, *;q=0"));
+    }
+}
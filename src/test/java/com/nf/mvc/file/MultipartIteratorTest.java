@@ -0,0 +1,278 @@
+package com.nf.mvc.file;
+
+import com.nf.mvc.body.PayloadTooLargeException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MultipartIteratorTest {
+    private static final String BOUNDARY = "----boundary42";
+    /**
+     * 与MultipartIterator的缓冲区大小相同
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Test
+    public void readsFieldsAndFiles() throws IOException {
+        byte[] body = body("", "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+                + "hello\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a;b.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + "line1\r\nline2\r\n"
+                + "--" + BOUNDARY + "--\r\n", "");
+        MultipartIterator parts = iterator(new ByteArrayInputStream(body), MultipartLimits.UNLIMITED);
+
+        StreamingPart title = parts.next();
+        assertEquals("title", title.getName());
+        assertFalse(title.isFile());
+        assertEquals("hello", title.getString());
+
+        StreamingPart file = parts.next();
+        assertEquals("file", file.getName());
+        assertEquals("a;b.txt", file.getOriginalFilename());
+        assertEquals("text/plain", file.getContentType());
+        assertEquals("line1\r\nline2", file.getString());
+
+        assertFalse(parts.hasNext());
+    }
+
+    /**
+     * 每次只返回几个字节，分隔符与part头会被拆到多次fill中
+     */
+    @Test
+    public void delimiterSplitAcrossReads() throws IOException {
+        byte[] content = "a\r\n--".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = twoFileParts(content, "second".getBytes(StandardCharsets.ISO_8859_1));
+        for (int chunk = 1; chunk <= 13; chunk++) {
+            MultipartIterator parts = iterator(new ChunkedInputStream(body, chunk), MultipartLimits.UNLIMITED);
+            assertArrayEquals("chunk=" + chunk, content, parts.next().getBytes(Integer.MAX_VALUE));
+            assertEquals("chunk=" + chunk, "second", parts.next().getString());
+            assertFalse(parts.hasNext());
+        }
+    }
+
+    /**
+     * 内容比缓冲区大时，分隔符会落在缓冲区的末尾，前半部分在这次读取中，后半部分在下一次读取中
+     */
+    @Test
+    public void delimiterSplitAcrossBufferBoundary() throws IOException {
+        int headerLength = twoFileParts(new byte[0], new byte[0]).length;
+        for (int size = BUFFER_SIZE - headerLength - 40; size <= BUFFER_SIZE - headerLength + 40; size++) {
+            byte[] content = content(size);
+            byte[] body = twoFileParts(content, "tail".getBytes(StandardCharsets.ISO_8859_1));
+            MultipartIterator parts = iterator(new ChunkedInputStream(body, BUFFER_SIZE), MultipartLimits.UNLIMITED);
+            assertArrayEquals("size=" + size, content, parts.next().getBytes(Integer.MAX_VALUE));
+            assertEquals("size=" + size, "tail", parts.next().getString());
+            assertFalse(parts.hasNext());
+        }
+    }
+
+    @Test
+    public void skipsUnreadContent() throws IOException {
+        byte[] body = twoFileParts(content(200_000), "tail".getBytes(StandardCharsets.ISO_8859_1));
+        MultipartIterator parts = iterator(new ChunkedInputStream(body, 1000), MultipartLimits.UNLIMITED);
+        assertEquals("first", parts.next().getName());
+        StreamingPart second = parts.next();
+        assertEquals("second", second.getName());
+        assertEquals("tail", second.getString());
+        assertFalse(parts.hasNext());
+    }
+
+    @Test
+    public void ignoresPreambleAndEpilogue() throws IOException {
+        byte[] body = body("This is the preamble.\r\nIt is ignored.\r\n",
+                "--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"only\"\r\n\r\n"
+                        + "value\r\n"
+                        + "--" + BOUNDARY + "--",
+                "\r\nThis is the epilogue, --" + BOUNDARY + " is not a part.\r\n");
+        MultipartIterator parts = iterator(new ChunkedInputStream(body, 5), MultipartLimits.UNLIMITED);
+        StreamingPart only = parts.next();
+        assertEquals("only", only.getName());
+        assertEquals("value", only.getString());
+        assertFalse(parts.hasNext());
+    }
+
+    @Test
+    public void truncatedContentFailsWhenRead() throws IOException {
+        byte[] body = body("", "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.bin\"\r\n\r\n"
+                + "no closing delimiter", "");
+        MultipartIterator parts = iterator(new ByteArrayInputStream(body), MultipartLimits.UNLIMITED);
+        StreamingPart file = parts.next();
+        try {
+            file.getBytes(Integer.MAX_VALUE);
+            fail("没有结束分隔符的part应该读取失败");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("不完整"));
+        }
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void truncatedHeadersFailInHasNext() {
+        byte[] body = body("", "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"x\"\r\n", "");
+        iterator(new ByteArrayInputStream(body), MultipartLimits.UNLIMITED).hasNext();
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void truncatedAfterDelimiterFailsInHasNext() {
+        MultipartIterator parts = iterator(new ByteArrayInputStream(body("", "--" + BOUNDARY, "")), MultipartLimits.UNLIMITED);
+        parts.hasNext();
+    }
+
+    @Test
+    public void rejectsHeadersOverSixteenKilobytes() {
+        char[] value = new char[17 * 1024];
+        Arrays.fill(value, 'x');
+        byte[] body = body("", "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"x\"\r\n"
+                + "X-Large: " + new String(value) + "\r\n\r\n"
+                + "value\r\n"
+                + "--" + BOUNDARY + "--\r\n", "");
+        MultipartIterator parts = iterator(new ChunkedInputStream(body, 4096), MultipartLimits.UNLIMITED);
+        try {
+            parts.hasNext();
+            fail("超过16K的part头应该被拒绝");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("part头超过了"));
+        }
+    }
+
+    @Test
+    public void enforcesPartLimit() throws IOException {
+        byte[] body = twoFileParts(content(100), "ok".getBytes(StandardCharsets.ISO_8859_1));
+        MultipartIterator parts = iterator(new ByteArrayInputStream(body), new MultipartLimits(50, -1));
+        try {
+            parts.next().getBytes(Integer.MAX_VALUE);
+            fail("超过单个part限制的内容应该被拒绝");
+        } catch (PayloadTooLargeException e) {
+            assertEquals(50, e.getMaxSize());
+        }
+    }
+
+    @Test
+    public void enforcesRequestLimit() throws IOException {
+        byte[] body = twoFileParts(content(200_000), "ok".getBytes(StandardCharsets.ISO_8859_1));
+        MultipartIterator parts = iterator(new ChunkedInputStream(body, 8192), new MultipartLimits(-1, 100_000));
+        StreamingPart first = parts.next();
+        try {
+            first.getBytes(Integer.MAX_VALUE);
+            fail("超过整个请求限制的内容应该被拒绝");
+        } catch (PayloadTooLargeException e) {
+            assertEquals(100_000, e.getMaxSize());
+        }
+    }
+
+    @Test
+    public void requestLimitWhileSkippingIsWrappedInHasNext() {
+        byte[] body = twoFileParts(content(200_000), "ok".getBytes(StandardCharsets.ISO_8859_1));
+        MultipartIterator parts = iterator(new ChunkedInputStream(body, 8192), new MultipartLimits(-1, 100_000));
+        parts.next();
+        try {
+            parts.hasNext();
+            fail("跳过内容时超过整个请求的限制也应该被拒绝");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause() instanceof PayloadTooLargeException);
+        }
+    }
+
+    @Test
+    public void getBytesRejectsContentOverMaxSize() throws IOException {
+        byte[] body = twoFileParts(content(100), "ok".getBytes(StandardCharsets.ISO_8859_1));
+        MultipartIterator parts = iterator(new ByteArrayInputStream(body), MultipartLimits.UNLIMITED);
+        try {
+            parts.next().getBytes(99);
+            fail("超过maxSize的内容应该被拒绝");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("99"));
+        }
+        assertEquals("ok", parts.next().getString());
+    }
+
+    @Test
+    public void missingBoundaryIsNotMultipart() {
+        assertNull(MultipartIterator.getBoundary("multipart/form-data"));
+        assertNull(MultipartIterator.getBoundary("application/json; boundary=x"));
+        assertEquals("a b", MultipartIterator.getBoundary("multipart/form-data; Boundary=\"a b\""));
+    }
+
+    private static MultipartIterator iterator(InputStream input, MultipartLimits limits) {
+        return new MultipartIterator(input, BOUNDARY, StandardCharsets.UTF_8, limits);
+    }
+
+    private static byte[] body(String preamble, String parts, String epilogue) {
+        return (preamble + parts + epilogue).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] twoFileParts(byte[] first, byte[] second) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAscii(out, "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"first\"; filename=\"1.bin\"\r\n\r\n");
+        out.write(first, 0, first.length);
+        writeAscii(out, "\r\n--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"second\"\r\n\r\n");
+        out.write(second, 0, second.length);
+        writeAscii(out, "\r\n--" + BOUNDARY + "--\r\n");
+        return out.toByteArray();
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 内容中包含\r、\n与-，容易与分隔符的开头混淆
+     */
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        byte[] pattern = "\r\n-\r\n--x0123456789".getBytes(StandardCharsets.ISO_8859_1);
+        for (int i = 0; i < size; i++) {
+            content[i] = pattern[i % pattern.length];
+        }
+        return content;
+    }
+
+    /**
+     * 每次read最多返回chunk个字节，模拟网络上分批到达的请求体
+     */
+    private static class ChunkedInputStream extends InputStream {
+        private final byte[] data;
+        private final int chunk;
+        private int position;
+
+        ChunkedInputStream(byte[] data, int chunk) {
+            this.data = data;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= data.length) {
+                return -1;
+            }
+            int count = Math.min(Math.min(len, chunk), data.length - position);
+            System.arraycopy(data, position, b, off, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.nf.mvc.ratelimit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBucketTest {
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * System.nanoTime的起点是任意的，测试时钟也不从0开始
+     */
+    private static final long START = 123_456_789L;
+
+    @Test
+    public void fullBucketAllowsBurstAndCountsDown() {
+        TokenBucket bucket = new TokenBucket(3, INTERVAL, START);
+        assertEquals(2, bucket.tryConsume(START));
+        assertEquals(1, bucket.tryConsume(START));
+        assertEquals(0, bucket.tryConsume(START));
+        assertEquals(-INTERVAL, bucket.tryConsume(START));
+        assertEquals(3 * INTERVAL, bucket.getNanosToFull(START));
+    }
+
+    @Test
+    public void rejectionDoesNotConsume() {
+        TokenBucket bucket = new TokenBucket(1, INTERVAL, START);
+        assertEquals(0, bucket.tryConsume(START));
+        assertEquals(-INTERVAL, bucket.tryConsume(START));
+        assertEquals(-INTERVAL / 2, bucket.tryConsume(START + INTERVAL / 2));
+        assertEquals(0, bucket.tryConsume(START + INTERVAL));
+    }
+
+    @Test
+    public void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(3, INTERVAL, START);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryConsume(START);
+        }
+        long now = START + INTERVAL * 3 / 2;
+        assertEquals(0, bucket.tryConsume(now));
+        assertEquals(-INTERVAL / 2, bucket.tryConsume(now));
+        assertEquals(INTERVAL * 5 / 2, bucket.getNanosToFull(now));
+    }
+
+    @Test
+    public void idleBucketRefillsOnlyUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(3, INTERVAL, START);
+        bucket.tryConsume(START);
+        long later = START + 100 * INTERVAL;
+        assertEquals(0, bucket.getNanosToFull(later));
+        assertEquals(2, bucket.tryConsume(later));
+        assertEquals(1, bucket.tryConsume(later));
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(-INTERVAL, bucket.tryConsume(later));
+    }
+
+    @Test
+    public void retryAfterRoundsUpToWholeSeconds() {
+        TokenBucket bucket = new TokenBucket(1, TimeUnit.MILLISECONDS.toNanos(1500), START);
+        bucket.tryConsume(START);
+        long wait = -bucket.tryConsume(START + TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1300), wait);
+        assertEquals(2, RateLimitInterceptor.toSeconds(wait));
+        assertEquals(0, RateLimitInterceptor.toSeconds(0));
+        assertEquals(1, RateLimitInterceptor.toSeconds(1));
+        assertEquals(1, RateLimitInterceptor.toSeconds(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(2, RateLimitInterceptor.toSeconds(TimeUnit.SECONDS.toNanos(1) + 1));
+    }
+}
@@ -0,0 +1,39 @@
+package com.nf.mvc.support.path;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AntPatternComparatorTest {
+
+    /**
+     * 两个模式的路径变量与通配符数量相同时按长度比较，路径变量算作一个字符，长的更具体
+     */
+    @Test
+    public void patternsWithUriVariablesCompareByLength() {
+        AntPatternComparator comparator = new AntPatternComparator("/products/42/reviews");
+        assertTrue(comparator.compare("/products/{id}/reviews", "/products/{id}/r") < 0);
+        assertTrue(comparator.compare("/products/{id}/r", "/products/{id}/reviews") > 0);
+        assertEquals(0, comparator.compare("/a/{id}", "/{name}/b"));
+    }
+
+    @Test
+    public void prefixPatternsCompareByLength() {
+        AntPatternComparator comparator = new AntPatternComparator("/api/v1/{id}");
+        assertTrue(comparator.compare("/api/{version}/**", "/api/**") < 0);
+    }
+
+    @Test
+    public void sortsMostSpecificPatternFirst() {
+        List<String> patterns = new ArrayList<>(Arrays.asList(
+                "/**", "/products/**", "/products/{id}", "/products/{id}/{section}", "/products/42"));
+        patterns.sort(new AntPatternComparator("/products/42"));
+        assertEquals(Arrays.asList(
+                "/products/42", "/products/{id}", "/products/{id}/{section}", "/products/**", "/**"), patterns);
+    }
+}
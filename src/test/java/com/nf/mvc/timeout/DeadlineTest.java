@@ -0,0 +1,41 @@
+package com.nf.mvc.timeout;
+
+import com.nf.mvc.MvcApplication;
+import com.nf.mvc.timeout.app.TimeoutTestController;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeadlineTest {
+    private static MvcApplication application;
+
+    @BeforeClass
+    public static void start() {
+        application = MvcApplication.start("port=0", "basePackage=" + TimeoutTestController.class.getPackage().getName());
+    }
+
+    @AfterClass
+    public static void stop() {
+        application.stop();
+    }
+
+    /**
+     * handler中抛出的超时异常被反射调用包装在InvocationTargetException中，仍然应该响应504
+     */
+    @Test
+    public void checkExpiredInHandlerRespondsGatewayTimeout() throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + application.getPort() + "/timeout/check").openConnection();
+        try {
+            assertEquals(HttpServletResponse.SC_GATEWAY_TIMEOUT, connection.getResponseCode());
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
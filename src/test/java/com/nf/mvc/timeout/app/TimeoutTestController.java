@@ -0,0 +1,21 @@
+package com.nf.mvc.timeout.app;
+
+import com.nf.mvc.mapping.RequestMapping;
+import com.nf.mvc.timeout.Deadline;
+import com.nf.mvc.timeout.Timeout;
+
+/**
+ * 按照{@link Deadline}文档推荐的方式在循环中检查截止时间的handler，没有参数，所以测试编译不需要-parameters选项
+ */
+@RequestMapping("/timeout")
+public class TimeoutTestController {
+    @RequestMapping("/check")
+    @Timeout(50)
+    public String check() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Thread.sleep(10);
+            Deadline.current().checkExpired();
+        }
+        return "finished";
+    }
+}
@@ -0,0 +1,75 @@
+package com.nf.mvc.upload;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class UploadRangesTest {
+
+    @Test
+    public void overlappingRangesAreCountedOnce() {
+        UploadRanges ranges = new UploadRanges();
+        ranges.add(0, 100);
+        ranges.add(50, 150);
+        assertEquals("0-149", ranges.toString());
+        assertEquals(150, ranges.getTotal());
+    }
+
+    @Test
+    public void adjacentRangesMergeOnBothSides() {
+        UploadRanges ranges = new UploadRanges();
+        ranges.add(100, 200);
+        ranges.add(200, 300);
+        ranges.add(0, 100);
+        assertEquals("0-299", ranges.toString());
+        assertEquals(300, ranges.getTotal());
+    }
+
+    @Test
+    public void containedAndDuplicateRangesChangeNothing() {
+        UploadRanges ranges = new UploadRanges();
+        ranges.add(0, 100);
+        ranges.add(0, 100);
+        ranges.add(10, 20);
+        ranges.add(5, 5);
+        assertEquals("0-99", ranges.toString());
+        assertEquals(100, ranges.getTotal());
+    }
+
+    @Test
+    public void rangeSpanningSeveralGapsAbsorbsThem() {
+        UploadRanges ranges = new UploadRanges();
+        ranges.add(10, 20);
+        ranges.add(30, 40);
+        ranges.add(50, 60);
+        assertEquals("10-19,30-39,50-59", ranges.toString());
+        assertEquals(30, ranges.getTotal());
+        ranges.add(15, 55);
+        assertEquals("10-59", ranges.toString());
+        assertEquals(50, ranges.getTotal());
+    }
+
+    @Test
+    public void outOfOrderChunksCompleteTheFile() {
+        long length = 1000;
+        UploadRanges ranges = new UploadRanges();
+        ranges.add(750, 1000);
+        ranges.add(250, 500);
+        assertEquals(0, ranges.getContiguousLength());
+        ranges.add(0, 250);
+        assertEquals(500, ranges.getContiguousLength());
+        assertEquals(750, ranges.getTotal());
+        ranges.add(400, 800);
+        assertEquals(length, ranges.getContiguousLength());
+        assertEquals(length, ranges.getTotal());
+        assertEquals("0-999", ranges.toString());
+    }
+
+    @Test
+    public void emptyRangesHaveNothing() {
+        UploadRanges ranges = new UploadRanges();
+        assertEquals("", ranges.toString());
+        assertEquals(0, ranges.getTotal());
+        assertEquals(0, ranges.getContiguousLength());
+    }
+}
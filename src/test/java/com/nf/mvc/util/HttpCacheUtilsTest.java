@@ -0,0 +1,41 @@
+package com.nf.mvc.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HttpCacheUtilsTest {
+
+    @Test
+    public void encodedETagAppendsCodingInsideQuotes() {
+        assertEquals("\"1f4-18b-gzip\"",
+                HttpCacheUtils.encodedETag("\"1f4-18b\"", "gzip"));
+        assertEquals("W/\"abc-deflate\"", HttpCacheUtils.encodedETag("W/\"abc\"", "deflate"));
+        assertEquals("\"abc-gzip\"", HttpCacheUtils.encodedETag("\"abc-gzip\"", "gzip"));
+        assertEquals("abc", HttpCacheUtils.encodedETag("abc", "gzip"));
+    }
+
+    @Test
+    public void compressedETagMatchesItsResource() {
+        assertTrue(HttpCacheUtils.etagMatches("\"abc-gzip\"", "\"abc\""));
+        assertTrue(HttpCacheUtils.etagMatches("W/\"x\", \"abc-deflate\"", "\"abc\""));
+        assertTrue(HttpCacheUtils.etagMatches("*", "\"abc\""));
+        assertFalse(HttpCacheUtils.etagMatches("\"abd-gzip\"", "\"abc\""));
+        assertFalse(HttpCacheUtils.etagMatches("\"abc-br\"", "\"abc\""));
+    }
+
+    @Test
+    public void parsesAllThreeHttpDateFormats() {
+        long expected = 784111777000L;
+        assertEquals(expected, HttpCacheUtils.parseHttpDate("Sun, 06 Nov 1994 08:49:37 GMT"));
+        assertEquals(expected, HttpCacheUtils.parseHttpDate("Sunday, 06-Nov-94 08:49:37 GMT"));
+        assertEquals(expected, HttpCacheUtils.parseHttpDate("Sun Nov  6 08:49:37 1994"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMalformedHttpDate() {
+        HttpCacheUtils.parseHttpDate("yesterday");
+    }
+}
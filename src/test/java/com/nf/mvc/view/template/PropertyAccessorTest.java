@@ -0,0 +1,58 @@
+package com.nf.mvc.view.template;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PropertyAccessorTest {
+
+    @Test
+    public void jdkInternalTypesResolveThroughPublicInterface() {
+        Map<String, Integer> map = new HashMap<>();
+        map.put("a", 1);
+        Map.Entry<String, Integer> entry = map.entrySet().iterator().next();
+        assertEquals("a", lookup(entry, "key"));
+        assertEquals(1, lookup(entry, "value"));
+        assertEquals(true, lookup(Collections.unmodifiableList(Collections.emptyList()), "empty"));
+    }
+
+    @Test
+    public void privateNestedTypeIsMadeAccessible() {
+        Product product = new Product();
+        assertEquals("book", lookup(product, "name"));
+        assertEquals(9, lookup(product, "price"));
+    }
+
+    @Test
+    public void missingPropertyIsNull() {
+        assertNull(lookup(new Product(), "missing"));
+        assertNull(lookup(map("a", 1).entrySet().iterator().next(), "missing"));
+    }
+
+    private static Object lookup(Object scope, String path) {
+        Deque<Object> scopes = new ArrayDeque<>();
+        scopes.push(scope);
+        return PropertyAccessor.lookup(scopes, path.split("\\."));
+    }
+
+    private static Map<String, Integer> map(String key, Integer value) {
+        Map<String, Integer> map = new HashMap<>();
+        map.put(key, value);
+        return map;
+    }
+
+    private static class Product {
+        public int price = 9;
+
+        public String getName() {
+            return "book";
+        }
+    }
+}